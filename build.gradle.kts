@@ -25,8 +25,20 @@ dependencies {
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
+// The SIMD Vector kernels use the incubating Vector API, which is used at runtime when present.
+// Only the main sources use it, and the warning that it is incubating is expected
+tasks.compileJava {
+    options.compilerArgs.addAll(listOf("--add-modules=jdk.incubator.vector", "-Xlint:-incubating"))
+}
+
+tasks.withType<Test>().configureEach {
+    jvmArgs("--add-modules=jdk.incubator.vector")
+}
+
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     finalizedBy(tasks.jacocoTestReport)
 
     // Improved test output configuration for better feedback
@@ -47,6 +59,22 @@ tasks.test {
     }
 }
 
+// Benchmarks are excluded from the normal test run as they are slow and timing dependent
+tasks.register<Test>("benchmark") {
+    group = "verification"
+    description = "Runs the benchmark tests and prints their timings"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging {
+        events("passed", "skipped", "failed")
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+}
+
 // Add task to print test results summary from XML
 tasks.register("testSummary") {
     group = "verification"
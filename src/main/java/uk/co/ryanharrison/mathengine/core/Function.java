@@ -1,9 +1,13 @@
 package uk.co.ryanharrison.mathengine.core;
 
 import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.CompiledExpression;
+import uk.co.ryanharrison.mathengine.parser.EvaluationMode;
 import uk.co.ryanharrison.mathengine.parser.Evaluator;
 import uk.co.ryanharrison.mathengine.parser.nodes.Node;
 
+import java.util.function.DoubleUnaryOperator;
+
 /**
  * Class representing a function of one variable that can be evaluated
  *
@@ -26,12 +30,41 @@ public final class Function {
      */
     private String variable;
 
+    /**
+     * The strategy used when evaluating this function at a double value
+     */
+    private EvaluationMode mode;
+
     /**
      * An Evaluator instance used when evaluating the function This gets lazily
      * initialised when needed
      */
     private Evaluator evaluator;
 
+    /**
+     * The equation parsed into an expression tree. This is built once alongside
+     * the evaluator and reused for every evaluation
+     */
+    private Node expression;
+
+    /**
+     * The expression tree simplified for evaluation at double values, with everything not
+     * depending on the variable evaluated once up front, and compiled with the variable as its
+     * only parameter. Only built in the {@link EvaluationMode#Tree} mode
+     */
+    private CompiledExpression optimized;
+
+    /**
+     * The expression compiled into a primitive operator. Only built when the evaluation
+     * mode is not {@link EvaluationMode#Tree}
+     */
+    private DoubleUnaryOperator operator;
+
+    /**
+     * Run before every evaluation, or null if there is nothing to check
+     */
+    private Runnable evaluationCheck;
+
     /**
      * Construct a new function with the specified equation
      *
@@ -69,10 +102,43 @@ public final class Function {
      * @param angleUnit The angle unit
      */
     public Function(String equation, String variable, AngleUnit angleUnit) {
+        this(equation, variable, angleUnit, EvaluationMode.Tree);
+    }
+
+    /**
+     * Construct a new function with specified equation, variable, angle unit and
+     * evaluation mode
+     * <p>
+     * Modes other than {@link EvaluationMode#Tree} evaluate in double precision and
+     * trade the exact rational arithmetic of the tree walker for speed
+     *
+     * @param equation  The equation
+     * @param variable  The variable
+     * @param angleUnit The angle unit
+     * @param mode      The evaluation mode
+     */
+    public Function(String equation, String variable, AngleUnit angleUnit, EvaluationMode mode) {
         this.equation = equation;
         this.variable = variable;
         this.angleUnit = angleUnit;
+        this.mode = mode;
         this.evaluator = null;
+        this.expression = null;
+        this.optimized = null;
+        this.operator = null;
+    }
+
+    /**
+     * Create a copy of this function which runs a check before every evaluation. The check can
+     * stop a long-running caller, such as a solver, by throwing
+     *
+     * @param check The check to run before each evaluation
+     * @return The new function
+     */
+    public Function withEvaluationCheck(Runnable check) {
+        Function function = new Function(equation, variable, angleUnit, mode);
+        function.evaluationCheck = check;
+        return function;
     }
 
     /**
@@ -85,6 +151,12 @@ public final class Function {
 
         this.evaluator.addVariable(this.variable, "0");
         this.evaluator.setAngleUnit(this.angleUnit);
+        this.expression = this.evaluator.generateTree(equation);
+
+        if (this.mode != EvaluationMode.Tree)
+            this.operator = this.evaluator.compileUnary(expression, variable, mode);
+        else
+            this.optimized = this.evaluator.compile(this.evaluator.optimize(expression, variable), variable);
     }
 
     /**
@@ -96,7 +168,49 @@ public final class Function {
      * @return The function evaluated at the specified point
      */
     public double evaluateAt(double at) {
-        return evaluateAt(Double.toString(at));
+        // initialise the evaluator if not already done
+        if (this.evaluator == null)
+            initEvaluator();
+        if (this.evaluationCheck != null)
+            this.evaluationCheck.run();
+
+        if (this.operator != null)
+            return this.operator.applyAsDouble(at);
+
+        // the variable is read from a slot of the simplified tree rather than looked up by name
+        return this.optimized.evaluateDouble(at);
+    }
+
+    /**
+     * Evaluate the function at every point of an array in one call
+     * <p>
+     * In the {@link EvaluationMode#Tree} mode this is the same as calling
+     * {@link #evaluateAt(double)} for each point. In the other modes functions that only
+     * use numeric operators are evaluated a block of points at a time, which is much
+     * faster than evaluating them one point at a time
+     *
+     * @param xs  The points to evaluate at
+     * @param out Receives the function evaluated at each point of {@code xs}
+     * @throws IllegalArgumentException if {@code out} is shorter than {@code xs}
+     */
+    public void evaluateAll(double[] xs, double[] out) {
+        // initialise the evaluator if not already done
+        if (this.evaluator == null)
+            initEvaluator();
+
+        if (this.mode != EvaluationMode.Tree) {
+            if (this.evaluationCheck != null)
+                this.evaluationCheck.run();
+            this.evaluator.evaluateAll(expression, variable, xs, out);
+            return;
+        }
+
+        if (out.length < xs.length)
+            throw new IllegalArgumentException("Expected an output array of at least "
+                    + xs.length + " elements, got: " + out.length);
+
+        for (int i = 0; i < xs.length; i++)
+            out[i] = evaluateAt(xs[i]);
     }
 
     /**
@@ -111,10 +225,13 @@ public final class Function {
         // initialise the evaluator if not already done
         if (this.evaluator == null)
             initEvaluator();
+        if (this.evaluationCheck != null)
+            this.evaluationCheck.run();
 
-        // add the variable and evaluate the cached tree to a double
+        // add the variable and evaluate the cached tree to a double. The value may not be
+        // a number, so the tree simplified for numbers is not used
         this.evaluator.addVariable(variable, at);
-        return this.evaluator.evaluateDouble(equation);
+        return this.evaluator.evaluateDouble(expression);
     }
 
     /**
@@ -135,6 +252,15 @@ public final class Function {
         return this.variable;
     }
 
+    /**
+     * Get the evaluation mode of this function
+     *
+     * @return This functions evaluation mode
+     */
+    public EvaluationMode getEvaluationMode() {
+        return this.mode;
+    }
+
     /**
      * Get this function compiled into a Node expression tree
      *
@@ -145,7 +271,7 @@ public final class Function {
         if (this.evaluator == null)
             initEvaluator();
 
-        return evaluator.generateTree(equation);
+        return expression;
     }
 
     /**
@@ -212,14 +212,21 @@ public final class RectangularIntegrator implements IntegrationMethod {
         double stepSize = range / iterations;
         double offset = position.getOffset();
 
+        double[] xs = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            xs[i] = lowerBound + (i + offset) * stepSize;
+        }
+
+        double[] fxs = new double[iterations];
+        targetFunction.evaluateAll(xs, fxs);
+
         double sum = 0.0;
         for (int i = 0; i < iterations; i++) {
-            double x = lowerBound + (i + offset) * stepSize;
-            double fx = targetFunction.evaluateAt(x);
+            double fx = fxs[i];
 
             if (!Double.isFinite(fx)) {
                 throw new ArithmeticException(
-                        "Function evaluation produced non-finite value at x = " + x + ": " + fx);
+                        "Function evaluation produced non-finite value at x = " + xs[i] + ": " + fx);
             }
 
             sum += fx;
@@ -177,9 +177,23 @@ public final class SimpsonIntegrator implements IntegrationMethod {
     public double integrate() {
         double range = upperBound - lowerBound;
 
-        // Evaluate endpoints
-        double fa = targetFunction.evaluateAt(lowerBound);
-        double fb = targetFunction.evaluateAt(upperBound);
+        // Evaluate every point in one batch. The first iterations points are the midpoints
+        // at odd multiples of h/2, followed by the interior boundary points and the endpoints
+        int n = iterations;
+        double[] xs = new double[2 * n + 1];
+        xs[0] = lowerBound + range / (n * 2.0);
+        for (int i = 1; i < n; i++) {
+            xs[i] = lowerBound + range * (i + 0.5) / n;
+            xs[n + i - 1] = lowerBound + range * i / n;
+        }
+        xs[2 * n - 1] = lowerBound;
+        xs[2 * n] = upperBound;
+
+        double[] fxs = new double[xs.length];
+        targetFunction.evaluateAll(xs, fxs);
+
+        double fa = fxs[2 * n - 1];
+        double fb = fxs[2 * n];
 
         if (!Double.isFinite(fa)) {
             throw new ArithmeticException(
@@ -191,7 +205,7 @@ public final class SimpsonIntegrator implements IntegrationMethod {
         }
 
         // Sum midpoints (weighted by 4) - these are at odd multiples of h/2
-        double sum1 = targetFunction.evaluateAt(lowerBound + range / (iterations * 2.0));
+        double sum1 = fxs[0];
         if (!Double.isFinite(sum1)) {
             throw new ArithmeticException(
                     "Function evaluation produced non-finite value during integration");
@@ -200,25 +214,23 @@ public final class SimpsonIntegrator implements IntegrationMethod {
         // Sum interior points and their corresponding midpoints
         double sum2 = 0.0;
 
-        for (int i = 1; i < iterations; i++) {
+        for (int i = 1; i < n; i++) {
             // Midpoint at (i + 0.5) * h - weighted by 4
-            double x1 = lowerBound + range * (i + 0.5) / iterations;
-            double fx1 = targetFunction.evaluateAt(x1);
+            double fx1 = fxs[i];
 
             if (!Double.isFinite(fx1)) {
                 throw new ArithmeticException(
-                        "Function evaluation produced non-finite value at x = " + x1 + ": " + fx1);
+                        "Function evaluation produced non-finite value at x = " + xs[i] + ": " + fx1);
             }
 
             sum1 += fx1;
 
             // Interior boundary point at i * h - weighted by 2
-            double x2 = lowerBound + range * i / iterations;
-            double fx2 = targetFunction.evaluateAt(x2);
+            double fx2 = fxs[n + i - 1];
 
             if (!Double.isFinite(fx2)) {
                 throw new ArithmeticException(
-                        "Function evaluation produced non-finite value at x = " + x2 + ": " + fx2);
+                        "Function evaluation produced non-finite value at x = " + xs[n + i - 1] + ": " + fx2);
             }
 
             sum2 += fx2;
@@ -159,23 +159,33 @@ public final class TrapeziumIntegrator implements IntegrationMethod {
         double range = upperBound - lowerBound;
         double stepSize = range / iterations;
 
+        // Evaluate every point in one batch: index 0 and iterations are the endpoints
+        double[] xs = new double[iterations + 1];
+        for (int i = 1; i < iterations; i++) {
+            xs[i] = lowerBound + i * stepSize;
+        }
+        xs[0] = lowerBound;
+        xs[iterations] = upperBound;
+
+        double[] fxs = new double[xs.length];
+        targetFunction.evaluateAll(xs, fxs);
+
         // Sum interior points (weighted by 1.0 in trapezoidal rule)
         double sum = 0.0;
         for (int i = 1; i < iterations; i++) {
-            double x = lowerBound + i * stepSize;
-            double fx = targetFunction.evaluateAt(x);
+            double fx = fxs[i];
 
             if (!Double.isFinite(fx)) {
                 throw new ArithmeticException(
-                        "Function evaluation produced non-finite value at x = " + x + ": " + fx);
+                        "Function evaluation produced non-finite value at x = " + xs[i] + ": " + fx);
             }
 
             sum += fx;
         }
 
         // Add endpoints with weight 0.5
-        double fa = targetFunction.evaluateAt(lowerBound);
-        double fb = targetFunction.evaluateAt(upperBound);
+        double fa = fxs[0];
+        double fb = fxs[iterations];
 
         if (!Double.isFinite(fa)) {
             throw new ArithmeticException(
@@ -0,0 +1,262 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multiplies large matrices with a cache blocked kernel, splitting the rows of the result across
+ * the common fork/join pool.
+ * <p>
+ * B is first copied into panels of {@link #NR} columns, stored so that the values a row of A is
+ * multiplied by are adjacent in memory. The product is then built up one block of
+ * {@link #KC} inner indices at a time, and within that for groups of panels small enough to stay
+ * in cache while every row of A in a task passes over them. The innermost kernel computes a
+ * {@link #MR} × {@link #NR} tile of the result in local variables, which the JIT keeps in
+ * registers, so each value loaded from A or B is used four times.
+ * </p>
+ * <p>
+ * Each element of the result is the sum of the same products as the simple triple loop, but
+ * they are added in blocks, so results may differ from it in the last few bits. Every element is
+ * written by exactly one task and the order of additions does not depend on the number of
+ * threads, so results are the same whether or not the work is run in parallel.
+ * </p>
+ */
+final class BlockedMultiplication {
+
+    /**
+     * The number of multiply-adds (rows × inner × columns) from which the blocked kernel is used
+     * in place of the simple loop
+     */
+    static final long BLOCKED_THRESHOLD = 64L * 64 * 64;
+
+    /**
+     * The number of multiply-adds from which the rows of the result are computed in parallel
+     */
+    static final long PARALLEL_THRESHOLD = 128L * 128 * 128;
+
+    /**
+     * Rows of the result in each register tile
+     */
+    private static final int MR = 4;
+
+    /**
+     * Columns of the result in each register tile, and so in each panel of B
+     */
+    private static final int NR = 4;
+
+    /**
+     * Inner indices in each block, sized so that one tile's rows of A fit in the L1 cache
+     */
+    private static final int KC = 256;
+
+    /**
+     * Panels of B in each group, sized so that a group of {@link #KC} rows fits in the L2 cache
+     */
+    private static final int PANELS_PER_GROUP = 64;
+
+    /**
+     * Rows of the result computed by each task
+     */
+    private static final int ROWS_PER_TASK = 64;
+
+    /**
+     * The elements of A, row by row from {@link #aOffset} with {@link #aRowStride} between rows
+     */
+    private final double[] a;
+    private final int aOffset;
+    private final int aRowStride;
+    private final double[] packed;
+    private final double[] c;
+    private final int inner;
+    private final int columns;
+    private final int panels;
+
+    private BlockedMultiplication(Matrix a, Matrix b, double[] c) {
+        if (a.getColumnStride() == 1) {
+            this.a = a.getData();
+            this.aOffset = a.getOffset();
+            this.aRowStride = a.getRowStride();
+        } else {
+            // rows of a transposed view are scattered, so are gathered once up front
+            this.a = a.getRowPackedCopy();
+            this.aOffset = 0;
+            this.aRowStride = a.getColumnCount();
+        }
+        this.inner = a.getColumnCount();
+        this.columns = b.getColumnCount();
+        this.panels = (columns + NR - 1) / NR;
+        this.packed = pack(b, inner, columns, panels);
+        this.c = c;
+    }
+
+    /**
+     * Check whether a product is large enough to use the blocked kernel
+     *
+     * @param rows    The number of rows of A
+     * @param inner   The number of columns of A and rows of B
+     * @param columns The number of columns of B
+     * @return Whether {@link #multiply} should be used
+     */
+    static boolean isBlocked(int rows, int inner, int columns) {
+        return (long) rows * inner * columns >= BLOCKED_THRESHOLD;
+    }
+
+    /**
+     * Compute A × B into an array, replacing what it held before
+     *
+     * @param a The matrix A
+     * @param b The matrix B, with as many rows as A has columns
+     * @param c The array to hold the elements of the product in row-major order, which must not
+     *          hold the elements of A or B
+     */
+    static void multiply(Matrix a, Matrix b, double[] c) {
+        int rows = a.getRowCount();
+        // the kernel adds to the result block by block
+        Arrays.fill(c, 0, rows * b.getColumnCount(), 0.0);
+        BlockedMultiplication multiplication = new BlockedMultiplication(a, b, c);
+        boolean parallel = (long) rows * multiplication.inner * multiplication.columns >= PARALLEL_THRESHOLD
+                && rows > ROWS_PER_TASK
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(multiplication.new RowBlocks(0, rows));
+        } else {
+            multiplication.computeRows(0, rows);
+        }
+    }
+
+    /**
+     * Copy B into panels of {@link #NR} columns. Panel p holds, for each inner index k in turn,
+     * the values B[k][p·NR] to B[k][p·NR + NR - 1], padded with zeros past the last column
+     */
+    private static double[] pack(Matrix b, int inner, int columns, int panels) {
+        double[] data = b.getData();
+        int rowStride = b.getRowStride();
+        int columnStride = b.getColumnStride();
+        double[] packed = new double[panels * inner * NR];
+        for (int p = 0; p < panels; p++) {
+            int j0 = p * NR;
+            int width = Math.min(NR, columns - j0);
+            int offset = p * inner * NR;
+            for (int k = 0; k < inner; k++) {
+                int from = b.getOffset() + k * rowStride + j0 * columnStride;
+                for (int jr = 0; jr < width; jr++) {
+                    packed[offset + k * NR + jr] = data[from + jr * columnStride];
+                }
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Compute the rows of the result from {@code from} inclusive to {@code to} exclusive
+     */
+    private void computeRows(int from, int to) {
+        for (int k0 = 0; k0 < inner; k0 += KC) {
+            int k1 = Math.min(k0 + KC, inner);
+            for (int p0 = 0; p0 < panels; p0 += PANELS_PER_GROUP) {
+                int p1 = Math.min(p0 + PANELS_PER_GROUP, panels);
+                int i = from;
+                for (; i + MR <= to; i += MR) {
+                    for (int p = p0; p < p1; p++) {
+                        tile(i, p, k0, k1);
+                    }
+                }
+                for (; i < to; i++) {
+                    for (int p = p0; p < p1; p++) {
+                        row(i, p, k0, k1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the products over inner indices k0 to k1 to the {@link #MR} × {@link #NR} tile of the
+     * result starting at row i and panel p
+     */
+    private void tile(int i, int p, int k0, int k1) {
+        int a0 = aOffset + i * aRowStride, a1 = a0 + aRowStride, a2 = a1 + aRowStride, a3 = a2 + aRowStride;
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+        int offset = p * inner * NR + k0 * NR;
+        for (int k = k0; k < k1; k++, offset += NR) {
+            double b0 = packed[offset], b1 = packed[offset + 1], b2 = packed[offset + 2], b3 = packed[offset + 3];
+            double v0 = a[a0 + k], v1 = a[a1 + k], v2 = a[a2 + k], v3 = a[a3 + k];
+            c00 += v0 * b0; c01 += v0 * b1; c02 += v0 * b2; c03 += v0 * b3;
+            c10 += v1 * b0; c11 += v1 * b1; c12 += v1 * b2; c13 += v1 * b3;
+            c20 += v2 * b0; c21 += v2 * b1; c22 += v2 * b2; c23 += v2 * b3;
+            c30 += v3 * b0; c31 += v3 * b1; c32 += v3 * b2; c33 += v3 * b3;
+        }
+
+        store(i, p, c00, c01, c02, c03);
+        store(i + 1, p, c10, c11, c12, c13);
+        store(i + 2, p, c20, c21, c22, c23);
+        store(i + 3, p, c30, c31, c32, c33);
+    }
+
+    /**
+     * Add the products over inner indices k0 to k1 to the {@link #NR} elements of a single row
+     * of the result in panel p, for the rows left over after the last full tile
+     */
+    private void row(int i, int p, int k0, int k1) {
+        int ai = aOffset + i * aRowStride;
+        double c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+
+        int offset = p * inner * NR + k0 * NR;
+        for (int k = k0; k < k1; k++, offset += NR) {
+            double v = a[ai + k];
+            c0 += v * packed[offset];
+            c1 += v * packed[offset + 1];
+            c2 += v * packed[offset + 2];
+            c3 += v * packed[offset + 3];
+        }
+
+        store(i, p, c0, c1, c2, c3);
+    }
+
+    /**
+     * Add the sums of a tile row to row i of the result, dropping those past the last column
+     */
+    private void store(int i, int p, double s0, double s1, double s2, double s3) {
+        int j = p * NR;
+        int width = Math.min(NR, columns - j);
+        int index = i * columns + j;
+        c[index] += s0;
+        if (width > 1)
+            c[index + 1] += s1;
+        if (width > 2)
+            c[index + 2] += s2;
+        if (width > 3)
+            c[index + 3] += s3;
+    }
+
+    /**
+     * Computes a range of rows of the result, splitting it in half until each task has at most
+     * {@link #ROWS_PER_TASK} rows. Split points are kept on tile boundaries
+     */
+    private final class RowBlocks extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        RowBlocks(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                computeRows(from, to);
+                return;
+            }
+
+            int middle = from + ((to - from) / 2 / MR) * MR;
+            invokeAll(new RowBlocks(from, middle), new RowBlocks(middle, to));
+        }
+    }
+}
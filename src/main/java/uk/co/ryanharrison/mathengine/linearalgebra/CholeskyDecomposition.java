@@ -0,0 +1,312 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+/**
+ * Immutable implementation of the Cholesky decomposition of a symmetric positive-definite matrix.
+ * <p>
+ * The Cholesky decomposition expresses a symmetric positive-definite matrix <b>A</b> as the
+ * product of a lower triangular matrix <b>L</b> and its transpose. Mathematically:
+ * </p>
+ * <pre>
+ * A = L * L<sup>T</sup>
+ * </pre>
+ * <p>
+ * where <b>L</b> is an n-by-n lower triangular matrix with positive diagonal elements.
+ * </p>
+ *
+ * <h2>Mathematical Properties:</h2>
+ * <ul>
+ *     <li>The decomposition exists if and only if A is symmetric and positive-definite</li>
+ *     <li>When it exists, L is unique</li>
+ *     <li>No pivoting is needed, as the diagonal of a positive-definite matrix dominates</li>
+ *     <li>The determinant of A equals the square of the product of the diagonal elements of L</li>
+ * </ul>
+ *
+ * <h2>Primary Use Cases:</h2>
+ * <ul>
+ *     <li>Solving systems of linear equations with covariance, Gram or normal-equation matrices,
+ *     in about half the time of {@link LUDecomposition}</li>
+ *     <li>Testing whether a symmetric matrix is positive-definite</li>
+ *     <li>Sampling from multivariate normal distributions</li>
+ * </ul>
+ *
+ * <h2>Implementation:</h2>
+ * <p>
+ * This implementation uses a blocked, right-looking algorithm. The columns are processed in
+ * blocks of {@value #BLOCK_SIZE}: the diagonal block is factored, the rows below it are solved
+ * against it, and its contribution is then subtracted from the remaining lower triangle. Every
+ * step works on dot products along rows restricted to the current block, so the values it reads
+ * are contiguous in memory and stay in cache. Only the lower triangle of the matrix is used by
+ * the factorization, and the decomposition is computed at construction time.
+ * </p>
+ * <p>
+ * If the matrix is not symmetric, or a non-positive value appears on the diagonal during the
+ * factorization, the matrix is not positive-definite and {@link #isSPD()} returns false.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * Matrix A = Matrix.of(new double[][]{
+ *     {4, 12, -16},
+ *     {12, 37, -43},
+ *     {-16, -43, 98}
+ * });
+ * CholeskyDecomposition cholesky = new CholeskyDecomposition(A);
+ *
+ * if (cholesky.isSPD()) {
+ *     Matrix L = cholesky.getL();  // {{2, 0, 0}, {6, 1, 0}, {-8, 5, 3}}
+ *     Matrix X = cholesky.solve(Matrix.of(new double[]{1, 2, 3}));
+ * }
+ * }</pre>
+ *
+ * @author Ryan Harrison
+ * @see <a href="http://math.nist.gov/javanumerics/jama/">JAMA: Java Matrix Package</a>
+ */
+public final class CholeskyDecomposition {
+
+    /**
+     * The number of columns processed in each block.
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * Internal storage of the factor L in the lower triangle. The upper triangle holds the
+     * unused elements of the original matrix.
+     */
+    private final double[][] l;
+
+    /**
+     * Dimension of the original matrix.
+     */
+    private final int n;
+
+    /**
+     * Whether the original matrix is symmetric and positive-definite.
+     */
+    private final boolean spd;
+
+    /**
+     * Constructs a Cholesky decomposition of the specified matrix.
+     * <p>
+     * The decomposition is computed immediately during construction. The input matrix is
+     * deep-copied and not modified. If the matrix is not symmetric no factorization is attempted.
+     * </p>
+     * <p>
+     * <b>Time Complexity:</b> O(n³/3) for an n-by-n matrix
+     * </p>
+     *
+     * @param matrix the square matrix to decompose
+     * @throws IllegalArgumentException if matrix is null or not square
+     */
+    public CholeskyDecomposition(Matrix matrix) {
+        if (matrix == null) {
+            throw new IllegalArgumentException("Matrix cannot be null");
+        }
+        if (!matrix.isSquare()) {
+            throw new IllegalArgumentException(
+                    "Cholesky decomposition requires a square matrix, got "
+                            + matrix.getRowCount() + "x" + matrix.getColumnCount()
+            );
+        }
+
+        // Deep copy the matrix to ensure immutability
+        this.l = matrix.getArrayCopy();
+        this.n = matrix.getRowCount();
+        this.spd = isSymmetric(l) && factor(l, n);
+    }
+
+    private static boolean isSymmetric(double[][] a) {
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (a[i][j] != a[j][i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Overwrite the lower triangle of a with L, block by block
+     *
+     * @return Whether every diagonal element was positive, so that the factorization completed
+     */
+    private static boolean factor(double[][] a, int n) {
+        for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, n);
+
+            // Factor the diagonal block
+            for (int j = k0; j < k1; j++) {
+                double[] lj = a[j];
+                for (int k = k0; k < j; k++) {
+                    double[] lk = a[k];
+                    double s = lj[k];
+                    for (int p = k0; p < k; p++) {
+                        s -= lk[p] * lj[p];
+                    }
+                    lj[k] = s / lk[k];
+                }
+
+                double d = lj[j];
+                for (int p = k0; p < j; p++) {
+                    d -= lj[p] * lj[p];
+                }
+                // also false for NaN
+                if (!(d > 0.0)) {
+                    return false;
+                }
+                lj[j] = Math.sqrt(d);
+            }
+
+            // Solve the rows below the diagonal block against it
+            for (int i = k1; i < n; i++) {
+                double[] li = a[i];
+                for (int j = k0; j < k1; j++) {
+                    double[] lj = a[j];
+                    double s = li[j];
+                    for (int p = k0; p < j; p++) {
+                        s -= li[p] * lj[p];
+                    }
+                    li[j] = s / lj[j];
+                }
+            }
+
+            // Subtract the contribution of this block from the remaining lower triangle
+            for (int i = k1; i < n; i++) {
+                double[] li = a[i];
+                for (int j = k1; j <= i; j++) {
+                    double[] lj = a[j];
+                    double s = 0.0;
+                    for (int p = k0; p < k1; p++) {
+                        s += li[p] * lj[p];
+                    }
+                    li[j] -= s;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the matrix is symmetric and positive-definite.
+     * <p>
+     * <b>Note:</b> Symmetry is tested with exact equality, so a matrix which is only symmetric
+     * to within rounding error is reported as not symmetric.
+     * </p>
+     *
+     * @return {@code true} if the matrix is symmetric and positive-definite, so the decomposition
+     * exists, {@code false} otherwise
+     */
+    public boolean isSPD() {
+        return spd;
+    }
+
+    /**
+     * Returns the lower triangular factor L.
+     * <p>
+     * <b>Time Complexity:</b> O(n²) to construct the matrix
+     * </p>
+     *
+     * @return a new Matrix containing the lower triangular factor
+     * @throws RuntimeException if the matrix is not symmetric positive-definite
+     */
+    public Matrix getL() {
+        checkSPD();
+        double[][] lower = new double[n][n];
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(l[i], 0, lower[i], 0, i + 1);
+        }
+
+        return new Matrix(lower, n, n);
+    }
+
+    /**
+     * Computes the determinant of the original matrix.
+     * <p>
+     * The determinant is the square of the product of the diagonal elements of L.
+     * </p>
+     * <p>
+     * <b>Time Complexity:</b> O(n)
+     * </p>
+     *
+     * @return the determinant of the original matrix
+     * @throws RuntimeException if the matrix is not symmetric positive-definite
+     */
+    public double getDeterminant() {
+        checkSPD();
+        double product = 1.0;
+        for (int j = 0; j < n; j++) {
+            product *= l[j][j];
+        }
+        return product * product;
+    }
+
+    /**
+     * Solves the system of linear equations A*X = B using the Cholesky decomposition.
+     * <p>
+     * The solution is computed in two steps:
+     * </p>
+     * <ol>
+     *     <li>Solve L*Y = B for Y using forward substitution</li>
+     *     <li>Solve L<sup>T</sup>*X = Y for X using backward substitution</li>
+     * </ol>
+     * <p>
+     * <b>Time Complexity:</b> O(n²*k) where n is the dimension and k is the number of
+     * columns in B
+     * </p>
+     *
+     * @param b the right-hand side matrix with the same number of rows as A and any number of columns
+     * @return the solution matrix X such that A*X = B
+     * @throws IllegalArgumentException if B has a different number of rows than A
+     * @throws RuntimeException if the matrix is not symmetric positive-definite
+     */
+    public Matrix solve(Matrix b) {
+        if (b.getRowCount() != n) {
+            throw new IllegalArgumentException(
+                    "Matrix row dimensions must agree. Expected " + n + " rows, got " + b.getRowCount()
+            );
+        }
+        checkSPD();
+
+        int solutionColumns = b.getColumnCount();
+        double[][] x = b.getArrayCopy();
+
+        // Solve L*Y = B using forward substitution
+        for (int k = 0; k < n; k++) {
+            double[] lk = l[k];
+            double[] xk = x[k];
+            for (int i = 0; i < k; i++) {
+                double[] xi = x[i];
+                for (int j = 0; j < solutionColumns; j++) {
+                    xk[j] -= xi[j] * lk[i];
+                }
+            }
+            for (int j = 0; j < solutionColumns; j++) {
+                xk[j] /= lk[k];
+            }
+        }
+
+        // Solve L^T*X = Y using backward substitution
+        for (int k = n - 1; k >= 0; k--) {
+            double[] lk = l[k];
+            double[] xk = x[k];
+            for (int j = 0; j < solutionColumns; j++) {
+                xk[j] /= lk[k];
+            }
+            for (int i = 0; i < k; i++) {
+                double[] xi = x[i];
+                for (int j = 0; j < solutionColumns; j++) {
+                    xi[j] -= xk[j] * lk[i];
+                }
+            }
+        }
+
+        return new Matrix(x, n, solutionColumns);
+    }
+
+    private void checkSPD() {
+        if (!spd) {
+            throw new RuntimeException("Matrix is not symmetric positive-definite");
+        }
+    }
+}
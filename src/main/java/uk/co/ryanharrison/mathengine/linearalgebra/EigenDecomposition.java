@@ -0,0 +1,410 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import uk.co.ryanharrison.mathengine.utils.MathUtils;
+
+/**
+ * Immutable implementation of the eigenvalue decomposition of a real symmetric matrix.
+ * <p>
+ * Every real symmetric matrix <b>A</b> can be diagonalized by an orthogonal matrix of its
+ * eigenvectors. Mathematically:
+ * </p>
+ * <pre>
+ * A = V * D * V<sup>T</sup>
+ * </pre>
+ * <p>
+ * where:
+ * </p>
+ * <ul>
+ *     <li><b>V</b> is an n-by-n orthogonal matrix (V<sup>T</sup>V = I) whose columns are the eigenvectors</li>
+ *     <li><b>D</b> is an n-by-n diagonal matrix of the corresponding eigenvalues</li>
+ * </ul>
+ *
+ * <h2>Mathematical Properties:</h2>
+ * <ul>
+ *     <li>The eigenvalues of a symmetric matrix are all real</li>
+ *     <li>Eigenvectors of distinct eigenvalues are orthogonal</li>
+ *     <li>The sum of the eigenvalues equals the trace, and their product the determinant</li>
+ *     <li>The matrix is positive-definite if and only if every eigenvalue is positive</li>
+ * </ul>
+ *
+ * <h2>Primary Use Cases:</h2>
+ * <ul>
+ *     <li>Principal component analysis of covariance matrices</li>
+ *     <li>Quadratic forms and their principal axes</li>
+ *     <li>Vibration modes and other symmetric physical systems</li>
+ * </ul>
+ *
+ * <h2>Implementation:</h2>
+ * <p>
+ * The matrix is first reduced to tridiagonal form with Householder reflections, after which the
+ * tridiagonal matrix is diagonalized with the implicit QL algorithm, derived from the Algol
+ * procedures tred2 and tql2 by Bowdler, Martin, Reinsch and Wilkinson via JAMA. The rotations
+ * of the QL algorithm are accumulated into the eigenvectors stored as rows, so that each
+ * rotation updates two contiguous arrays rather than two columns spread across every row.
+ * </p>
+ * <p>
+ * Eigenvalues are sorted in ascending order, with the eigenvectors in the same order. The
+ * decomposition is computed at construction time and all results are cached.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * Matrix A = Matrix.of(new double[][]{
+ *     {2, 1},
+ *     {1, 2}
+ * });
+ * EigenDecomposition eigen = new EigenDecomposition(A);
+ *
+ * double[] eigenvalues = eigen.getEigenvalues();  // {1, 3}
+ * Matrix V = eigen.getV();  // eigenvectors as columns
+ * Matrix D = eigen.getD();  // diagonal matrix of eigenvalues
+ *
+ * // Verify decomposition: A should equal V*D*V^T
+ * Matrix reconstructed = V.multiply(D).multiply(V.transpose());
+ * }</pre>
+ *
+ * @author Ryan Harrison
+ * @see <a href="http://math.nist.gov/javanumerics/jama/">JAMA: Java Matrix Package</a>
+ */
+public final class EigenDecomposition {
+
+    /**
+     * Dimension of the original matrix.
+     */
+    private final int n;
+
+    /**
+     * The eigenvalues in ascending order.
+     */
+    private final double[] eigenvalues;
+
+    /**
+     * The eigenvectors, stored as rows in the same order as {@link #eigenvalues}, so row i is
+     * column i of V.
+     */
+    private final double[][] vectors;
+
+    /**
+     * Constructs an eigenvalue decomposition of the specified symmetric matrix.
+     * <p>
+     * The decomposition is computed immediately during construction. The input matrix is
+     * deep-copied and not modified.
+     * </p>
+     * <p>
+     * <b>Time Complexity:</b> O(n³) for an n-by-n matrix
+     * </p>
+     *
+     * @param matrix the symmetric matrix to decompose
+     * @throws IllegalArgumentException if matrix is null, empty, not symmetric or has elements
+     *                                  which are not finite
+     */
+    public EigenDecomposition(Matrix matrix) {
+        if (matrix == null) {
+            throw new IllegalArgumentException("Matrix cannot be null");
+        }
+        if (matrix.getRowCount() == 0) {
+            throw new IllegalArgumentException("Eigen decomposition requires a non-empty matrix");
+        }
+        if (!matrix.isSymmetric()) {
+            throw new IllegalArgumentException(
+                    "Eigen decomposition requires a symmetric matrix, got "
+                            + matrix.getRowCount() + "x" + matrix.getColumnCount()
+            );
+        }
+
+        // Deep copy the matrix to ensure immutability
+        double[][] v = matrix.getArrayCopy();
+        for (double[] row : v) {
+            for (double value : row) {
+                if (!Double.isFinite(value)) {
+                    throw new IllegalArgumentException("Matrix elements must be finite, got " + value);
+                }
+            }
+        }
+
+        this.n = matrix.getRowCount();
+        this.eigenvalues = new double[n];
+        double[] e = new double[n];
+
+        tridiagonalize(v, eigenvalues, e);
+        this.vectors = transpose(v);
+        diagonalize(vectors, eigenvalues, e);
+    }
+
+    /**
+     * Reduce the symmetric matrix in v to tridiagonal form with Householder reflections,
+     * leaving the diagonal in d, the subdiagonal in e[1..n-1] and the accumulated orthogonal
+     * transformation in v
+     */
+    private static void tridiagonalize(double[][] v, double[] d, double[] e) {
+        int n = d.length;
+        System.arraycopy(v[n - 1], 0, d, 0, n);
+
+        for (int i = n - 1; i > 0; i--) {
+
+            // Scale to avoid under/overflow
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) {
+                scale += Math.abs(d[k]);
+            }
+
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0.0;
+                    v[j][i] = 0.0;
+                }
+            } else {
+
+                // Generate Householder vector
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) {
+                    g = -g;
+                }
+                e[i] = scale * g;
+                h = h - f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) {
+                    e[j] = 0.0;
+                }
+
+                // Apply similarity transformation to remaining columns
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    v[j][i] = f;
+                    g = e[j] + v[j][j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += v[k][j] * d[k];
+                        e[k] += v[k][j] * f;
+                    }
+                    e[j] = g;
+                }
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        v[k][j] -= (f * e[k] + g * d[k]);
+                    }
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        // Accumulate transformations
+        for (int i = 0; i < n - 1; i++) {
+            v[n - 1][i] = v[i][i];
+            v[i][i] = 1.0;
+            double h = d[i + 1];
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = v[k][i + 1] / h;
+                }
+                for (int j = 0; j <= i; j++) {
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) {
+                        g += v[k][i + 1] * v[k][j];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        v[k][j] -= g * d[k];
+                    }
+                }
+            }
+            for (int k = 0; k <= i; k++) {
+                v[k][i + 1] = 0.0;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = v[n - 1][j];
+            v[n - 1][j] = 0.0;
+        }
+        v[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    /**
+     * Diagonalize the symmetric tridiagonal matrix with diagonal d and subdiagonal e[1..n-1]
+     * with the implicit QL algorithm, leaving the eigenvalues in ascending order in d and
+     * applying the rotations to the rows of w, which start as the transposed transformation
+     * from {@link #tridiagonalize}
+     */
+    private static void diagonalize(double[][] w, double[] d, double[] e) {
+        int n = d.length;
+        System.arraycopy(e, 1, e, 0, n - 1);
+        e[n - 1] = 0.0;
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        double eps = Math.ulp(1.0);
+        for (int l = 0; l < n; l++) {
+
+            // Find small subdiagonal element
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1 && Math.abs(e[m]) > eps * tst1) {
+                m++;
+            }
+
+            // If m == l, d[l] is already an eigenvalue, otherwise iterate
+            if (m > l) {
+                do {
+                    // Compute implicit shift
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = MathUtils.hypot(p, 1.0);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f = f + h;
+
+                    // Implicit QL transformation
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = MathUtils.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        // Accumulate the rotation into eigenvectors i and i + 1
+                        double[] wi = w[i];
+                        double[] wi1 = w[i + 1];
+                        for (int k = 0; k < n; k++) {
+                            h = wi1[k];
+                            wi1[k] = s * wi[k] + c * h;
+                            wi[k] = c * wi[k] - s * h;
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+
+                    // Check for convergence
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+            d[l] = d[l] + f;
+            e[l] = 0.0;
+        }
+
+        // Sort eigenvalues and corresponding vectors
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            double p = d[i];
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                double[] swap = w[i];
+                w[i] = w[k];
+                w[k] = swap;
+            }
+        }
+    }
+
+    private static double[][] transpose(double[][] a) {
+        int n = a.length;
+        double[][] t = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                t[j][i] = a[i][j];
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Returns a copy of the eigenvalues in ascending order.
+     *
+     * @return a new array containing the eigenvalues
+     */
+    public double[] getEigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    /**
+     * Returns the matrix of eigenvectors V.
+     * <p>
+     * Column i of V is the unit eigenvector of the i-th eigenvalue returned by
+     * {@link #getEigenvalues()}. V is orthogonal, so V<sup>-1</sup> = V<sup>T</sup>.
+     * </p>
+     * <p>
+     * <b>Time Complexity:</b> O(n²) to construct the matrix
+     * </p>
+     *
+     * @return a new Matrix containing the eigenvectors as columns
+     */
+    public Matrix getV() {
+        return new Matrix(vectors, n, n).transpose();
+    }
+
+    /**
+     * Returns the diagonal matrix of eigenvalues D.
+     * <p>
+     * <b>Time Complexity:</b> O(n²) to construct the matrix
+     * </p>
+     *
+     * @return a new n-by-n Matrix with the eigenvalues on its diagonal
+     */
+    public Matrix getD() {
+        double[][] d = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            d[i][i] = eigenvalues[i];
+        }
+        return new Matrix(d, n, n);
+    }
+
+    /**
+     * Returns the unit eigenvector of the i-th eigenvalue.
+     *
+     * @param i the index of the eigenvalue, in ascending order
+     * @return a new Vector holding the eigenvector
+     * @throws IllegalArgumentException if i is negative or not less than n
+     */
+    public Vector getEigenvector(int i) {
+        if (i < 0 || i >= n) {
+            throw new IllegalArgumentException("Eigenvalue index out of range: " + i + " (size: " + n + ")");
+        }
+        return Vector.of(vectors[i]);
+    }
+}
@@ -223,8 +223,7 @@ public final class LUDecomposition {
      * @return a new Matrix containing the lower triangular factor
      */
     public Matrix getL() {
-        Matrix lMatrix = new Matrix(rowCount, columnCount);
-        double[][] l = lMatrix.getElements();
+        double[][] l = new double[rowCount][columnCount];
 
         for (int i = 0; i < rowCount; i++) {
             for (int j = 0; j < columnCount; j++) {
@@ -238,7 +237,7 @@ public final class LUDecomposition {
             }
         }
 
-        return lMatrix;
+        return new Matrix(l, rowCount, columnCount);
     }
 
     /**
@@ -254,8 +253,7 @@ public final class LUDecomposition {
      * @return a new Matrix containing the upper triangular factor
      */
     public Matrix getU() {
-        Matrix uMatrix = new Matrix(columnCount, columnCount);
-        double[][] u = uMatrix.getElements();
+        double[][] u = new double[columnCount][columnCount];
 
         for (int i = 0; i < columnCount; i++) {
             for (int j = 0; j < columnCount; j++) {
@@ -267,7 +265,7 @@ public final class LUDecomposition {
             }
         }
 
-        return uMatrix;
+        return new Matrix(u, columnCount, columnCount);
     }
 
     /**
@@ -392,8 +390,7 @@ public final class LUDecomposition {
 
         // Copy right-hand side with pivoting applied
         int solutionColumns = b.getColumnCount();
-        Matrix xMatrix = b.getMatrix(pivot, 0, solutionColumns - 1);
-        double[][] x = xMatrix.getElements();
+        double[][] x = b.getMatrix(pivot, 0, solutionColumns - 1).getArrayCopy();
 
         // Solve L*Y = B(piv,:) using forward substitution
         for (int k = 0; k < columnCount; k++) {
@@ -416,6 +413,6 @@ public final class LUDecomposition {
             }
         }
 
-        return xMatrix;
+        return new Matrix(x, rowCount, solutionColumns);
     }
 }
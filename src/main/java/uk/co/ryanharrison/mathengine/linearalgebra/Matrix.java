@@ -4,7 +4,8 @@ import java.util.Arrays;
 import java.util.Objects;
 
 /**
- * Immutable implementation of a two-dimensional matrix with support for linear algebra operations.
+ * Implementation of a two-dimensional matrix with support for linear algebra operations. Matrices
+ * are immutable, apart from the views of a {@link MatrixBuffer} described below.
  * <p>
  * A matrix is a rectangular array of numbers arranged in rows and columns. This implementation
  * provides comprehensive support for matrix arithmetic, decompositions, solving systems of linear
@@ -13,9 +14,15 @@ import java.util.Objects;
  *
  * <h2>Key Properties:</h2>
  * <ul>
- *     <li><b>Immutability</b>: All operations return new Matrix instances; original matrices are never modified</li>
+ *     <li><b>Immutability</b>: All operations return new Matrix instances; their operands are never
+ *     modified. The {@code *Into} variants write their result into a {@link MatrixBuffer} instead,
+ *     for loops that should not allocate. The one exception to immutability is the matrix returned
+ *     by {@link MatrixBuffer#asMatrix()}, which views the elements of the buffer and so changes
+ *     whenever the buffer is written to</li>
  *     <li><b>Size normalization</b>: Operations between matrices of different sizes automatically pad with zeros</li>
  *     <li><b>Type safety</b>: All dimensions are validated at construction time</li>
+ *     <li><b>Contiguous storage</b>: Elements are held in a single row-major array, which
+ *     submatrices, rows, columns and transposes share as views without copying</li>
  * </ul>
  *
  * <h2>Supported Operations:</h2>
@@ -58,16 +65,34 @@ import java.util.Objects;
  * // Decompositions
  * LUDecomposition lu = m1.getLUDecomposition();
  * QRDecomposition qr = m1.getQRDecomposition();
+ * SingularValueDecomposition svd = m1.getSingularValueDecomposition();
  * }</pre>
  *
  * @author Ryan Harrison
  */
 public final class Matrix implements Cloneable {
     /**
-     * The elements of this matrix, stored as a 2D array where elements[i][j]
-     * represents the element at row i and column j.
+     * The array holding the elements of this matrix. It may be shared with other matrices
+     * viewing the same elements. It is never modified through a matrix, but the array of a
+     * {@link MatrixBuffer} is modified by the buffer while its {@link MatrixBuffer#asMatrix() view}
+     * is still in use.
      */
-    private final double[][] elements;
+    private final double[] data;
+
+    /**
+     * The index in {@link #data} of the element at row 0 and column 0.
+     */
+    private final int offset;
+
+    /**
+     * The distance in {@link #data} between an element and the one below it.
+     */
+    private final int rowStride;
+
+    /**
+     * The distance in {@link #data} between an element and the one to its right.
+     */
+    private final int columnStride;
 
     /**
      * The number of rows in this matrix.
@@ -203,9 +228,9 @@ public final class Matrix implements Cloneable {
         if (n < 0) {
             throw new IllegalArgumentException("Matrix dimension must be non-negative, got: " + n);
         }
-        double[][] elements = new double[n][n];
+        double[] elements = new double[n * n];
         for (int i = 0; i < n; i++) {
-            elements[i][i] = 1.0;
+            elements[i * n + i] = 1.0;
         }
         return new Matrix(elements, n, n);
     }
@@ -226,11 +251,9 @@ public final class Matrix implements Cloneable {
             throw new IllegalArgumentException(
                     String.format("Matrix dimensions must be non-negative, got: rows=%d, cols=%d", rows, cols));
         }
-        double[][] elements = new double[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                elements[i][j] = Math.random();
-            }
+        double[] elements = new double[rows * cols];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = Math.random();
         }
         return new Matrix(elements, rows, cols);
     }
@@ -238,23 +261,46 @@ public final class Matrix implements Cloneable {
     // ==================== Constructors ====================
 
     /**
-     * Package-private constructor from internal representation.
+     * Package-private constructor from a row-major array.
      * Does NOT copy the array - used internally where we already have a fresh array.
      */
-    Matrix(double[][] elements, int rows, int cols) {
-        this.elements = elements;
+    Matrix(double[] data, int rows, int cols) {
+        this(data, 0, cols, 1, rows, cols);
+    }
+
+    /**
+     * Package-private constructor for a view of elements held in another array.
+     * Does NOT copy the array, which must not be modified while the matrix is in use.
+     *
+     * @param data         the array holding the elements
+     * @param offset       the index of the element at row 0 and column 0
+     * @param rowStride    the distance between an element and the one below it
+     * @param columnStride the distance between an element and the one to its right
+     * @param rows         the number of rows
+     * @param cols         the number of columns
+     */
+    Matrix(double[] data, int offset, int rowStride, int columnStride, int rows, int cols) {
+        this.data = data;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.columnStride = columnStride;
         this.rows = rows;
         this.columns = cols;
     }
 
+    /**
+     * Package-private constructor from the first {@code rows} rows of a 2D array, which are
+     * copied into a new row-major array.
+     */
+    Matrix(double[][] elements, int rows, int cols) {
+        this(pack(elements, rows, cols), rows, cols);
+    }
+
     /**
      * Package-private constructor for a single scalar value.
      */
     Matrix(double d) {
-        this.rows = 1;
-        this.columns = 1;
-        this.elements = new double[1][1];
-        this.elements[0][0] = d;
+        this(new double[]{d}, 1, 1);
     }
 
     /**
@@ -270,12 +316,11 @@ public final class Matrix implements Cloneable {
             throw new IllegalArgumentException(
                     String.format("Array length (%d) must be a multiple of m (%d)", vals.length, m));
         }
-        this.elements = new double[m][columns];
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < columns; j++) {
-                this.elements[i][j] = vals[i + j * m];
-            }
-        }
+        // column-major, so the elements are used in place with the strides swapped
+        this.data = vals.clone();
+        this.offset = 0;
+        this.rowStride = 1;
+        this.columnStride = m;
     }
 
     /**
@@ -285,12 +330,12 @@ public final class Matrix implements Cloneable {
         if (vector == null) {
             throw new IllegalArgumentException("Vector cannot be null");
         }
+        this.data = vector.clone();
+        this.offset = 0;
+        this.rowStride = 1;
+        this.columnStride = 1;
         this.rows = vector.length;
         this.columns = 1;
-        this.elements = new double[rows][1];
-        for (int i = 0; i < rows; i++) {
-            this.elements[i][0] = vector[i];
-        }
     }
 
     /**
@@ -312,36 +357,24 @@ public final class Matrix implements Cloneable {
             }
         }
 
-        // Deep copy the array
-        this.elements = new double[rows][columns];
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(matrix[i], 0, this.elements[i], 0, columns);
-        }
+        this.data = pack(matrix, rows, columns);
+        this.offset = 0;
+        this.rowStride = columns;
+        this.columnStride = 1;
     }
 
     /**
      * Package-private constructor for square zero matrix.
      */
     Matrix(int n) {
-        if (n < 0) {
-            throw new IllegalArgumentException("Matrix dimension must be non-negative, got: " + n);
-        }
-        this.rows = n;
-        this.columns = n;
-        this.elements = new double[n][n];
+        this(n, n);
     }
 
     /**
      * Package-private constructor for rectangular zero matrix.
      */
     Matrix(int m, int n) {
-        if (m < 0 || n < 0) {
-            throw new IllegalArgumentException(
-                    String.format("Matrix dimensions must be non-negative, got: rows=%d, cols=%d", m, n));
-        }
-        this.rows = m;
-        this.columns = n;
-        this.elements = new double[m][n];
+        this(m, n, 0.0);
     }
 
     /**
@@ -352,19 +385,22 @@ public final class Matrix implements Cloneable {
             throw new IllegalArgumentException(
                     String.format("Matrix dimensions must be non-negative, got: rows=%d, cols=%d", m, n));
         }
+        this.data = new double[m * n];
+        if (s != 0.0) {
+            Arrays.fill(this.data, s);
+        }
+        this.offset = 0;
+        this.rowStride = n;
+        this.columnStride = 1;
         this.rows = m;
         this.columns = n;
-        this.elements = new double[m][n];
-        for (int i = 0; i < m; i++) {
-            Arrays.fill(this.elements[i], s);
-        }
     }
 
     /**
      * Package-private copy constructor.
      */
     Matrix(Matrix matrix) {
-        this(matrix.elements);
+        this(matrix.getRowPackedCopy(), matrix.rows, matrix.columns);
     }
 
     /**
@@ -374,12 +410,26 @@ public final class Matrix implements Cloneable {
         if (v == null) {
             throw new IllegalArgumentException("Vector cannot be null");
         }
-        this.rows = 1;
         this.columns = v.getSize();
-        this.elements = new double[1][columns];
+        this.rows = 1;
+        this.data = new double[columns];
         for (int i = 0; i < columns; i++) {
-            this.elements[0][i] = v.get(i);
+            this.data[i] = v.get(i);
+        }
+        this.offset = 0;
+        this.rowStride = columns;
+        this.columnStride = 1;
+    }
+
+    /**
+     * Copies the first {@code rows} rows of a 2D array into a new row-major array.
+     */
+    private static double[] pack(double[][] elements, int rows, int cols) {
+        double[] packed = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(elements[i], 0, packed, i * cols, cols);
         }
+        return packed;
     }
 
     // ==================== Accessors ====================
@@ -393,7 +443,18 @@ public final class Matrix implements Cloneable {
      * @throws ArrayIndexOutOfBoundsException if indices are out of bounds
      */
     public double get(int i, int j) {
-        return elements[i][j];
+        if (i < 0 || i >= rows || j < 0 || j >= columns) {
+            throw new ArrayIndexOutOfBoundsException(
+                    String.format("Index (%d, %d) is out of bounds for %d×%d matrix", i, j, rows, columns));
+        }
+        return data[offset + i * rowStride + j * columnStride];
+    }
+
+    /**
+     * Gets the element at the specified row and column without checking the indices.
+     */
+    private double at(int i, int j) {
+        return data[offset + i * rowStride + j * columnStride];
     }
 
     /**
@@ -415,17 +476,52 @@ public final class Matrix implements Cloneable {
     }
 
     /**
-     * Returns the internal elements array.
+     * Returns the array holding the elements of this matrix, which may be shared with other
+     * matrices and may hold elements that are not part of this one.
      * <p>
      * <b>Warning:</b> This returns a reference to the internal array for performance reasons in
      * specific internal operations. Callers should NOT modify the returned array. For a safe copy,
-     * use {@link #getArrayCopy()}.
+     * use {@link #getRowPackedCopy()}.
      * </p>
      *
      * @return the internal elements array (do not modify)
+     * @see #getOffset()
+     * @see #getRowStride()
+     * @see #getColumnStride()
+     */
+    double[] getData() {
+        return data;
+    }
+
+    /**
+     * @return the index in {@link #getData()} of the element at row 0 and column 0
      */
-    double[][] getElements() {
-        return this.elements;
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the distance in {@link #getData()} between an element and the one below it
+     */
+    int getRowStride() {
+        return rowStride;
+    }
+
+    /**
+     * @return the distance in {@link #getData()} between an element and the one to its right
+     */
+    int getColumnStride() {
+        return columnStride;
+    }
+
+    /**
+     * Tests whether the elements of this matrix are stored row by row with nothing between
+     * them, as for a matrix that is not a view.
+     *
+     * @return true if the elements fill their array in row-major order from the offset
+     */
+    boolean isRowPacked() {
+        return columnStride == 1 && (rowStride == columns || rows <= 1);
     }
 
     /**
@@ -439,7 +535,7 @@ public final class Matrix implements Cloneable {
     public double[][] getArrayCopy() {
         double[][] copy = new double[rows][columns];
         for (int i = 0; i < rows; i++) {
-            System.arraycopy(elements[i], 0, copy[i], 0, columns);
+            copyRow(i, copy[i], 0);
         }
         return copy;
     }
@@ -454,32 +550,46 @@ public final class Matrix implements Cloneable {
      * @return a 1D array of matrix elements in column-major order
      */
     public double[] getColumnPackedCopy() {
-        double[] vals = new double[rows * columns];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < columns; j++) {
-                vals[i + j * rows] = elements[i][j];
-            }
-        }
-        return vals;
+        return transpose().getRowPackedCopy();
     }
 
     /**
      * Returns a copy of the matrix elements packed in row-major order.
      * <p>
      * The elements are stored in a 1D array where element (i,j) is at index i*columns + j.
-     * This is the standard row-major (C) ordering.
+     * This is the standard row-major (C) ordering. When the elements are already stored in
+     * this order, as for any matrix that is not a transposed or column view, they are copied
+     * with a single array copy.
      * </p>
      *
      * @return a 1D array of matrix elements in row-major order
      */
     public double[] getRowPackedCopy() {
+        if (isRowPacked()) {
+            return Arrays.copyOfRange(data, offset, offset + rows * columns);
+        }
+
         double[] vals = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
-            System.arraycopy(elements[i], 0, vals, i * columns, columns);
+            copyRow(i, vals, i * columns);
         }
         return vals;
     }
 
+    /**
+     * Copies row i of this matrix into an array.
+     */
+    private void copyRow(int i, double[] destination, int destinationOffset) {
+        int start = offset + i * rowStride;
+        if (columnStride == 1) {
+            System.arraycopy(data, start, destination, destinationOffset, columns);
+        } else {
+            for (int j = 0; j < columns; j++) {
+                destination[destinationOffset + j] = data[start + j * columnStride];
+            }
+        }
+    }
+
     // ==================== Matrix Properties ====================
 
     /**
@@ -509,7 +619,7 @@ public final class Matrix implements Cloneable {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
                 double expected = (i == j) ? 1.0 : 0.0;
-                if (Double.compare(this.elements[i][j], expected) != 0) {
+                if (Double.compare(at(i, j), expected) != 0) {
                     return false;
                 }
             }
@@ -544,7 +654,7 @@ public final class Matrix implements Cloneable {
         for (int j = 0; j < columns; j++) {
             double columnSum = 0.0;
             for (int i = 0; i < rows; i++) {
-                columnSum += Math.abs(elements[i][j]);
+                columnSum += Math.abs(at(i, j));
             }
             maxSum = Math.max(maxSum, columnSum);
         }
@@ -564,7 +674,7 @@ public final class Matrix implements Cloneable {
         double t = 0.0;
         int diagonal = Math.min(rows, columns);
         for (int i = 0; i < diagonal; i++) {
-            t += elements[i][i];
+            t += at(i, i);
         }
         return t;
     }
@@ -578,7 +688,7 @@ public final class Matrix implements Cloneable {
         double sum = 0.0;
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                sum += elements[i][j];
+                sum += at(i, j);
             }
         }
         return sum;
@@ -607,10 +717,10 @@ public final class Matrix implements Cloneable {
      * @return a new Matrix with d added to each element
      */
     public Matrix add(double d) {
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = elements[i][j] + d;
+                result[i * columns + j] = at(i, j) + d;
             }
         }
         return new Matrix(result, rows, columns);
@@ -631,13 +741,35 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.first;
         Matrix BNorm = normalized.second;
 
-        double[][] result = new double[A.rows][A.columns];
-        for (int i = 0; i < A.rows; i++) {
-            for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] + BNorm.elements[i][j];
+        double[] result = new double[A.rows * A.columns];
+        A.addTo(BNorm, result);
+        return new Matrix(result, A.rows, A.columns);
+    }
+
+    /**
+     * Adds another matrix to this matrix element-wise, writing the result into a buffer.
+     * <p>
+     * Unlike {@link #add(Matrix)}, the matrices must have the same dimensions, which are also
+     * the dimensions of the buffer.
+     * </p>
+     *
+     * @param B      the matrix to add
+     * @param result the buffer to hold A + B, which may be the buffer viewed by either matrix
+     * @return the result buffer
+     * @throws IllegalArgumentException if the dimensions of the matrices or buffer don't match
+     */
+    public MatrixBuffer addInto(Matrix B, MatrixBuffer result) {
+        checkElementwiseInto(B, result);
+        addTo(B, result.getData());
+        return result;
+    }
+
+    private void addTo(Matrix B, double[] result) {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                result[i * columns + j] = at(i, j) + B.at(i, j);
             }
         }
-        return new Matrix(result, A.rows, A.columns);
     }
 
     /**
@@ -655,10 +787,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.matrix;
         Vector vNorm = normalized.vector;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] + vNorm.get(j);
+                result[i * A.columns + j] = A.at(i, j) + vNorm.get(j);
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -671,10 +803,10 @@ public final class Matrix implements Cloneable {
      * @return a new Matrix with d subtracted from each element
      */
     public Matrix subtract(double d) {
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = elements[i][j] - d;
+                result[i * columns + j] = at(i, j) - d;
             }
         }
         return new Matrix(result, rows, columns);
@@ -695,13 +827,35 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.first;
         Matrix BNorm = normalized.second;
 
-        double[][] result = new double[A.rows][A.columns];
-        for (int i = 0; i < A.rows; i++) {
-            for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] - BNorm.elements[i][j];
+        double[] result = new double[A.rows * A.columns];
+        A.subtractTo(BNorm, result);
+        return new Matrix(result, A.rows, A.columns);
+    }
+
+    /**
+     * Subtracts another matrix from this matrix element-wise, writing the result into a buffer.
+     * <p>
+     * Unlike {@link #subtract(Matrix)}, the matrices must have the same dimensions, which are
+     * also the dimensions of the buffer.
+     * </p>
+     *
+     * @param B      the matrix to subtract
+     * @param result the buffer to hold A - B, which may be the buffer viewed by either matrix
+     * @return the result buffer
+     * @throws IllegalArgumentException if the dimensions of the matrices or buffer don't match
+     */
+    public MatrixBuffer subtractInto(Matrix B, MatrixBuffer result) {
+        checkElementwiseInto(B, result);
+        subtractTo(B, result.getData());
+        return result;
+    }
+
+    private void subtractTo(Matrix B, double[] result) {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                result[i * columns + j] = at(i, j) - B.at(i, j);
             }
         }
-        return new Matrix(result, A.rows, A.columns);
     }
 
     /**
@@ -719,10 +873,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.matrix;
         Vector vNorm = normalized.vector;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] - vNorm.get(j);
+                result[i * A.columns + j] = A.at(i, j) - vNorm.get(j);
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -735,13 +889,32 @@ public final class Matrix implements Cloneable {
      * @return a new Matrix with each element multiplied by d
      */
     public Matrix multiply(double d) {
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
+        multiplyTo(d, result);
+        return new Matrix(result, rows, columns);
+    }
+
+    /**
+     * Multiplies every element of this matrix by a scalar, writing the result into a buffer.
+     *
+     * @param d      the scalar multiplier
+     * @param result the buffer to hold the result, with the same dimensions as this matrix, which
+     *               may be the buffer viewed by this matrix
+     * @return the result buffer
+     * @throws IllegalArgumentException if the dimensions of the buffer don't match
+     */
+    public MatrixBuffer multiplyInto(double d, MatrixBuffer result) {
+        checkElementwiseInto(this, result);
+        multiplyTo(d, result.getData());
+        return result;
+    }
+
+    private void multiplyTo(double d, double[] result) {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = elements[i][j] * d;
+                result[i * columns + j] = at(i, j) * d;
             }
         }
-        return new Matrix(result, rows, columns);
     }
 
     /**
@@ -750,36 +923,78 @@ public final class Matrix implements Cloneable {
      * For this operation to be valid, the number of columns in A must equal the number of rows in B.
      * The resulting matrix has dimensions (A.rows × B.columns).
      * </p>
+     * <p>
+     * Small products use a simple loop over the columns of B. Once the product needs at least
+     * 64³ multiply-adds it is computed with a cache blocked kernel, and from 128³ the rows of the
+     * result are split across the common fork/join pool. The blocked kernel adds the same
+     * products in a different order, so large results can differ from the simple loop in the
+     * last few bits, but never depend on the number of threads.
+     * </p>
      *
      * @param B the matrix to multiply with
      * @return a new Matrix representing the matrix product A × B
      * @throws IllegalArgumentException if inner dimensions don't agree (this.columns != B.rows)
      */
     public Matrix multiply(Matrix B) {
+        checkInnerDimensions(B);
+        double[] result = new double[rows * B.columns];
+        multiplyTo(B, result);
+        return new Matrix(result, rows, B.columns);
+    }
+
+    /**
+     * Performs linear algebraic matrix multiplication A × B, writing the result into a buffer.
+     * <p>
+     * The product is computed as for {@link #multiply(Matrix)}, giving the same result. Each
+     * element of the product depends on many elements of A and B, so the buffer cannot be one
+     * viewed by either of them.
+     * </p>
+     *
+     * @param B      the matrix to multiply with
+     * @param result the buffer to hold A × B, with dimensions (A.rows × B.columns)
+     * @return the result buffer
+     * @throws IllegalArgumentException if inner dimensions don't agree, the dimensions of the
+     *                                  buffer don't match, or the buffer is viewed by A or B
+     */
+    public MatrixBuffer multiplyInto(Matrix B, MatrixBuffer result) {
+        checkInnerDimensions(B);
+        result.checkDimensions(rows, B.columns);
+        result.checkSeparateOperand(this);
+        result.checkSeparateOperand(B);
+        multiplyTo(B, result.getData());
+        return result;
+    }
+
+    private void checkInnerDimensions(Matrix B) {
         if (B.rows != columns) {
             throw new IllegalArgumentException(
                     String.format("Matrix inner dimensions must agree. Cannot multiply %d×%d by %d×%d",
                             rows, columns, B.rows, B.columns));
         }
+    }
+
+    private void multiplyTo(Matrix B, double[] result) {
+        if (BlockedMultiplication.isBlocked(rows, columns, B.columns)) {
+            BlockedMultiplication.multiply(this, B, result);
+            return;
+        }
 
-        double[][] result = new double[rows][B.columns];
         double[] columnCache = new double[columns];
 
         for (int j = 0; j < B.columns; j++) {
             // Cache column j of B for better memory locality
             for (int k = 0; k < columns; k++) {
-                columnCache[k] = B.elements[k][j];
+                columnCache[k] = B.at(k, j);
             }
 
             for (int i = 0; i < rows; i++) {
                 double sum = 0.0;
                 for (int k = 0; k < columns; k++) {
-                    sum += elements[i][k] * columnCache[k];
+                    sum += at(i, k) * columnCache[k];
                 }
-                result[i][j] = sum;
+                result[i * B.columns + j] = sum;
             }
         }
-        return new Matrix(result, rows, B.columns);
     }
 
     /**
@@ -797,10 +1012,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.matrix;
         Vector vNorm = normalized.vector;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] * vNorm.get(j);
+                result[i * A.columns + j] = A.at(i, j) * vNorm.get(j);
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -817,10 +1032,10 @@ public final class Matrix implements Cloneable {
         if (Double.compare(d, 0.0) == 0) {
             throw new ArithmeticException("Cannot divide matrix by zero");
         }
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = elements[i][j] / d;
+                result[i * columns + j] = at(i, j) / d;
             }
         }
         return new Matrix(result, rows, columns);
@@ -840,10 +1055,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.first;
         Matrix BNorm = normalized.second;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] / BNorm.elements[i][j];
+                result[i * A.columns + j] = A.at(i, j) / BNorm.at(i, j);
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -864,10 +1079,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.matrix;
         Vector vNorm = normalized.vector;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = A.elements[i][j] / vNorm.get(j);
+                result[i * A.columns + j] = A.at(i, j) / vNorm.get(j);
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -888,13 +1103,33 @@ public final class Matrix implements Cloneable {
      */
     public Matrix arrayMultiply(Matrix B) {
         checkMatrixDimensions(B);
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
+        arrayMultiplyTo(B, result);
+        return new Matrix(result, rows, columns);
+    }
+
+    /**
+     * Performs element-wise multiplication (Hadamard product) A .* B, writing the result into a
+     * buffer.
+     *
+     * @param B      the matrix to multiply element-wise
+     * @param result the buffer to hold the element-wise product, which may be the buffer viewed
+     *               by either matrix
+     * @return the result buffer
+     * @throws IllegalArgumentException if the dimensions of the matrices or buffer don't match
+     */
+    public MatrixBuffer arrayMultiplyInto(Matrix B, MatrixBuffer result) {
+        checkElementwiseInto(B, result);
+        arrayMultiplyTo(B, result.getData());
+        return result;
+    }
+
+    private void arrayMultiplyTo(Matrix B, double[] result) {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = elements[i][j] * B.elements[i][j];
+                result[i * columns + j] = at(i, j) * B.at(i, j);
             }
         }
-        return new Matrix(result, rows, columns);
     }
 
     /**
@@ -910,10 +1145,10 @@ public final class Matrix implements Cloneable {
      */
     public Matrix arrayRightDivide(Matrix B) {
         checkMatrixDimensions(B);
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = elements[i][j] / B.elements[i][j];
+                result[i * columns + j] = at(i, j) / B.at(i, j);
             }
         }
         return new Matrix(result, rows, columns);
@@ -932,10 +1167,10 @@ public final class Matrix implements Cloneable {
      */
     public Matrix arrayLeftDivide(Matrix B) {
         checkMatrixDimensions(B);
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = B.elements[i][j] / elements[i][j];
+                result[i * columns + j] = B.at(i, j) / at(i, j);
             }
         }
         return new Matrix(result, rows, columns);
@@ -948,13 +1183,32 @@ public final class Matrix implements Cloneable {
      * @return a new Matrix with each element raised to power d
      */
     public Matrix pow(double d) {
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
+        powTo(d, result);
+        return new Matrix(result, rows, columns);
+    }
+
+    /**
+     * Raises each element to the power of a scalar, writing the result into a buffer.
+     *
+     * @param d      the exponent
+     * @param result the buffer to hold the result, with the same dimensions as this matrix, which
+     *               may be the buffer viewed by this matrix
+     * @return the result buffer
+     * @throws IllegalArgumentException if the dimensions of the buffer don't match
+     */
+    public MatrixBuffer powInto(double d, MatrixBuffer result) {
+        checkElementwiseInto(this, result);
+        powTo(d, result.getData());
+        return result;
+    }
+
+    private void powTo(double d, double[] result) {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = Math.pow(elements[i][j], d);
+                result[i * columns + j] = Math.pow(at(i, j), d);
             }
         }
-        return new Matrix(result, rows, columns);
     }
 
     /**
@@ -971,10 +1225,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.first;
         Matrix BNorm = normalized.second;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = Math.pow(A.elements[i][j], BNorm.elements[i][j]);
+                result[i * A.columns + j] = Math.pow(A.at(i, j), BNorm.at(i, j));
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -995,10 +1249,10 @@ public final class Matrix implements Cloneable {
         Matrix A = normalized.matrix;
         Vector vNorm = normalized.vector;
 
-        double[][] result = new double[A.rows][A.columns];
+        double[] result = new double[A.rows * A.columns];
         for (int i = 0; i < A.rows; i++) {
             for (int j = 0; j < A.columns; j++) {
-                result[i][j] = Math.pow(A.elements[i][j], vNorm.get(j));
+                result[i * A.columns + j] = Math.pow(A.at(i, j), vNorm.get(j));
             }
         }
         return new Matrix(result, A.rows, A.columns);
@@ -1010,10 +1264,10 @@ public final class Matrix implements Cloneable {
      * @return a new Matrix with all elements negated
      */
     public Matrix uminus() {
-        double[][] result = new double[rows][columns];
+        double[] result = new double[rows * columns];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                result[i][j] = -elements[i][j];
+                result[i * columns + j] = -at(i, j);
             }
         }
         return new Matrix(result, rows, columns);
@@ -1027,17 +1281,15 @@ public final class Matrix implements Cloneable {
      * The transpose A^T has dimensions (columns × rows) where element (i,j) of A^T
      * equals element (j,i) of A.
      * </p>
+     * <p>
+     * The transpose is a view sharing the elements of this matrix, so takes constant time and
+     * memory whatever the size of the matrix.
+     * </p>
      *
      * @return a new Matrix representing the transpose
      */
     public Matrix transpose() {
-        double[][] result = new double[columns][rows];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < columns; j++) {
-                result[j][i] = elements[i][j];
-            }
-        }
-        return new Matrix(result, columns, rows);
+        return new Matrix(data, offset, columnStride, rowStride, columns, rows);
     }
 
     /**
@@ -1058,22 +1310,49 @@ public final class Matrix implements Cloneable {
     // ==================== Linear Algebra Operations ====================
 
     /**
-     * Solves the linear system A*X = B.
+     * Solves the linear system A*X = B, using the cheapest decomposition which applies.
      * <p>
-     * For square matrices, uses LU decomposition to find the unique solution.
-     * For non-square matrices, uses QR decomposition to find the least-squares solution.
+     * For symmetric positive-definite matrices, uses Cholesky decomposition, which takes about
+     * half the time of LU decomposition. For other square matrices, uses LU decomposition to find
+     * the unique solution. For non-square matrices, uses QR decomposition to find the
+     * least-squares solution.
+     * </p>
+     * <p>
+     * Cholesky decomposition is attempted for every symmetric matrix with a positive diagonal,
+     * as whether such a matrix is positive-definite is only found by factoring it. A symmetric
+     * matrix which turns out not to be positive-definite is then solved with LU decomposition.
      * </p>
      *
      * @param B the right-hand side matrix
      * @return the solution matrix X
      * @throws RuntimeException if the matrix is singular or the system has no solution
+     * @see CholeskyDecomposition#solve(Matrix)
      * @see LUDecomposition#solve(Matrix)
      * @see QRDecomposition#solve(Matrix)
      */
     public Matrix solve(Matrix B) {
-        return rows == columns
-                ? new LUDecomposition(this).solve(B)
-                : new QRDecomposition(this).solve(B);
+        if (rows != columns) {
+            return new QRDecomposition(this).solve(B);
+        }
+        if (hasPositiveDiagonal()) {
+            CholeskyDecomposition cholesky = new CholeskyDecomposition(this);
+            if (cholesky.isSPD()) {
+                return cholesky.solve(B);
+            }
+        }
+        return new LUDecomposition(this).solve(B);
+    }
+
+    /**
+     * Tests whether every diagonal element is positive, which holds for every positive-definite matrix.
+     */
+    private boolean hasPositiveDiagonal() {
+        for (int i = 0; i < rows; i++) {
+            if (!(at(i, i) > 0.0)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -1105,10 +1384,61 @@ public final class Matrix implements Cloneable {
         return new QRDecomposition(this);
     }
 
+    /**
+     * Returns the Cholesky decomposition of this matrix.
+     * <p>
+     * The Cholesky decomposition factors a symmetric positive-definite matrix as A = L*L^T where
+     * L is lower triangular. This is useful for solving systems with covariance matrices, and for
+     * testing whether a matrix is positive-definite through {@link CholeskyDecomposition#isSPD()}.
+     * </p>
+     *
+     * @return a new CholeskyDecomposition object
+     * @throws IllegalArgumentException if the matrix is not square
+     * @see CholeskyDecomposition
+     */
+    public CholeskyDecomposition getCholeskyDecomposition() {
+        return new CholeskyDecomposition(this);
+    }
+
+    /**
+     * Returns the eigenvalue decomposition of this symmetric matrix.
+     * <p>
+     * The eigenvalue decomposition factors a symmetric matrix as A = V*D*V^T where V is
+     * orthogonal and D is diagonal. This is useful for principal component analysis.
+     * </p>
+     *
+     * @return a new EigenDecomposition object
+     * @throws IllegalArgumentException if the matrix is not symmetric
+     * @see EigenDecomposition
+     */
+    public EigenDecomposition getEigenDecomposition() {
+        return new EigenDecomposition(this);
+    }
+
+    /**
+     * Returns the singular value decomposition of this matrix.
+     * <p>
+     * The singular value decomposition factors the matrix as A = U*S*V^T where U and V have
+     * orthonormal columns and S is diagonal. This is useful for the rank, 2-norm and condition
+     * number of a matrix, and for low-rank approximation.
+     * </p>
+     *
+     * @return a new SingularValueDecomposition object
+     * @see SingularValueDecomposition
+     */
+    public SingularValueDecomposition getSingularValueDecomposition() {
+        return new SingularValueDecomposition(this);
+    }
+
     // ==================== Submatrix Operations ====================
 
     /**
      * Extracts a submatrix.
+     * <p>
+     * The submatrix is a view sharing the elements of this matrix, so takes constant time and
+     * memory whatever its size. As the view keeps all the elements of this matrix reachable, use
+     * {@link #copy()} on a small view of a large matrix that is kept for a long time.
+     * </p>
      *
      * @param i0 the initial row index (inclusive)
      * @param i1 the final row index (inclusive)
@@ -1124,14 +1454,46 @@ public final class Matrix implements Cloneable {
                             i0, i1, j0, j1, rows, columns));
         }
 
-        int subRows = i1 - i0 + 1;
-        int subCols = j1 - j0 + 1;
-        double[][] result = new double[subRows][subCols];
+        return new Matrix(data, offset + i0 * rowStride + j0 * columnStride, rowStride, columnStride,
+                i1 - i0 + 1, j1 - j0 + 1);
+    }
 
-        for (int i = 0; i < subRows; i++) {
-            System.arraycopy(elements[i0 + i], j0, result[i], 0, subCols);
+    /**
+     * Returns row i of this matrix as a 1×n matrix.
+     * <p>
+     * The row is a view sharing the elements of this matrix, as for
+     * {@link #getMatrix(int, int, int, int)}.
+     * </p>
+     *
+     * @param i the row index (0-based)
+     * @return a view of the row
+     * @throws ArrayIndexOutOfBoundsException if the index is out of bounds
+     */
+    public Matrix getRow(int i) {
+        if (i < 0 || i >= rows) {
+            throw new ArrayIndexOutOfBoundsException(
+                    String.format("Row index %d is out of bounds for matrix with %d rows", i, rows));
         }
-        return new Matrix(result, subRows, subCols);
+        return new Matrix(data, offset + i * rowStride, rowStride, columnStride, 1, columns);
+    }
+
+    /**
+     * Returns column j of this matrix as an m×1 matrix.
+     * <p>
+     * The column is a view sharing the elements of this matrix, as for
+     * {@link #getMatrix(int, int, int, int)}.
+     * </p>
+     *
+     * @param j the column index (0-based)
+     * @return a view of the column
+     * @throws ArrayIndexOutOfBoundsException if the index is out of bounds
+     */
+    public Matrix getColumn(int j) {
+        if (j < 0 || j >= columns) {
+            throw new ArrayIndexOutOfBoundsException(
+                    String.format("Column index %d is out of bounds for matrix with %d columns", j, columns));
+        }
+        return new Matrix(data, offset + j * columnStride, rowStride, columnStride, rows, 1);
     }
 
     /**
@@ -1153,14 +1515,16 @@ public final class Matrix implements Cloneable {
         }
 
         int subCols = j1 - j0 + 1;
-        double[][] result = new double[r.length][subCols];
+        double[] result = new double[r.length * subCols];
 
         for (int i = 0; i < r.length; i++) {
             if (r[i] < 0 || r[i] >= rows) {
                 throw new ArrayIndexOutOfBoundsException(
                         String.format("Row index %d is out of bounds for matrix with %d rows", r[i], rows));
             }
-            System.arraycopy(elements[r[i]], j0, result[i], 0, subCols);
+            for (int j = 0; j < subCols; j++) {
+                result[i * subCols + j] = at(r[i], j0 + j);
+            }
         }
         return new Matrix(result, r.length, subCols);
     }
@@ -1169,15 +1533,15 @@ public final class Matrix implements Cloneable {
 
     /**
      * Creates a deep copy of this matrix.
+     * <p>
+     * The copy holds only its own elements in row-major order, so copying a view releases the
+     * rest of the matrix it was taken from.
+     * </p>
      *
      * @return a new Matrix with the same elements
      */
     public Matrix copy() {
-        double[][] result = new double[rows][columns];
-        for (int i = 0; i < rows; i++) {
-            System.arraycopy(elements[i], 0, result[i], 0, columns);
-        }
-        return new Matrix(result, rows, columns);
+        return new Matrix(getRowPackedCopy(), rows, columns);
     }
 
     @Override
@@ -1199,6 +1563,21 @@ public final class Matrix implements Cloneable {
         }
     }
 
+    /**
+     * Validates the operands and destination of an element-wise operation writing into a buffer.
+     *
+     * @param B      the other operand, which is this matrix for operations with a scalar
+     * @param result the destination
+     * @throws IllegalArgumentException if the dimensions don't match, or the buffer could be
+     *                                  overwritten before its elements are read
+     */
+    private void checkElementwiseInto(Matrix B, MatrixBuffer result) {
+        checkMatrixDimensions(B);
+        result.checkDimensions(rows, columns);
+        result.checkElementwiseOperand(this);
+        result.checkElementwiseOperand(B);
+    }
+
     /**
      * Normalizes two matrices to have the same dimensions by padding with zeros.
      * Returns new matrices if resizing is needed; otherwise returns the originals.
@@ -1249,12 +1628,14 @@ public final class Matrix implements Cloneable {
      * Creates a new matrix with the specified dimensions, padding with zeros if larger.
      */
     private Matrix resizeTo(int newRows, int newCols) {
-        double[][] result = new double[newRows][newCols];
+        double[] result = new double[newRows * newCols];
         int copyRows = Math.min(this.rows, newRows);
         int copyCols = Math.min(this.columns, newCols);
 
         for (int i = 0; i < copyRows; i++) {
-            System.arraycopy(this.elements[i], 0, result[i], 0, copyCols);
+            for (int j = 0; j < copyCols; j++) {
+                result[i * newCols + j] = at(i, j);
+            }
         }
 
         return new Matrix(result, newRows, newCols);
@@ -1291,7 +1672,7 @@ public final class Matrix implements Cloneable {
 
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
-                if (Double.compare(this.elements[i][j], other.elements[i][j]) != 0) {
+                if (Double.compare(at(i, j), other.at(i, j)) != 0) {
                     return false;
                 }
             }
@@ -1301,7 +1682,13 @@ public final class Matrix implements Cloneable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(rows, columns, Arrays.deepHashCode(elements));
+        int elementsHash = 1;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                elementsHash = 31 * elementsHash + Double.hashCode(at(i, j));
+            }
+        }
+        return Objects.hash(rows, columns, elementsHash);
     }
 
     @Override
@@ -1316,7 +1703,7 @@ public final class Matrix implements Cloneable {
                 if (j > 0) {
                     builder.append('\t');
                 }
-                builder.append(elements[i][j]);
+                builder.append(at(i, j));
             }
         }
 
@@ -0,0 +1,277 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, fixed size storage for the result of {@link Matrix} operations, so that iterative
+ * algorithms can run without allocating a new matrix on every step.
+ * <p>
+ * The {@code *Into} methods of {@link Matrix}, such as {@link Matrix#addInto(Matrix, MatrixBuffer)}
+ * and {@link Matrix#multiplyInto(Matrix, MatrixBuffer)}, write their result into a buffer in
+ * place of returning a new matrix. The contents of a buffer can be passed back into further
+ * operations through {@link #asMatrix()}, which views the buffer as a matrix without copying.
+ * </p>
+ *
+ * <h2>Views and Snapshots:</h2>
+ * <p>
+ * The matrix returned by {@link #asMatrix()} shares the elements of the buffer, so unlike every
+ * other matrix it changes whenever the buffer is written to. It is intended for passing the
+ * current contents of the buffer straight into the next operation, and must not be kept or
+ * shared once the buffer may change. Use {@link #toMatrix()} for an immutable copy.
+ * </p>
+ * <p>
+ * A buffer may be the destination of an element-wise operation on its own view, for example
+ * {@code x.asMatrix().multiplyInto(0.5, x)} halves every element in place. Operations that read
+ * elements other than the one being written, such as matrix multiplication, reject a destination
+ * holding the elements of one of their operands.
+ * </p>
+ * <p>
+ * Buffers are not thread-safe.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * // power iteration for the dominant eigenvector of A, allocating nothing per step
+ * MatrixBuffer x = MatrixBuffer.copyOf(Matrix.filled(n, 1, 1.0));
+ * MatrixBuffer y = MatrixBuffer.ofSize(n, 1);
+ * for (int k = 0; k < iterations; k++) {
+ *     A.multiplyInto(x.asMatrix(), y);
+ *     y.asMatrix().multiplyInto(1.0 / y.norm(), x);
+ * }
+ * Matrix eigenvector = x.toMatrix();
+ * }</pre>
+ *
+ * @author Ryan Harrison
+ */
+public final class MatrixBuffer {
+    /**
+     * The elements of this buffer in row-major order.
+     */
+    private final double[] data;
+
+    /**
+     * The number of rows in this buffer.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns in this buffer.
+     */
+    private final int columns;
+
+    /**
+     * A matrix viewing {@link #data}, created once as it never changes.
+     */
+    private final Matrix view;
+
+    private MatrixBuffer(int rows, int columns) {
+        this.data = new double[rows * columns];
+        this.rows = rows;
+        this.columns = columns;
+        this.view = new Matrix(data, rows, columns);
+    }
+
+    // ==================== Factory Methods ====================
+
+    /**
+     * Creates a buffer of the specified dimensions with every element 0.0.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @return a new zero buffer
+     * @throws IllegalArgumentException if rows or cols is negative
+     */
+    public static MatrixBuffer ofSize(int rows, int cols) {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Matrix dimensions must be non-negative, got: rows=%d, cols=%d", rows, cols));
+        }
+        return new MatrixBuffer(rows, cols);
+    }
+
+    /**
+     * Creates a buffer with the same dimensions and elements as a matrix.
+     *
+     * @param matrix the matrix to copy
+     * @return a new buffer holding a copy of the elements of the matrix
+     * @throws IllegalArgumentException if the matrix is null
+     */
+    public static MatrixBuffer copyOf(Matrix matrix) {
+        if (matrix == null) {
+            throw new IllegalArgumentException("Matrix cannot be null");
+        }
+        return new MatrixBuffer(matrix.getRowCount(), matrix.getColumnCount()).set(matrix);
+    }
+
+    // ==================== Accessors ====================
+
+    /**
+     * Gets the element at the specified row and column.
+     *
+     * @param i the row index (0-based)
+     * @param j the column index (0-based)
+     * @return the element at position (i, j)
+     * @throws ArrayIndexOutOfBoundsException if indices are out of bounds
+     */
+    public double get(int i, int j) {
+        return data[index(i, j)];
+    }
+
+    /**
+     * Sets the element at the specified row and column.
+     *
+     * @param i     the row index (0-based)
+     * @param j     the column index (0-based)
+     * @param value the new value of the element
+     * @return this buffer
+     * @throws ArrayIndexOutOfBoundsException if indices are out of bounds
+     */
+    public MatrixBuffer set(int i, int j, double value) {
+        data[index(i, j)] = value;
+        return this;
+    }
+
+    /**
+     * Replaces every element of this buffer with the corresponding element of a matrix.
+     *
+     * @param matrix the matrix to copy, with the same dimensions as this buffer
+     * @return this buffer
+     * @throws IllegalArgumentException if the dimensions don't match
+     */
+    public MatrixBuffer set(Matrix matrix) {
+        checkDimensions(matrix.getRowCount(), matrix.getColumnCount());
+        if (matrix.getData() == data) {
+            // a transposed view of this buffer would be overwritten while being read
+            System.arraycopy(matrix.getRowPackedCopy(), 0, data, 0, data.length);
+            return this;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                data[i * columns + j] = matrix.get(i, j);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets every element of this buffer to a value.
+     *
+     * @param value the value of every element
+     * @return this buffer
+     */
+    public MatrixBuffer fill(double value) {
+        Arrays.fill(data, value);
+        return this;
+    }
+
+    /**
+     * Gets the number of rows in this buffer.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns in this buffer.
+     *
+     * @return the column count
+     */
+    public int getColumnCount() {
+        return columns;
+    }
+
+    /**
+     * Computes the Frobenius norm of the elements of this buffer: √(Σ a_ij²).
+     *
+     * @return the Frobenius norm
+     */
+    public double norm() {
+        double sum = 0.0;
+        for (double value : data) {
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Returns a matrix viewing the current elements of this buffer without copying them.
+     * <p>
+     * <b>Warning:</b> the returned matrix changes whenever this buffer is written to, so must
+     * not be kept or shared once the buffer may change. Use {@link #toMatrix()} for an
+     * immutable copy.
+     * </p>
+     *
+     * @return a matrix sharing the elements of this buffer
+     */
+    public Matrix asMatrix() {
+        return view;
+    }
+
+    /**
+     * Returns an immutable copy of the current elements of this buffer.
+     *
+     * @return a new Matrix holding a copy of the elements
+     */
+    public Matrix toMatrix() {
+        return new Matrix(data.clone(), rows, columns);
+    }
+
+    // ==================== Package-Private Methods ====================
+
+    /**
+     * Returns the array holding the elements of this buffer in row-major order, for the
+     * {@code *Into} methods to write their result into.
+     */
+    double[] getData() {
+        return data;
+    }
+
+    /**
+     * Validates that this buffer has the given dimensions, as the destination of an operation
+     * whose result has them.
+     *
+     * @throws IllegalArgumentException if the dimensions don't match
+     */
+    void checkDimensions(int resultRows, int resultColumns) {
+        if (rows != resultRows || columns != resultColumns) {
+            throw new IllegalArgumentException(
+                    String.format("Result dimensions must agree. Result is %d×%d, buffer is %d×%d",
+                            resultRows, resultColumns, rows, columns));
+        }
+    }
+
+    /**
+     * Validates that writing an element-wise result into this buffer cannot overwrite an element
+     * of an operand before it is read, which is only possible if the operand is a view of this
+     * buffer laid out differently, such as its transpose.
+     *
+     * @throws IllegalArgumentException if the operand shares the elements in a different layout
+     */
+    void checkElementwiseOperand(Matrix operand) {
+        if (operand.getData() == data && operand != view) {
+            throw new IllegalArgumentException(
+                    "Result buffer cannot hold the elements of a transposed or partial view of itself");
+        }
+    }
+
+    /**
+     * Validates that an operand does not share the elements of this buffer.
+     *
+     * @throws IllegalArgumentException if the operand shares the elements of this buffer
+     */
+    void checkSeparateOperand(Matrix operand) {
+        if (operand.getData() == data) {
+            throw new IllegalArgumentException("Result buffer cannot hold the elements of an operand");
+        }
+    }
+
+    private int index(int i, int j) {
+        if (i < 0 || i >= rows || j < 0 || j >= columns) {
+            throw new ArrayIndexOutOfBoundsException(
+                    String.format("Index (%d, %d) is out of bounds for %d×%d matrix", i, j, rows, columns));
+        }
+        return i * columns + j;
+    }
+}
@@ -199,8 +199,7 @@ public final class QRDecomposition {
      * @return a new Matrix containing the upper triangular factor
      */
     public Matrix getR() {
-        Matrix rMatrix = new Matrix(columnCount, columnCount);
-        double[][] r = rMatrix.getElements();
+        double[][] r = new double[columnCount][columnCount];
 
         for (int i = 0; i < columnCount; i++) {
             for (int j = 0; j < columnCount; j++) {
@@ -217,7 +216,7 @@ public final class QRDecomposition {
             }
         }
 
-        return rMatrix;
+        return new Matrix(r, columnCount, columnCount);
     }
 
     /**
@@ -239,8 +238,7 @@ public final class QRDecomposition {
      * @return a new Matrix containing the orthogonal factor
      */
     public Matrix getQ() {
-        Matrix qMatrix = new Matrix(rowCount, columnCount);
-        double[][] q = qMatrix.getElements();
+        double[][] q = new double[rowCount][columnCount];
 
         // Generate Q by applying Householder reflections in reverse order
         for (int k = columnCount - 1; k >= 0; k--) {
@@ -268,7 +266,7 @@ public final class QRDecomposition {
             }
         }
 
-        return qMatrix;
+        return new Matrix(q, rowCount, columnCount);
     }
 
     /**
@@ -289,8 +287,7 @@ public final class QRDecomposition {
      * @return a new Matrix containing the Householder vectors
      */
     public Matrix getH() {
-        Matrix hMatrix = new Matrix(rowCount, columnCount);
-        double[][] h = hMatrix.getElements();
+        double[][] h = new double[rowCount][columnCount];
 
         for (int i = 0; i < rowCount; i++) {
             for (int j = 0; j < columnCount; j++) {
@@ -304,7 +301,7 @@ public final class QRDecomposition {
             }
         }
 
-        return hMatrix;
+        return new Matrix(h, rowCount, columnCount);
     }
 
     /**
@@ -406,6 +403,6 @@ public final class QRDecomposition {
         }
 
         // Return only the first n rows (the solution)
-        return new Matrix(x, columnCount, solutionColumns).getMatrix(0, columnCount - 1, 0, solutionColumns - 1);
+        return new Matrix(x, columnCount, solutionColumns);
     }
 }
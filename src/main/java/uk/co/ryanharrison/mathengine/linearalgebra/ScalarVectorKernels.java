@@ -0,0 +1,84 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+/**
+ * {@link VectorKernels} processing one value at a time, which are used when the
+ * {@code jdk.incubator.vector} module is not present
+ */
+final class ScalarVectorKernels implements VectorKernels {
+
+    @Override
+    public double dot(double[] a, double[] b, int n) {
+        double result = 0.0;
+        for (int i = 0; i < n; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+
+    @Override
+    public double sumOfSquares(double[] a, int n) {
+        double result = 0.0;
+        for (int i = 0; i < n; i++) {
+            result += a[i] * a[i];
+        }
+        return result;
+    }
+
+    @Override
+    public double sum(double[] a, int n) {
+        double result = 0.0;
+        for (int i = 0; i < n; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Override
+    public void add(double[] a, double[] b, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void subtract(double[] a, double[] b, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void multiply(double[] a, double[] b, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = a[i] * b[i];
+        }
+    }
+
+    @Override
+    public void multiply(double[] a, double d, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = a[i] * d;
+        }
+    }
+
+    @Override
+    public void sqrt(double[] a, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = Math.sqrt(a[i]);
+        }
+    }
+
+    @Override
+    public void exp(double[] a, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = Math.exp(a[i]);
+        }
+    }
+
+    @Override
+    public void log(double[] a, double[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = Math.log(a[i]);
+        }
+    }
+}
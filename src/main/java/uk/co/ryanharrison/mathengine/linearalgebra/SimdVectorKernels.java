@@ -0,0 +1,155 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorKernels} processing as many values at a time as fit in the CPU's preferred SIMD
+ * registers, finishing the values left over after the last full register one at a time.
+ * <p>
+ * Reductions keep two independent accumulators so that consecutive additions do not wait on each
+ * other, and combine their lanes once at the end. This class must only be loaded when the
+ * {@code jdk.incubator.vector} module is present, which {@link VectorKernels#select()} checks.
+ * </p>
+ */
+final class SimdVectorKernels implements VectorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public double dot(double[] a, double[] b, int n) {
+        DoubleVector first = DoubleVector.zero(SPECIES);
+        DoubleVector second = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = n - 2 * LANES; i <= bound; i += 2 * LANES) {
+            first = DoubleVector.fromArray(SPECIES, a, i)
+                    .fma(DoubleVector.fromArray(SPECIES, b, i), first);
+            second = DoubleVector.fromArray(SPECIES, a, i + LANES)
+                    .fma(DoubleVector.fromArray(SPECIES, b, i + LANES), second);
+        }
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            first = DoubleVector.fromArray(SPECIES, a, i)
+                    .fma(DoubleVector.fromArray(SPECIES, b, i), first);
+        }
+
+        double result = first.add(second).reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+
+    @Override
+    public double sumOfSquares(double[] a, int n) {
+        return dot(a, a, n);
+    }
+
+    @Override
+    public double sum(double[] a, int n) {
+        DoubleVector first = DoubleVector.zero(SPECIES);
+        DoubleVector second = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = n - 2 * LANES; i <= bound; i += 2 * LANES) {
+            first = first.add(DoubleVector.fromArray(SPECIES, a, i));
+            second = second.add(DoubleVector.fromArray(SPECIES, a, i + LANES));
+        }
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            first = first.add(DoubleVector.fromArray(SPECIES, a, i));
+        }
+
+        double result = first.add(second).reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Override
+    public void add(double[] a, double[] b, double[] result, int n) {
+        int i = lanewise(VectorOperators.ADD, a, b, result, n);
+        for (; i < n; i++) {
+            result[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void subtract(double[] a, double[] b, double[] result, int n) {
+        int i = lanewise(VectorOperators.SUB, a, b, result, n);
+        for (; i < n; i++) {
+            result[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void multiply(double[] a, double[] b, double[] result, int n) {
+        int i = lanewise(VectorOperators.MUL, a, b, result, n);
+        for (; i < n; i++) {
+            result[i] = a[i] * b[i];
+        }
+    }
+
+    @Override
+    public void multiply(double[] a, double d, double[] result, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(d).intoArray(result, i);
+        }
+        for (; i < n; i++) {
+            result[i] = a[i] * d;
+        }
+    }
+
+    @Override
+    public void sqrt(double[] a, double[] result, int n) {
+        int i = lanewise(VectorOperators.SQRT, a, result, n);
+        for (; i < n; i++) {
+            result[i] = Math.sqrt(a[i]);
+        }
+    }
+
+    @Override
+    public void exp(double[] a, double[] result, int n) {
+        int i = lanewise(VectorOperators.EXP, a, result, n);
+        for (; i < n; i++) {
+            result[i] = Math.exp(a[i]);
+        }
+    }
+
+    @Override
+    public void log(double[] a, double[] result, int n) {
+        int i = lanewise(VectorOperators.LOG, a, result, n);
+        for (; i < n; i++) {
+            result[i] = Math.log(a[i]);
+        }
+    }
+
+    /**
+     * Apply a binary operator to the values up to the last full register
+     *
+     * @return The index of the first value left over
+     */
+    private static int lanewise(VectorOperators.Binary operator, double[] a, double[] b, double[] result, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i)
+                    .lanewise(operator, DoubleVector.fromArray(SPECIES, b, i))
+                    .intoArray(result, i);
+        }
+        return i;
+    }
+
+    /**
+     * Apply a unary operator to the values up to the last full register
+     *
+     * @return The index of the first value left over
+     */
+    private static int lanewise(VectorOperators.Unary operator, double[] a, double[] result, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(operator).intoArray(result, i);
+        }
+        return i;
+    }
+}
@@ -0,0 +1,353 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import uk.co.ryanharrison.mathengine.utils.MathUtils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable implementation of the singular value decomposition (SVD).
+ * <p>
+ * The singular value decomposition expresses any m-by-n matrix <b>A</b> as the product of an
+ * orthogonal matrix, a diagonal matrix of non-negative singular values and another orthogonal
+ * matrix. Mathematically:
+ * </p>
+ * <pre>
+ * A = U * S * V<sup>T</sup>
+ * </pre>
+ * <p>
+ * where, with k = min(m, n):
+ * </p>
+ * <ul>
+ *     <li><b>U</b> is an m-by-k matrix with orthonormal columns, the left singular vectors</li>
+ *     <li><b>S</b> is a k-by-k diagonal matrix of the singular values σ₀ ≥ σ₁ ≥ ... ≥ 0</li>
+ *     <li><b>V</b> is an n-by-k matrix with orthonormal columns, the right singular vectors</li>
+ * </ul>
+ *
+ * <h2>Mathematical Properties:</h2>
+ * <ul>
+ *     <li>The decomposition always exists, for any shape and rank of matrix</li>
+ *     <li>The rank of A equals the number of non-zero singular values</li>
+ *     <li>The 2-norm of A is its largest singular value</li>
+ *     <li>The singular values are the square roots of the eigenvalues of A<sup>T</sup>A</li>
+ * </ul>
+ *
+ * <h2>Primary Use Cases:</h2>
+ * <ul>
+ *     <li>Principal component analysis and low-rank approximation</li>
+ *     <li>Numerical rank, 2-norm and condition number</li>
+ *     <li>Least squares problems whose matrix is rank-deficient or nearly so</li>
+ * </ul>
+ *
+ * <h2>Implementation:</h2>
+ * <p>
+ * This implementation uses the one-sided Jacobi algorithm of Hestenes. Pairs of columns are
+ * rotated until every pair is orthogonal to within rounding error, at which point the column
+ * norms are the singular values. The columns are held as contiguous arrays, so the dot products
+ * and rotations of each step stream through memory, and the dot products use the SIMD kernels
+ * of {@link Vector} when available. The algorithm computes small singular values to high
+ * relative accuracy. A matrix with more columns than rows is decomposed through its transpose.
+ * </p>
+ * <p>
+ * Left singular vectors of zero singular values are not determined by A, and are completed to
+ * an orthonormal set. The decomposition is computed at construction time and all results are
+ * cached.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * Matrix A = Matrix.of(new double[][]{
+ *     {3, 2, 2},
+ *     {2, 3, -2}
+ * });
+ * SingularValueDecomposition svd = new SingularValueDecomposition(A);
+ *
+ * double[] singularValues = svd.getSingularValues();  // {5, 3}
+ * Matrix U = svd.getU();  // 2-by-2
+ * Matrix S = svd.getS();  // 2-by-2
+ * Matrix V = svd.getV();  // 3-by-2
+ *
+ * int rank = svd.rank();  // 2
+ * double norm = svd.norm2();  // 5
+ *
+ * // Verify decomposition: A should equal U*S*V^T
+ * Matrix reconstructed = U.multiply(S).multiply(V.transpose());
+ * }</pre>
+ *
+ * @author Ryan Harrison
+ */
+public final class SingularValueDecomposition {
+
+    /**
+     * The largest number of sweeps over every pair of columns, which is never reached in
+     * practice as the algorithm converges quadratically
+     */
+    private static final int MAX_SWEEPS = 60;
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    /**
+     * Number of rows in the original matrix.
+     */
+    private final int rowCount;
+
+    /**
+     * Number of columns in the original matrix.
+     */
+    private final int columnCount;
+
+    /**
+     * The singular values in descending order.
+     */
+    private final double[] singularValues;
+
+    /**
+     * The columns of U, each stored as a row.
+     */
+    private final double[][] uColumns;
+
+    /**
+     * The columns of V, each stored as a row.
+     */
+    private final double[][] vColumns;
+
+    /**
+     * Constructs a singular value decomposition of the specified matrix.
+     * <p>
+     * The decomposition is computed immediately during construction. The input matrix is
+     * not modified.
+     * </p>
+     * <p>
+     * <b>Time Complexity:</b> O(m*n*min(m, n)) per sweep, with typically fewer than ten sweeps
+     * </p>
+     *
+     * @param matrix the matrix to decompose (can be any shape and rank)
+     * @throws IllegalArgumentException if matrix is null, empty or has elements which are not finite
+     */
+    public SingularValueDecomposition(Matrix matrix) {
+        if (matrix == null) {
+            throw new IllegalArgumentException("Matrix cannot be null");
+        }
+        if (matrix.getRowCount() == 0 || matrix.getColumnCount() == 0) {
+            throw new IllegalArgumentException("Singular value decomposition requires a non-empty matrix");
+        }
+
+        this.rowCount = matrix.getRowCount();
+        this.columnCount = matrix.getColumnCount();
+
+        // Work on a matrix with at least as many rows as columns
+        boolean transposed = rowCount < columnCount;
+        Matrix a = transposed ? matrix.transpose() : matrix;
+        int rows = a.getRowCount();
+        int columns = a.getColumnCount();
+
+        double[][] w = new double[columns][];
+        for (int j = 0; j < columns; j++) {
+            w[j] = a.getColumn(j).getRowPackedCopy();
+            for (double value : w[j]) {
+                if (!Double.isFinite(value)) {
+                    throw new IllegalArgumentException("Matrix elements must be finite, got " + value);
+                }
+            }
+        }
+        double[][] v = new double[columns][columns];
+        for (int j = 0; j < columns; j++) {
+            v[j][j] = 1.0;
+        }
+
+        orthogonalize(w, v, rows);
+
+        // Sort by descending norm, which are the singular values
+        double[] norms = new double[columns];
+        for (int j = 0; j < columns; j++) {
+            norms[j] = Math.sqrt(VectorKernels.BEST.sumOfSquares(w[j], rows));
+        }
+        Integer[] order = IntStream.range(0, columns).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble((Integer j) -> norms[j]).reversed());
+
+        this.singularValues = new double[columns];
+        double[][] left = new double[columns][];
+        double[][] right = new double[columns][];
+        for (int j = 0; j < columns; j++) {
+            singularValues[j] = norms[order[j]];
+            left[j] = w[order[j]];
+            right[j] = v[order[j]];
+        }
+        normalize(left, singularValues, rows);
+
+        this.uColumns = transposed ? right : left;
+        this.vColumns = transposed ? left : right;
+    }
+
+    /**
+     * Rotate pairs of the columns w until they are mutually orthogonal, applying the same
+     * rotations to the columns v
+     */
+    private static void orthogonalize(double[][] w, double[][] v, int rows) {
+        int columns = w.length;
+        // The squared norm of each column of w. Each rotation updates the two it changes in
+        // closed form, and they are recomputed at the start of every sweep so that rounding
+        // errors cannot build up
+        double[] squaredNorms = new double[columns];
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            for (int j = 0; j < columns; j++) {
+                squaredNorms[j] = VectorKernels.BEST.sumOfSquares(w[j], rows);
+            }
+
+            boolean rotated = false;
+            for (int p = 0; p < columns - 1; p++) {
+                for (int q = p + 1; q < columns; q++) {
+                    double alpha = squaredNorms[p];
+                    double beta = squaredNorms[q];
+                    double gamma = VectorKernels.BEST.dot(w[p], w[q], rows);
+                    if (Math.abs(gamma) <= EPSILON * Math.sqrt(alpha) * Math.sqrt(beta)) {
+                        continue;
+                    }
+                    rotated = true;
+
+                    // The rotation which zeroes the off-diagonal element of the 2x2 Gram matrix
+                    double zeta = (beta - alpha) / (2.0 * gamma);
+                    double t = (zeta >= 0 ? 1.0 : -1.0) / (Math.abs(zeta) + MathUtils.hypot(1.0, zeta));
+                    double c = 1.0 / MathUtils.hypot(1.0, t);
+                    double s = c * t;
+                    rotate(w[p], w[q], c, s);
+                    rotate(v[p], v[q], c, s);
+                    squaredNorms[p] = alpha - t * gamma;
+                    squaredNorms[q] = beta + t * gamma;
+                }
+            }
+            if (!rotated) {
+                return;
+            }
+        }
+    }
+
+    private static void rotate(double[] x, double[] y, double c, double s) {
+        for (int i = 0; i < x.length; i++) {
+            double xi = x[i];
+            double yi = y[i];
+            x[i] = c * xi - s * yi;
+            y[i] = s * xi + c * yi;
+        }
+    }
+
+    /**
+     * Scale each column to unit length, replacing columns of zero singular values with unit
+     * vectors orthogonal to every column before them
+     */
+    private static void normalize(double[][] columns, double[] singularValues, int length) {
+        for (int j = 0; j < columns.length; j++) {
+            double[] column = columns[j];
+            if (singularValues[j] != 0.0) {
+                VectorKernels.BEST.multiply(column, 1.0 / singularValues[j], column, length);
+                continue;
+            }
+
+            // Orthogonalize successive standard basis vectors until one is independent
+            for (int e = 0; e < length; e++) {
+                Arrays.fill(column, 0.0);
+                column[e] = 1.0;
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int i = 0; i < j; i++) {
+                        double projection = VectorKernels.BEST.dot(columns[i], column, length);
+                        for (int k = 0; k < length; k++) {
+                            column[k] -= projection * columns[i][k];
+                        }
+                    }
+                }
+                double norm = Math.sqrt(VectorKernels.BEST.sumOfSquares(column, length));
+                if (norm > 0.5) {
+                    VectorKernels.BEST.multiply(column, 1.0 / norm, column, length);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the singular values in descending order.
+     *
+     * @return a new array of the min(m, n) singular values
+     */
+    public double[] getSingularValues() {
+        return singularValues.clone();
+    }
+
+    /**
+     * Returns the left singular vectors U.
+     * <p>
+     * U is an m-by-k matrix with orthonormal columns, where k = min(m, n).
+     * </p>
+     *
+     * @return a new Matrix containing the left singular vectors as columns
+     */
+    public Matrix getU() {
+        return new Matrix(uColumns, uColumns.length, rowCount).transpose();
+    }
+
+    /**
+     * Returns the diagonal matrix of singular values S.
+     *
+     * @return a new k-by-k Matrix with the singular values on its diagonal
+     */
+    public Matrix getS() {
+        int k = singularValues.length;
+        double[][] s = new double[k][k];
+        for (int i = 0; i < k; i++) {
+            s[i][i] = singularValues[i];
+        }
+        return new Matrix(s, k, k);
+    }
+
+    /**
+     * Returns the right singular vectors V.
+     * <p>
+     * V is an n-by-k matrix with orthonormal columns, where k = min(m, n).
+     * </p>
+     *
+     * @return a new Matrix containing the right singular vectors as columns
+     */
+    public Matrix getV() {
+        return new Matrix(vColumns, vColumns.length, columnCount).transpose();
+    }
+
+    /**
+     * Returns the 2-norm of the original matrix, its largest singular value.
+     *
+     * @return the 2-norm
+     */
+    public double norm2() {
+        return singularValues[0];
+    }
+
+    /**
+     * Returns the 2-norm condition number of the original matrix, the ratio of the largest to
+     * the smallest singular value.
+     *
+     * @return the condition number, infinite if the matrix is rank-deficient
+     */
+    public double cond() {
+        return singularValues[0] / singularValues[singularValues.length - 1];
+    }
+
+    /**
+     * Returns the numerical rank of the original matrix.
+     * <p>
+     * The rank is the number of singular values larger than max(m, n) × σ₀ × ε, where ε is the
+     * machine epsilon, so that values which only differ from zero through rounding are not counted.
+     * </p>
+     *
+     * @return the numerical rank
+     */
+    public int rank() {
+        double tolerance = Math.max(rowCount, columnCount) * singularValues[0] * EPSILON;
+        int rank = 0;
+        for (double value : singularValues) {
+            if (value > tolerance) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+}
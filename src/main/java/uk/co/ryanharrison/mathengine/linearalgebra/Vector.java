@@ -28,6 +28,21 @@ import java.util.List;
  * All operations return new Vector instances. The underlying values array is never modified
  * after construction. This ensures thread-safety and prevents unexpected side effects.
  * </p>
+ * <p>
+ * The {@code *Into} variants of the arithmetic operations, such as
+ * {@link #addInto(Vector, VectorBuffer)}, write their result into a mutable {@link VectorBuffer}
+ * instead, so that loops can run without allocating. The one exception to immutability is the
+ * vector returned by {@link VectorBuffer#asVector()}, which views the buffer.
+ * </p>
+ *
+ * <h2>Performance:</h2>
+ * <p>
+ * The dot product, norms, sum, element-wise arithmetic and {@code sqrt}, {@code exp} and
+ * {@code log} process several values per instruction using SIMD when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, and fall back to plain loops otherwise. With SIMD,
+ * the dot product, norms and sum add their terms in a different order, so may differ from the
+ * plain loops in the last few bits, and {@code exp} and {@code log} may differ in the last bit.
+ * </p>
  *
  * <h2>Size Normalization:</h2>
  * <p>
@@ -77,7 +92,8 @@ import java.util.List;
  */
 public final class Vector {
     /**
-     * The values that this vector holds. Immutable after construction.
+     * The values that this vector holds. Never modified through a vector, but modified by the
+     * owning {@link VectorBuffer} if this vector is its {@link VectorBuffer#asVector() view}.
      */
     private final double[] values;
 
@@ -104,6 +120,25 @@ public final class Vector {
         this.size = values.length;
     }
 
+    /**
+     * Private constructor that does NOT copy the array.
+     */
+    private Vector(double[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Package-private factory for a vector using an array without copying it, for views of a
+     * {@link VectorBuffer}.
+     *
+     * @param values the values of the vector, which are not copied
+     * @return a vector sharing the array
+     */
+    static Vector wrap(double[] values) {
+        return new Vector(values, values.length);
+    }
+
     /**
      * Creates a new Vector with the specified values.
      * <p>
@@ -312,12 +347,31 @@ public final class Vector {
         Vector v2 = normalized[1];
 
         double[] result = new double[v1.size];
-        for (int i = 0; i < v1.size; i++) {
-            result[i] = v1.values[i] + v2.values[i];
-        }
+        v1.addTo(v2, result);
         return new Vector(result);
     }
 
+    /**
+     * Adds another vector to this vector element-wise, writing the result into a buffer.
+     * <p>
+     * Unlike {@link #add(Vector)}, the vectors must have the same size, which is also the size of the buffer.
+     * </p>
+     *
+     * @param vector the other vector
+     * @param result the buffer to hold this + vector, which may be the buffer viewed by either vector
+     * @return the result buffer
+     * @throws IllegalArgumentException if vector is null, or the sizes of the vectors or buffer don't match
+     */
+    public VectorBuffer addInto(Vector vector, VectorBuffer result) {
+        checkInto(vector, result);
+        addTo(vector, result.getData());
+        return result;
+    }
+
+    private void addTo(Vector vector, double[] result) {
+        VectorKernels.BEST.add(values, vector.values, result, size);
+    }
+
     /**
      * Subtracts a scalar value from each element of this vector.
      * <p>
@@ -368,12 +422,31 @@ public final class Vector {
         Vector v2 = normalized[1];
 
         double[] result = new double[v1.size];
-        for (int i = 0; i < v1.size; i++) {
-            result[i] = v1.values[i] - v2.values[i];
-        }
+        v1.subtractTo(v2, result);
         return new Vector(result);
     }
 
+    /**
+     * Subtracts another vector from this vector element-wise, writing the result into a buffer.
+     * <p>
+     * Unlike {@link #subtract(Vector)}, the vectors must have the same size, which is also the size of the buffer.
+     * </p>
+     *
+     * @param vector the other vector
+     * @param result the buffer to hold this - vector, which may be the buffer viewed by either vector
+     * @return the result buffer
+     * @throws IllegalArgumentException if vector is null, or the sizes of the vectors or buffer don't match
+     */
+    public VectorBuffer subtractInto(Vector vector, VectorBuffer result) {
+        checkInto(vector, result);
+        subtractTo(vector, result.getData());
+        return result;
+    }
+
+    private void subtractTo(Vector vector, double[] result) {
+        VectorKernels.BEST.subtract(values, vector.values, result, size);
+    }
+
     /**
      * Multiplies each element of this vector by a scalar value.
      * <p>
@@ -391,12 +464,29 @@ public final class Vector {
      */
     public Vector multiply(double d) {
         double[] result = new double[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = values[i] * d;
-        }
+        multiplyTo(d, result);
         return new Vector(result);
     }
 
+    /**
+     * Multiplies each element of this vector by a scalar value, writing the result into a buffer.
+     *
+     * @param d      the scalar value to multiply each element by
+     * @param result the buffer to hold the result, with the same size as this vector, which may
+     *               be the buffer viewed by this vector
+     * @return the result buffer
+     * @throws IllegalArgumentException if the size of the buffer doesn't match
+     */
+    public VectorBuffer multiplyInto(double d, VectorBuffer result) {
+        checkInto(this, result);
+        multiplyTo(d, result.getData());
+        return result;
+    }
+
+    private void multiplyTo(double d, double[] result) {
+        VectorKernels.BEST.multiply(values, d, result, size);
+    }
+
     /**
      * Multiplies another vector with this vector element-wise (Hadamard product).
      * <p>
@@ -424,12 +514,31 @@ public final class Vector {
         Vector v2 = normalized[1];
 
         double[] result = new double[v1.size];
-        for (int i = 0; i < v1.size; i++) {
-            result[i] = v1.values[i] * v2.values[i];
-        }
+        v1.multiplyTo(v2, result);
         return new Vector(result);
     }
 
+    /**
+     * Multiplies another vector with this vector element-wise, writing the result into a buffer.
+     * <p>
+     * Unlike {@link #multiply(Vector)}, the vectors must have the same size, which is also the size of the buffer.
+     * </p>
+     *
+     * @param vector the other vector
+     * @param result the buffer to hold the element-wise product, which may be the buffer viewed by either vector
+     * @return the result buffer
+     * @throws IllegalArgumentException if vector is null, or the sizes of the vectors or buffer don't match
+     */
+    public VectorBuffer multiplyInto(Vector vector, VectorBuffer result) {
+        checkInto(vector, result);
+        multiplyTo(vector, result.getData());
+        return result;
+    }
+
+    private void multiplyTo(Vector vector, double[] result) {
+        VectorKernels.BEST.multiply(values, vector.values, result, size);
+    }
+
     /**
      * Divides each element of this vector by a scalar value.
      * <p>
@@ -452,10 +561,32 @@ public final class Vector {
         }
 
         double[] result = new double[size];
+        divideTo(d, result);
+        return new Vector(result);
+    }
+
+    /**
+     * Divides each element of this vector by a scalar value, writing the result into a buffer.
+     *
+     * @param d      the scalar value to divide each element by
+     * @param result the buffer to hold the result, with the same size as this vector, which may
+     *               be the buffer viewed by this vector
+     * @return the result buffer
+     * @throws IllegalArgumentException if d is zero, or the size of the buffer doesn't match
+     */
+    public VectorBuffer divideInto(double d, VectorBuffer result) {
+        if (d == 0.0) {
+            throw new IllegalArgumentException("Cannot divide vector by zero");
+        }
+        checkInto(this, result);
+        divideTo(d, result.getData());
+        return result;
+    }
+
+    private void divideTo(double d, double[] result) {
         for (int i = 0; i < size; i++) {
             result[i] = values[i] / d;
         }
-        return new Vector(result);
     }
 
     /**
@@ -513,10 +644,29 @@ public final class Vector {
      */
     public Vector pow(double k) {
         double[] result = new double[size];
+        powTo(k, result);
+        return new Vector(result);
+    }
+
+    /**
+     * Raises each element of this vector to the power of a scalar, writing the result into a buffer.
+     *
+     * @param k      the exponent to raise each element to
+     * @param result the buffer to hold the result, with the same size as this vector, which may
+     *               be the buffer viewed by this vector
+     * @return the result buffer
+     * @throws IllegalArgumentException if the size of the buffer doesn't match
+     */
+    public VectorBuffer powInto(double k, VectorBuffer result) {
+        checkInto(this, result);
+        powTo(k, result.getData());
+        return result;
+    }
+
+    private void powTo(double k, double[] result) {
         for (int i = 0; i < size; i++) {
             result[i] = Math.pow(values[i], k);
         }
-        return new Vector(result);
     }
 
     /**
@@ -568,9 +718,7 @@ public final class Vector {
      */
     public Vector sqrt() {
         double[] result = new double[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = Math.sqrt(values[i]);
-        }
+        VectorKernels.BEST.sqrt(values, result, size);
         return new Vector(result);
     }
 
@@ -590,9 +738,7 @@ public final class Vector {
      */
     public Vector log() {
         double[] result = new double[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = Math.log(values[i]);
-        }
+        VectorKernels.BEST.log(values, result, size);
         return new Vector(result);
     }
 
@@ -612,9 +758,7 @@ public final class Vector {
      */
     public Vector exp() {
         double[] result = new double[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = Math.exp(values[i]);
-        }
+        VectorKernels.BEST.exp(values, result, size);
         return new Vector(result);
     }
 
@@ -649,11 +793,7 @@ public final class Vector {
         Vector v1 = normalized[0];
         Vector v2 = normalized[1];
 
-        double result = 0.0;
-        for (int i = 0; i < v1.size; i++) {
-            result += v1.values[i] * v2.values[i];
-        }
-        return result;
+        return VectorKernels.BEST.dot(v1.values, v2.values, v1.size);
     }
 
     /**
@@ -736,11 +876,7 @@ public final class Vector {
      * @return the squared Euclidean norm as a non-negative scalar value
      */
     public double getNormSquare() {
-        double result = 0.0;
-        for (int i = 0; i < size; i++) {
-            result += values[i] * values[i];
-        }
-        return result;
+        return VectorKernels.BEST.sumOfSquares(values, size);
     }
 
     /**
@@ -783,7 +919,7 @@ public final class Vector {
      * @return the sum of all elements
      */
     public double sum() {
-        return StatUtils.sum(values);
+        return VectorKernels.BEST.sum(values, size);
     }
 
     /**
@@ -907,6 +1043,24 @@ public final class Vector {
         return new Vector(values);
     }
 
+    /**
+     * Validates the operands and destination of an operation writing into a buffer.
+     *
+     * @param vector the other operand, which is this vector for operations with a scalar
+     * @param result the destination
+     * @throws IllegalArgumentException if vector is null or the sizes don't match
+     */
+    private void checkInto(Vector vector, VectorBuffer result) {
+        if (vector == null) {
+            throw new IllegalArgumentException("Cannot operate on null vector");
+        }
+        if (vector.size != size) {
+            throw new IllegalArgumentException(
+                    "Vector sizes must agree. This: " + size + ", other: " + vector.size);
+        }
+        result.checkSize(size);
+    }
+
     /**
      * Normalizes the sizes of two vectors by padding the smaller one with zeros.
      * <p>
@@ -0,0 +1,203 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, fixed size storage for the result of {@link Vector} operations, so that iterative
+ * algorithms can run without allocating a new vector on every step.
+ * <p>
+ * The {@code *Into} methods of {@link Vector}, such as {@link Vector#addInto(Vector, VectorBuffer)},
+ * write their result into a buffer in place of returning a new vector. The contents of a buffer
+ * can be passed back into further operations through {@link #asVector()}, which views the buffer
+ * as a vector without copying.
+ * </p>
+ *
+ * <h2>Views and Snapshots:</h2>
+ * <p>
+ * The vector returned by {@link #asVector()} shares the values of the buffer, so unlike every
+ * other vector it changes whenever the buffer is written to. It is intended for passing the
+ * current contents of the buffer straight into the next operation, and must not be kept or
+ * shared once the buffer may change. Use {@link #toVector()} for an immutable copy.
+ * </p>
+ * <p>
+ * Every vector operation is element-wise, so a buffer may be the destination of an operation on
+ * its own view, for example {@code x.asVector().multiplyInto(0.5, x)} halves every value in
+ * place. Buffers are not thread-safe.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * // gradient descent, allocating nothing per step
+ * VectorBuffer weights = VectorBuffer.copyOf(initial);
+ * VectorBuffer step = VectorBuffer.ofSize(initial.getSize());
+ * for (int k = 0; k < iterations; k++) {
+ *     gradient(weights.asVector(), step);
+ *     step.asVector().multiplyInto(learningRate, step);
+ *     weights.asVector().subtractInto(step.asVector(), weights);
+ * }
+ * Vector result = weights.toVector();
+ * }</pre>
+ *
+ * @author Ryan Harrison
+ */
+public final class VectorBuffer {
+    /**
+     * The values of this buffer.
+     */
+    private final double[] values;
+
+    /**
+     * A vector viewing {@link #values}, created once as it never changes.
+     */
+    private final Vector view;
+
+    private VectorBuffer(int size) {
+        this.values = new double[size];
+        this.view = Vector.wrap(values);
+    }
+
+    // ==================== Factory Methods ====================
+
+    /**
+     * Creates a buffer of the specified size with every value 0.0.
+     *
+     * @param size the number of values
+     * @return a new zero buffer
+     * @throws IllegalArgumentException if size is not positive
+     */
+    public static VectorBuffer ofSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Vector size must be positive, got: " + size);
+        }
+        return new VectorBuffer(size);
+    }
+
+    /**
+     * Creates a buffer with the same values as a vector.
+     *
+     * @param vector the vector to copy
+     * @return a new buffer holding a copy of the values of the vector
+     * @throws IllegalArgumentException if the vector is null
+     */
+    public static VectorBuffer copyOf(Vector vector) {
+        if (vector == null) {
+            throw new IllegalArgumentException("Vector cannot be null");
+        }
+        return new VectorBuffer(vector.getSize()).set(vector);
+    }
+
+    // ==================== Accessors ====================
+
+    /**
+     * Gets the value at the specified index.
+     *
+     * @param index the zero-based index of the value
+     * @return the value at the specified index
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     */
+    public double get(int index) {
+        return values[checkIndex(index)];
+    }
+
+    /**
+     * Sets the value at the specified index.
+     *
+     * @param index the zero-based index of the value
+     * @param value the new value
+     * @return this buffer
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     */
+    public VectorBuffer set(int index, double value) {
+        values[checkIndex(index)] = value;
+        return this;
+    }
+
+    /**
+     * Replaces every value of this buffer with the corresponding value of a vector.
+     *
+     * @param vector the vector to copy, with the same size as this buffer
+     * @return this buffer
+     * @throws IllegalArgumentException if the sizes don't match
+     */
+    public VectorBuffer set(Vector vector) {
+        checkSize(vector.getSize());
+        for (int i = 0; i < values.length; i++) {
+            values[i] = vector.get(i);
+        }
+        return this;
+    }
+
+    /**
+     * Sets every value of this buffer.
+     *
+     * @param value the value of every element
+     * @return this buffer
+     */
+    public VectorBuffer fill(double value) {
+        Arrays.fill(values, value);
+        return this;
+    }
+
+    /**
+     * Returns the size (dimension) of this buffer.
+     *
+     * @return the number of values in this buffer
+     */
+    public int getSize() {
+        return values.length;
+    }
+
+    /**
+     * Returns a vector viewing the current values of this buffer without copying them.
+     * <p>
+     * <b>Warning:</b> the returned vector changes whenever this buffer is written to, so must
+     * not be kept or shared once the buffer may change. Use {@link #toVector()} for an
+     * immutable copy.
+     * </p>
+     *
+     * @return a vector sharing the values of this buffer
+     */
+    public Vector asVector() {
+        return view;
+    }
+
+    /**
+     * Returns an immutable copy of the current values of this buffer.
+     *
+     * @return a new Vector holding a copy of the values
+     */
+    public Vector toVector() {
+        return Vector.of(values);
+    }
+
+    // ==================== Package-Private Methods ====================
+
+    /**
+     * Returns the array holding the values of this buffer, for the {@code *Into} methods to
+     * write their result into.
+     */
+    double[] getData() {
+        return values;
+    }
+
+    /**
+     * Validates that this buffer has the given size, as the destination of an operation whose
+     * result has it.
+     *
+     * @throws IllegalArgumentException if the sizes don't match
+     */
+    void checkSize(int resultSize) {
+        if (values.length != resultSize) {
+            throw new IllegalArgumentException(
+                    "Result sizes must agree. Result has " + resultSize + " values, buffer has " + values.length);
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= values.length) {
+            throw new IllegalArgumentException(
+                    "Vector index out of range: " + index + " (size: " + values.length + ")");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,102 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+/**
+ * The loops over arrays of values behind the operations of {@link Vector}.
+ * <p>
+ * Two implementations exist: {@link ScalarVectorKernels}, processing one value at a time, and
+ * {@link SimdVectorKernels}, processing as many values at a time as the CPU's widest SIMD
+ * registers hold through the incubating {@code jdk.incubator.vector} module. {@link #BEST} is the
+ * SIMD implementation when that module has been added to the running JVM with
+ * {@code --add-modules jdk.incubator.vector}, and the scalar implementation otherwise, so the
+ * library works unchanged on JVMs started without the module.
+ * </p>
+ * <p>
+ * Element-wise kernels give the same results from either implementation, apart from
+ * {@code exp} and {@code log}, which may differ in the last bit. Reductions such as
+ * {@link #dot} add their terms in a different order in the SIMD implementation, so their
+ * results can differ from the scalar implementation, and between CPUs with registers of
+ * different widths, by a few units in the last place.
+ * </p>
+ * <p>
+ * Every kernel reads and writes the first {@code n} values of its arrays. An output array may
+ * be the same array as an input.
+ * </p>
+ */
+interface VectorKernels {
+
+    /**
+     * Kernels processing one value at a time, which are always available
+     */
+    VectorKernels SCALAR = new ScalarVectorKernels();
+
+    /**
+     * The fastest kernels available in the running JVM
+     */
+    VectorKernels BEST = select();
+
+    /**
+     * @return The SIMD kernels if the {@code jdk.incubator.vector} module is present, otherwise
+     * the scalar kernels
+     */
+    static VectorKernels select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return SCALAR;
+
+        try {
+            return new SimdVectorKernels();
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // the module is present but cannot be used on this platform
+            return SCALAR;
+        }
+    }
+
+    /**
+     * @return Σ a[i] × b[i]
+     */
+    double dot(double[] a, double[] b, int n);
+
+    /**
+     * @return Σ a[i]²
+     */
+    double sumOfSquares(double[] a, int n);
+
+    /**
+     * @return Σ a[i]
+     */
+    double sum(double[] a, int n);
+
+    /**
+     * result[i] = a[i] + b[i]
+     */
+    void add(double[] a, double[] b, double[] result, int n);
+
+    /**
+     * result[i] = a[i] - b[i]
+     */
+    void subtract(double[] a, double[] b, double[] result, int n);
+
+    /**
+     * result[i] = a[i] × b[i]
+     */
+    void multiply(double[] a, double[] b, double[] result, int n);
+
+    /**
+     * result[i] = a[i] × d
+     */
+    void multiply(double[] a, double d, double[] result, int n);
+
+    /**
+     * result[i] = √a[i]
+     */
+    void sqrt(double[] a, double[] result, int n);
+
+    /**
+     * result[i] = e^a[i]
+     */
+    void exp(double[] a, double[] result, int n);
+
+    /**
+     * result[i] = ln a[i]
+     */
+    void log(double[] a, double[] result, int n);
+}
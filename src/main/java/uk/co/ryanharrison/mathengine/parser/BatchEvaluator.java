@@ -0,0 +1,571 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.compiler.PostfixCompiler;
+import uk.co.ryanharrison.mathengine.parser.compiler.PostfixProgram;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.utils.NumberScanner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Evaluates an expression over every row of a large table, binding each variable of the
+ * expression to a column of the same name.
+ * <p>
+ * Rows are split into chunks of {@link Builder#chunkSize(int)} rows which are evaluated on the
+ * worker threads of an {@link Executor}. At most twice {@link Builder#parallelism(int)} chunks
+ * are in flight at once, and results are written in the order of their rows as soon as each
+ * chunk completes, so memory use depends on the chunk size rather than the size of the input.
+ * </p>
+ * <p>
+ * The expression is compiled once when the batch evaluator is built, capturing the variables,
+ * functions and angle unit of the {@link Evaluator} at that time. Expressions of one or two
+ * columns that only use numeric operators are compiled into a {@link PostfixProgram} and
+ * evaluated a block of rows at a time; anything else is evaluated row by row through a
+ * {@link CompiledExpression} with the columns as its parameters.
+ * </p>
+ * <p>
+ * Input can be CSV text with a header row naming the columns, through
+ * {@link #evaluateCsv(Reader, Writer)}, or columns already held as {@link DoubleBuffer}s, through
+ * {@link #evaluateColumns(Map, DoubleBuffer)}. The latter works equally well with buffers of a
+ * memory-mapped file, so columnar data need not be loaded into the heap first.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * BatchEvaluator batch = BatchEvaluator.builder()
+ *         .evaluator(Evaluator.newEvaluator())
+ *         .expression("price * quantity * (1 + tax)")
+ *         .columns("price", "quantity", "tax")
+ *         .build();
+ *
+ * try (Reader in = Files.newBufferedReader(input); Writer out = Files.newBufferedWriter(output)) {
+ *     long rows = batch.evaluateCsv(in, out);
+ * }
+ *
+ * // columns of a memory-mapped file of little endian doubles
+ * DoubleBuffer prices = channel.map(MapMode.READ_ONLY, 0, rows * 8L)
+ *         .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+ * }</pre>
+ * <p>
+ * A batch evaluator is immutable and can be used by any number of threads at once.
+ * </p>
+ */
+public final class BatchEvaluator {
+
+    /**
+     * The number of rows evaluated by each task unless set otherwise
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final String[] columns;
+    private final CompiledExpression expression;
+    private final PostfixProgram program;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Executor executor;
+    private final char delimiter;
+    private final String resultName;
+
+    private BatchEvaluator(Builder builder, CompiledExpression expression, PostfixProgram program) {
+        this.columns = builder.columns;
+        this.expression = expression;
+        this.program = program;
+        this.chunkSize = builder.chunkSize;
+        this.parallelism = builder.parallelism;
+        this.executor = builder.executor;
+        this.delimiter = builder.delimiter;
+        this.resultName = builder.resultName;
+    }
+
+    /**
+     * Creates a new builder for constructing a {@link BatchEvaluator}.
+     *
+     * @return a new builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Evaluate the expression for every row of CSV text and write the results as CSV text of a
+     * single column. The first line of the input must name its columns, and must include every
+     * column of the expression; other columns are ignored. Fields may be enclosed in double
+     * quotes, and blank lines are skipped. The output starts with a header line holding the
+     * result name followed by one line per row. Neither reader nor writer is closed.
+     *
+     * @param input  The CSV text to read
+     * @param output Receives the results
+     * @return The number of rows evaluated
+     * @throws IOException              if reading or writing fails
+     * @throws IllegalArgumentException if the header does not name every column, or a row does
+     *                                  not hold a number in every column of the expression
+     */
+    public long evaluateCsv(Reader input, Writer output) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        String header = reader.readLine();
+        if (header == null)
+            throw new IllegalArgumentException("Expected a header line naming the columns");
+
+        int[] fieldColumns = mapHeader(header);
+        output.write(resultName);
+        output.write('\n');
+
+        long[] lineNumber = {1};
+        long[] rows = {0};
+        this.<String>run(() -> {
+            List<String> lines = new ArrayList<>(Math.min(chunkSize, 1024));
+            long[] lineNumbers = new long[chunkSize];
+            try {
+                String line;
+                while (lines.size() < chunkSize && (line = reader.readLine()) != null) {
+                    lineNumber[0]++;
+                    if (!line.isBlank()) {
+                        lineNumbers[lines.size()] = lineNumber[0];
+                        lines.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (lines.isEmpty())
+                return null;
+
+            rows[0] += lines.size();
+            return () -> formatResults(evaluate(parseChunk(lines, lineNumbers, fieldColumns), lines.size()));
+        }, output::write);
+
+        output.flush();
+        return rows[0];
+    }
+
+    /**
+     * Evaluate the expression for every row of columns held as buffers. The rows are those
+     * between the position and limit of each buffer, all of which must hold the same number of
+     * rows, and results are written to the output from its position onwards. The positions of
+     * the buffers are not changed.
+     *
+     * @param columnValues The values of every column of the expression by name
+     * @param out          Receives the result of each row
+     * @return The number of rows evaluated
+     * @throws IllegalArgumentException if a column is missing, the columns hold different numbers
+     *                                  of rows or the output has too little room
+     */
+    public long evaluateColumns(Map<String, DoubleBuffer> columnValues, DoubleBuffer out) {
+        DoubleBuffer[] buffers = new DoubleBuffer[columns.length];
+        int rows = -1;
+        for (int i = 0; i < columns.length; i++) {
+            buffers[i] = columnValues.get(columns[i]);
+            if (buffers[i] == null)
+                throw new IllegalArgumentException("No values for column \"" + columns[i] + "\"");
+            if (rows != -1 && buffers[i].remaining() != rows) {
+                throw new IllegalArgumentException("Expected " + rows + " values for column \"" + columns[i]
+                        + "\", got: " + buffers[i].remaining());
+            }
+            rows = buffers[i].remaining();
+        }
+        if (out.remaining() < rows) {
+            throw new IllegalArgumentException("Expected an output buffer with room for at least " + rows
+                    + " values, got: " + out.remaining());
+        }
+
+        int total = rows;
+        int outBase = out.position();
+        int[] next = {0};
+        try {
+            this.<Void>run(() -> {
+                int from = next[0];
+                if (from >= total)
+                    return null;
+
+                int count = Math.min(chunkSize, total - from);
+                next[0] += count;
+                return () -> {
+                    double[][] values = new double[columns.length][count];
+                    for (int i = 0; i < buffers.length; i++) {
+                        buffers[i].get(buffers[i].position() + from, values[i]);
+                    }
+                    out.put(outBase + from, evaluate(values, count));
+                    return null;
+                };
+            }, ignored -> {
+            });
+        } catch (IOException e) {
+            // nothing is read or written through streams
+            throw new UncheckedIOException(e);
+        }
+        return total;
+    }
+
+    /**
+     * Run the tasks given by a source on the executor, passing their results to a sink in the
+     * order the tasks were given, with at most twice the parallelism of tasks in flight
+     */
+    private <T> void run(Supplier<Supplier<T>> source, ResultSink<T> sink) throws IOException {
+        if (parallelism == 1) {
+            Supplier<T> task;
+            while ((task = next(source)) != null) {
+                sink.accept(task.get());
+            }
+            return;
+        }
+
+        ArrayDeque<CompletableFuture<T>> pending = new ArrayDeque<>();
+        try {
+            Supplier<T> task;
+            while ((task = next(source)) != null) {
+                pending.add(CompletableFuture.supplyAsync(task, executor));
+                if (pending.size() >= 2 * parallelism)
+                    sink.accept(join(pending.poll()));
+            }
+            while (!pending.isEmpty()) {
+                sink.accept(join(pending.poll()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static <T> Supplier<T> next(Supplier<Supplier<T>> source) throws IOException {
+        try {
+            return source.get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * Evaluate a chunk of rows
+     *
+     * @param values The values of each column, in the order of the parameters
+     * @param count  The number of rows
+     * @return The result of each row
+     */
+    private double[] evaluate(double[][] values, int count) {
+        double[] results = new double[count];
+        if (program != null) {
+            program.evaluateAll(values[0], values.length > 1 ? values[1] : null, results);
+            return results;
+        }
+
+        double[] row = new double[values.length];
+        for (int r = 0; r < count; r++) {
+            for (int c = 0; c < values.length; c++) {
+                row[c] = values[c][r];
+            }
+            results[r] = expression.evaluateDouble(row);
+        }
+        return results;
+    }
+
+    /**
+     * Find the column of the expression held by each field of the header
+     *
+     * @return The index of the column of each field, or -1 for fields not used
+     */
+    private int[] mapHeader(String header) {
+        List<String> names = new ArrayList<>();
+        forEachField(header, (index, start, end) -> names.add(unquote(header, start, end)));
+
+        int[] fieldColumns = new int[names.size()];
+        Arrays.fill(fieldColumns, -1);
+        for (int c = 0; c < columns.length; c++) {
+            int field = names.indexOf(columns[c]);
+            if (field == -1)
+                throw new IllegalArgumentException("Column \"" + columns[c] + "\" not found in header: " + header);
+            fieldColumns[field] = c;
+        }
+        return fieldColumns;
+    }
+
+    private double[][] parseChunk(List<String> lines, long[] lineNumbers, int[] fieldColumns) {
+        double[][] values = new double[columns.length][lines.size()];
+        NumberScanner scanner = new NumberScanner();
+        int[] found = new int[1];
+
+        for (int r = 0; r < lines.size(); r++) {
+            String line = lines.get(r);
+            int row = r;
+            long lineNumber = lineNumbers[r];
+            found[0] = 0;
+            forEachField(line, (index, start, end) -> {
+                if (index >= fieldColumns.length || fieldColumns[index] == -1)
+                    return;
+
+                if (end - start >= 2 && line.charAt(start) == '"' && line.charAt(end - 1) == '"') {
+                    start++;
+                    end--;
+                }
+                int column = fieldColumns[index];
+                if (!scanner.scan(line, start, end)) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": column \"" + columns[column]
+                            + "\" is not a number: " + line.substring(start, end));
+                }
+                values[column][row] = scanner.getValue();
+                found[0]++;
+            });
+            if (found[0] != columns.length) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected a value for every column of "
+                        + List.of(columns) + ", got: " + line);
+            }
+        }
+        return values;
+    }
+
+    private String formatResults(double[] results) {
+        StringBuilder builder = new StringBuilder(results.length * 12);
+        for (double result : results) {
+            builder.append(result).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Call a visitor with the range of each field of a line, not including the delimiters.
+     * Delimiters within double quotes do not end a field
+     */
+    private void forEachField(String line, FieldVisitor visitor) {
+        int index = 0;
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == delimiter && !quoted) {
+                visitor.visit(index++, start, i);
+                start = i + 1;
+            }
+        }
+        visitor.visit(index, start, line.length());
+    }
+
+    private static String unquote(String line, int start, int end) {
+        String field = line.substring(start, end).trim();
+        if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\""))
+            return field.substring(1, field.length() - 1);
+        return field;
+    }
+
+    @FunctionalInterface
+    private interface FieldVisitor {
+        void visit(int index, int start, int end);
+    }
+
+    @FunctionalInterface
+    private interface ResultSink<T> {
+        void accept(T result) throws IOException;
+    }
+
+    /**
+     * Get the columns bound to the variables of the expression
+     *
+     * @return The names of the columns, in the order of the parameters of the expression
+     */
+    public List<String> getColumns() {
+        return List.of(columns);
+    }
+
+    /**
+     * Get whether the expression is evaluated as a {@link PostfixProgram} a block of rows at a
+     * time, rather than row by row
+     *
+     * @return Whether the expression was compiled into a postfix program
+     */
+    public boolean isVectorised() {
+        return program != null;
+    }
+
+    /**
+     * Builder for creating {@link BatchEvaluator} instances.
+     * <p>
+     * The evaluator, expression and columns must be given; everything else has a default.
+     * </p>
+     */
+    public static final class Builder {
+        private Evaluator evaluator;
+        private String expression;
+        private String[] columns;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Executor executor = ForkJoinPool.commonPool();
+        private char delimiter = ',';
+        private String resultName = "result";
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the evaluator whose variables, functions and angle unit the expression is
+         * compiled with.
+         *
+         * @param evaluator the evaluator
+         * @return this builder
+         * @throws IllegalArgumentException if evaluator is null
+         */
+        public Builder evaluator(Evaluator evaluator) {
+            if (evaluator == null) {
+                throw new IllegalArgumentException("Evaluator cannot be null");
+            }
+            this.evaluator = evaluator;
+            return this;
+        }
+
+        /**
+         * Sets the expression evaluated for each row.
+         *
+         * @param expression the expression
+         * @return this builder
+         * @throws IllegalArgumentException if expression is null
+         */
+        public Builder expression(String expression) {
+            if (expression == null) {
+                throw new IllegalArgumentException("Expression cannot be null");
+            }
+            this.expression = expression;
+            return this;
+        }
+
+        /**
+         * Sets the columns bound to variables of the same name in the expression.
+         *
+         * @param columns the names of the columns
+         * @return this builder
+         * @throws IllegalArgumentException if no columns are given
+         */
+        public Builder columns(String... columns) {
+            if (columns == null || columns.length == 0) {
+                throw new IllegalArgumentException("At least one column must be given");
+            }
+            this.columns = columns.clone();
+            return this;
+        }
+
+        /**
+         * Sets the number of rows evaluated by each task.
+         *
+         * @param chunkSize the number of rows per task, must be positive
+         * @return this builder
+         * @throws IllegalArgumentException if chunkSize is not positive
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of chunks evaluated at once. With a parallelism of one every chunk is
+         * evaluated on the calling thread.
+         *
+         * @param parallelism the number of chunks evaluated at once, must be positive
+         * @return this builder
+         * @throws IllegalArgumentException if parallelism is not positive
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive, got: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the executor chunks are evaluated on. Defaults to the common fork/join pool.
+         *
+         * @param executor the executor
+         * @return this builder
+         * @throws IllegalArgumentException if executor is null
+         */
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("Executor cannot be null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the character separating the fields of CSV input. Defaults to a comma.
+         *
+         * @param delimiter the delimiter
+         * @return this builder
+         * @throws IllegalArgumentException if delimiter is a double quote or line break
+         */
+        public Builder delimiter(char delimiter) {
+            if (delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+                throw new IllegalArgumentException("Delimiter cannot be a quote or line break");
+            }
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * Sets the name written as the header of CSV output. Defaults to {@code result}.
+         *
+         * @param resultName the name of the result column
+         * @return this builder
+         * @throws IllegalArgumentException if resultName is null
+         */
+        public Builder resultName(String resultName) {
+            if (resultName == null) {
+                throw new IllegalArgumentException("Result name cannot be null");
+            }
+            this.resultName = resultName;
+            return this;
+        }
+
+        /**
+         * Builds the {@link BatchEvaluator} instance, compiling the expression.
+         *
+         * @return a new immutable BatchEvaluator
+         * @throws IllegalArgumentException if the evaluator, expression or columns are missing,
+         *                                  or a column is named more than once
+         */
+        public BatchEvaluator build() {
+            if (evaluator == null || expression == null || columns == null) {
+                throw new IllegalArgumentException("Evaluator, expression and columns must be specified");
+            }
+
+            Node tree = evaluator.optimize(evaluator.generateTree(expression), columns);
+            CompiledExpression compiled = evaluator.compile(tree, columns);
+
+            Optional<PostfixProgram> program = Optional.empty();
+            if (columns.length <= 2) {
+                EvaluationContext context = evaluator.getContext();
+                program = PostfixCompiler.compile(tree, columns[0], columns.length > 1 ? columns[1] : null,
+                        context::getConstant, context.getAngleUnit());
+            }
+            return new BatchEvaluator(this, compiled, program.orElse(null));
+        }
+    }
+}
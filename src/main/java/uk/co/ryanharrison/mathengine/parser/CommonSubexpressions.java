@@ -0,0 +1,165 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Turns an expression tree into a graph in which every repeated subexpression is held once.
+ * <p>
+ * Subexpressions are compared by their structure, so the two copies of {@code sin(x)} in
+ * {@code sin(x)^2 + sin(x)*cos(x)} become one node. Each subexpression used more than once is
+ * wrapped in a {@link NodeShared} referred to from every place it is used, which the
+ * {@link RecursiveDescentParser} evaluates once per evaluation. Evaluation of the graph gives
+ * the same result as the tree, as operators have no side effects; trees that assign or clear
+ * variables, which could change the value of a repeated subexpression between its uses, are
+ * returned unchanged.
+ * </p>
+ */
+final class CommonSubexpressions {
+
+    /**
+     * The first instance seen of each distinct subexpression
+     */
+    private final Map<Node, Node> canonical = new HashMap<>();
+
+    /**
+     * The number of places each canonical subexpression is used
+     */
+    private final Map<Node, Integer> uses = new IdentityHashMap<>();
+
+    /**
+     * The node replacing each canonical subexpression in the graph
+     */
+    private final Map<Node, Node> replacements = new IdentityHashMap<>();
+
+    private CommonSubexpressions() {
+    }
+
+    /**
+     * Share the repeated subexpressions of a tree
+     *
+     * @param tree The tree to share the subexpressions of
+     * @return The tree with repeated subexpressions shared, which is the tree itself if nothing
+     * is repeated
+     */
+    static Node share(Node tree) {
+        if (TreeOptimizer.hasSideEffects(tree))
+            return tree;
+
+        CommonSubexpressions sharing = new CommonSubexpressions();
+        Node merged = sharing.merge(tree);
+        if (!sharing.anyRepeated())
+            return tree;
+
+        return sharing.wrap(merged);
+    }
+
+    /**
+     * Replace every subexpression by the first equal one seen, counting the uses of each
+     */
+    private Node merge(Node node) {
+        if (!(node instanceof NodeExpression) && !(node instanceof NodeVector) && !(node instanceof NodeMatrix))
+            return node;
+
+        if (node instanceof NodeExpression) {
+            Node existing = canonical.get(node);
+            if (existing != null) {
+                // the subexpressions of a repeated expression are evaluated with it, so they are
+                // not counted again
+                uses.merge(existing, 1, Integer::sum);
+                return existing;
+            }
+        }
+
+        Node merged = mergeChildren(node);
+        if (merged instanceof NodeExpression) {
+            canonical.put(merged, merged);
+            uses.put(merged, 1);
+        }
+        return merged;
+    }
+
+    private Node mergeChildren(Node node) {
+        if (node instanceof NodeExpression expression) {
+            Node argOne = merge(expression.getArgOne());
+            Node argTwo = expression.getArgTwo() == null ? null : merge(expression.getArgTwo());
+            return argOne == expression.getArgOne() && argTwo == expression.getArgTwo()
+                    ? expression : new NodeExpression(expression.getOperator(), argOne, argTwo);
+        }
+        if (node instanceof NodeVector vector && !vector.isDense()) {
+            Node[] values = vector.getValues();
+            Node[] merged = new Node[values.length];
+            boolean changed = false;
+            for (int i = 0; i < values.length; i++) {
+                merged[i] = merge(values[i]);
+                changed |= merged[i] != values[i];
+            }
+            return changed ? new NodeVector(merged) : vector;
+        }
+        if (node instanceof NodeMatrix matrix && !matrix.isDense()) {
+            Node[][] values = matrix.getValues();
+            Node[][] merged = new Node[values.length][];
+            boolean changed = false;
+            for (int i = 0; i < values.length; i++) {
+                merged[i] = new Node[values[i].length];
+                for (int j = 0; j < values[i].length; j++) {
+                    merged[i][j] = merge(values[i][j]);
+                    changed |= merged[i][j] != values[i][j];
+                }
+            }
+            return changed ? new NodeMatrix(merged) : matrix;
+        }
+        return node;
+    }
+
+    private boolean anyRepeated() {
+        for (int count : uses.values()) {
+            if (count > 1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Wrap every subexpression used more than once, giving each one a single wrapper
+     */
+    private Node wrap(Node node) {
+        Node replacement = replacements.get(node);
+        if (replacement != null)
+            return replacement;
+
+        if (node instanceof NodeExpression expression) {
+            Node argOne = wrap(expression.getArgOne());
+            Node argTwo = expression.getArgTwo() == null ? null : wrap(expression.getArgTwo());
+            replacement = argOne == expression.getArgOne() && argTwo == expression.getArgTwo()
+                    ? expression : new NodeExpression(expression.getOperator(), argOne, argTwo);
+            if (uses.getOrDefault(expression, 1) > 1)
+                replacement = new NodeShared(replacement);
+        } else if (node instanceof NodeVector vector && !vector.isDense()) {
+            Node[] values = vector.getValues();
+            Node[] wrapped = new Node[values.length];
+            for (int i = 0; i < values.length; i++) {
+                wrapped[i] = wrap(values[i]);
+            }
+            replacement = new NodeVector(wrapped);
+        } else if (node instanceof NodeMatrix matrix && !matrix.isDense()) {
+            Node[][] values = matrix.getValues();
+            Node[][] wrapped = new Node[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                wrapped[i] = new Node[values[i].length];
+                for (int j = 0; j < values[i].length; j++) {
+                    wrapped[i][j] = wrap(values[i][j]);
+                }
+            }
+            replacement = new NodeMatrix(wrapped);
+        } else {
+            return node;
+        }
+
+        replacements.put(node, replacement);
+        return replacement;
+    }
+}
@@ -0,0 +1,221 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An expression tree bound to a frozen copy of the {@link Evaluator} state it was compiled in.
+ * <p>
+ * Compiled expressions are immutable and can be evaluated concurrently from any number of
+ * threads. Each evaluation runs against its own context holding the supplied arguments, so
+ * assignments or {@code clearvars} within the expression only affect that evaluation.
+ *
+ * <pre>{@code
+ * CompiledExpression expression = Evaluator.newEvaluator().compile("x^2 + y");
+ * double result = expression.evaluateDouble("x", 3, "y", 1); // 10
+ * }</pre>
+ * <p>
+ * An expression compiled with named parameters has its variables resolved when it is compiled,
+ * as described by {@link VariableBinder}. Its parameters are then given by position and read
+ * from an array, and its other variables were replaced by their values, so evaluation looks
+ * nothing up by name.
+ *
+ * <pre>{@code
+ * CompiledExpression expression = Evaluator.newEvaluator().compile("x^2 + y", "x", "y");
+ * double result = expression.evaluateDouble(3, 1); // 10
+ * }</pre>
+ */
+public final class CompiledExpression {
+
+    private static final String[] NO_PARAMETERS = new String[0];
+    private static final NodeConstant[] NO_VALUES = new NodeConstant[0];
+
+    private final Node tree;
+    private final EvaluationContext context;
+    private final String[] parameters;
+
+    /**
+     * Whether the parameters of the tree have been resolved to slots. Trees with side effects
+     * are not resolved and have their parameters bound by name instead
+     */
+    private final boolean slotted;
+
+    /**
+     * @param tree    The expression tree
+     * @param context A context owned by this expression that will never be modified
+     */
+    CompiledExpression(Node tree, EvaluationContext context) {
+        this(tree, context, NO_PARAMETERS, false);
+    }
+
+    /**
+     * @param tree       The expression tree, with its variables resolved if {@code slotted}
+     * @param context    A context owned by this expression that will never be modified
+     * @param parameters The names of the parameters, in the order their values are given
+     * @param slotted    Whether the parameters of the tree have been resolved to slots
+     */
+    CompiledExpression(Node tree, EvaluationContext context, String[] parameters, boolean slotted) {
+        this.tree = tree;
+        this.context = context;
+        this.parameters = parameters;
+        this.slotted = slotted;
+    }
+
+    /**
+     * Evaluate the expression without any arguments
+     *
+     * @return The result of the expression
+     */
+    public NodeConstant evaluate() {
+        return evaluate(Map.of());
+    }
+
+    /**
+     * Evaluate the expression with the given variables bound in addition to those captured
+     * when it was compiled. Every parameter of the expression must be given a value; variables
+     * that were defined when the expression was compiled with parameters cannot be replaced
+     *
+     * @param args The values of the variables
+     * @return The result of the expression
+     * @throws IllegalArgumentException   if a parameter is not given a value
+     * @throws EvaluationAbortedException if the evaluation exceeds the budget captured when
+     *                                    this expression was compiled
+     */
+    public NodeConstant evaluate(Map<String, NodeConstant> args) {
+        if (parameters.length == 0)
+            return evaluate(NO_VALUES, args);
+
+        NodeConstant[] values = new NodeConstant[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            values[i] = args.get(parameters[i]);
+            if (values[i] == null)
+                throw new IllegalArgumentException("No value associated with \"" + parameters[i] + "\"");
+        }
+        return evaluate(values, args);
+    }
+
+    /**
+     * Evaluate the expression with a value for each of its parameters
+     *
+     * @param values The value of each parameter, in the order the parameters were given when
+     *               the expression was compiled
+     * @return The result of the expression
+     * @throws IllegalArgumentException   if the number of values is not the number of parameters
+     * @throws EvaluationAbortedException if the evaluation exceeds the budget captured when
+     *                                    this expression was compiled
+     */
+    public NodeConstant evaluate(NodeConstant... values) {
+        if (values.length != parameters.length) {
+            throw new IllegalArgumentException("Expected " + parameters.length + " parameter values, got: "
+                    + values.length);
+        }
+        return evaluate(values, Map.of());
+    }
+
+    /**
+     * Evaluate the expression with a number for each of its parameters to a double
+     *
+     * @param values The value of each parameter, in the order the parameters were given when
+     *               the expression was compiled
+     * @return The result of the expression as a double
+     * @throws IllegalArgumentException if the number of values is not the number of parameters
+     */
+    public double evaluateDouble(double... values) {
+        NodeConstant[] constants = new NodeConstant[values.length];
+        for (int i = 0; i < values.length; i++) {
+            constants[i] = NodeFactory.createNodeNumberFrom(values[i]);
+        }
+        return Evaluator.toDouble(evaluate(constants));
+    }
+
+    private NodeConstant evaluate(NodeConstant[] values, Map<String, NodeConstant> args) {
+        if (!slotted && values.length > 0) {
+            Map<String, NodeConstant> named = new HashMap<>(args);
+            for (int i = 0; i < values.length; i++) {
+                named.put(parameters[i], values[i]);
+            }
+            args = named;
+        }
+
+        // a resolved tree cannot change its context, so only needs a frame for extra arguments
+        // or to track its budget
+        if (slotted && args.isEmpty() && context.getEvaluationBudget().isUnlimited())
+            return new RecursiveDescentParser(context, values).parse(tree);
+
+        EvaluationContext frame = context.withArgs(args);
+        frame.startEvaluation();
+        return new RecursiveDescentParser(frame, slotted ? values : null).parse(tree);
+    }
+
+    /**
+     * Evaluate the expression of one variable to a double
+     *
+     * @param variable The name of the variable
+     * @param value    The value of the variable
+     * @return The result of the expression as a double
+     */
+    public double evaluateDouble(String variable, double value) {
+        return Evaluator.toDouble(evaluate(Map.of(variable, NodeFactory.createNodeNumberFrom(value))));
+    }
+
+    /**
+     * Evaluate the expression of two variables to a double
+     *
+     * @param first       The name of the first variable
+     * @param firstValue  The value of the first variable
+     * @param second      The name of the second variable
+     * @param secondValue The value of the second variable
+     * @return The result of the expression as a double
+     */
+    public double evaluateDouble(String first, double firstValue, String second, double secondValue) {
+        return Evaluator.toDouble(evaluate(Map.of(
+                first, NodeFactory.createNodeNumberFrom(firstValue),
+                second, NodeFactory.createNodeNumberFrom(secondValue))));
+    }
+
+    /**
+     * Get the expression tree
+     *
+     * @return The tree this expression evaluates
+     */
+    public Node getTree() {
+        return tree;
+    }
+
+    /**
+     * Get the parameters of the expression
+     *
+     * @return The names of the parameters, in the order their values are given
+     */
+    public List<String> getParameters() {
+        return List.of(parameters);
+    }
+
+    /**
+     * Get the angle unit captured when this expression was compiled
+     *
+     * @return The angle unit used by trigonometric operators
+     */
+    public AngleUnit getAngleUnit() {
+        return context.getAngleUnit();
+    }
+
+    /**
+     * Get the evaluation budget captured when this expression was compiled
+     *
+     * @return The budget each evaluation is limited to
+     */
+    public EvaluationBudget getEvaluationBudget() {
+        return context.getEvaluationBudget();
+    }
+
+    @Override
+    public String toString() {
+        return tree.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+/**
+ * Exception thrown when an evaluation is stopped before it completes because it exceeded its
+ * {@link EvaluationBudget} or was cancelled.
+ *
+ * <h2>Example:</h2>
+ * <pre>{@code
+ * try {
+ *     evaluator.evaluateConstant(expression);
+ * } catch (EvaluationAbortedException e) {
+ *     if (e.getReason() == EvaluationAbortedException.Reason.TIME)
+ *         System.err.println("Expression took too long");
+ * }
+ * }</pre>
+ *
+ * @see EvaluationBudget
+ */
+public class EvaluationAbortedException extends RuntimeException {
+
+    /**
+     * Why an evaluation was stopped
+     */
+    public enum Reason {
+        /**
+         * More nodes were visited than the budget allows
+         */
+        NODE_VISITS,
+        /**
+         * The evaluation took longer than the budget allows
+         */
+        TIME,
+        /**
+         * Functions were called within one another more deeply than the budget allows
+         */
+        CALL_DEPTH,
+        /**
+         * The cancellation check of the budget returned true
+         */
+        CANCELLED
+    }
+
+    private final Reason reason;
+
+    /**
+     * Constructs a new exception for an evaluation stopped for the given reason.
+     *
+     * @param reason  why the evaluation was stopped
+     * @param message the detail message
+     */
+    public EvaluationAbortedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    /**
+     * Returns why the evaluation was stopped.
+     *
+     * @return the reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,180 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits how much work a single evaluation may do before it is aborted with an
+ * {@link EvaluationAbortedException}.
+ * <p>
+ * A budget can limit the number of nodes visited, the time taken and how deeply user-defined
+ * functions may call one another, and can be given a check that another thread uses to cancel
+ * the evaluation. Every node visit, including those made while evaluating the bodies of
+ * functions, counts towards the same evaluation, so a budget also bounds work done by operators
+ * such as {@code select} and {@code where}. Limits are checked cooperatively as nodes are
+ * visited: the node count on every visit, and the cancellation check and the clock every
+ * {@value #CLOCK_INTERVAL} visits. Threads evaluating in parallel add their visits to the count in
+ * batches of {@value #CLOCK_INTERVAL}, so the count can run over its limit by up to a batch for
+ * each of the other threads before the evaluation is aborted. Operators that run for a long time without visiting nodes,
+ * such as {@code solve} and {@code nsolve}, check for cancellation and the time limit between
+ * iterations. Folding the constant parts of an expression while optimizing or compiling it is
+ * limited in the same way.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * AtomicBoolean cancelled = new AtomicBoolean();
+ * evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED
+ *         .withMaxNodeVisits(1_000_000)
+ *         .withMaxTime(Duration.ofSeconds(2))
+ *         .withCancellation(cancelled::get));
+ *
+ * // from another thread
+ * cancelled.set(true);
+ * }</pre>
+ * <p>
+ * Budgets are immutable, so one budget can be shared by any number of evaluators.
+ * </p>
+ */
+public final class EvaluationBudget {
+
+    /**
+     * A budget placing no limits on evaluation
+     */
+    public static final EvaluationBudget UNLIMITED =
+            new EvaluationBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, null);
+
+    /**
+     * The number of node visits between checks of the clock and of cancellation
+     */
+    static final int CLOCK_INTERVAL = 256;
+
+    private final long maxNodeVisits;
+    private final long maxNanos;
+    private final int maxCallDepth;
+    private final BooleanSupplier cancellation;
+
+    private EvaluationBudget(long maxNodeVisits, long maxNanos, int maxCallDepth, BooleanSupplier cancellation) {
+        this.maxNodeVisits = maxNodeVisits;
+        this.maxNanos = maxNanos;
+        this.maxCallDepth = maxCallDepth;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Create a copy of this budget limiting the number of nodes an evaluation may visit
+     *
+     * @param maxNodeVisits The most nodes an evaluation may visit
+     * @return The new budget
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public EvaluationBudget withMaxNodeVisits(long maxNodeVisits) {
+        if (maxNodeVisits < 1)
+            throw new IllegalArgumentException("Maximum node visits must be positive, got: " + maxNodeVisits);
+
+        return new EvaluationBudget(maxNodeVisits, maxNanos, maxCallDepth, cancellation);
+    }
+
+    /**
+     * Create a copy of this budget limiting how long an evaluation may take
+     *
+     * @param maxTime The longest an evaluation may take
+     * @return The new budget
+     * @throws IllegalArgumentException if the time is not positive
+     */
+    public EvaluationBudget withMaxTime(Duration maxTime) {
+        if (maxTime.isNegative() || maxTime.isZero())
+            throw new IllegalArgumentException("Maximum time must be positive, got: " + maxTime);
+
+        long nanos = maxTime.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : maxTime.toNanos();
+        return new EvaluationBudget(maxNodeVisits, nanos, maxCallDepth, cancellation);
+    }
+
+    /**
+     * Create a copy of this budget limiting how deeply user-defined functions may be called
+     * within one another. A function called directly from the expression is at depth one
+     *
+     * @param maxCallDepth The deepest a function may be called
+     * @return The new budget
+     * @throws IllegalArgumentException if the depth is not positive
+     */
+    public EvaluationBudget withMaxCallDepth(int maxCallDepth) {
+        if (maxCallDepth < 1)
+            throw new IllegalArgumentException("Maximum call depth must be positive, got: " + maxCallDepth);
+
+        return new EvaluationBudget(maxNodeVisits, maxNanos, maxCallDepth, cancellation);
+    }
+
+    /**
+     * Create a copy of this budget that aborts an evaluation once the given check returns true.
+     * The check is made every {@value #CLOCK_INTERVAL} node visits from whichever thread is
+     * evaluating, and between the iterations of long-running operators such as {@code solve}, so
+     * it should be as cheap as reading an {@link java.util.concurrent.atomic.AtomicBoolean}
+     *
+     * @param cancellation Returns whether evaluation has been cancelled
+     * @return The new budget
+     */
+    public EvaluationBudget withCancellation(BooleanSupplier cancellation) {
+        Objects.requireNonNull(cancellation, "Cancellation check cannot be null");
+        return new EvaluationBudget(maxNodeVisits, maxNanos, maxCallDepth, cancellation);
+    }
+
+    /**
+     * @return The most nodes an evaluation may visit, which is {@link Long#MAX_VALUE} if not
+     * limited
+     */
+    public long getMaxNodeVisits() {
+        return maxNodeVisits;
+    }
+
+    /**
+     * @return The longest an evaluation may take, or null if not limited
+     */
+    public Duration getMaxTime() {
+        return maxNanos == Long.MAX_VALUE ? null : Duration.ofNanos(maxNanos);
+    }
+
+    /**
+     * @return The deepest a function may be called, which is {@link Integer#MAX_VALUE} if not
+     * limited
+     */
+    public int getMaxCallDepth() {
+        return maxCallDepth;
+    }
+
+    /**
+     * @return Whether this budget places no limits on evaluation, in which case evaluation is
+     * not tracked at all
+     */
+    public boolean isUnlimited() {
+        return maxNodeVisits == Long.MAX_VALUE && maxNanos == Long.MAX_VALUE
+                && maxCallDepth == Integer.MAX_VALUE && cancellation == null;
+    }
+
+    /**
+     * Start tracking a new evaluation against this budget
+     *
+     * @return The tracker for the evaluation, or null if this budget is unlimited
+     */
+    EvaluationTracker start() {
+        return isUnlimited() ? null : new EvaluationTracker(this);
+    }
+
+    long getMaxNanos() {
+        return maxNanos;
+    }
+
+    BooleanSupplier getCancellation() {
+        return cancellation;
+    }
+
+    @Override
+    public String toString() {
+        if (isUnlimited())
+            return "EvaluationBudget[unlimited]";
+
+        return "EvaluationBudget[maxNodeVisits=" + maxNodeVisits + ", maxTime=" + getMaxTime()
+                + ", maxCallDepth=" + maxCallDepth + ", cancellable=" + (cancellation != null) + "]";
+    }
+}
@@ -2,6 +2,7 @@ package uk.co.ryanharrison.mathengine.parser;
 
 import uk.co.ryanharrison.mathengine.parser.nodes.Node;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.ParallelPolicy;
 import uk.co.ryanharrison.mathengine.parser.operators.CustomOperator;
 import uk.co.ryanharrison.mathengine.parser.operators.Operator;
 import uk.co.ryanharrison.mathengine.utils.Utils;
@@ -10,17 +11,100 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Holds the constants, operators and settings used while evaluating expression trees.
+ * <p>
+ * A root context owns all of its state. Calling a function creates an argument frame through
+ * {@link #withArgs(Map)} which holds only the arguments and refers back to its parent for
+ * everything else, so the cost of a call depends on the number of arguments rather than the
+ * size of the context. Constants assigned within a frame only live as long as the frame.
+ */
 public class EvaluationContext {
 
     private AngleUnit angleUnit = AngleUnit.Radians;
-    private Map<String, NodeConstant> constants = new HashMap<>();
-    private Map<String, Operator> operators = new HashMap<>();
-    private Map<String, CustomOperator> customOperators = new HashMap<>();
+    private ParallelPolicy parallelPolicy = ParallelPolicy.DEFAULT;
+    private int functionCacheCapacity;
+    private EvaluationBudget budget = EvaluationBudget.UNLIMITED;
+    private int longestOperator;
 
-    private Evaluator evaluator;
+    /**
+     * Tracks the evaluation running in this context against the budget, or null if none is
+     * running or the budget is unlimited. Shared by every argument frame of the evaluation
+     */
+    private EvaluationTracker tracker;
 
-    EvaluationContext(Evaluator evaluator) {
-        this.evaluator = evaluator;
+    /**
+     * How deeply the function this frame was created for is called, zero outside any function
+     */
+    private int callDepth;
+
+    /**
+     * Incremented whenever a change is made that can affect how expressions are parsed, namely
+     * a new operator or a change to the set of constant names
+     */
+    private long parseVersion;
+    private final Map<String, NodeConstant> constants;
+    private final Map<String, Operator> operators;
+    private final Map<String, CustomOperator> customOperators;
+    private final OperatorTrie operatorTrie;
+
+    /**
+     * The context constants not found in this context are looked up in, or null for a root
+     * context
+     */
+    private final EvaluationContext parent;
+
+    /**
+     * Set when the constants of an argument frame are cleared, hiding those of the parent
+     */
+    private boolean parentHidden;
+
+    /**
+     * The context function bodies are evaluated against. This is the context itself for a root
+     * context, or the root that an argument frame was created from
+     */
+    private final EvaluationContext globals;
+
+    EvaluationContext() {
+        this.constants = new HashMap<>();
+        this.operators = new HashMap<>();
+        this.customOperators = new HashMap<>();
+        this.operatorTrie = new OperatorTrie();
+        this.parent = null;
+        this.globals = this;
+    }
+
+    private EvaluationContext(EvaluationContext source) {
+        this.angleUnit = source.angleUnit;
+        this.parallelPolicy = source.parallelPolicy;
+        this.functionCacheCapacity = source.functionCacheCapacity;
+        this.budget = source.budget;
+        this.longestOperator = source.longestOperator;
+        // carried over so that parse versions keep increasing across snapshots
+        this.parseVersion = source.parseVersion;
+        this.constants = source.collectConstants();
+        this.operators = new HashMap<>(source.operators);
+        this.customOperators = new HashMap<>(source.customOperators);
+        this.operatorTrie = new OperatorTrie();
+        this.operators.forEach(operatorTrie::put);
+        this.parent = null;
+        this.globals = this;
+    }
+
+    private EvaluationContext(EvaluationContext parent, Map<String, NodeConstant> args) {
+        this.angleUnit = parent.angleUnit;
+        this.parallelPolicy = parent.parallelPolicy;
+        this.functionCacheCapacity = parent.functionCacheCapacity;
+        this.budget = parent.budget;
+        this.tracker = parent.tracker;
+        this.callDepth = parent.callDepth;
+        this.longestOperator = parent.longestOperator;
+        this.constants = new HashMap<>(args);
+        this.operators = parent.operators;
+        this.customOperators = parent.customOperators;
+        this.operatorTrie = parent.operatorTrie;
+        this.parent = parent;
+        this.globals = parent.globals;
     }
 
     void fillOperators(Collection<Operator> ops) {
@@ -32,7 +116,10 @@ public class EvaluationContext {
     private void addOperator(Operator operator) {
         for (String alias : operator.getAliases()) {
             operators.put(alias, operator);
+            operatorTrie.put(alias, operator);
+            longestOperator = Math.max(longestOperator, alias.length());
         }
+        parseVersion++;
     }
 
     void addCustomOperator(CustomOperator operator) {
@@ -42,10 +129,16 @@ public class EvaluationContext {
         }
     }
 
+    OperatorTrie getOperatorTrie() {
+        return operatorTrie;
+    }
+
     int findLongestOperator() {
-        return operators.keySet().stream()
-                .mapToInt(String::length)
-                .max().orElse(0);
+        return longestOperator;
+    }
+
+    long getParseVersion() {
+        return parseVersion;
     }
 
     boolean isOperator(String str) {
@@ -61,22 +154,64 @@ public class EvaluationContext {
     }
 
     void addConstant(String variable, NodeConstant constant) {
-        if (!isSystemOperator(variable))
-            constants.put(variable, constant);
-        else
+        if (!isSystemOperator(variable)) {
+            if (constants.put(variable, constant) == null && affectsParsing(variable))
+                parseVersion++;
+        } else {
             throw new IllegalArgumentException("Constant is an operator");
+        }
+    }
+
+    /**
+     * Determine whether defining a constant of the given name can change how expressions are
+     * parsed. Names of ordinary characters containing no operator are parsed as variables
+     * whether or not they are defined
+     */
+    private boolean affectsParsing(String name) {
+        if (Utils.isNumeric(name))
+            return true;
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_')
+                return true;
+
+            for (int j = i + 1; j <= Math.min(name.length(), i + longestOperator); j++) {
+                if (isOperator(name.substring(i, j)))
+                    return true;
+            }
+        }
+        return false;
     }
 
     NodeConstant getConstant(String variable) {
-        return constants.get(variable);
+        NodeConstant constant = constants.get(variable);
+        if (constant == null && hasVisibleParent())
+            return parent.getConstant(variable);
+        return constant;
     }
 
     boolean isConstant(String variable) {
-        return constants.containsKey(variable);
+        return constants.containsKey(variable) || (hasVisibleParent() && parent.isConstant(variable));
     }
 
     void clearConstants() {
         constants.clear();
+        parentHidden = true;
+        parseVersion++;
+    }
+
+    private boolean hasVisibleParent() {
+        return parent != null && !parentHidden;
+    }
+
+    /**
+     * Flatten the constants visible from this context into a new map
+     */
+    private Map<String, NodeConstant> collectConstants() {
+        Map<String, NodeConstant> result = hasVisibleParent() ? parent.collectConstants() : new HashMap<>();
+        result.putAll(constants);
+        return result;
     }
 
     public AngleUnit getAngleUnit() {
@@ -87,16 +222,111 @@ public class EvaluationContext {
         this.angleUnit = angleUnit;
     }
 
+    /**
+     * @return The policy operators use to decide whether to split work over large vectors
+     * across cores
+     */
+    public ParallelPolicy getParallelPolicy() {
+        return parallelPolicy;
+    }
+
+    void setParallelPolicy(ParallelPolicy parallelPolicy) {
+        this.parallelPolicy = parallelPolicy;
+    }
+
+    /**
+     * @return The number of results cached for each pure user-defined function, or zero if
+     * results are not cached
+     */
+    public int getFunctionCacheCapacity() {
+        return functionCacheCapacity;
+    }
+
+    void setFunctionCacheCapacity(int functionCacheCapacity) {
+        this.functionCacheCapacity = functionCacheCapacity;
+    }
+
+    /**
+     * @return The budget each evaluation in this context is limited to
+     */
+    public EvaluationBudget getEvaluationBudget() {
+        return budget;
+    }
+
+    void setEvaluationBudget(EvaluationBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Start tracking a new evaluation in this context against the budget
+     */
+    void startEvaluation() {
+        tracker = budget.start();
+    }
+
+    /**
+     * Stop tracking the evaluation started by {@link #startEvaluation()}
+     */
+    void endEvaluation() {
+        tracker = null;
+    }
+
+    /**
+     * Check whether the evaluation running in this context has been cancelled or has run out of
+     * time. Operators that run for a long time without evaluating nodes call this between
+     * iterations, so that they stop within the budget
+     *
+     * @throws EvaluationAbortedException if the evaluation has been cancelled or has taken too long
+     */
+    public void checkBudget() {
+        if (tracker != null)
+            tracker.check();
+    }
+
+    /**
+     * @return The tracker of the evaluation running in this context, or null if it is not
+     * tracked
+     */
+    EvaluationTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Evaluate the body of a function against the globals with the given arguments bound. The
+     * call counts towards the budget of the evaluation running in this context
+     *
+     * @param tree The body of the function
+     * @param args The arguments of the call
+     * @return The result of the call
+     */
     public NodeConstant evaluateFunc(Node tree, Map<String, NodeConstant> args) {
-        return evaluator.parseTreeWithArgs(tree, args);
+        EvaluationContext frame = globals.withArgs(args);
+        if (tracker != null) {
+            frame.tracker = tracker;
+            frame.callDepth = callDepth + 1;
+            tracker.enterCall(frame.callDepth);
+        }
+        return new RecursiveDescentParser(frame).parse(tree);
     }
 
+    /**
+     * Create an argument frame on top of this context. The frame shares the operators and
+     * constants of this context without copying them
+     *
+     * @param args The arguments bound in the new frame
+     * @return The argument frame
+     */
     EvaluationContext withArgs(Map<String, NodeConstant> args) {
-        EvaluationContext context = new EvaluationContext(this.evaluator);
-        context.angleUnit = this.angleUnit;
-        context.operators.putAll(this.operators);
-        context.constants.putAll(this.constants);
-        context.constants.putAll(args);
-        return context;
+        return new EvaluationContext(this, args);
+    }
+
+    /**
+     * Create an independent copy of this context that acts as its own root. Changes made to
+     * either context afterwards are not seen by the other
+     *
+     * @return A copy of this context
+     */
+    EvaluationContext snapshot() {
+        return new EvaluationContext(this);
     }
 }
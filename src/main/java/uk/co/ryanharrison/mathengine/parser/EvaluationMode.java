@@ -0,0 +1,21 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+/**
+ * The strategy used to evaluate an expression of one or two numeric variables.
+ */
+public enum EvaluationMode {
+    /**
+     * Walk the expression tree, keeping exact rational arithmetic where possible
+     */
+    Tree,
+    /**
+     * Compile the expression into a hidden class of straight-line double arithmetic. Falls
+     * back to {@link #Tree} when the expression contains non-numeric nodes
+     */
+    Bytecode,
+    /**
+     * Flatten the expression into a postfix program run on a primitive double stack. Falls
+     * back to {@link #Tree} when the expression contains non-numeric nodes
+     */
+    Postfix
+}
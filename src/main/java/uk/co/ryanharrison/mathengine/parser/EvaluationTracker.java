@@ -0,0 +1,119 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Counts the work done by one evaluation against its {@link EvaluationBudget}.
+ * <p>
+ * A tracker is shared by every context and parser taking part in the evaluation, including
+ * those evaluating function bodies on other threads. So that threads do not contend on every
+ * visit, each thread counts its visits in its own {@link VisitCounter} and adds them to the shared
+ * total every {@value EvaluationBudget#CLOCK_INTERVAL} visits. A thread sees the visits of other
+ * threads whenever it adds its own, so with several threads the limit on node visits can be
+ * passed by up to {@value EvaluationBudget#CLOCK_INTERVAL} visits for each of the others.
+ * </p>
+ */
+final class EvaluationTracker {
+
+    private final EvaluationBudget budget;
+    private final long maxNodeVisits;
+    private final long deadline;
+    private final BooleanSupplier cancellation;
+    private final AtomicLong visits = new AtomicLong();
+    private final ThreadLocal<VisitCounter> counters = ThreadLocal.withInitial(VisitCounter::new);
+
+    EvaluationTracker(EvaluationBudget budget) {
+        this.budget = budget;
+        this.maxNodeVisits = budget.getMaxNodeVisits();
+        this.cancellation = budget.getCancellation();
+
+        long maxNanos = budget.getMaxNanos();
+        long now = System.nanoTime();
+        // saturate rather than overflow for very long limits
+        this.deadline = maxNanos == Long.MAX_VALUE || now + maxNanos < now ? Long.MAX_VALUE : now + maxNanos;
+    }
+
+    /**
+     * Get the counter of the visits made by the current thread, which must only be used on that
+     * thread
+     *
+     * @return The visit counter of the current thread
+     */
+    VisitCounter counter() {
+        return counters.get();
+    }
+
+    /**
+     * Check for cancellation and whether the time allowed has passed, for operators that run
+     * for a long time without visiting nodes to call between iterations
+     *
+     * @throws EvaluationAbortedException if the evaluation has taken too long or been cancelled
+     */
+    void check() {
+        if (cancellation != null && cancellation.getAsBoolean()) {
+            throw new EvaluationAbortedException(EvaluationAbortedException.Reason.CANCELLED,
+                    "Evaluation was cancelled");
+        }
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new EvaluationAbortedException(EvaluationAbortedException.Reason.TIME,
+                    "Evaluation exceeded " + budget.getMaxTime().toMillis() + "ms");
+        }
+    }
+
+    /**
+     * Record a call to a user-defined function
+     *
+     * @param depth The depth of the call, one for a function called directly from the expression
+     * @throws EvaluationAbortedException if the call is nested too deeply
+     */
+    void enterCall(int depth) {
+        if (depth > budget.getMaxCallDepth()) {
+            throw new EvaluationAbortedException(EvaluationAbortedException.Reason.CALL_DEPTH,
+                    "Evaluation exceeded a call depth of " + budget.getMaxCallDepth());
+        }
+    }
+
+    /**
+     * Counts the nodes visited by one thread, adding them to the total of the evaluation in
+     * batches
+     */
+    final class VisitCounter {
+
+        /**
+         * The visits made by this thread that are not yet in the total
+         */
+        private int pending;
+
+        /**
+         * The total of the evaluation when this thread last added to it
+         */
+        private long total;
+
+        /**
+         * Record the visit of a node. The node count is checked on every visit, and the
+         * cancellation check and the clock every {@value EvaluationBudget#CLOCK_INTERVAL} visits
+         * so that visiting a node stays cheap
+         *
+         * @throws EvaluationAbortedException if the evaluation is over budget or has been
+         *                                    cancelled
+         */
+        void visit() {
+            if (++pending == EvaluationBudget.CLOCK_INTERVAL) {
+                total = visits.addAndGet(pending);
+                pending = 0;
+                checkVisits(total);
+                check();
+            } else {
+                checkVisits(total + pending);
+            }
+        }
+
+        private void checkVisits(long count) {
+            if (count > maxNodeVisits) {
+                throw new EvaluationAbortedException(EvaluationAbortedException.Reason.NODE_VISITS,
+                        "Evaluation exceeded " + maxNodeVisits + " node visits");
+            }
+        }
+    }
+}
@@ -2,10 +2,18 @@ package uk.co.ryanharrison.mathengine.parser;
 
 import uk.co.ryanharrison.mathengine.linearalgebra.Matrix;
 import uk.co.ryanharrison.mathengine.linearalgebra.Vector;
+import uk.co.ryanharrison.mathengine.parser.compiler.BytecodeCompiler;
+import uk.co.ryanharrison.mathengine.parser.compiler.PostfixCompiler;
+import uk.co.ryanharrison.mathengine.parser.compiler.PostfixProgram;
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.parser.operators.OperatorProvider;
 
-import java.util.Map;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 
 public final class Evaluator {
 
@@ -34,12 +42,23 @@ public final class Evaluator {
         return evaluator;
     }
 
-    private EvaluationContext context = new EvaluationContext(this);
+    private final EvaluationContext context;
+    private final ParseCache parseCache = new ParseCache(ParseCache.DEFAULT_CAPACITY);
 
     private Evaluator() {
+        this.context = new EvaluationContext();
         fillDefaultConstants();
     }
 
+    /**
+     * Create an evaluator working on an existing context, which it takes ownership of
+     *
+     * @param context The context holding the variables, operators and settings to use
+     */
+    Evaluator(EvaluationContext context) {
+        this.context = context;
+    }
+
     private void fillDefaultConstants() {
         context.addConstant("pi", new NodeDouble(Math.PI));
         context.addConstant("euler", new NodeDouble(Math.E));
@@ -86,7 +105,11 @@ public final class Evaluator {
     }
 
     public void addVariable(String variable, double value) {
-        addVariable(variable, Double.toString(value));
+        addVariable(variable, NodeFactory.createNodeNumberFrom(value));
+    }
+
+    public void addVariable(String variable, NodeConstant value) {
+        context.addConstant(variable, value);
     }
 
     public NodeConstant evaluateConstant(String expression) {
@@ -95,8 +118,35 @@ public final class Evaluator {
     }
 
     public double evaluateDouble(String expression) {
-        NodeConstant r = evaluateConstant(expression);
+        return toDouble(evaluateConstant(expression));
+    }
+
+    /**
+     * Evaluate an already generated tree to a double without re-parsing. Unlike
+     * {@link #parseTree(Node)} the result is not stored as the ans constant, so
+     * repeated evaluation of a cached tree does no string handling.
+     *
+     * @param tree The tree to evaluate, as returned by {@link #generateTree(String)}
+     * @return The result of the tree as a double
+     */
+    public double evaluateDouble(Node tree) {
+        return toDouble(evaluate(tree));
+    }
 
+    /**
+     * Evaluate a tree in the context of this evaluator, tracking it against the evaluation
+     * budget
+     */
+    private NodeConstant evaluate(Node tree) {
+        context.startEvaluation();
+        try {
+            return new RecursiveDescentParser(context).parse(tree);
+        } finally {
+            context.endEvaluation();
+        }
+    }
+
+    static double toDouble(NodeConstant r) {
         if (r instanceof NodeNumber) {
             return r.getTransformer().toNodeNumber().doubleValue();
         } else {
@@ -104,24 +154,309 @@ public final class Evaluator {
         }
     }
 
+    /**
+     * Parse an expression into a tree. Trees are cached by expression, so repeatedly parsing
+     * the same expression returns the same tree until an operator or new variable is defined.
+     * Definitions using {@code :=} are always parsed as they modify this evaluator.
+     *
+     * @param expression The expression to parse
+     * @return The tree of the expression
+     */
     public Node generateTree(String expression) {
-        ExpressionParser parser = new ExpressionParser(context);
-        return parser.parse(expression.trim());
+        String trimmed = expression.trim();
+        if (trimmed.contains(":="))
+            return new ExpressionParser(context).parse(trimmed);
+
+        return parseCache.get(trimmed, context.getParseVersion(),
+                e -> new ExpressionParser(context).parse(e));
+    }
+
+    /**
+     * Get the cache of parsed trees used by {@link #generateTree(String)}, through which its
+     * size can be changed and its statistics read
+     *
+     * @return The parse cache of this evaluator
+     */
+    public ParseCache getParseCache() {
+        return parseCache;
+    }
+
+    EvaluationContext getContext() {
+        return context;
+    }
+
+    /**
+     * Compile an expression into an immutable expression that can be shared between threads.
+     * The expression captures the variables, operators and angle unit of this evaluator as they
+     * are now; later changes to this evaluator are not seen by it.
+     *
+     * @param expression The expression to compile
+     * @return The compiled expression
+     */
+    public CompiledExpression compile(String expression) {
+        return compile(generateTree(expression));
+    }
+
+    /**
+     * Compile an already generated tree into an immutable expression, as for
+     * {@link #compile(String)}. Subexpressions repeated in the tree are shared so that each is
+     * evaluated once per evaluation.
+     *
+     * @param tree The tree to compile, as returned by {@link #generateTree(String)}
+     * @return The compiled expression
+     */
+    public CompiledExpression compile(Node tree) {
+        return new CompiledExpression(CommonSubexpressions.share(tree), context.snapshot());
+    }
+
+    /**
+     * Compile an expression with named parameters into an immutable expression, as for
+     * {@link #compile(String)}. The parameters are given by position when the expression is
+     * evaluated, and every other variable is resolved to its current value now, so that
+     * evaluating the expression looks nothing up by name, as described by {@link VariableBinder}.
+     *
+     * @param expression The expression to compile
+     * @param parameters The names of the variables given a value on each evaluation
+     * @return The compiled expression
+     * @throws IllegalArgumentException if a parameter is named more than once
+     */
+    public CompiledExpression compile(String expression, String... parameters) {
+        return compile(generateTree(expression), parameters);
+    }
+
+    /**
+     * Compile an already generated tree with named parameters into an immutable expression, as
+     * for {@link #compile(String, String...)}
+     *
+     * @param tree       The tree to compile, as returned by {@link #generateTree(String)}
+     * @param parameters The names of the variables given a value on each evaluation
+     * @return The compiled expression
+     * @throws IllegalArgumentException if a parameter is named more than once
+     */
+    public CompiledExpression compile(Node tree, String... parameters) {
+        return compileIn(tree, context.snapshot(), parameters);
+    }
+
+    /**
+     * Compile a tree against a context that will never be modified
+     */
+    static CompiledExpression compileIn(Node tree, EvaluationContext snapshot, String... parameters) {
+        if (parameters.length == 0)
+            return new CompiledExpression(CommonSubexpressions.share(tree), snapshot);
+        if (Set.of(parameters).size() != parameters.length)
+            throw new IllegalArgumentException("Parameters must have distinct names, got: " + List.of(parameters));
+
+        Node bound = VariableBinder.bind(tree, List.of(parameters), snapshot);
+        return new CompiledExpression(CommonSubexpressions.share(bound), snapshot, parameters.clone(),
+                VariableBinder.canBind(tree));
     }
 
     public NodeConstant parseTree(Node tree) {
-        RecursiveDescentParser parser = new RecursiveDescentParser(context);
-        NodeConstant result = parser.parse(tree);
+        NodeConstant result = evaluate(tree);
         context.addConstant("ans", result);
         return result;
     }
 
-    NodeConstant parseTreeWithArgs(Node tree, Map<String, NodeConstant> args) {
-        EvaluationContext contextWithArgs = context.withArgs(args);
-        return new RecursiveDescentParser(contextWithArgs).parse(tree);
+    /**
+     * Simplify a tree that will be evaluated many times with only the given variables changing.
+     * Subtrees not using the variables are evaluated once now and replaced by their results,
+     * and identities such as {@code x * 1} and {@code x + 0} are removed, as described by
+     * {@link TreeOptimizer}. Subexpressions repeated in what is left are then shared, as
+     * described by {@link CommonSubexpressions}, so that each is evaluated once per evaluation.
+     * The simplified tree captures the current values of every other
+     * variable and the angle unit of this evaluator, so it must be simplified again after
+     * either changes.
+     *
+     * @param tree      The tree to simplify, as returned by {@link #generateTree(String)}
+     * @param variables The variables that change between evaluations, which must only ever be
+     *                  bound to numbers
+     * @return The simplified tree, which evaluates to the same result as the original
+     */
+    public Node optimize(Node tree, String... variables) {
+        return CommonSubexpressions.share(new TreeOptimizer(context, Set.of(variables)).optimize(tree));
+    }
+
+    /**
+     * Compile a tree of one variable into a primitive operator. Numeric trees are compiled to
+     * bytecode; anything else falls back to walking a {@link CompiledExpression} of the tree.
+     * Either way the operator captures the current state of this evaluator and is safe to use
+     * from multiple threads.
+     *
+     * @param tree     The tree to compile, as returned by {@link #generateTree(String)}
+     * @param variable The variable bound to the operator argument
+     * @return An operator evaluating the tree
+     */
+    public DoubleUnaryOperator compileUnary(Node tree, String variable) {
+        return compileUnary(tree, variable, EvaluationMode.Bytecode);
+    }
+
+    /**
+     * Compile a tree of one variable into a primitive operator using the given evaluation mode,
+     * falling back to the tree walker as for {@link #compileUnary(Node, String)}.
+     *
+     * @param tree     The tree to compile, as returned by {@link #generateTree(String)}
+     * @param variable The variable bound to the operator argument
+     * @param mode     The evaluation strategy
+     * @return An operator evaluating the tree
+     */
+    public DoubleUnaryOperator compileUnary(Node tree, String variable, EvaluationMode mode) {
+        Node optimized = optimize(tree, variable);
+        Optional<DoubleUnaryOperator> compiled = switch (mode) {
+            case Bytecode -> BytecodeCompiler.compileUnary(optimized, variable, context::getConstant,
+                    context.getAngleUnit());
+            case Postfix -> PostfixCompiler.compile(optimized, variable, null, context::getConstant,
+                    context.getAngleUnit()).map(PostfixProgram::toUnaryOperator);
+            case Tree -> Optional.empty();
+        };
+
+        return compiled.orElseGet(() -> {
+            CompiledExpression expression = compile(optimized);
+            return x -> expression.evaluateDouble(variable, x);
+        });
+    }
+
+    /**
+     * Compile a tree of two variables into a primitive operator, falling back to the tree
+     * walker as for {@link #compileUnary(Node, String)}.
+     *
+     * @param tree   The tree to compile, as returned by {@link #generateTree(String)}
+     * @param first  The variable bound to the first operator argument
+     * @param second The variable bound to the second operator argument
+     * @return An operator evaluating the tree
+     */
+    public DoubleBinaryOperator compileBinary(Node tree, String first, String second) {
+        return compileBinary(tree, first, second, EvaluationMode.Bytecode);
+    }
+
+    /**
+     * Compile a tree of two variables into a primitive operator using the given evaluation mode,
+     * falling back to the tree walker as for {@link #compileUnary(Node, String)}.
+     *
+     * @param tree   The tree to compile, as returned by {@link #generateTree(String)}
+     * @param first  The variable bound to the first operator argument
+     * @param second The variable bound to the second operator argument
+     * @param mode   The evaluation strategy
+     * @return An operator evaluating the tree
+     */
+    public DoubleBinaryOperator compileBinary(Node tree, String first, String second, EvaluationMode mode) {
+        Node optimized = optimize(tree, first, second);
+        Optional<DoubleBinaryOperator> compiled = switch (mode) {
+            case Bytecode -> BytecodeCompiler.compileBinary(optimized, first, second, context::getConstant,
+                    context.getAngleUnit());
+            case Postfix -> PostfixCompiler.compile(optimized, first, second, context::getConstant,
+                    context.getAngleUnit()).map(PostfixProgram::toBinaryOperator);
+            case Tree -> Optional.empty();
+        };
+
+        return compiled.orElseGet(() -> {
+            CompiledExpression expression = compile(optimized);
+            return (x, y) -> expression.evaluateDouble(first, x, second, y);
+        });
+    }
+
+    /**
+     * Evaluate an expression of one variable at every value of an array, as for
+     * {@link #evaluateAll(Node, String, double[], double[])}.
+     *
+     * @param expression The expression to evaluate
+     * @param variable   The variable bound to each value
+     * @param xs         The values to evaluate at
+     * @param out        Receives the result at each value of {@code xs}
+     */
+    public void evaluateAll(String expression, String variable, double[] xs, double[] out) {
+        evaluateAll(generateTree(expression), variable, xs, out);
+    }
+
+    /**
+     * Evaluate a tree of one variable at every value of an array. Numeric trees are compiled
+     * into a {@link PostfixProgram} and evaluated a block of values at a time in double
+     * precision; anything else is evaluated value by value through a {@link CompiledExpression}.
+     * Neither changes the variables of this evaluator.
+     *
+     * @param tree     The tree to evaluate, as returned by {@link #generateTree(String)}
+     * @param variable The variable bound to each value
+     * @param xs       The values to evaluate at
+     * @param out      Receives the result at each value of {@code xs}
+     * @throws IllegalArgumentException if {@code out} is shorter than {@code xs}
+     */
+    public void evaluateAll(Node tree, String variable, double[] xs, double[] out) {
+        if (out.length < xs.length) {
+            throw new IllegalArgumentException("Expected an output array of at least " + xs.length
+                    + " elements, got: " + out.length);
+        }
+
+        Node optimized = optimize(tree, variable);
+        Optional<PostfixProgram> program = PostfixCompiler.compile(optimized, variable, null,
+                context::getConstant, context.getAngleUnit());
+        if (program.isPresent()) {
+            program.get().evaluateAll(xs, null, out);
+            return;
+        }
+
+        CompiledExpression expression = compile(optimized, variable);
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = expression.evaluateDouble(xs[i]);
+        }
     }
 
     public void setAngleUnit(AngleUnit angleUnit) {
         context.setAngleUnit(angleUnit);
     }
+
+    /**
+     * Set whether operators over large vectors, such as element-wise arithmetic, {@code select},
+     * {@code where}, {@code sum} and {@code sort}, split their work across cores. Results keep
+     * their order either way, although floating point sums can differ in the last digits as they
+     * are added in chunks. Use {@link ParallelPolicy#SEQUENTIAL} to keep all evaluation on the
+     * calling thread.
+     *
+     * @param parallelPolicy The policy deciding when to run in parallel
+     */
+    public void setParallelPolicy(ParallelPolicy parallelPolicy) {
+        context.setParallelPolicy(Objects.requireNonNull(parallelPolicy, "Parallel policy cannot be null"));
+    }
+
+    public ParallelPolicy getParallelPolicy() {
+        return context.getParallelPolicy();
+    }
+
+    /**
+     * Set how many results are cached for each user-defined function, so that calling a function
+     * again with the same arguments returns the earlier result instead of evaluating its body.
+     * Only pure functions, those using nothing but their arguments, are cached, as described by
+     * {@link NodeFunction#isPure()}. Each function keeps its own least recently used table of
+     * results, available through {@link NodeFunction#getResultCache()}. Caching is disabled by
+     * default.
+     *
+     * @param capacity The maximum number of results cached per function, or zero to disable
+     *                 caching
+     */
+    public void setFunctionCacheCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity must not be negative");
+
+        context.setFunctionCacheCapacity(capacity);
+    }
+
+    public int getFunctionCacheCapacity() {
+        return context.getFunctionCacheCapacity();
+    }
+
+    /**
+     * Limit how much work each evaluation of this evaluator, and of expressions compiled from
+     * it afterwards, may do, as described by {@link EvaluationBudget}. An evaluation over budget
+     * or cancelled throws an {@link EvaluationAbortedException}. Trees compiled to doubles by
+     * {@link #compileUnary(Node, String)}, {@link #compileBinary(Node, String, String)} and
+     * {@link #evaluateAll(Node, String, double[], double[])} do a fixed amount of work per value
+     * and are not limited.
+     *
+     * @param budget The budget, or {@link EvaluationBudget#UNLIMITED} to remove all limits
+     */
+    public void setEvaluationBudget(EvaluationBudget budget) {
+        context.setEvaluationBudget(Objects.requireNonNull(budget, "Evaluation budget cannot be null"));
+    }
+
+    public EvaluationBudget getEvaluationBudget() {
+        return context.getEvaluationBudget();
+    }
 }
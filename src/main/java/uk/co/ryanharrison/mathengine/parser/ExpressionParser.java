@@ -3,124 +3,271 @@ package uk.co.ryanharrison.mathengine.parser;
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
 import uk.co.ryanharrison.mathengine.parser.operators.CustomOperator;
-import uk.co.ryanharrison.mathengine.utils.Utils;
-
+import uk.co.ryanharrison.mathengine.parser.operators.Operator;
+import uk.co.ryanharrison.mathengine.utils.NumberScanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Parses expression strings into trees of {@link Node}s.
+ * <p>
+ * Sub-expressions are handled as index ranges of the original string rather than as substrings.
+ * Before parsing, the matching bracket of every bracket is found in one pass, and the operator
+ * starting at each position is found at most once by walking the context's {@link OperatorTrie}.
+ * Operators take their operands by precedence climbing, scanning right from the operator until
+ * an operator of equal or looser precedence is found, and operators of the same precedence
+ * associate to the left. Each parse therefore does roughly linear work per level of nesting
+ * instead of building and rescanning a substring for every candidate operator and operand.
+ * Numbers are recognised and converted by a {@link NumberScanner} over the same ranges.
+ * </p>
+ */
 public final class ExpressionParser implements Parser<String, Node> {
 
+    private static final int UNKNOWN = -1;
+
+    private final EvaluationContext context;
+    private final NumberScanner numberScanner = new NumberScanner();
     private int maxOpLength;
-    private EvaluationContext context;
+
+    private String expression;
+    private int[] operatorLengths;
+    private int[] parenthesisMatches;
+    private int[] braceMatches;
+    private int[] bracketMatches;
 
     ExpressionParser(EvaluationContext context) {
         this.context = context;
         maxOpLength = context.findLongestOperator();
     }
 
-    private String backTrack(String str) {
-        for (int i = 0; i <= this.maxOpLength; i++) {
-            String op;
-            if ((op = findOperator(str, (str.length() - 1 - maxOpLength + i))) != null
-                    && (str.length() - maxOpLength - 1 + i + op.length()) == str.length()) {
-                return op;
-            }
+    @Override
+    public Node parse(String expression) {
+        this.expression = expression;
+        this.operatorLengths = new int[expression.length()];
+        Arrays.fill(operatorLengths, UNKNOWN);
+        this.parenthesisMatches = findMatches(expression, '(', ')');
+        this.braceMatches = findMatches(expression, '{', '}');
+        this.bracketMatches = findMatches(expression, '[', ']');
+
+        return parse(0, expression.length());
+    }
+
+    private Node parse(int start, int end) {
+        int index = findDefinition(start, end);
+
+        if (index != -1) {
+            String variable = expression.substring(start, index);
+            if (context.isSystemOperator(variable))
+                throw new IllegalArgumentException("Variable is an operator");
+
+            int exprStart = index + 2;
+            int exprEnd = end;
+            while (exprStart < exprEnd && expression.charAt(exprStart) <= ' ')
+                exprStart++;
+            while (exprEnd > exprStart && expression.charAt(exprEnd - 1) <= ' ')
+                exprEnd--;
+
+            Node parsed = parseTree(exprStart, exprEnd, true);
+            NodeFunction func = NodeFactory.createNodeFunctionFrom(variable.trim(),
+                    expression.substring(exprStart, exprEnd), parsed);
+
+            if (func.getArgNum() > 0) {
+                context.addConstant(func.getIdentifier(), func);
+                context.addCustomOperator(new CustomOperator(func));
+                maxOpLength = context.findLongestOperator();
+                // the new operator may match where nothing, or something shorter, did before
+                Arrays.fill(operatorLengths, UNKNOWN);
+                return func;
+            } else
+                return new NodeAddVariable(func.getIdentifier(), parsed);
         }
-        return null;
+
+        return parseTree(start, end, true);
     }
 
-    private String findOperator(String expression, int index) {
-        int len = expression.length();
-        for (int i = 0; i < maxOpLength; i++) {
-            if (index >= 0 && index + maxOpLength - i <= len) {
-                String tmp = expression.substring(index, index + maxOpLength - i);
-                if (context.isOperator(tmp)) {
-                    return tmp;
-                }
-            }
+    /**
+     * Find the first {@code :=} lying wholly within the range, without scanning past its end
+     * as this is called for every element of a vector
+     */
+    private int findDefinition(int start, int end) {
+        for (int i = start; i < end - 1; i++) {
+            if (expression.charAt(i) == ':' && expression.charAt(i + 1) == '=')
+                return i;
         }
-        return null;
+        return -1;
     }
 
-    private Argument getArguments(String operator, String exp, int index, boolean recurse) {
-        int ma;
-        int len = exp.length();
-        String op;
-        StringBuilder str = new StringBuilder();
+    private Node parseTree(int start, int end, boolean recurse) {
+        Node tree = null;
+
+        Argument farg, sarg;
+        int i = start;
+
+        if (start == end) {
+            throw new IllegalArgumentException("Wrong number of arguments to operator");
+        } else if (end - start == 1 && isOpeningBracket(expression.charAt(start))) {
+            throw new IllegalArgumentException("Missing operator," + " expression is \""
+                    + expression.substring(start, end) + "\"");
+        } else if (numberScanner.scan(expression, start, end)) {
+            return NodeFactory.createNodeNumberFrom(numberScanner.getValue());
+        } else if (expression.charAt(start) == '(' && match(parenthesisMatches, start, end) == end - 1) {
+            return parseTree(start + 1, end - 1, recurse);
+        } else if (expression.charAt(start) == '{' && match(braceMatches, start, end) == end - 1) {
+            return createVector(start + 1, end - 1);
+        } else if (expression.charAt(start) == '[' && match(bracketMatches, start, end) == end - 1) {
+            return createMatrix(start + 1, end - 1);
+        } else if (isVariable(start, end)) {
+            return new NodeVariable(expression.substring(start, end));
+        }
+
+        while (i < end) {
+            int fopLength = operatorLength(i, end);
+            if (fopLength == 0) {
+                farg = getArguments(null, i, end, recurse);
+                int opIndex = i + farg.length;
+                fopLength = operatorLength(opIndex, end);
+
+                if (fopLength == 0)
+                    throw new IllegalArgumentException("Missing operator," + " expression is \""
+                            + expression.substring(start, end) + "\"");
+
+                Operator fop = operatorAt(opIndex, fopLength);
+                if (fop instanceof BinaryOperator) {
+                    sarg = getArguments(fop, opIndex + fopLength, end, recurse);
+                    if (sarg.length == 0)
+                        throw wrongNumberOfArguments(opIndex, fopLength);
 
-        int prec = -1;
-        if (operator != null) {
-            prec = context.getOperator(operator).getPrecedence();
+                    tree = new NodeExpression(fop, farg.getNode(), sarg.getNode());
+                    i += farg.length + fopLength + sarg.length;
+                } else {
+                    // Never using this check
+                    if (farg.length == 0)
+                        throw wrongNumberOfArguments(opIndex, fopLength);
+
+                    tree = new NodeExpression(fop, farg.getNode());
+                    i += farg.length + fopLength;
+                }
+            } else {
+                OperatorTrie.TrieNode entry = context.getOperatorTrie().get(expression, i, fopLength);
+                Operator fop = entry.getOperator();
+                farg = getArguments(fop, i + fopLength, end, recurse);
+                if (farg.length == 0)
+                    throw wrongNumberOfArguments(i, fopLength);
+
+                if (fop instanceof BinaryOperator) {
+                    if (tree == null) {
+                        if (entry.getAlias().equals("+") || entry.getAlias().equals("-")) {
+                            tree = NodeFactory.createNodeNumberFrom(0D);
+                        } else {
+                            throw wrongNumberOfArguments(i, fopLength);
+                        }
+                    }
+                    tree = new NodeExpression(fop, tree, farg.getNode());
+                } else {
+                    tree = new NodeExpression(fop, farg.getNode());
+                }
+                i += farg.length + fopLength;
+            }
         }
 
+        return tree;
+    }
+
+    /**
+     * Find the operand starting at an index. The operand extends to the first operator of equal or
+     * looser precedence than the given operator that does not directly follow another binary
+     * operator, skipping over bracketed groups.
+     */
+    private Argument getArguments(Operator operator, int index, int end, boolean recurse) {
+        int prec = operator == null ? -1 : operator.getPrecedence();
+        int opLength;
+
         int i = index;
-        while (i < len) {
-            if (exp.charAt(i) == '(') {
-                ma = Utils.matchingCharacterIndex(exp, i, '(', ')');
-                str.append(exp, i, ma + 1);
-                i = ma + 1;
-            } else if (exp.charAt(i) == '{') {
-                ma = Utils.matchingCharacterIndex(exp, i, '{', '}');
-                str.append(exp, i, ma + 1);
-                i = ma + 1;
-            } else if (exp.charAt(i) == '[') {
-                ma = Utils.matchingCharacterIndex(exp, i, '[', ']');
-                str.append(exp, i, ma + 1);
-                i = ma + 1;
-            } else if ((op = findOperator(exp, i)) != null) {
-                if (str.length() != 0 && !isTwoArgOp(backTrack(str.toString()))
-                        && context.getOperator(op).getPrecedence() >= prec) {
-                    if (recurse) {
-                        Node n = parseTree(str.toString(), false);
-                        return new Argument(str.toString(), n, str.toString().length());
-                    } else {
-                        return new Argument(str.toString(), null, str.length());
-                    }
+        while (i < end) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                i = match(parenthesisMatches, i, end) + 1;
+            } else if (c == '{') {
+                i = match(braceMatches, i, end) + 1;
+            } else if (c == '[') {
+                i = match(bracketMatches, i, end) + 1;
+            } else if ((opLength = operatorLength(i, end)) != 0) {
+                if (i != index && !endsWithBinaryOperator(index, i)
+                        && operatorAt(i, opLength).getPrecedence() >= prec) {
+                    return new Argument(index, i - index, recurse);
                 }
-                str.append(op);
-                i += op.length();
+                i += opLength;
             } else {
-                str.append(exp.charAt(i));
                 i++;
             }
         }
 
-        if (recurse) {
-            return new Argument(str.toString(), parseTree(str.toString(), false), str.toString().length());
-        } else {
-            return new Argument(str.toString(), null, str.length());
+        return new Argument(index, end - index, recurse);
+    }
+
+    /**
+     * Determine whether the operator that ends exactly at the end of a range, found by looking
+     * back from the furthest position an operator could start, is a binary operator.
+     */
+    private boolean endsWithBinaryOperator(int start, int end) {
+        int len = end - start;
+        for (int i = 0; i <= maxOpLength; i++) {
+            int p = len - 1 - maxOpLength + i;
+            if (p < 0)
+                continue;
+
+            int opLength = operatorLength(start + p, end);
+            if (opLength != 0 && p + opLength == len)
+                return operatorAt(start + p, opLength) instanceof BinaryOperator;
         }
+        return false;
     }
 
-    private class Argument {
-        Argument(String source, Node node, int length) {
-            this.source = source;
-            this.node = node;
-            this.length = length;
+    /**
+     * @return the length of the longest operator starting at an index and ending at or before
+     * the end index, or zero if there is none
+     */
+    private int operatorLength(int index, int end) {
+        if (index >= end)
+            return 0;
+
+        int length = operatorLengths[index];
+        if (length == UNKNOWN) {
+            length = context.getOperatorTrie().match(expression, index, expression.length(), maxOpLength);
+            operatorLengths[index] = length;
         }
+        if (index + length <= end)
+            return length;
 
-        String source;
-        int length;
-        Node node;
+        // the longest match overruns this range, so find the longest one inside it
+        return context.getOperatorTrie().match(expression, index, end, maxOpLength);
     }
 
-    private boolean isTwoArgOp(String operator) {
-        return context.getOperator(operator) instanceof BinaryOperator;
+    private Operator operatorAt(int index, int length) {
+        return context.getOperatorTrie().get(expression, index, length).getOperator();
     }
 
-    private boolean isVariable(String expression) {
-        if (Utils.isNumeric(expression))
-            return false;
-
-        if (context.isConstant(expression))
-            return true;
+    private IllegalArgumentException wrongNumberOfArguments(int opIndex, int opLength) {
+        return new IllegalArgumentException("Wrong number of arguments to operator "
+                + expression.substring(opIndex, opIndex + opLength));
+    }
 
-        for (int i = 0; i < expression.length(); i++) {
-            if (findOperator(expression, i) != null)
-                return false;
-            else if (!isAllowedSym(expression.charAt(i)))
-                return false;
+    private boolean isVariable(int start, int end) {
+        boolean valid = true;
+        for (int i = start; i < end && valid; i++) {
+            valid = isAllowedSym(expression.charAt(i)) && operatorLength(i, end) == 0;
         }
 
         // Used to be false
-        return true;
+        return valid || context.isConstant(expression.substring(start, end));
+    }
+
+    private static boolean isOpeningBracket(char c) {
+        return c == '(' || c == '{' || c == '[';
     }
 
     private boolean isAllowedSym(char s) {
@@ -128,120 +275,89 @@ public final class ExpressionParser implements Parser<String, Node> {
                 || s == '>' || s == '<' || s == '&' || s == '=' || s == '|');
     }
 
-    @Override
-    public Node parse(String expression) {
-        int index = expression.indexOf(":=");
+    private NodeVector createVector(int start, int end) {
+        if (start == end)
+            return new NodeVector(new Node[0]);
 
-        if (index != -1) {
-            String variable = expression.substring(0, index);
-            if (context.isSystemOperator(variable))
-                throw new IllegalArgumentException("Variable is an operator");
-
-            String expr = expression.substring(index + 2).trim();
-            Node parsed = parseTree(expr, true);
-
-            NodeFunction func = NodeFactory.createNodeFunctionFrom(variable.trim(), expr, parsed);
+        if (expression.charAt(start) == '{' && match(braceMatches, start, end) == end - 1) {
+            start++;
+            end--;
+        }
 
-            if (func.getArgNum() > 0) {
-                context.addConstant(func.getIdentifier(), func);
-                context.addCustomOperator(new CustomOperator(func));
-                maxOpLength = context.findLongestOperator();
-                return func;
-            } else
-                return new NodeAddVariable(func.getIdentifier(), parsed);
+        List<Node> vals = new ArrayList<>();
+        int i = start;
+        while (i < end) {
+            if (expression.charAt(i) == ' ') {
+                i++;
+            } else if (expression.charAt(i) == '{') {
+                int ma = match(braceMatches, i, end);
+                vals.add(parse(i, ma + 1));
+                i = ma + 1;
+            } else {
+                int j = i;
+                while (j < end && expression.charAt(j) != ',') {
+                    j++;
+                }
+                if (j != i)
+                    vals.add(parse(i, j));
+                i = j + 1;
+            }
         }
 
-        return parseTree(expression, true);
+        return new NodeVector(vals.toArray(new Node[0]));
     }
 
-    private Node parseTree(String expression, boolean recurse) {
-        Node tree = null;
+    private NodeMatrix createMatrix(int start, int end) {
+        if (start == end)
+            return new NodeMatrix(new Node[0][0]);
 
-        Argument farg, sarg;
-        String fop, cleanfop;
-        int ma, i = 0;
-
-        int len = expression.length();
-
-        if (len == 0) {
-            throw new IllegalArgumentException("Wrong number of arguments to operator");
-        } else if (Utils.isNumeric(expression)) {
-            return NodeFactory.createNodeNumberFrom(Double.parseDouble(expression.replaceAll("\\s+", "")));
-        } else if (expression.charAt(0) == '('
-                && (ma = Utils.matchingCharacterIndex(expression, 0, '(', ')')) == len - 1) {
-            return parseTree(expression.substring(1, ma), recurse);
-        } else if (expression.charAt(0) == '{'
-                && (ma = Utils.matchingCharacterIndex(expression, 0, '{', '}')) == len - 1) {
-            return NodeFactory.createVectorFrom(expression.substring(1, ma), this);
-        } else if (expression.charAt(0) == '['
-                && (ma = Utils.matchingCharacterIndex(expression, 0, '[', ']')) == len - 1) {
-            return NodeFactory.createMatrixFrom(expression.substring(1, ma), this);
-        } else if (isVariable(expression)) {
-            return new NodeVariable(expression);
-        }
-
-        while (i < len) {
-            if ((fop = findOperator(expression, i)) == null) {
-                farg = getArguments(null, expression, i, recurse);
-                fop = findOperator(expression, i + farg.length);
-
-                if (fop == null)
-                    throw new IllegalArgumentException("Missing operator," + " expression is \""
-                            + expression + "\"");
+        return NodeFactory.createMatrixFrom(createVector(start, end));
+    }
 
-                if (isTwoArgOp(fop)) {
-                    sarg = getArguments(fop, expression, i + farg.length + fop.length(), recurse);
-                    if (sarg.source.equals(""))
-                        throw new IllegalArgumentException("Wrong number of arguments to operator "
-                                + fop);
+    /**
+     * @return the index of the bracket closing the one at an index if it is before the end
+     * index, otherwise the index itself
+     */
+    private static int match(int[] matches, int index, int end) {
+        int match = matches[index];
+        return match != UNKNOWN && match < end ? match : index;
+    }
 
-                    if (farg.node == null)
-                        farg.node = parseTree(farg.source, false);
-                    if (sarg.node == null)
-                        sarg.node = parseTree(sarg.source, false);
+    /**
+     * Find the closing bracket of each opening bracket of one kind, ignoring other kinds.
+     */
+    private static int[] findMatches(String expression, char begin, char end) {
+        int[] matches = new int[expression.length()];
+        Arrays.fill(matches, UNKNOWN);
+        Deque<Integer> open = new ArrayDeque<>();
 
-                    tree = new NodeExpression(context.getOperator(fop), farg.node, sarg.node);
-                    i += farg.length + fop.length() + sarg.length;
-                } else {
-                    // Never using this check
-                    if (farg.source.equals(""))
-                        throw new IllegalArgumentException("Wrong number of arguments to operator " + fop);
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == begin) {
+                open.push(i);
+            } else if (c == end && !open.isEmpty()) {
+                matches[open.pop()] = i;
+            }
+        }
+        return matches;
+    }
 
-                    if (farg.node == null)
-                        farg.node = parseTree(farg.source, false);
-                    tree = new NodeExpression(context.getOperator(fop), farg.node);
-                    i += farg.length + fop.length();
-                }
-            } else {
-                cleanfop = Utils.standardiseString(fop);
-                if (isTwoArgOp(fop)) {
-                    farg = getArguments(fop, expression, i + fop.length(), recurse);
-                    if (farg.source.equals(""))
-                        throw new IllegalArgumentException("Wrong number of arguments to operator " + fop);
-                    if (tree == null) {
-                        if (cleanfop.equals("+") || cleanfop.equals("-")) {
-                            tree = NodeFactory.createNodeNumberFrom(0D);
-                        } else {
-                            throw new IllegalArgumentException("Wrong number of arguments to operator " + fop);
-                        }
-                    }
+    private final class Argument {
+        private final int start;
+        private final int length;
+        private Node node;
 
-                    if (farg.node == null)
-                        farg.node = parseTree(farg.source, false);
-                    tree = new NodeExpression(context.getOperator(cleanfop), tree, farg.node);
-                    i += farg.length + fop.length();
-                } else {
-                    farg = getArguments(fop, expression, i + fop.length(), recurse);
-                    if (farg.source.equals(""))
-                        throw new IllegalArgumentException("Wrong number of arguments to operator " + fop);
-                    if (farg.node == null)
-                        farg.node = parseTree(farg.source, false);
-                    tree = new NodeExpression(context.getOperator(cleanfop), farg.node);
-                    i += farg.length + fop.length();
-                }
-            }
+        Argument(int start, int length, boolean recurse) {
+            this.start = start;
+            this.length = length;
+            if (recurse)
+                this.node = parseTree(start, start + length, false);
         }
 
-        return tree;
+        Node getNode() {
+            if (node == null)
+                node = parseTree(start, start + length, false);
+            return node;
+        }
     }
 }
@@ -0,0 +1,128 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.operators.Operator;
+
+import java.util.Arrays;
+
+/**
+ * A trie of operator aliases used to find the operator starting at a position of an expression
+ * in a single walk.
+ * <p>
+ * Matching follows {@link uk.co.ryanharrison.mathengine.utils.Utils#standardiseString(String)}: whitespace is skipped and letters
+ * are compared in lower case, so {@code "S in"} matches the alias {@code "sin"} and trailing
+ * whitespace is consumed by the match. This is the same rule the parser has always used for
+ * operators, without building a substring for every candidate length.
+ */
+final class OperatorTrie {
+
+    private final TrieNode root = new TrieNode();
+
+    /**
+     * Add or replace the operator of an alias
+     *
+     * @param alias    The alias as registered with the context
+     * @param operator The operator of the alias
+     */
+    void put(String alias, Operator operator) {
+        TrieNode node = root;
+        for (int i = 0; i < alias.length(); i++) {
+            node = node.getOrAddChild(alias.charAt(i));
+        }
+        node.alias = alias;
+        node.operator = operator;
+    }
+
+    /**
+     * Find the longest match of an operator starting at an index. A match can be no longer than
+     * the given maximum length and must end at or before the given end index.
+     *
+     * @param expression The expression to search
+     * @param start      The index the operator must start at
+     * @param end        The index the operator must end at or before
+     * @param maxLength  The maximum number of characters in the match, including whitespace
+     * @return The number of characters matched, or zero if there is no operator at the index
+     */
+    int match(CharSequence expression, int start, int end, int maxLength) {
+        int limit = Math.min(end, start + maxLength);
+        TrieNode node = root;
+        int matched = 0;
+
+        for (int i = start; i < limit; i++) {
+            char c = expression.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                node = node.getChild(toLowerCase(c));
+                if (node == null)
+                    break;
+            }
+            if (node.operator != null)
+                matched = i - start + 1;
+        }
+        return matched;
+    }
+
+    /**
+     * Find the trie entry of a match previously found by {@link #match}.
+     *
+     * @param expression The expression searched
+     * @param start      The index the match starts at
+     * @param length     The length of the match
+     * @return The node holding the alias and operator of the match
+     */
+    TrieNode get(CharSequence expression, int start, int length) {
+        TrieNode node = root;
+        for (int i = start; i < start + length; i++) {
+            char c = expression.charAt(i);
+            if (!Character.isWhitespace(c))
+                node = node.getChild(toLowerCase(c));
+        }
+        return node;
+    }
+
+    /**
+     * Lower case a single character the way {@link String#toLowerCase()} would, mapping
+     * characters whose lower case form is not a single character to one no alias contains.
+     */
+    private static char toLowerCase(char c) {
+        if (c < 0x80)
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+
+        String lower = String.valueOf(c).toLowerCase();
+        return lower.length() == 1 ? lower.charAt(0) : Character.MAX_VALUE;
+    }
+
+    static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+
+        private String alias;
+        private Operator operator;
+
+        String getAlias() {
+            return alias;
+        }
+
+        Operator getOperator() {
+            return operator;
+        }
+
+        private TrieNode getChild(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c)
+                    return children[i];
+            }
+            return null;
+        }
+
+        private TrieNode getOrAddChild(char c) {
+            TrieNode child = getChild(c);
+            if (child == null) {
+                child = new TrieNode();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = c;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, concurrent cache of expression trees keyed by their source expression.
+ * <p>
+ * Lookups take no lock. A hit reads the tree from a {@link ConcurrentHashMap} and writes only to
+ * the counters, apart from marking the tree as used again if eviction has passed over it since
+ * it was last used. Eviction approximates least recently used order with the clock algorithm:
+ * trees are visited in the order they were cached, and a tree used since the last visit is
+ * passed over once before it is evicted. Only misses that cache a tree, and changes of
+ * capacity, take the lock guarding eviction.
+ * </p>
+ * <p>
+ * How an expression is parsed depends on the operators and constant names known to the
+ * {@link EvaluationContext}, so every lookup is made against the current version of the context.
+ * Versions only ever increase. When a newer version is seen, for example because a custom
+ * function was defined, all cached trees are discarded. Lookups still being made against an older
+ * version, such as by readers of a {@link SharedEvaluator} holding an earlier snapshot, parse the
+ * expression without touching the cache, so they neither discard the newer trees nor replace them
+ * with their own. All methods are safe to call from multiple threads.
+ * </p>
+ */
+public final class ParseCache {
+
+    /**
+     * The number of trees cached by a new {@link Evaluator}
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<String, Entry> trees = new ConcurrentHashMap<>();
+
+    /**
+     * The expressions in the order the clock visits them when evicting
+     */
+    private final Queue<String> clock = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Guards eviction, clearing and changes of version
+     */
+    private final Object lock = new Object();
+
+    private volatile int capacity;
+    private volatile long version;
+
+    ParseCache(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Find the tree of an expression, parsing and caching it if it is not already cached.
+     *
+     * @param expression The expression to find the tree of
+     * @param version    The version of the context the expression is parsed in
+     * @param parser     Parses the expression on a miss, or on any lookup for an older version
+     * @return The tree of the expression
+     */
+    Node get(String expression, long version, Function<String, Node> parser) {
+        if (version > this.version)
+            advance(version);
+
+        Entry entry = trees.get(expression);
+        // an entry of another version may have been cached by a lookup racing a change of version
+        if (entry != null && entry.version == version) {
+            if (!entry.used)
+                entry.used = true;
+            hits.increment();
+            return entry.tree;
+        }
+        misses.increment();
+
+        // parse outside the lock, a concurrent miss on the same expression simply parses twice
+        Node tree = parser.apply(expression);
+
+        if (version == this.version && capacity > 0) {
+            if (trees.put(expression, new Entry(tree, version)) == null)
+                clock.add(expression);
+            if (trees.size() > capacity)
+                evict();
+        }
+        return tree;
+    }
+
+    /**
+     * Discard every tree cached for an older version
+     */
+    private void advance(long version) {
+        synchronized (lock) {
+            if (version > this.version) {
+                this.version = version;
+                trees.clear();
+                clock.clear();
+            }
+        }
+    }
+
+    /**
+     * Evict trees until the cache is within its capacity, passing over each tree used since the
+     * clock last visited it once
+     */
+    private void evict() {
+        synchronized (lock) {
+            while (trees.size() > capacity) {
+                String expression = clock.poll();
+                if (expression == null)
+                    return;
+
+                Entry entry = trees.get(expression);
+                if (entry == null)
+                    continue;
+                if (entry.used) {
+                    entry.used = false;
+                    clock.add(expression);
+                } else if (trees.remove(expression, entry)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all cached trees. The counters are not reset.
+     */
+    public void clear() {
+        synchronized (lock) {
+            trees.clear();
+            clock.clear();
+        }
+    }
+
+    /**
+     * Set the maximum number of trees to cache, evicting trees if there are now too many. A
+     * capacity of zero disables caching.
+     *
+     * @param capacity The maximum number of trees
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity must not be negative");
+
+        this.capacity = capacity;
+        evict();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of trees currently cached
+     */
+    public int size() {
+        return trees.size();
+    }
+
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to parse the expression
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of trees removed to keep the cache within its capacity
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ParseCache[size=%d, capacity=%d, hits=%d, misses=%d, evictions=%d]",
+                size(), capacity, getHits(), getMisses(), getEvictions());
+    }
+
+    /**
+     * A cached tree and the version of the context it was parsed against
+     */
+    private static final class Entry {
+        private final Node tree;
+        private final long version;
+
+        /**
+         * Whether the tree has been used since the clock last visited it. Only written when it
+         * changes, so that hits on a tree in constant use do not write to it
+         */
+        private boolean used;
+
+        Entry(Node tree, long version) {
+            this.tree = tree;
+            this.version = version;
+        }
+    }
+}
@@ -2,23 +2,63 @@ package uk.co.ryanharrison.mathengine.parser;
 
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.LazyOperator;
 import uk.co.ryanharrison.mathengine.parser.operators.Operator;
 import uk.co.ryanharrison.mathengine.parser.operators.UnaryOperator;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 public final class RecursiveDescentParser implements Parser<Node, NodeConstant> {
 
     private EvaluationContext context;
 
+    /**
+     * Counts node visits against the budget of the evaluation, or null if it is not tracked. A
+     * parser is only used on the thread that created it, so it keeps the counter of that thread
+     */
+    private final EvaluationTracker.VisitCounter visits;
+
+    /**
+     * The result of each {@link NodeShared} evaluated so far. A parser is created for each
+     * evaluation, so shared subtrees are evaluated once per evaluation. Null until the first
+     * shared subtree is found
+     */
+    private Map<NodeShared, NodeConstant> sharedResults;
+
+    /**
+     * The values of the {@link NodeSlot}s of the tree, or null if it has none
+     */
+    private final NodeConstant[] slots;
+
     RecursiveDescentParser(EvaluationContext context) {
+        this(context, null);
+    }
+
+    /**
+     * @param context The context to evaluate in
+     * @param slots   The value of each {@link NodeSlot} by its index
+     */
+    RecursiveDescentParser(EvaluationContext context, NodeConstant[] slots) {
         this.context = context;
+        EvaluationTracker tracker = context.getTracker();
+        this.visits = tracker == null ? null : tracker.counter();
+        this.slots = slots;
     }
 
     @Override
     public NodeConstant parse(Node tree) {
+        if (visits != null)
+            visits.visit();
+
         if (tree instanceof NodeSet) {
             return ((NodeSet) tree).resolve(this::parse);
         } else if (tree instanceof NodeConstant) {
             return (NodeConstant) tree;
+        } else if (tree instanceof NodeSlot) {
+            return slots[((NodeSlot) tree).getIndex()];
+        } else if (tree instanceof NodeShared) {
+            return parseShared((NodeShared) tree);
         } else if (tree instanceof NodeAddVariable) {
             NodeAddVariable nab = (NodeAddVariable) tree;
             NodeConstant result = parse(nab.getNode());
@@ -38,7 +78,9 @@ public final class RecursiveDescentParser implements Parser<Node, NodeConstant>
             NodeExpression expression = (NodeExpression) tree;
             Operator operator = ((NodeExpression) tree).getOperator();
 
-            if (operator instanceof UnaryOperator) {
+            if (operator instanceof LazyOperator) {
+                return ((LazyOperator) operator).toResult(context, expression, this::parse);
+            } else if (operator instanceof UnaryOperator) {
                 UnaryOperator unop = (UnaryOperator) operator;
                 return unop.toResult(context, parse(expression.getArgOne()));
             } else {
@@ -51,6 +93,18 @@ public final class RecursiveDescentParser implements Parser<Node, NodeConstant>
         throw new IllegalArgumentException("Unknown Operator");
     }
 
+    private NodeConstant parseShared(NodeShared shared) {
+        if (sharedResults == null)
+            sharedResults = new IdentityHashMap<>();
+
+        NodeConstant result = sharedResults.get(shared);
+        if (result == null) {
+            result = parse(shared.getNode());
+            sharedResults.put(shared, result);
+        }
+        return result;
+    }
+
     private boolean handleCustomOperator(String op) {
         if (op.equalsIgnoreCase("clearvars")) {
             context.clearConstants();
@@ -0,0 +1,206 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates expressions from any number of threads against definitions that can be changed while
+ * evaluations are running.
+ * <p>
+ * The variables, functions and settings are held in an immutable snapshot of an
+ * {@link Evaluator}. Evaluating an expression reads the current snapshot once and runs against it
+ * without taking any lock, so an evaluation sees a consistent set of definitions from start to
+ * finish. Changes are made through {@link #update(Consumer)}, which applies them to a private
+ * copy of the current snapshot and then publishes the copy atomically; evaluations already
+ * running carry on with the snapshot they started with. Updates are serialised with respect to
+ * each other but never block evaluation.
+ * </p>
+ * <p>
+ * Each evaluation runs in its own frame on top of the snapshot, so {@code ans} is not recorded
+ * and {@code clearvars} only affects that evaluation. Expressions evaluated here may not define
+ * variables or functions with {@code :=}, which must be done through an update instead.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+ * shared.update(e -> {
+ *     e.addVariable("rate", 0.05);
+ *     e.evaluateConstant("interest(p) := p * rate");
+ * });
+ *
+ * // on any number of request threads
+ * double result = shared.evaluateDouble("interest(1000)"); // 50
+ * }</pre>
+ */
+public final class SharedEvaluator {
+
+    /**
+     * A published snapshot of the definitions. The version counts the updates published so far.
+     * The parse cache is instead keyed on the parse version of the context, which only changes
+     * when an update changes how expressions are parsed, so that updating the value of a
+     * variable keeps the cached trees
+     */
+    private record Snapshot(EvaluationContext context, long version) {
+    }
+
+    private final AtomicReference<Snapshot> current;
+    private final ParseCache parseCache = new ParseCache(ParseCache.DEFAULT_CAPACITY);
+    private final Object updateLock = new Object();
+
+    private SharedEvaluator(EvaluationContext context) {
+        this.current = new AtomicReference<>(new Snapshot(context, 0));
+    }
+
+    /**
+     * Create a shared evaluator starting with a copy of the current variables, operators and
+     * settings of an evaluator. Later changes to the evaluator are not seen by the shared
+     * evaluator
+     *
+     * @param evaluator The evaluator to copy
+     * @return The shared evaluator
+     */
+    public static SharedEvaluator of(Evaluator evaluator) {
+        return new SharedEvaluator(evaluator.getContext().snapshot());
+    }
+
+    /**
+     * Change the definitions seen by evaluations started after this method returns. The changes
+     * are made to an evaluator holding a private copy of the current definitions, which is
+     * published once they have all been made, so evaluations never see some of the changes
+     * without the others. If the changes throw an exception nothing is published. The evaluator
+     * given to the changes must not be used after they return
+     *
+     * @param changes Makes the changes, for example by adding variables or defining functions
+     */
+    public void update(Consumer<Evaluator> changes) {
+        synchronized (updateLock) {
+            Snapshot snapshot = current.get();
+            Evaluator working = new Evaluator(snapshot.context().snapshot());
+            changes.accept(working);
+            current.set(new Snapshot(working.getContext().snapshot(), snapshot.version() + 1));
+        }
+    }
+
+    /**
+     * Evaluate an expression against the current definitions
+     *
+     * @param expression The expression to evaluate
+     * @return The result of the expression
+     * @throws IllegalArgumentException if the expression defines a variable or function
+     */
+    public NodeConstant evaluateConstant(String expression) {
+        return evaluateConstant(expression, Map.of());
+    }
+
+    /**
+     * Evaluate an expression against the current definitions with the given variables bound in
+     * addition
+     *
+     * @param expression The expression to evaluate
+     * @param args       The values of the extra variables
+     * @return The result of the expression
+     * @throws IllegalArgumentException if the expression defines a variable or function
+     */
+    public NodeConstant evaluateConstant(String expression, Map<String, NodeConstant> args) {
+        Snapshot snapshot = current.get();
+        EvaluationContext frame = snapshot.context().withArgs(args);
+        Node tree = generateTree(expression, snapshot);
+
+        frame.startEvaluation();
+        return new RecursiveDescentParser(frame).parse(tree);
+    }
+
+    public double evaluateDouble(String expression) {
+        return Evaluator.toDouble(evaluateConstant(expression));
+    }
+
+    /**
+     * Compile an expression against the current definitions. The compiled expression keeps
+     * using the definitions it was compiled with after later updates
+     *
+     * @param expression The expression to compile
+     * @return The compiled expression
+     * @throws IllegalArgumentException if the expression defines a variable or function
+     */
+    public CompiledExpression compile(String expression) {
+        return compile(expression, new String[0]);
+    }
+
+    /**
+     * Compile an expression with named parameters against the current definitions, as for
+     * {@link Evaluator#compile(String, String...)}. The compiled expression keeps using the
+     * definitions it was compiled with after later updates
+     *
+     * @param expression The expression to compile
+     * @param parameters The names of the variables given a value on each evaluation
+     * @return The compiled expression
+     * @throws IllegalArgumentException if the expression defines a variable or function, or a
+     *                                  parameter is named more than once
+     */
+    public CompiledExpression compile(String expression, String... parameters) {
+        Snapshot snapshot = current.get();
+        Node tree = generateTree(expression, snapshot);
+        // published snapshots are never modified, so can be shared without copying
+        return Evaluator.compileIn(tree, snapshot.context(), parameters);
+    }
+
+    private Node generateTree(String expression, Snapshot snapshot) {
+        String trimmed = expression.trim();
+        // parsing a definition adds it to the context, which must not change once published
+        if (trimmed.contains(":="))
+            throw new IllegalArgumentException("Definitions can only be made through update, got: " + trimmed);
+
+        return parseCache.get(trimmed, snapshot.context().getParseVersion(),
+                e -> new ExpressionParser(snapshot.context()).parse(e));
+    }
+
+    /**
+     * Get the number of updates published so far, which identifies the definitions that
+     * evaluations started now will see
+     *
+     * @return The version of the current definitions
+     */
+    public long getVersion() {
+        return current.get().version();
+    }
+
+    /**
+     * Get the cache of parsed trees shared by all evaluations, through which its size can be
+     * changed and its statistics read
+     *
+     * @return The parse cache of this evaluator
+     */
+    public ParseCache getParseCache() {
+        return parseCache;
+    }
+
+    /**
+     * @return The budget each evaluation against the current definitions is limited to
+     */
+    public EvaluationBudget getEvaluationBudget() {
+        return current.get().context().getEvaluationBudget();
+    }
+
+    /**
+     * @return The angle unit of the current definitions
+     */
+    public AngleUnit getAngleUnit() {
+        return current.get().context().getAngleUnit();
+    }
+
+    /**
+     * Check whether a variable or function is defined in the current definitions
+     *
+     * @param name The name to look for
+     * @return Whether the name is defined
+     */
+    public boolean isDefined(String name) {
+        return current.get().context().isConstant(Objects.requireNonNull(name));
+    }
+}
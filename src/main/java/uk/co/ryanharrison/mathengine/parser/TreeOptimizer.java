@@ -0,0 +1,350 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+import uk.co.ryanharrison.mathengine.parser.operators.CustomOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.LazyOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.Operator;
+import uk.co.ryanharrison.mathengine.parser.operators.binary.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Simplifies expression trees that are evaluated many times with only some variables changing.
+ * <p>
+ * Every subtree that does not depend on the bound variables is evaluated once against the
+ * context and replaced by its result, which both folds constant subtrees such as
+ * {@code 2 * pi / 360} and hoists subexpressions that do not change between evaluations out of
+ * the tree. Subtrees that fail to evaluate are left in place so that they fail in the same way
+ * when the tree is evaluated. A subtree is only treated as unchanging if no variable it uses,
+ * including those used inside the bodies of the functions it calls, is bound.
+ * </p>
+ * <p>
+ * Adding zero, subtracting zero, multiplying or dividing by one and raising to the power of one
+ * are then removed where the other operand is known to be a plain number, for which they give
+ * the operand back unchanged apart from the sign of a zero. The bound variables are assumed to
+ * hold plain numbers.
+ * </p>
+ * <p>
+ * The arguments of lazy operators such as {@code if} that may not be evaluated are left as they
+ * are, so that optimizing a tree never evaluates a branch that evaluating it would skip.
+ * </p>
+ * <p>
+ * Trees that assign variables or clear them are returned unchanged, as evaluating them changes
+ * the context the rest of the tree would have been folded against.
+ * </p>
+ * <p>
+ * Folding counts towards the {@link EvaluationBudget} of the context as one evaluation, so
+ * optimizing a tree with an expensive constant subtree stops in the same way as evaluating it.
+ * </p>
+ */
+final class TreeOptimizer {
+
+    private static final NodeRational ZERO = new NodeRational(0, 1);
+    private static final NodeRational ONE = new NodeRational(1, 1);
+
+    private final EvaluationContext context;
+    private final Set<String> variables;
+
+    /**
+     * The context subtrees are folded in, which tracks folding against the budget
+     */
+    private final EvaluationContext foldContext;
+
+    /**
+     * Whether the body of each function seen so far uses a bound variable
+     */
+    private final Map<NodeFunction, Boolean> functionDependencies = new IdentityHashMap<>();
+
+    /**
+     * @param context   The context unchanging subtrees are evaluated against
+     * @param variables The names of the variables that change between evaluations
+     */
+    TreeOptimizer(EvaluationContext context, Set<String> variables) {
+        this.context = context;
+        this.variables = variables;
+        this.foldContext = trackedContext(context);
+    }
+
+    /**
+     * Use the evaluation already running in the context if there is one, otherwise start a new
+     * one in a frame on top of it
+     */
+    private static EvaluationContext trackedContext(EvaluationContext context) {
+        if (context.getTracker() != null)
+            return context;
+
+        EvaluationContext frame = context.withArgs(Map.of());
+        frame.startEvaluation();
+        return frame;
+    }
+
+    /**
+     * Simplify a tree
+     *
+     * @param tree The tree to simplify
+     * @return The simplified tree, which may be the tree itself
+     */
+    Node optimize(Node tree) {
+        if (hasSideEffects(tree))
+            return tree;
+
+        return simplify(tree);
+    }
+
+    private Node simplify(Node node) {
+        if (node instanceof NodeExpression expression)
+            return simplifyExpression(expression);
+        if (node instanceof NodeVariable variable)
+            return dependsOnVariables(variable) ? variable : fold(variable);
+        if (node instanceof NodeVector vector && !vector.isDense())
+            return simplifyVector(vector);
+        if (node instanceof NodeMatrix matrix && !matrix.isDense())
+            return simplifyMatrix(matrix);
+
+        return node;
+    }
+
+    private Node simplifyExpression(NodeExpression expression) {
+        if (expression.getOperator() instanceof LazyOperator)
+            return simplifyLazy(expression);
+
+        Node argOne = simplify(expression.getArgOne());
+        Node argTwo = expression.getArgTwo() == null ? null : simplify(expression.getArgTwo());
+        Operator operator = expression.getOperator();
+
+        NodeExpression simplified = argOne == expression.getArgOne() && argTwo == expression.getArgTwo()
+                ? expression : new NodeExpression(operator, argOne, argTwo);
+
+        if (isConstant(argOne) && (argTwo == null || isConstant(argTwo)) && !dependsOnVariables(operator))
+            return fold(simplified);
+
+        return argTwo == null ? simplified : removeIdentity(simplified, argOne, argTwo);
+    }
+
+    /**
+     * Only the first argument of a lazy operator is always evaluated, so only that is
+     * simplified. The others are left alone rather than evaluated now when they may never be,
+     * as with the branches of {@code if} and the second operand of {@code and} and {@code or}
+     */
+    private Node simplifyLazy(NodeExpression expression) {
+        // folding evaluates the operator lazily, as evaluating the tree would
+        if (!dependsOnVariables(expression))
+            return fold(expression);
+
+        Node argOne = expression.getArgOne();
+        Node argTwo = expression.getArgTwo();
+
+        if (argTwo != null) {
+            Node simplified = simplify(argOne);
+            return simplified == argOne ? expression : new NodeExpression(expression.getOperator(), simplified, argTwo);
+        }
+        if (argOne instanceof NodeVector vector && !vector.isDense() && vector.getSize() > 0) {
+            Node[] values = vector.getValues();
+            Node simplified = simplify(values[0]);
+            if (simplified == values[0])
+                return expression;
+
+            Node[] arguments = values.clone();
+            arguments[0] = simplified;
+            return new NodeExpression(expression.getOperator(), new NodeVector(arguments));
+        }
+        return expression;
+    }
+
+    private Node simplifyVector(NodeVector vector) {
+        Node[] values = vector.getValues();
+        Node[] simplified = new Node[values.length];
+        boolean changed = false;
+        for (int i = 0; i < values.length; i++) {
+            simplified[i] = simplify(values[i]);
+            changed |= simplified[i] != values[i];
+        }
+        return changed ? new NodeVector(simplified) : vector;
+    }
+
+    private Node simplifyMatrix(NodeMatrix matrix) {
+        Node[][] values = matrix.getValues();
+        Node[][] simplified = new Node[values.length][];
+        boolean changed = false;
+        for (int i = 0; i < values.length; i++) {
+            simplified[i] = new Node[values[i].length];
+            for (int j = 0; j < values[i].length; j++) {
+                simplified[i][j] = simplify(values[i][j]);
+                changed |= simplified[i][j] != values[i][j];
+            }
+        }
+        return changed ? new NodeMatrix(simplified) : matrix;
+    }
+
+    /**
+     * Evaluate a subtree that does not depend on the bound variables, leaving it as it is if it
+     * cannot be evaluated. Exceeding the budget is not left to fail later, but stops the
+     * optimization
+     */
+    private Node fold(Node node) {
+        try {
+            NodeConstant result = new RecursiveDescentParser(foldContext).parse(node);
+            return result == null ? node : result;
+        } catch (EvaluationAbortedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return node;
+        }
+    }
+
+    private Node removeIdentity(NodeExpression expression, Node argOne, Node argTwo) {
+        Operator operator = expression.getOperator();
+
+        if (operator instanceof Add) {
+            if (ZERO.equals(argTwo) && isPlainNumber(argOne))
+                return argOne;
+            if (ZERO.equals(argOne) && isPlainNumber(argTwo))
+                return argTwo;
+        } else if (operator instanceof Multiply) {
+            if (ONE.equals(argTwo) && isPlainNumber(argOne))
+                return argOne;
+            if (ONE.equals(argOne) && isPlainNumber(argTwo))
+                return argTwo;
+        } else if (operator instanceof Subtract) {
+            if (ZERO.equals(argTwo) && isPlainNumber(argOne))
+                return argOne;
+        } else if (operator instanceof Divide || operator instanceof Pow) {
+            if (ONE.equals(argTwo) && isPlainNumber(argOne))
+                return argOne;
+        }
+        return expression;
+    }
+
+    /**
+     * Whether a node always evaluates to a {@link NodeDouble} or {@link NodeRational} rather than
+     * to a vector, unit, percentage or anything else arithmetic treats differently
+     */
+    private boolean isPlainNumber(Node node) {
+        if (node.getClass() == NodeDouble.class || node.getClass() == NodeRational.class)
+            return true;
+        if (node instanceof NodeVariable variable)
+            return variables.contains(variable.getVariable());
+        if (node instanceof NodeExpression expression) {
+            Operator operator = expression.getOperator();
+            return (operator instanceof Add || operator instanceof Subtract || operator instanceof Multiply
+                    || operator instanceof Divide || operator instanceof Pow)
+                    && isPlainNumber(expression.getArgOne()) && isPlainNumber(expression.getArgTwo());
+        }
+        return false;
+    }
+
+    /**
+     * Whether a simplified node is a value that no longer needs evaluating
+     */
+    private static boolean isConstant(Node node) {
+        if (node instanceof NodeVector vector)
+            return vector.isDense() || allConstant(vector.getValues());
+        if (node instanceof NodeMatrix matrix) {
+            if (matrix.isDense())
+                return true;
+            for (Node[] row : matrix.getValues()) {
+                if (!allConstant(row))
+                    return false;
+            }
+            return true;
+        }
+        return node instanceof NodeConstant;
+    }
+
+    private static boolean allConstant(Node[] nodes) {
+        for (Node node : nodes) {
+            if (!isConstant(node))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean dependsOnVariables(Operator operator) {
+        return operator instanceof CustomOperator custom && dependsOnVariables(custom.getFunction());
+    }
+
+    /**
+     * Whether a variable is bound, or names a function whose body uses a bound variable
+     */
+    private boolean dependsOnVariables(NodeVariable variable) {
+        String name = variable.getVariable();
+        if (variables.contains(name))
+            return true;
+
+        return context.getConstant(name) instanceof NodeFunction function && dependsOnVariables(function);
+    }
+
+    private boolean dependsOnVariables(NodeFunction function) {
+        Boolean known = functionDependencies.get(function);
+        if (known != null)
+            return known;
+
+        // assume a function calling itself depends on the variables until shown otherwise
+        functionDependencies.put(function, true);
+        boolean depends = dependsOnVariables(function.getNode());
+        functionDependencies.put(function, depends);
+        return depends;
+    }
+
+    private boolean dependsOnVariables(Node node) {
+        if (node instanceof NodeVariable variable)
+            return dependsOnVariables(variable);
+        if (node instanceof NodeExpression expression) {
+            return dependsOnVariables(expression.getOperator())
+                    || dependsOnVariables(expression.getArgOne())
+                    || (expression.getArgTwo() != null && dependsOnVariables(expression.getArgTwo()));
+        }
+        if (node instanceof NodeAddVariable assignment)
+            return dependsOnVariables(assignment.getNode());
+        if (node instanceof NodeVector vector && !vector.isDense())
+            return anyDependsOnVariables(vector.getValues());
+        if (node instanceof NodeMatrix matrix && !matrix.isDense()) {
+            for (Node[] row : matrix.getValues()) {
+                if (anyDependsOnVariables(row))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean anyDependsOnVariables(Node[] nodes) {
+        for (Node node : nodes) {
+            if (dependsOnVariables(node))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether evaluating a tree changes the constants of the context it is evaluated in
+     */
+    static boolean hasSideEffects(Node node) {
+        if (node instanceof NodeAddVariable)
+            return true;
+        if (node instanceof NodeVariable variable)
+            return variable.getVariable().equalsIgnoreCase("clearvars");
+        if (node instanceof NodeExpression expression) {
+            return hasSideEffects(expression.getArgOne())
+                    || (expression.getArgTwo() != null && hasSideEffects(expression.getArgTwo()));
+        }
+        if (node instanceof NodeVector vector && !vector.isDense())
+            return anyHasSideEffects(vector.getValues());
+        if (node instanceof NodeMatrix matrix && !matrix.isDense()) {
+            for (Node[] row : matrix.getValues()) {
+                if (anyHasSideEffects(row))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyHasSideEffects(Node[] nodes) {
+        for (Node node : nodes) {
+            if (hasSideEffects(node))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the variables of a tree once, before it is evaluated many times against a context
+ * that does not change.
+ * <p>
+ * Each parameter is replaced by a {@link NodeSlot} holding its position in the parameter list,
+ * which the {@link RecursiveDescentParser} reads from an array of values. Every other variable
+ * defined in the context is replaced by its value, so evaluating the tree looks nothing up by
+ * name. Variables that are neither parameters nor defined are left in place and fail, or are
+ * found among any extra arguments, when evaluated as before.
+ * </p>
+ * <p>
+ * Trees that assign or clear variables are returned unchanged, as evaluating them changes what
+ * the variables after the assignment refer to.
+ * </p>
+ */
+final class VariableBinder {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final EvaluationContext context;
+
+    /**
+     * The rebound node of each shared subtree, so that every use still refers to one instance
+     */
+    private final Map<NodeShared, Node> shared = new IdentityHashMap<>();
+
+    private VariableBinder(List<String> parameters, EvaluationContext context) {
+        for (int i = 0; i < parameters.size(); i++) {
+            slots.put(parameters.get(i), i);
+        }
+        this.context = context;
+    }
+
+    /**
+     * Resolve the variables of a tree
+     *
+     * @param tree       The tree to resolve
+     * @param parameters The names of the parameters, in the order their values are given
+     * @param context    The context every other variable is resolved against, which must not
+     *                   change while the tree is in use
+     * @return The resolved tree, which is the tree itself if it has side effects
+     */
+    static Node bind(Node tree, List<String> parameters, EvaluationContext context) {
+        if (!canBind(tree))
+            return tree;
+
+        return new VariableBinder(parameters, context).bind(tree);
+    }
+
+    /**
+     * Whether the variables of a tree can be resolved before it is evaluated
+     */
+    static boolean canBind(Node tree) {
+        return !TreeOptimizer.hasSideEffects(tree);
+    }
+
+    private Node bind(Node node) {
+        if (node instanceof NodeVariable variable)
+            return bindVariable(variable);
+        if (node instanceof NodeExpression expression) {
+            Node argOne = bind(expression.getArgOne());
+            Node argTwo = expression.getArgTwo() == null ? null : bind(expression.getArgTwo());
+            return argOne == expression.getArgOne() && argTwo == expression.getArgTwo()
+                    ? expression : new NodeExpression(expression.getOperator(), argOne, argTwo);
+        }
+        if (node instanceof NodeShared sharedNode)
+            return bindShared(sharedNode);
+        if (node instanceof NodeVector vector && !vector.isDense())
+            return bindVector(vector);
+        if (node instanceof NodeMatrix matrix && !matrix.isDense())
+            return bindMatrix(matrix);
+
+        return node;
+    }
+
+    private Node bindVariable(NodeVariable variable) {
+        String name = variable.getVariable();
+        Integer slot = slots.get(name);
+        if (slot != null)
+            return new NodeSlot(slot, name);
+
+        NodeConstant value = context.getConstant(name);
+        return value == null ? variable : value;
+    }
+
+    private Node bindShared(NodeShared node) {
+        Node bound = shared.get(node);
+        if (bound == null) {
+            Node inner = bind(node.getNode());
+            bound = inner == node.getNode() ? node : new NodeShared(inner);
+            shared.put(node, bound);
+        }
+        return bound;
+    }
+
+    private Node bindVector(NodeVector vector) {
+        Node[] values = vector.getValues();
+        Node[] bound = new Node[values.length];
+        boolean changed = false;
+        for (int i = 0; i < values.length; i++) {
+            bound[i] = bind(values[i]);
+            changed |= bound[i] != values[i];
+        }
+        return changed ? new NodeVector(bound) : vector;
+    }
+
+    private Node bindMatrix(NodeMatrix matrix) {
+        Node[][] values = matrix.getValues();
+        Node[][] bound = new Node[values.length][];
+        boolean changed = false;
+        for (int i = 0; i < values.length; i++) {
+            bound[i] = new Node[values[i].length];
+            for (int j = 0; j < values[i].length; j++) {
+                bound[i][j] = bind(values[i][j]);
+                changed |= bound[i][j] != values[i][j];
+            }
+        }
+        return changed ? new NodeMatrix(bound) : matrix;
+    }
+}
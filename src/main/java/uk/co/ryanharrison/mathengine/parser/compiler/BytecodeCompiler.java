@@ -0,0 +1,313 @@
+package uk.co.ryanharrison.mathengine.parser.compiler;
+
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.TypeKind;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+import static java.lang.constant.ConstantDescs.*;
+
+/**
+ * Compiles numeric expression trees into hidden classes implementing primitive double
+ * functional interfaces.
+ * <p>
+ * The whole expression becomes the straight-line body of a single
+ * {@link DoubleUnaryOperator#applyAsDouble(double)} or
+ * {@link DoubleBinaryOperator#applyAsDouble(double, double)} method. Variables are loaded
+ * directly from the method parameters and constants are embedded in the constant pool, so
+ * evaluation performs no allocation, no map lookups and no virtual dispatch. Once hot, the JIT
+ * compiles and inlines the formula as if it had been written by hand. The class is generated
+ * with the {@link ClassFile} API.
+ * </p>
+ * <p>
+ * Only trees made up of numbers, variables and the operators listed in {@link NumericOperation}
+ * can be compiled. Any other node, such as a vector, matrix, function or percentage, makes the
+ * compile methods return an empty result so that the caller can fall back to the interpreter.
+ * Arithmetic is carried out in double precision throughout, so results can differ in the last
+ * few bits from the interpreter, which keeps exact rational values where it can.
+ * </p>
+ *
+ * <pre>{@code
+ * Evaluator evaluator = Evaluator.newSimpleEvaluator();
+ * Node tree = evaluator.generateTree("x^2 + 8*x + 12");
+ * DoubleUnaryOperator f = BytecodeCompiler
+ *         .compileUnary(tree, "x", name -> null, AngleUnit.Radians)
+ *         .orElseThrow();
+ * double y = f.applyAsDouble(12.5); // 268.25
+ * }</pre>
+ */
+public final class BytecodeCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassDesc CLASS = ClassDesc.of("uk.co.ryanharrison.mathengine.parser.compiler.CompiledOperator");
+    private static final ClassDesc UNARY_INTERFACE = ClassDesc.of("java.util.function.DoubleUnaryOperator");
+    private static final ClassDesc BINARY_INTERFACE = ClassDesc.of("java.util.function.DoubleBinaryOperator");
+    private static final ClassDesc MATH = ClassDesc.of("java.lang.Math");
+    private static final ClassDesc MATH_UTILS = ClassDesc.of("uk.co.ryanharrison.mathengine.utils.MathUtils");
+    private static final MethodTypeDesc UNARY_DESCRIPTOR = MethodTypeDesc.of(CD_double, CD_double);
+    private static final MethodTypeDesc BINARY_DESCRIPTOR = MethodTypeDesc.of(CD_double, CD_double, CD_double);
+
+    /**
+     * Not permitted to create an instance of this class.
+     */
+    private BytecodeCompiler() {
+    }
+
+    /**
+     * Compile an expression tree of one variable.
+     *
+     * @param tree      the expression tree to compile
+     * @param variable  the name of the variable bound to the operator argument
+     * @param constants resolves any other variable to its current value, returning null if unknown.
+     *                  Values are captured at compile time
+     * @param angleUnit the angle unit used by trigonometric operators
+     * @return the compiled operator, or empty if the tree contains non-numeric nodes
+     */
+    public static Optional<DoubleUnaryOperator> compileUnary(Node tree, String variable,
+                                                             Function<String, NodeConstant> constants,
+                                                             AngleUnit angleUnit) {
+        return compile(tree, new String[]{variable}, constants, angleUnit)
+                .map(DoubleUnaryOperator.class::cast);
+    }
+
+    /**
+     * Compile an expression tree of two variables.
+     *
+     * @param tree      the expression tree to compile
+     * @param first     the name of the variable bound to the first operator argument
+     * @param second    the name of the variable bound to the second operator argument
+     * @param constants resolves any other variable to its current value, returning null if unknown.
+     *                  Values are captured at compile time
+     * @param angleUnit the angle unit used by trigonometric operators
+     * @return the compiled operator, or empty if the tree contains non-numeric nodes
+     */
+    public static Optional<DoubleBinaryOperator> compileBinary(Node tree, String first, String second,
+                                                               Function<String, NodeConstant> constants,
+                                                               AngleUnit angleUnit) {
+        return compile(tree, new String[]{first, second}, constants, angleUnit)
+                .map(DoubleBinaryOperator.class::cast);
+    }
+
+    private static Optional<Object> compile(Node tree, String[] parameters,
+                                            Function<String, NodeConstant> constants, AngleUnit angleUnit) {
+        if (!isCompilable(tree, parameters, constants, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+            return Optional.empty();
+        }
+
+        ClassDesc interfaceType = parameters.length == 1 ? UNARY_INTERFACE : BINARY_INTERFACE;
+        MethodTypeDesc descriptor = parameters.length == 1 ? UNARY_DESCRIPTOR : BINARY_DESCRIPTOR;
+        byte[] bytes;
+        try {
+            bytes = ClassFile.of().build(CLASS, type -> type
+                    .withFlags(ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL | ClassFile.ACC_SUPER)
+                    .withSuperclass(CD_Object)
+                    .withInterfaceSymbols(interfaceType)
+                    .withMethodBody(INIT_NAME, MTD_void, ClassFile.ACC_PUBLIC, code -> code
+                            .aload(0)
+                            .invokespecial(CD_Object, INIT_NAME, MTD_void)
+                            .return_())
+                    .withMethodBody("applyAsDouble", descriptor, ClassFile.ACC_PUBLIC, code -> {
+                        new MethodBuilder(code, parameters, constants, angleUnit).emit(tree);
+                        code.dreturn();
+                    }));
+        } catch (IllegalArgumentException e) {
+            // the method or its constant pool is too large for a class file
+            return Optional.empty();
+        }
+
+        return Optional.of(instantiate(bytes));
+    }
+
+    private static Object instantiate(byte[] bytes) {
+        try {
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClass(bytes, true);
+            return hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to define compiled expression", e);
+        }
+    }
+
+    /**
+     * Determine whether a node holds a number whose arithmetic is plain double arithmetic.
+     * Percentages and units carry their own semantics and are excluded.
+     */
+    static boolean isPlainNumber(Node node) {
+        return node instanceof NodeNumber && !(node instanceof NodePercent) && !(node instanceof NodeUnit);
+    }
+
+    /**
+     * Determine whether every node of a tree can be compiled, before any code is generated.
+     * Each shared subtree is only checked the first time it is reached.
+     */
+    private static boolean isCompilable(Node node, String[] parameters, Function<String, NodeConstant> constants,
+                                        Set<NodeShared> checked) {
+        if (isPlainNumber(node)) {
+            return true;
+        } else if (node instanceof NodeVariable variable) {
+            return parameterIndex(parameters, variable.getVariable()) >= 0
+                    || isPlainNumber(constants.apply(variable.getVariable()));
+        } else if (node instanceof NodeExpression expression) {
+            NumericOperation operation = NumericOperation.of(expression.getOperator());
+            return operation != null
+                    && isCompilable(expression.getArgOne(), parameters, constants, checked)
+                    && (operation.getArity() == 1
+                    || isCompilable(expression.getArgTwo(), parameters, constants, checked));
+        } else if (node instanceof NodeShared shared) {
+            return !checked.add(shared) || isCompilable(shared.getNode(), parameters, constants, checked);
+        }
+        return false;
+    }
+
+    private static int parameterIndex(String[] parameters, String name) {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Emits the body of the compiled method for a tree that has been found to be compilable.
+     */
+    private static final class MethodBuilder {
+        private final CodeBuilder code;
+        private final String[] parameters;
+        private final Function<String, NodeConstant> constants;
+        private final AngleUnit angleUnit;
+
+        /**
+         * The local variable holding the value of each shared subtree already computed
+         */
+        private final Map<NodeShared, Integer> sharedLocals = new IdentityHashMap<>();
+
+        MethodBuilder(CodeBuilder code, String[] parameters,
+                      Function<String, NodeConstant> constants, AngleUnit angleUnit) {
+            this.code = code;
+            this.parameters = parameters;
+            this.constants = constants;
+            this.angleUnit = angleUnit;
+        }
+
+        /**
+         * Emit code leaving the value of the node on the stack.
+         */
+        void emit(Node node) {
+            if (isPlainNumber(node)) {
+                push(((NodeNumber) node).doubleValue());
+            } else if (node instanceof NodeVariable variable) {
+                emitVariable(variable.getVariable());
+            } else if (node instanceof NodeExpression expression) {
+                emitExpression(expression);
+            } else if (node instanceof NodeShared shared) {
+                emitShared(shared);
+            }
+        }
+
+        /**
+         * Emit code for a shared subtree. The first use computes the value and keeps a copy in a
+         * local variable, which later uses load. Uses always run in the order they are emitted,
+         * as the method has no branches.
+         */
+        private void emitShared(NodeShared shared) {
+            Integer local = sharedLocals.get(shared);
+            if (local != null) {
+                code.dload(local);
+                return;
+            }
+
+            emit(shared.getNode());
+            int slot = code.allocateLocal(TypeKind.DOUBLE);
+            code.dup2().dstore(slot);
+            sharedLocals.put(shared, slot);
+        }
+
+        private void emitVariable(String name) {
+            int index = parameterIndex(parameters, name);
+            if (index >= 0) {
+                code.dload(code.parameterSlot(index));
+            } else {
+                push(((NodeNumber) constants.apply(name)).doubleValue());
+            }
+        }
+
+        private void emitExpression(NodeExpression expression) {
+            NumericOperation operation = NumericOperation.of(expression.getOperator());
+
+            emit(expression.getArgOne());
+            if (operation.getArity() == 2) {
+                emit(expression.getArgTwo());
+            }
+
+            if (operation.isTrigonometric()) {
+                emitToRadians();
+            }
+
+            switch (operation) {
+                case ADD -> code.dadd();
+                case SUBTRACT -> code.dsub();
+                case MULTIPLY -> code.dmul();
+                case DIVIDE -> code.ddiv();
+                case POWER -> code.invokestatic(MATH, "pow", BINARY_DESCRIPTOR);
+                case SINE -> code.invokestatic(MATH, "sin", UNARY_DESCRIPTOR);
+                case COSINE -> code.invokestatic(MATH, "cos", UNARY_DESCRIPTOR);
+                case TANGENT -> code.invokestatic(MATH, "tan", UNARY_DESCRIPTOR);
+                case EXP -> code.invokestatic(MATH, "exp", UNARY_DESCRIPTOR);
+                case LN -> code.invokestatic(MATH, "log", UNARY_DESCRIPTOR);
+                case LOG10 -> code.invokestatic(MATH, "log10", UNARY_DESCRIPTOR);
+                case ABS -> code.invokestatic(MATH, "abs", UNARY_DESCRIPTOR);
+                case FACTORIAL -> code.invokestatic(MATH_UTILS, "factorial", UNARY_DESCRIPTOR);
+                case DOUBLE_FACTORIAL -> code.invokestatic(MATH_UTILS, "doubleFactorial", UNARY_DESCRIPTOR);
+                case IDENTITY -> {
+                }
+            }
+        }
+
+        /**
+         * Convert the value on top of the stack to radians using the same operations as the
+         * interpreter, so that both produce identical arguments to the trigonometric functions.
+         */
+        private void emitToRadians() {
+            switch (angleUnit) {
+                case Degrees -> {
+                    push(Math.PI);
+                    code.dmul();
+                    push(180.0);
+                    code.ddiv();
+                }
+                case Gradians -> {
+                    push(Math.PI / 200);
+                    code.dmul();
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void push(double value) {
+            // compared on raw bits so that -0.0 is loaded from the constant pool rather than as 0.0
+            if (Double.doubleToRawLongBits(value) == 0L) {
+                code.dconst_0();
+            } else if (value == 1.0) {
+                code.dconst_1();
+            } else {
+                code.ldc(code.constantPool().doubleEntry(value));
+            }
+        }
+    }
+}
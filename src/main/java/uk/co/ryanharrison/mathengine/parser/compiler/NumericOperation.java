@@ -0,0 +1,81 @@
+package uk.co.ryanharrison.mathengine.parser.compiler;
+
+import uk.co.ryanharrison.mathengine.parser.operators.Operator;
+import uk.co.ryanharrison.mathengine.parser.operators.binary.*;
+import uk.co.ryanharrison.mathengine.parser.operators.unary.Log;
+import uk.co.ryanharrison.mathengine.parser.operators.unary.simple.*;
+
+import java.util.Map;
+
+/**
+ * The set of operators that can be carried out purely on primitive doubles.
+ * <p>
+ * Each constant mirrors the double precision behaviour of one of the operators from
+ * {@link uk.co.ryanharrison.mathengine.parser.operators.OperatorProvider}. Operators with
+ * no entry here (vector, matrix, logical, percent and custom operators) cannot be compiled
+ * and force the owning expression back onto the tree walking interpreter.
+ * </p>
+ * <p>
+ * The trigonometric operations expect their argument to already be in radians; compilers
+ * insert the angle unit conversion separately so that it can be folded at compile time.
+ * </p>
+ */
+enum NumericOperation {
+    ADD(2),
+    SUBTRACT(2),
+    MULTIPLY(2),
+    DIVIDE(2),
+    POWER(2),
+    SINE(1),
+    COSINE(1),
+    TANGENT(1),
+    EXP(1),
+    LN(1),
+    LOG10(1),
+    ABS(1),
+    FACTORIAL(1),
+    DOUBLE_FACTORIAL(1),
+    IDENTITY(1);
+
+    private static final Map<Class<? extends Operator>, NumericOperation> OPERATORS = Map.ofEntries(
+            Map.entry(Add.class, ADD),
+            Map.entry(Subtract.class, SUBTRACT),
+            Map.entry(Multiply.class, MULTIPLY),
+            Map.entry(Divide.class, DIVIDE),
+            Map.entry(Pow.class, POWER),
+            Map.entry(Sine.class, SINE),
+            Map.entry(Cosine.class, COSINE),
+            Map.entry(Tangent.class, TANGENT),
+            Map.entry(Exp.class, EXP),
+            Map.entry(Ln.class, LN),
+            Map.entry(Log.class, LOG10),
+            Map.entry(Abs.class, ABS),
+            Map.entry(Factorial.class, FACTORIAL),
+            Map.entry(DoubleFactorial.class, DOUBLE_FACTORIAL),
+            Map.entry(ToDouble.class, IDENTITY)
+    );
+
+    private final int arity;
+
+    NumericOperation(int arity) {
+        this.arity = arity;
+    }
+
+    /**
+     * Find the numeric operation equivalent to the given parser operator.
+     *
+     * @param operator the operator from an expression tree
+     * @return the equivalent operation, or null if the operator has no primitive form
+     */
+    static NumericOperation of(Operator operator) {
+        return OPERATORS.get(operator.getClass());
+    }
+
+    int getArity() {
+        return arity;
+    }
+
+    boolean isTrigonometric() {
+        return this == SINE || this == COSINE || this == TANGENT;
+    }
+}
@@ -0,0 +1,185 @@
+package uk.co.ryanharrison.mathengine.parser.compiler;
+
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Flattens numeric expression trees into {@link PostfixProgram}s.
+ * <p>
+ * This accepts exactly the same trees as {@link BytecodeCompiler} and produces the same results,
+ * but without generating classes. It is the better choice for expressions that are evaluated
+ * too few times to be worth the cost of defining a class, or where class definition is not
+ * permitted.
+ * </p>
+ *
+ * <pre>{@code
+ * Evaluator evaluator = Evaluator.newSimpleEvaluator();
+ * Node tree = evaluator.generateTree("x^2 + 8*x + 12");
+ * PostfixProgram program = PostfixCompiler
+ *         .compile(tree, "x", null, name -> null, AngleUnit.Radians)
+ *         .orElseThrow();
+ * double y = program.evaluate(12.5, 0, program.newStack()); // 268.25
+ * }</pre>
+ */
+public final class PostfixCompiler {
+
+    /**
+     * Not permitted to create an instance of this class.
+     */
+    private PostfixCompiler() {
+    }
+
+    /**
+     * Compile an expression tree of up to two variables.
+     *
+     * @param tree      the expression tree to compile
+     * @param first     the name of the variable bound to the first argument
+     * @param second    the name of the variable bound to the second argument, or null if there is
+     *                  only one variable
+     * @param constants resolves any other variable to its current value, returning null if unknown.
+     *                  Values are captured at compile time
+     * @param angleUnit the angle unit used by trigonometric operators
+     * @return the compiled program, or empty if the tree contains non-numeric nodes
+     */
+    public static Optional<PostfixProgram> compile(Node tree, String first, String second,
+                                                   Function<String, NodeConstant> constants,
+                                                   AngleUnit angleUnit) {
+        ProgramBuilder builder = new ProgramBuilder(first, second, constants, angleUnit);
+        if (!builder.emit(tree)) {
+            return Optional.empty();
+        }
+        return Optional.of(builder.build());
+    }
+
+    /**
+     * Appends opcodes in postfix order while tracking the stack depth.
+     */
+    private static final class ProgramBuilder {
+        private final String first;
+        private final String second;
+        private final Function<String, NodeConstant> constantResolver;
+        private final AngleUnit angleUnit;
+
+        private int[] code = new int[16];
+        private int codeLength;
+        private double[] constants = new double[8];
+        private int constantCount;
+        private int stack;
+        private int maxStack;
+
+        ProgramBuilder(String first, String second, Function<String, NodeConstant> constantResolver,
+                       AngleUnit angleUnit) {
+            this.first = first;
+            this.second = second;
+            this.constantResolver = constantResolver;
+            this.angleUnit = angleUnit;
+        }
+
+        PostfixProgram build() {
+            return new PostfixProgram(Arrays.copyOf(code, codeLength),
+                    Arrays.copyOf(constants, constantCount), maxStack);
+        }
+
+        boolean emit(Node node) {
+            if (BytecodeCompiler.isPlainNumber(node)) {
+                push(((NodeNumber) node).doubleValue());
+                return true;
+            } else if (node instanceof NodeVariable) {
+                return emitVariable(((NodeVariable) node).getVariable());
+            } else if (node instanceof NodeExpression) {
+                return emitExpression((NodeExpression) node);
+            } else if (node instanceof NodeShared) {
+                // programs have no registers to keep a value in, so shared subtrees are
+                // computed again at every use
+                return emit(((NodeShared) node).getNode());
+            }
+            return false;
+        }
+
+        private boolean emitVariable(String name) {
+            if (name.equals(first)) {
+                op(PostfixProgram.LOAD_FIRST, 1);
+                return true;
+            } else if (name.equals(second)) {
+                op(PostfixProgram.LOAD_SECOND, 1);
+                return true;
+            }
+
+            NodeConstant value = constantResolver.apply(name);
+            if (!BytecodeCompiler.isPlainNumber(value)) {
+                return false;
+            }
+            push(((NodeNumber) value).doubleValue());
+            return true;
+        }
+
+        private boolean emitExpression(NodeExpression expression) {
+            NumericOperation operation = NumericOperation.of(expression.getOperator());
+            if (operation == null) {
+                return false;
+            }
+
+            if (!emit(expression.getArgOne())) {
+                return false;
+            }
+            if (operation.getArity() == 2 && !emit(expression.getArgTwo())) {
+                return false;
+            }
+
+            if (operation.isTrigonometric()) {
+                switch (angleUnit) {
+                    case Degrees -> op(PostfixProgram.DEGREES_TO_RADIANS, 0);
+                    case Gradians -> op(PostfixProgram.GRADIANS_TO_RADIANS, 0);
+                    default -> {
+                    }
+                }
+            }
+
+            switch (operation) {
+                case ADD -> op(PostfixProgram.ADD, -1);
+                case SUBTRACT -> op(PostfixProgram.SUBTRACT, -1);
+                case MULTIPLY -> op(PostfixProgram.MULTIPLY, -1);
+                case DIVIDE -> op(PostfixProgram.DIVIDE, -1);
+                case POWER -> op(PostfixProgram.POWER, -1);
+                case SINE -> op(PostfixProgram.SINE, 0);
+                case COSINE -> op(PostfixProgram.COSINE, 0);
+                case TANGENT -> op(PostfixProgram.TANGENT, 0);
+                case EXP -> op(PostfixProgram.EXP, 0);
+                case LN -> op(PostfixProgram.LN, 0);
+                case LOG10 -> op(PostfixProgram.LOG10, 0);
+                case ABS -> op(PostfixProgram.ABS, 0);
+                case FACTORIAL -> op(PostfixProgram.FACTORIAL, 0);
+                case DOUBLE_FACTORIAL -> op(PostfixProgram.DOUBLE_FACTORIAL, 0);
+                case IDENTITY -> {
+                }
+            }
+            return true;
+        }
+
+        private void push(double value) {
+            if (constantCount == constants.length) {
+                constants = Arrays.copyOf(constants, constantCount * 2);
+            }
+            constants[constantCount] = value;
+            op(PostfixProgram.PUSH, 1);
+            write(constantCount++);
+        }
+
+        private void op(int opcode, int stackChange) {
+            write(opcode);
+            stack += stackChange;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void write(int value) {
+            if (codeLength == code.length) {
+                code = Arrays.copyOf(code, codeLength * 2);
+            }
+            code[codeLength++] = value;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package uk.co.ryanharrison.mathengine.parser.compiler;
+
+import uk.co.ryanharrison.mathengine.utils.MathUtils;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A numeric expression flattened into a postfix program for a {@code double} stack machine.
+ * <p>
+ * The program is a single {@code int} array of opcodes, some of which are followed by an
+ * operand index, together with a pool of {@code double} constants. Evaluation is one loop over
+ * the opcodes operating on a caller supplied stack array, so no objects are allocated and no
+ * virtual calls are made per node. Programs are immutable and can be shared between threads
+ * as long as each thread uses its own stack, which the operators returned by
+ * {@link #toUnaryOperator()} and {@link #toBinaryOperator()} take care of.
+ * </p>
+ * <p>
+ * {@link #evaluateAll(double[], double[], double[])} runs a program over whole arrays of
+ * arguments. Each opcode is applied to a block of values at a time, so the stack holds columns
+ * rather than single values and every operation becomes a simple loop over a block that the JIT
+ * compiler can unroll and vectorise.
+ * </p>
+ * <p>
+ * Programs are built by {@link PostfixCompiler}.
+ * </p>
+ */
+public final class PostfixProgram {
+
+    static final int PUSH = 0;
+    static final int LOAD_FIRST = 1;
+    static final int LOAD_SECOND = 2;
+    static final int ADD = 3;
+    static final int SUBTRACT = 4;
+    static final int MULTIPLY = 5;
+    static final int DIVIDE = 6;
+    static final int POWER = 7;
+    static final int SINE = 8;
+    static final int COSINE = 9;
+    static final int TANGENT = 10;
+    static final int EXP = 11;
+    static final int LN = 12;
+    static final int LOG10 = 13;
+    static final int ABS = 14;
+    static final int FACTORIAL = 15;
+    static final int DOUBLE_FACTORIAL = 16;
+    static final int DEGREES_TO_RADIANS = 17;
+    static final int GRADIANS_TO_RADIANS = 18;
+
+    /**
+     * The number of arguments evaluated together by {@link #evaluateAll}. Small enough that a
+     * few stack columns stay in the L1 cache
+     */
+    static final int BLOCK_SIZE = 256;
+
+    private final int[] code;
+    private final double[] constants;
+    private final int maxStack;
+
+    PostfixProgram(int[] code, double[] constants, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * @return the number of stack slots needed to evaluate this program
+     */
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    /**
+     * @return a new stack array large enough to evaluate this program
+     */
+    public double[] newStack() {
+        return new double[maxStack];
+    }
+
+    /**
+     * Run the program.
+     *
+     * @param first  the value of the first variable
+     * @param second the value of the second variable, ignored by programs of one variable
+     * @param stack  scratch space of at least {@link #getMaxStack()} elements
+     * @return the value of the expression
+     */
+    public double evaluate(double first, double second, double[] stack) {
+        int[] code = this.code;
+        int sp = -1;
+        int pc = 0;
+
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case PUSH -> stack[++sp] = constants[code[pc++]];
+                case LOAD_FIRST -> stack[++sp] = first;
+                case LOAD_SECOND -> stack[++sp] = second;
+                case ADD -> {
+                    sp--;
+                    stack[sp] = stack[sp] + stack[sp + 1];
+                }
+                case SUBTRACT -> {
+                    sp--;
+                    stack[sp] = stack[sp] - stack[sp + 1];
+                }
+                case MULTIPLY -> {
+                    sp--;
+                    stack[sp] = stack[sp] * stack[sp + 1];
+                }
+                case DIVIDE -> {
+                    sp--;
+                    stack[sp] = stack[sp] / stack[sp + 1];
+                }
+                case POWER -> {
+                    sp--;
+                    stack[sp] = Math.pow(stack[sp], stack[sp + 1]);
+                }
+                case SINE -> stack[sp] = Math.sin(stack[sp]);
+                case COSINE -> stack[sp] = Math.cos(stack[sp]);
+                case TANGENT -> stack[sp] = Math.tan(stack[sp]);
+                case EXP -> stack[sp] = Math.exp(stack[sp]);
+                case LN -> stack[sp] = Math.log(stack[sp]);
+                case LOG10 -> stack[sp] = Math.log10(stack[sp]);
+                case ABS -> stack[sp] = Math.abs(stack[sp]);
+                case FACTORIAL -> stack[sp] = MathUtils.factorial(stack[sp]);
+                case DOUBLE_FACTORIAL -> stack[sp] = MathUtils.doubleFactorial(stack[sp]);
+                // same operation order as TrigOperator so that both give identical arguments
+                case DEGREES_TO_RADIANS -> stack[sp] = Math.PI * stack[sp] / 180.0;
+                case GRADIANS_TO_RADIANS -> stack[sp] = stack[sp] * (Math.PI / 200);
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc - 1]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Run the program once for every element of the argument arrays.
+     *
+     * @param firsts  the values of the first variable
+     * @param seconds the values of the second variable, or null for programs of one variable
+     * @param out     receives the value of the expression for each element of {@code firsts}
+     * @throws IllegalArgumentException if {@code seconds} or {@code out} is shorter than
+     *                                  {@code firsts}
+     */
+    public void evaluateAll(double[] firsts, double[] seconds, double[] out) {
+        if (seconds != null && seconds.length < firsts.length) {
+            throw new IllegalArgumentException("Expected at least " + firsts.length
+                    + " second arguments, got: " + seconds.length);
+        }
+        if (out.length < firsts.length) {
+            throw new IllegalArgumentException("Expected an output array of at least " + firsts.length
+                    + " elements, got: " + out.length);
+        }
+
+        double[] stack = new double[maxStack * BLOCK_SIZE];
+        for (int from = 0; from < firsts.length; from += BLOCK_SIZE) {
+            evaluateBlock(firsts, seconds, from, Math.min(BLOCK_SIZE, firsts.length - from), stack, out);
+        }
+    }
+
+    /**
+     * Run the program over one block of arguments. Stack slot {@code s} holds the column of
+     * values starting at {@code s * BLOCK_SIZE}.
+     */
+    private void evaluateBlock(double[] firsts, double[] seconds, int from, int count,
+                               double[] stack, double[] out) {
+        int[] code = this.code;
+        int top = -BLOCK_SIZE;
+        int pc = 0;
+
+        while (pc < code.length) {
+            int op = code[pc++];
+            switch (op) {
+                case PUSH -> {
+                    top += BLOCK_SIZE;
+                    Arrays.fill(stack, top, top + count, constants[code[pc++]]);
+                }
+                case LOAD_FIRST -> {
+                    top += BLOCK_SIZE;
+                    System.arraycopy(firsts, from, stack, top, count);
+                }
+                case LOAD_SECOND -> {
+                    top += BLOCK_SIZE;
+                    if (seconds == null)
+                        Arrays.fill(stack, top, top + count, 0);
+                    else
+                        System.arraycopy(seconds, from, stack, top, count);
+                }
+                case ADD, SUBTRACT, MULTIPLY, DIVIDE, POWER -> {
+                    top -= BLOCK_SIZE;
+                    applyBinary(op, stack, top, top + BLOCK_SIZE, count);
+                }
+                default -> applyUnary(op, stack, top, count);
+            }
+        }
+        System.arraycopy(stack, 0, out, from, count);
+    }
+
+    private static void applyBinary(int op, double[] stack, int a, int b, int count) {
+        switch (op) {
+            case ADD -> {
+                for (int i = 0; i < count; i++)
+                    stack[a + i] += stack[b + i];
+            }
+            case SUBTRACT -> {
+                for (int i = 0; i < count; i++)
+                    stack[a + i] -= stack[b + i];
+            }
+            case MULTIPLY -> {
+                for (int i = 0; i < count; i++)
+                    stack[a + i] *= stack[b + i];
+            }
+            case DIVIDE -> {
+                for (int i = 0; i < count; i++)
+                    stack[a + i] /= stack[b + i];
+            }
+            default -> {
+                for (int i = 0; i < count; i++)
+                    stack[a + i] = Math.pow(stack[a + i], stack[b + i]);
+            }
+        }
+    }
+
+    private static void applyUnary(int op, double[] stack, int a, int count) {
+        int end = a + count;
+        switch (op) {
+            case SINE -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.sin(stack[i]);
+            }
+            case COSINE -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.cos(stack[i]);
+            }
+            case TANGENT -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.tan(stack[i]);
+            }
+            case EXP -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.exp(stack[i]);
+            }
+            case LN -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.log(stack[i]);
+            }
+            case LOG10 -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.log10(stack[i]);
+            }
+            case ABS -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.abs(stack[i]);
+            }
+            case FACTORIAL -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = MathUtils.factorial(stack[i]);
+            }
+            case DOUBLE_FACTORIAL -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = MathUtils.doubleFactorial(stack[i]);
+            }
+            case DEGREES_TO_RADIANS -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = Math.PI * stack[i] / 180.0;
+            }
+            case GRADIANS_TO_RADIANS -> {
+                for (int i = a; i < end; i++)
+                    stack[i] = stack[i] * (Math.PI / 200);
+            }
+            default -> throw new IllegalStateException("Unknown opcode " + op);
+        }
+    }
+
+    /**
+     * @return an operator running this program with its argument bound to the first variable
+     */
+    public DoubleUnaryOperator toUnaryOperator() {
+        ThreadLocal<double[]> stacks = ThreadLocal.withInitial(this::newStack);
+        return x -> evaluate(x, 0, stacks.get());
+    }
+
+    /**
+     * @return an operator running this program with its arguments bound to the first and
+     * second variables
+     */
+    public DoubleBinaryOperator toBinaryOperator() {
+        ThreadLocal<double[]> stacks = ThreadLocal.withInitial(this::newStack);
+        return (x, y) -> evaluate(x, y, stacks.get());
+    }
+}
@@ -0,0 +1,101 @@
+package uk.co.ryanharrison.mathengine.parser.nodes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used table of the results of a user-defined function keyed by its
+ * arguments.
+ * <p>
+ * Each {@link NodeFunction} has its own table, which is only used when caching is enabled on
+ * the evaluator and the function is pure. The maximum size is given on each insertion, so the
+ * table follows the capacity of whichever evaluator is using it. All methods are safe to call
+ * from multiple threads.
+ * </p>
+ */
+public final class FunctionResultCache {
+
+    private final Map<Object, NodeConstant> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    FunctionResultCache() {
+    }
+
+    /**
+     * Find the result of a call
+     *
+     * @param key The arguments of the call and anything else the result depends on
+     * @return The cached result, or null if there is none
+     */
+    public synchronized NodeConstant get(Object key) {
+        NodeConstant result = results.get(key);
+        if (result != null)
+            hits++;
+        else
+            misses++;
+        return result;
+    }
+
+    /**
+     * Store the result of a call, evicting the least recently used results if there are then
+     * more than the capacity
+     *
+     * @param key      The arguments of the call and anything else the result depends on
+     * @param result   The result of the call
+     * @param capacity The maximum number of results to hold
+     */
+    public synchronized void put(Object key, NodeConstant result, int capacity) {
+        results.put(key, result);
+
+        var iterator = results.entrySet().iterator();
+        while (results.size() > capacity) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Remove all cached results. The counters are not reset.
+     */
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * @return The number of results currently cached
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * @return The number of calls answered from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of calls that had to evaluate the function
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of results removed to keep the cache within its capacity
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("FunctionResultCache[size=%d, hits=%d, misses=%d, evictions=%d]",
+                results.size(), hits, misses, evictions);
+    }
+}
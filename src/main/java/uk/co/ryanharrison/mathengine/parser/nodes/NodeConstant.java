@@ -1,6 +1,8 @@
 package uk.co.ryanharrison.mathengine.parser.nodes;
 
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 public abstract class NodeConstant extends Node implements Comparable<NodeConstant> {
@@ -9,6 +11,67 @@ public abstract class NodeConstant extends Node implements Comparable<NodeConsta
 
     public abstract NodeConstant applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func);
 
+    /**
+     * Apply a function to each number held by this constant, splitting the work across cores
+     * when the policy allows. Constants that do not hold many numbers ignore the policy.
+     *
+     * @param func   the function to apply
+     * @param policy decides whether to run in parallel
+     * @return the results in the same shape as this constant
+     */
+    public NodeConstant applyUniFunc(Function<NodeNumber, NodeConstant> func, ParallelPolicy policy) {
+        return applyUniFunc(func);
+    }
+
+    /**
+     * Apply a function to each pair of numbers held by this constant and another, splitting the
+     * work across cores when the policy allows. Constants that do not hold many numbers ignore
+     * the policy.
+     *
+     * @param b      the constant holding the second argument of each pair
+     * @param func   the function to apply
+     * @param policy decides whether to run in parallel
+     * @return the results in the same shape as this constant
+     */
+    public NodeConstant applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func,
+                                    ParallelPolicy policy) {
+        return applyBiFunc(b, func);
+    }
+
+    /**
+     * Apply a function to each number held by this constant, using a primitive form of the
+     * function where the numbers are held as doubles. The primitive form must give the same
+     * result for a double as the function gives for a {@link NodeDouble}, which must itself be a
+     * {@link NodeDouble}.
+     *
+     * @param func       the function to apply
+     * @param doubleFunc the primitive form of the function
+     * @param policy     decides whether to run in parallel
+     * @return the results in the same shape as this constant
+     */
+    public NodeConstant applyUniFunc(Function<NodeNumber, NodeConstant> func, DoubleUnaryOperator doubleFunc,
+                                     ParallelPolicy policy) {
+        return applyUniFunc(func, policy);
+    }
+
+    /**
+     * Apply a function to each pair of numbers held by this constant and another, using a
+     * primitive form of the function where the numbers are held as doubles. The primitive form
+     * must give the same result as the function gives for a pair of a {@link NodeDouble} and a
+     * {@link NodeDouble} or {@link NodeRational}, in either order, which must itself be a
+     * {@link NodeDouble}.
+     *
+     * @param b          the constant holding the second argument of each pair
+     * @param func       the function to apply
+     * @param doubleFunc the primitive form of the function
+     * @param policy     decides whether to run in parallel
+     * @return the results in the same shape as this constant
+     */
+    public NodeConstant applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func,
+                                    DoubleBinaryOperator doubleFunc, ParallelPolicy policy) {
+        return applyBiFunc(b, func, policy);
+    }
+
     @Override
     public abstract boolean equals(Object object);
 
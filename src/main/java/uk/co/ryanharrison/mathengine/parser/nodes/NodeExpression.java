@@ -1,6 +1,7 @@
 package uk.co.ryanharrison.mathengine.parser.nodes;
 
 import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.CustomOperator;
 import uk.co.ryanharrison.mathengine.parser.operators.Operator;
 import uk.co.ryanharrison.mathengine.parser.operators.UnaryOperator;
 
@@ -12,6 +13,12 @@ public final class NodeExpression extends Node {
     private Node argOne;
     private Node argTwo;
 
+    /**
+     * The structural hash code, worked out on first use so that hashing a tree visits each node
+     * once however often its subtrees are hashed. Zero until then
+     */
+    private int hash;
+
     public NodeExpression(Operator operator, Node arg1) {
         this(operator, arg1, null);
     }
@@ -40,19 +47,36 @@ public final class NodeExpression extends Node {
         return operator;
     }
 
+    /**
+     * Two expressions are equal when they apply the same operator to equal arguments. Operators
+     * are compared by class, apart from custom operators which are compared by their function
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NodeExpression that = (NodeExpression) o;
-        return operator.getClass() == that.operator.getClass() &&
+        return hashCode() == that.hashCode() &&
+                sameOperator(operator, that.operator) &&
                 Objects.equals(argOne, that.argOne) &&
                 Objects.equals(argTwo, that.argTwo);
     }
 
+    private static boolean sameOperator(Operator a, Operator b) {
+        if (a.getClass() != b.getClass())
+            return false;
+        return !(a instanceof CustomOperator custom) || custom.getFunction().equals(((CustomOperator) b).getFunction());
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(operator.getClass(), argOne, argTwo);
+        int h = hash;
+        if (h == 0) {
+            Object operatorKey = operator instanceof CustomOperator ? operator.toString() : operator.getClass();
+            h = Objects.hash(operatorKey, argOne, argTwo);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -1,6 +1,6 @@
 package uk.co.ryanharrison.mathengine.parser.nodes;
 
-import uk.co.ryanharrison.mathengine.parser.ExpressionParser;
+import uk.co.ryanharrison.mathengine.parser.Parser;
 import uk.co.ryanharrison.mathengine.utils.Utils;
 
 import java.util.ArrayList;
@@ -10,6 +10,10 @@ public final class NodeFactory {
     private static final int maxInt = Integer.MAX_VALUE;
     private static final int precision = 4;
 
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11
+    };
+
     private static NodeMatrix createMatrixFrom(List<NodeVector> vals) {
         Node[][] results = new Node[vals.size()][vals.get(0).getSize()];
 
@@ -21,12 +25,22 @@ public final class NodeFactory {
         return new NodeMatrix(results);
     }
 
-    public static NodeMatrix createMatrixFrom(String expression, ExpressionParser parser) {
+    public static NodeMatrix createMatrixFrom(String expression, Parser<String, Node> parser) {
         if (Utils.isEmpty(expression))
             return new NodeMatrix(new Node[0][0]);
 
+        return createMatrixFrom(createVectorFrom(expression, parser));
+    }
+
+    /**
+     * Create a matrix from the parsed elements of a matrix expression. Each element that is a
+     * vector becomes a row; if there are no vectors the elements form a single row
+     *
+     * @param v The elements of the matrix expression
+     * @return The matrix
+     */
+    public static NodeMatrix createMatrixFrom(NodeVector v) {
         List<NodeVector> vals = new ArrayList<>();
-        NodeVector v = createVectorFrom(expression, parser);
         int len = 0;
         boolean containsNoVectors = true;
 
@@ -78,7 +92,7 @@ public final class NodeFactory {
         else if (absValue < 1.0 / maxInt && absValue != 0)
             return new NodeDouble(value);
             // Too much precision
-        else if (Double.toString(absValue).split("\\.")[1].length() > precision)
+        else if (hasLongFraction(absValue))
             return new NodeDouble(value);
         else
             try {
@@ -88,7 +102,58 @@ public final class NodeFactory {
             }
     }
 
-    public static NodeVector createVectorFrom(String expression, ExpressionParser parser) {
+    /**
+     * Whether the fraction of {@code Double.toString(absValue)}, everything after the decimal
+     * point, is longer than the precision, worked out without building the string. The value
+     * must be between {@code 1 / maxInt} and {@code maxInt}.
+     */
+    private static boolean hasLongFraction(double absValue) {
+        // plain notation, so the fraction is the decimal places
+        if (absValue == 0 || (absValue >= 1e-3 && absValue < 1e7))
+            return !hasSignificantDigits(absValue, -precision);
+
+        // scientific notation such as 1.25E-4, where the fraction holds the significant digits
+        // after the first, or a single zero, followed by the exponent
+        int exponent = decimalExponent(absValue);
+        int exponentLength = exponent < 0 ? (exponent <= -10 ? 4 : 3) : (exponent >= 10 ? 3 : 2);
+        int digitsAfterFirst = precision - exponentLength;
+        if (digitsAfterFirst < 1)
+            return true;
+
+        return !hasSignificantDigits(absValue, exponent - digitsAfterFirst);
+    }
+
+    /**
+     * Whether a value is the double nearest to a decimal with no digits below the given power
+     * of ten, meaning its shortest decimal representation has no digits below that power.
+     */
+    private static boolean hasSignificantDigits(double absValue, int lowestPower) {
+        if (lowestPower < 0) {
+            double scale = POWERS_OF_TEN[-lowestPower];
+            return Math.rint(absValue * scale) / scale == absValue;
+        }
+        double unit = POWERS_OF_TEN[lowestPower];
+        return Math.rint(absValue / unit) * unit == absValue;
+    }
+
+    /**
+     * The exponent of a value written in scientific notation, for values between
+     * {@code 1 / maxInt} and {@code maxInt}
+     */
+    private static int decimalExponent(double absValue) {
+        int exponent = 0;
+        if (absValue >= 1) {
+            while (exponent + 1 < POWERS_OF_TEN.length && absValue >= POWERS_OF_TEN[exponent + 1])
+                exponent++;
+        } else {
+            // 1 / 10^k rounds to the double nearest 10^-k, the boundary Double.toString uses
+            while (-exponent + 1 < POWERS_OF_TEN.length && absValue < 1 / POWERS_OF_TEN[-exponent])
+                exponent--;
+        }
+        return exponent;
+    }
+
+    public static NodeVector createVectorFrom(String expression, Parser<String, Node> parser) {
         if (Utils.isEmpty(expression))
             return new NodeVector(new Node[0]);
 
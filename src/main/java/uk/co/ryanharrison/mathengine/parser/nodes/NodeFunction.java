@@ -1,6 +1,7 @@
 package uk.co.ryanharrison.mathengine.parser.nodes;
 
 import uk.co.ryanharrison.mathengine.core.Function;
+import uk.co.ryanharrison.mathengine.parser.operators.CustomOperator;
 import uk.co.ryanharrison.mathengine.utils.Utils;
 
 import java.util.Arrays;
@@ -17,6 +18,13 @@ public class NodeFunction extends NodeConstant {
 
     private Node node;
 
+    private final FunctionResultCache resultCache = new FunctionResultCache();
+
+    /**
+     * Whether the result depends only on the arguments, worked out on first use
+     */
+    private volatile Boolean pure;
+
     NodeFunction(String identifier, String function, Node node) {
         this(identifier, null, function, node);
     }
@@ -89,6 +97,53 @@ public class NodeFunction extends NodeConstant {
         return node;
     }
 
+    /**
+     * Get the table of results of this function used when caching is enabled
+     *
+     * @return The result cache of this function
+     */
+    public FunctionResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Determine whether the result of this function depends only on its arguments, so that it
+     * can be cached. A function is pure if its body uses no variables other than its arguments,
+     * since other variables can change between calls, calls no impure functions and does not
+     * assign or clear variables
+     *
+     * @return Whether this function is pure
+     */
+    public boolean isPure() {
+        Boolean result = pure;
+        if (result == null) {
+            result = variables != null && isPure(node);
+            pure = result;
+        }
+        return result;
+    }
+
+    private boolean isPure(Node node) {
+        if (node instanceof NodeVariable variable)
+            return Arrays.asList(variables).contains(variable.getVariable());
+        if (node instanceof NodeExpression expression) {
+            if (expression.getOperator() instanceof CustomOperator custom && !custom.getFunction().isPure())
+                return false;
+            return isPure(expression.getArgOne())
+                    && (expression.getArgTwo() == null || isPure(expression.getArgTwo()));
+        }
+        if (node instanceof NodeVector vector)
+            return vector.isDense() || Arrays.stream(vector.getValues()).allMatch(this::isPure);
+        if (node instanceof NodeMatrix matrix) {
+            return matrix.isDense() || Arrays.stream(matrix.getValues())
+                    .allMatch(row -> Arrays.stream(row).allMatch(this::isPure));
+        }
+        if (node instanceof NodeShared shared)
+            return isPure(shared.getNode());
+        // assignments change the context, other constants never change
+        return node instanceof NodeConstant;
+    }
+
     public Function toFunction() {
         if (getArgNum() == 1)
             return new Function(function, variables[0]);
@@ -4,27 +4,48 @@ import uk.co.ryanharrison.mathengine.linearalgebra.Matrix;
 
 import java.util.Arrays;
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * A matrix of nodes.
+ * <p>
+ * As with {@link NodeVector}, a matrix whose elements are all {@link NodeDouble}s is held densely
+ * as primitive arrays, the element nodes only being created if they are asked for through
+ * {@link #getValues()}.
+ * </p>
+ */
 public final class NodeMatrix extends NodeConstant implements NodeSet {
 
-    private Node[][] values;
+    /**
+     * The elements as nodes, created on first use if this matrix is dense
+     */
+    private volatile Node[][] values;
+
+    /**
+     * The elements of a dense matrix, or null if the elements are not all doubles
+     */
+    private final double[][] doubles;
 
     public NodeMatrix(Node[][] values) {
         this.values = values;
+        this.doubles = null;
     }
 
-    public NodeMatrix(Matrix matrix) {
-        int rowCount = matrix.getRowCount();
-        int colCount = matrix.getColumnCount();
-        values = new Node[rowCount][colCount];
+    /**
+     * Create a dense matrix holding the given rows, which must all be the same length and must
+     * not be modified afterwards
+     *
+     * @param values The rows of the matrix
+     */
+    public NodeMatrix(double[][] values) {
+        this.doubles = values;
+    }
 
-        for (int i = 0; i < rowCount; i++) {
-            for (int j = 0; j < colCount; j++) {
-                values[i][j] = new NodeDouble(matrix.get(i, j));
-            }
-        }
+    public NodeMatrix(Matrix matrix) {
+        this(matrix.getArrayCopy());
     }
 
     @Override
@@ -43,30 +64,53 @@ public final class NodeMatrix extends NodeConstant implements NodeSet {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NodeMatrix that = (NodeMatrix) o;
-        return Arrays.deepEquals(values, that.values);
+        if (doubles != null && that.doubles != null)
+            return Arrays.deepEquals(doubles, that.doubles);
+        return Arrays.deepEquals(getValues(), that.getValues());
     }
 
     public int colCount() {
         if (rowCount() == 0)
             return 0;
 
-        return values[0].length;
+        return doubles != null ? doubles[0].length : values[0].length;
     }
 
     public int rowCount() {
-        return values.length;
+        return doubles != null ? doubles.length : values.length;
     }
 
     public Node[][] getValues() {
-        return values;
+        Node[][] nodes = values;
+        if (nodes == null) {
+            nodes = new Node[doubles.length][];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = new NodeVector(doubles[i]).getValues();
+            }
+            values = nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * @return Whether this matrix is held as primitive arrays
+     */
+    public boolean isDense() {
+        return doubles != null;
     }
 
+    /**
+     * Dense matrices hash the same as the equal matrix of nodes would
+     */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(values);
+        return doubles != null ? Arrays.deepHashCode(doubles) : Arrays.deepHashCode(values);
     }
 
     public Matrix toDoubleMatrix() {
+        if (doubles != null)
+            return Matrix.of(doubles);
+
         int rowCount = rowCount();
         int colCount = colCount();
         NodeConstant[][] a = toNodeConstants();
@@ -93,18 +137,22 @@ public final class NodeMatrix extends NodeConstant implements NodeSet {
     }
 
     private NodeConstant[][] toNodeConstants() {
+        Node[][] nodes = getValues();
         int rowCount = rowCount();
         int colCount = colCount();
         NodeConstant[][] result = new NodeConstant[rowCount][colCount];
         for (int i = 0; i < rowCount; i++)
             for (int j = 0; j < colCount; j++)
-                result[i][j] = (NodeConstant) values[i][j];
+                result[i][j] = (NodeConstant) nodes[i][j];
 
         return result;
     }
 
     @Override
     public NodeMatrix resolve(Function<Node, NodeConstant> func) {
+        if (doubles != null)
+            return this;
+
         int rowCount = rowCount();
         int colCount = colCount();
         NodeConstant[][] result = new NodeConstant[rowCount][colCount];
@@ -119,9 +167,10 @@ public final class NodeMatrix extends NodeConstant implements NodeSet {
 
         @Override
         public NodeVector toNodeVector() {
-            NodeVector[] vectors = new NodeVector[values.length];
-            for (int i = 0; i < values.length; i++) {
-                vectors[i] = new NodeVector(values[i]);
+            int rowCount = rowCount();
+            NodeVector[] vectors = new NodeVector[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                vectors[i] = doubles != null ? new NodeVector(doubles[i]) : new NodeVector(values[i]);
             }
             return new NodeVector(vectors);
         }
@@ -135,6 +184,18 @@ public final class NodeMatrix extends NodeConstant implements NodeSet {
         public NodeNumber toNodeNumber() {
             int rowCount = rowCount();
             int colCount = colCount();
+
+            if (doubles != null) {
+                if (rowCount == 0 || colCount == 0)
+                    return NodeFactory.createZeroNumber();
+
+                double sum = 0;
+                for (double[] row : doubles)
+                    for (double value : row)
+                        sum += value;
+                return new NodeDouble(sum);
+            }
+
             NodeNumber sum = NodeFactory.createZeroNumber();
             NodeConstant[][] constants = toNodeConstants();
             for (int i = 0; i < rowCount; i++)
@@ -145,138 +206,222 @@ public final class NodeMatrix extends NodeConstant implements NodeSet {
         }
     }
 
+    /**
+     * Create a matrix from the results of an element wise operation, held densely if every
+     * result is a double
+     */
+    private static NodeMatrix fromResults(NodeConstant[][] results) {
+        for (NodeConstant[] row : results) {
+            for (NodeConstant result : row) {
+                if (result.getClass() != NodeDouble.class)
+                    return new NodeMatrix(results);
+            }
+        }
+
+        double[][] values = new double[results.length][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new double[results[i].length];
+            for (int j = 0; j < values[i].length; j++) {
+                values[i][j] = ((NodeDouble) results[i][j]).doubleValue();
+            }
+        }
+        return new NodeMatrix(values);
+    }
+
     @Override
     public NodeMatrix applyUniFunc(Function<NodeNumber, NodeConstant> func) {
+        Node[][] nodes = getValues();
         int rowCount = rowCount();
         int colCount = colCount();
         NodeConstant[][] results = new NodeConstant[rowCount][colCount];
 
         for (int i = 0; i < rowCount; i++) {
             for (int j = 0; j < colCount; j++) {
-                if (values[i][j] instanceof NodeNumber) {
-                    results[i][j] = func.apply(values[i][j].getTransformer().toNodeNumber());
+                if (nodes[i][j] instanceof NodeNumber) {
+                    results[i][j] = func.apply(nodes[i][j].getTransformer().toNodeNumber());
                 } else {
-                    results[i][j] = ((NodeConstant) values[i][j]).applyUniFunc(func);
+                    results[i][j] = ((NodeConstant) nodes[i][j]).applyUniFunc(func);
                 }
             }
         }
+        return fromResults(results);
+    }
+
+    @Override
+    public NodeMatrix applyUniFunc(Function<NodeNumber, NodeConstant> func, DoubleUnaryOperator doubleFunc,
+                                   ParallelPolicy policy) {
+        double[][] a = toPlainDoubles(true);
+        if (a == null)
+            return applyUniFunc(func);
+
+        double[][] results = new double[a.length][];
+        for (int i = 0; i < a.length; i++) {
+            double[] row = a[i];
+            double[] result = results[i] = new double[row.length];
+            policy.forEachIndex(row.length, j -> result[j] = doubleFunc.applyAsDouble(row[j]));
+        }
         return new NodeMatrix(results);
     }
 
     @Override
     public NodeMatrix applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func) {
         NodeMatrix arg2 = b.getTransformer().toNodeMatrix();
-        normalizeMatrixSizes(arg2);
-        int rowCount = rowCount();
-        int colCount = colCount();
+        int rowCount = Math.max(rowCount(), arg2.rowCount());
+        int colCount = Math.max(colCount(), arg2.colCount());
+        Node[][] left = normalizeMatrixSize(this.getValues(), rowCount, colCount);
+        Node[][] right = normalizeMatrixSize(arg2.getValues(), rowCount, colCount);
 
         NodeConstant[][] results = new NodeConstant[rowCount][colCount];
 
         for (int i = 0; i < rowCount; i++) {
             for (int j = 0; j < colCount; j++) {
-                results[i][j] = func.apply(this.values[i][j].getTransformer().toNodeNumber(),
-                        arg2.values[i][j].getTransformer().toNodeNumber());
+                results[i][j] = func.apply(left[i][j].getTransformer().toNodeNumber(),
+                        right[i][j].getTransformer().toNodeNumber());
             }
         }
 
-        return new NodeMatrix(results);
+        return fromResults(results);
     }
 
-    private void normalizeMatrixSizes(NodeMatrix b) {
-        if (this.rowCount() == b.rowCount() && this.colCount() == b.colCount())
-            return;
-
-        // m == rows
-        int longest = Math.max(this.rowCount(), b.rowCount());
-
-        if (this.rowCount() != longest) {
-            int rowCount = this.rowCount();
-            int colCount = this.colCount();
-            Node[][] results = new Node[longest][colCount];
-
-            if (rowCount == 1) {
-                for (int i = 0; i < longest; i++)
-                    if (colCount >= 0) System.arraycopy(this.values[0], 0, results[i], 0, colCount);
-            } else {
-                for (int i = 0; i < rowCount; i++)
-                    if (colCount >= 0) System.arraycopy(this.values[i], 0, results[i], 0, colCount);
-
-                for (int i = rowCount; i < longest; i++)
-                    for (int j = 0; j < colCount; j++) {
-                        results[i][j] = NodeFactory.createZeroNumber();
-                    }
-            }
-            this.values = results;
-        } else {
-            int rowCount = b.rowCount();
-            int colCount = b.colCount();
-            Node[][] results = new Node[longest][colCount];
-
-            if (rowCount == 1) {
-                for (int i = 0; i < longest; i++)
-                    if (colCount >= 0) System.arraycopy(b.values[0], 0, results[i], 0, colCount);
-            } else {
-                for (int i = 0; i < rowCount; i++)
-                    if (colCount >= 0) System.arraycopy(b.values[i], 0, results[i], 0, colCount);
-
-                for (int i = rowCount; i < longest; i++)
-                    for (int j = 0; j < colCount; j++)
-                        results[i][j] = NodeFactory.createZeroNumber();
-            }
+    @Override
+    public NodeMatrix applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func,
+                                  DoubleBinaryOperator doubleFunc, ParallelPolicy policy) {
+        NodeMatrix arg2 = b.getTransformer().toNodeMatrix();
+
+        if (coversAsDoubles(arg2) || arg2.coversAsDoubles(this)) {
+            double[][] a = toPlainDoubles(false);
+            double[][] c = a == null ? null : arg2.toPlainDoubles(false);
+
+            if (c != null) {
+                int rowCount = Math.max(rowCount(), arg2.rowCount());
+                int colCount = Math.max(colCount(), arg2.colCount());
+                double[][] left = normalizeMatrixSize(a, rowCount, colCount);
+                double[][] right = normalizeMatrixSize(c, rowCount, colCount);
+                double[][] results = new double[rowCount][colCount];
 
-            b.values = results;
+                for (int i = 0; i < rowCount; i++) {
+                    double[] l = left[i], r = right[i], result = results[i];
+                    policy.forEachIndex(colCount, j -> result[j] = doubleFunc.applyAsDouble(l[j], r[j]));
+                }
+                return new NodeMatrix(results);
+            }
         }
+        return applyBiFunc(arg2, func);
+    }
 
-        longest = Math.max(this.colCount(), b.colCount());
+    /**
+     * @param doublesOnly whether every element must be a double, rather than a double or rational
+     * @return The elements of this matrix as doubles if they are all of the accepted types,
+     * otherwise null
+     */
+    private double[][] toPlainDoubles(boolean doublesOnly) {
+        if (doubles != null)
+            return doubles;
+
+        double[][] results = new double[values.length][];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new double[values[i].length];
+            for (int j = 0; j < results[i].length; j++) {
+                Node value = values[i][j];
+                if (doublesOnly ? value.getClass() != NodeDouble.class : !NodeVector.isPlainNumber(value))
+                    return null;
+                results[i][j] = ((NodeNumber) value).doubleValue();
+            }
+        }
+        return results;
+    }
 
-        if (this.colCount() != longest) {
-            int rowCount = this.rowCount();
-            int colCount = this.colCount();
-            Node[][] results = new Node[rowCount][longest];
+    /**
+     * @return Whether every pair of elements an operation between this matrix and another takes
+     * includes an element of this matrix that is a double
+     */
+    private boolean coversAsDoubles(NodeMatrix other) {
+        return (rowCount() == 1 || rowCount() >= other.rowCount())
+                && (colCount() == 1 || colCount() >= other.colCount())
+                && toPlainDoubles(true) != null;
+    }
 
-            if (colCount == 1) {
-                for (int i = 0; i < rowCount; i++)
-                    for (int j = 0; j < longest; j++)
-                        results[i][j] = this.values[i][0];
-            } else {
-                for (int i = 0; i < rowCount; i++)
-                    if (colCount >= 0) System.arraycopy(this.values[i], 0, results[i], 0, colCount);
+    /**
+     * Stretch the values of a matrix to the given size without modifying the matrix. A single
+     * row or column is repeated, otherwise the values are padded with zeros
+     */
+    private static Node[][] normalizeMatrixSize(Node[][] values, int rows, int cols) {
+        int rowCount = values.length;
+        int colCount = rowCount == 0 ? 0 : values[0].length;
+        Node[][] results = values;
+
+        if (rowCount != rows) {
+            results = new Node[rows][];
+            for (int i = 0; i < rows; i++) {
+                if (rowCount == 1) {
+                    results[i] = values[0];
+                } else if (i < rowCount) {
+                    results[i] = values[i];
+                } else {
+                    results[i] = new Node[colCount];
+                    Arrays.fill(results[i], NodeFactory.createZeroNumber());
+                }
+            }
+        }
 
-                for (int i = 0; i < rowCount; i++)
-                    for (int j = colCount; j < longest; j++)
-                        results[i][j] = NodeFactory.createZeroNumber();
+        if (colCount != cols) {
+            Node[][] resized = new Node[rows][cols];
+            for (int i = 0; i < rows; i++) {
+                if (colCount == 1) {
+                    Arrays.fill(resized[i], results[i][0]);
+                } else {
+                    System.arraycopy(results[i], 0, resized[i], 0, colCount);
+                    Arrays.fill(resized[i], colCount, cols, NodeFactory.createZeroNumber());
+                }
             }
+            results = resized;
+        }
+        return results;
+    }
 
-            this.values = results;
-        } else {
-            int rowCount = b.rowCount();
-            int colCount = b.colCount();
-            Node[][] results = new Node[rowCount][longest];
-
-            if (colCount == 1) {
-                for (int i = 0; i < rowCount; i++)
-                    for (int j = 0; j < longest; j++)
-                        results[i][j] = b.values[i][0];
-            } else {
-                for (int i = 0; i < rowCount; i++)
-                    if (colCount >= 0) System.arraycopy(b.values[i], 0, results[i], 0, colCount);
-
-                for (int i = 0; i < rowCount; i++)
-                    for (int j = colCount; j < longest; j++)
-                        results[i][j] = NodeFactory.createZeroNumber();
+    /**
+     * Stretch primitive values in the same way as {@link #normalizeMatrixSize(Node[][], int, int)}
+     */
+    private static double[][] normalizeMatrixSize(double[][] values, int rows, int cols) {
+        int rowCount = values.length;
+        int colCount = rowCount == 0 ? 0 : values[0].length;
+        double[][] results = values;
+
+        if (rowCount != rows) {
+            results = new double[rows][];
+            for (int i = 0; i < rows; i++) {
+                if (rowCount == 1) {
+                    results[i] = values[0];
+                } else if (i < rowCount) {
+                    results[i] = values[i];
+                } else {
+                    results[i] = new double[colCount];
+                }
             }
+        }
 
-            b.values = results;
+        if (colCount != cols) {
+            double[][] resized = new double[rows][];
+            for (int i = 0; i < rows; i++) {
+                if (colCount == 1) {
+                    resized[i] = new double[cols];
+                    Arrays.fill(resized[i], results[i][0]);
+                } else {
+                    resized[i] = Arrays.copyOf(results[i], cols);
+                }
+            }
+            results = resized;
         }
+        return results;
     }
 
     public String toShortString() {
-        if (values.length == 0)
+        if (rowCount() == 0)
             return "[]";
 
         return "[" +
-                Arrays.stream(values)
-                        .map(v -> new NodeVector(v).toString())
+                Arrays.stream(getTransformer().toNodeVector().getValues())
+                        .map(Node::toString)
                         .collect(Collectors.joining(", "))
                 + "]";
     }
@@ -286,13 +431,14 @@ public final class NodeMatrix extends NodeConstant implements NodeSet {
         StringBuilder builder = new StringBuilder();
         String tmp;
 
-        int m = this.values.length;
+        Node[][] nodes = getValues();
+        int m = nodes.length;
         if (m == 0)
             return "[]";
 
-        int n = this.values[0].length;
+        int n = nodes[0].length;
 
-        for (Node[] value : this.values) {
+        for (Node[] value : nodes) {
             for (int j = 0; j < n; j++) {
                 tmp = j == 0 ? "\n" : "\t";
 
@@ -2,49 +2,143 @@ package uk.co.ryanharrison.mathengine.parser.nodes;
 
 import uk.co.ryanharrison.mathengine.core.BigRational;
 
-import java.util.Objects;
+import java.math.BigInteger;
 
+/**
+ * An exact rational number.
+ * <p>
+ * Rationals whose numerator and denominator fit in a {@code long} are held as a pair of longs
+ * and combined with overflow checked long arithmetic. Only when a result overflows is it held as
+ * a {@link BigRational} instead, and results small enough to fit in longs again are moved back.
+ * Either way a rational is always in lowest terms with a positive denominator.
+ * </p>
+ */
 public final class NodeRational extends NodeNumber {
 
-    private BigRational value;
     private static final int maxIterations = 150;
     private static final double epsilon = 1E-15;
 
+    /**
+     * The value of a rational too large to hold in longs, otherwise null
+     */
+    private final BigRational value;
+    private final long numerator;
+    private final long denominator;
+
     private NodeRational(BigRational rational) {
-        this.value = rational;
+        BigInteger num = rational.getNumerator();
+        BigInteger den = rational.getDenominator();
+
+        if (fitsInLong(num) && fitsInLong(den)) {
+            this.value = null;
+            this.numerator = num.longValue();
+            this.denominator = den.longValue();
+        } else {
+            this.value = rational;
+            this.numerator = 0;
+            this.denominator = 1;
+        }
+    }
+
+    /**
+     * @param numerator   the numerator, which must not be {@link Long#MIN_VALUE}
+     * @param denominator the denominator, which must be positive
+     * @param reduced     whether the numerator and denominator have no common factor
+     */
+    private NodeRational(long numerator, long denominator, boolean reduced) {
+        long gcd = reduced ? 1 : gcd(Math.abs(numerator), denominator);
+        this.value = null;
+        this.numerator = numerator / gcd;
+        this.denominator = denominator / gcd;
     }
 
     public NodeRational(double value) {
-        this.value = BigRational.of(value, epsilon, maxIterations);
+        // whole numbers are the common case and convert without approximating
+        if (value == Math.rint(value) && Math.abs(value) <= Integer.MAX_VALUE) {
+            this.value = null;
+            this.numerator = (long) value;
+            this.denominator = 1;
+        } else {
+            NodeRational rational = new NodeRational(BigRational.of(value, epsilon, maxIterations));
+            this.value = rational.value;
+            this.numerator = rational.numerator;
+            this.denominator = rational.denominator;
+        }
     }
 
     public NodeRational(int numerator, int denominator) {
-        this.value = BigRational.of(numerator, denominator);
+        if (denominator == 0)
+            throw new ArithmeticException("Denominator cannot be zero");
+
+        long num = denominator < 0 ? -(long) numerator : numerator;
+        long den = Math.abs((long) denominator);
+        long gcd = num == 0 ? den : gcd(Math.abs(num), den);
+        this.value = null;
+        this.numerator = num / gcd;
+        this.denominator = den / gcd;
     }
 
     public BigRational getValue() {
-        return this.value;
+        return value != null ? value : BigRational.of(numerator, denominator);
+    }
+
+    /**
+     * @return Whether this rational is held as a pair of longs
+     */
+    boolean isSmall() {
+        return value == null;
     }
 
     @Override
     public double doubleValue() {
-        return value.doubleValue();
+        return value != null ? value.doubleValue() : (double) numerator / denominator;
     }
 
     @Override
     public NodeNumber add(NodeNumber arg2) {
         if (arg2 instanceof NodeRational)
-            return new NodeRational(value.add(((NodeRational) arg2).value));
+            return add((NodeRational) arg2, false);
         else if (arg2 instanceof NodePercent)
-            return new NodeRational(value.multiply(BigRational.ONE.add(BigRational.of(arg2.doubleValue()))));
+            return new NodeRational(getValue().multiply(BigRational.ONE.add(BigRational.of(arg2.doubleValue()))));
         else
             return new NodeDouble(doubleValue() + arg2.doubleValue());
     }
 
+    private NodeRational add(NodeRational arg2, boolean negate) {
+        if (value == null && arg2.value == null) {
+            try {
+                long num2 = negate ? Math.negateExact(arg2.numerator) : arg2.numerator;
+                if (denominator == arg2.denominator)
+                    return small(Math.addExact(numerator, num2), denominator);
+
+                // a/b + c/d = (a(d/g) + c(b/g)) / (b(d/g)) where g = gcd(b, d)
+                long gcd = gcd(denominator, arg2.denominator);
+                long num = Math.addExact(Math.multiplyExact(numerator, arg2.denominator / gcd),
+                        Math.multiplyExact(num2, denominator / gcd));
+                return small(num, Math.multiplyExact(denominator, arg2.denominator / gcd));
+            } catch (ArithmeticException e) {
+                // overflowed, so fall through to exact big arithmetic
+            }
+        }
+
+        return new NodeRational(negate ? getValue().subtract(arg2.getValue()) : getValue().add(arg2.getValue()));
+    }
+
     @Override
     public int compareTo(NodeConstant o) {
         if (o instanceof NodeRational) {
-            return value.compareTo(((NodeRational) o).getValue());
+            NodeRational other = (NodeRational) o;
+            if (value == null && other.value == null) {
+                if (denominator == other.denominator)
+                    return Long.compare(numerator, other.numerator);
+                try {
+                    return Long.compare(Math.multiplyExact(numerator, other.denominator),
+                            Math.multiplyExact(other.numerator, denominator));
+                } catch (ArithmeticException e) {
+                    // overflowed, so compare exactly below
+                }
+            }
+            return getValue().compareTo(other.getValue());
         } else {
             return new NodeDouble(doubleValue()).compareTo(o);
         }
@@ -52,10 +146,19 @@ public final class NodeRational extends NodeNumber {
 
     @Override
     public NodeNumber divide(NodeNumber arg2) {
-        if (arg2 instanceof NodeRational)
-            return new NodeRational(value.divide(((NodeRational) arg2).value));
-        else if (arg2 instanceof NodePercent)
-            return new NodeRational(value.divide(BigRational.of(arg2.doubleValue())));
+        if (arg2 instanceof NodeRational) {
+            NodeRational other = (NodeRational) arg2;
+            if (other.value == null) {
+                if (other.numerator == 0)
+                    throw new ArithmeticException("Division by zero");
+
+                // multiply by the reciprocal, which is already in lowest terms
+                long sign = Long.signum(other.numerator);
+                return multiply(of(sign * other.denominator, sign * other.numerator, true));
+            }
+            return new NodeRational(getValue().divide(other.value));
+        } else if (arg2 instanceof NodePercent)
+            return new NodeRational(getValue().divide(BigRational.of(arg2.doubleValue())));
         else
             return new NodeDouble(doubleValue() / arg2.doubleValue());
     }
@@ -63,30 +166,59 @@ public final class NodeRational extends NodeNumber {
     @Override
     public NodeNumber multiply(NodeNumber arg2) {
         if (arg2 instanceof NodeRational)
-            return new NodeRational(value.multiply(((NodeRational) arg2).value));
+            return multiply((NodeRational) arg2);
         else if (arg2 instanceof NodePercent)
-            return new NodeRational(value.multiply(BigRational.of(arg2.doubleValue())));
+            return new NodeRational(getValue().multiply(BigRational.of(arg2.doubleValue())));
         else
             return new NodeDouble(doubleValue() * arg2.doubleValue());
     }
 
+    private NodeRational multiply(NodeRational arg2) {
+        if (value == null && arg2.value == null) {
+            // cancel common factors first so the product is already in lowest terms
+            long gcd1 = gcd(Math.abs(numerator), arg2.denominator);
+            long gcd2 = gcd(Math.abs(arg2.numerator), denominator);
+            try {
+                return of(Math.multiplyExact(numerator / gcd1, arg2.numerator / gcd2),
+                        Math.multiplyExact(denominator / gcd2, arg2.denominator / gcd1), true);
+            } catch (ArithmeticException e) {
+                // overflowed, so fall through to exact big arithmetic
+            }
+        }
+        return new NodeRational(getValue().multiply(arg2.getValue()));
+    }
+
     @Override
     public NodeNumber pow(NodeNumber arg2) {
         double exp = arg2.doubleValue();
         if (arg2 instanceof NodeRational && exp % 1.0 == 0)
-            return new NodeRational(value.pow((long) exp));
+            return pow((long) exp);
         else if (arg2 instanceof NodePercent)
             return new NodeDouble(doubleValue()).pow(arg2);
         else
             return new NodeDouble(Math.pow(doubleValue(), exp));
     }
 
+    private NodeRational pow(long exponent) {
+        if (value == null && exponent > Long.MIN_VALUE && !(numerator == 0 && exponent < 0)) {
+            long num = exponent < 0 ? denominator * Long.signum(numerator) : numerator;
+            long den = exponent < 0 ? Math.abs(numerator) : denominator;
+            try {
+                // powers of a fraction in lowest terms are also in lowest terms
+                return of(pow(num, Math.abs(exponent)), pow(den, Math.abs(exponent)), true);
+            } catch (ArithmeticException e) {
+                // overflowed, so fall through to exact big arithmetic
+            }
+        }
+        return new NodeRational(getValue().pow(exponent));
+    }
+
     @Override
     public NodeNumber subtract(NodeNumber arg2) {
         if (arg2 instanceof NodeRational)
-            return new NodeRational(value.subtract(((NodeRational) arg2).value));
+            return add((NodeRational) arg2, true);
         else if (arg2 instanceof NodePercent)
-            return new NodeRational(value.multiply(BigRational.ONE.subtract(BigRational.of(arg2.doubleValue()))));
+            return new NodeRational(getValue().multiply(BigRational.ONE.subtract(BigRational.of(arg2.doubleValue()))));
         else
             return new NodeDouble(doubleValue() - arg2.doubleValue());
     }
@@ -96,22 +228,77 @@ public final class NodeRational extends NodeNumber {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NodeRational that = (NodeRational) o;
-        return Objects.equals(value, that.value);
+        // each value has only one form, as values that fit in longs are always held in longs
+        if (value == null)
+            return that.value == null && numerator == that.numerator && denominator == that.denominator;
+        return value.equals(that.value);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return value != null ? value.hashCode() : 31 * Long.hashCode(numerator) + Long.hashCode(denominator);
     }
 
     @Override
     public NodeRational copy() {
-        return new NodeRational(value);
+        return value != null ? new NodeRational(value) : new NodeRational(numerator, denominator, true);
     }
 
     @Override
     public String toString() {
-        return value.toString();
+        if (value != null)
+            return value.toString();
+        return denominator == 1 ? Long.toString(numerator) : numerator + "/" + denominator;
+    }
+
+    /**
+     * Create a rational from a numerator and positive denominator that may have common factors
+     */
+    private static NodeRational small(long numerator, long denominator) {
+        if (numerator == 0)
+            return new NodeRational(0, 1, true);
+        return of(numerator, denominator, false);
     }
 
+    /**
+     * Create a rational from a numerator and positive denominator, held as longs unless the
+     * numerator is {@link Long#MIN_VALUE}, which cannot be negated
+     */
+    private static NodeRational of(long numerator, long denominator, boolean reduced) {
+        if (numerator == Long.MIN_VALUE)
+            return new NodeRational(BigRational.of(numerator, denominator));
+        return new NodeRational(numerator, denominator, reduced);
+    }
+
+    private static boolean fitsInLong(BigInteger value) {
+        return value.bitLength() < 64 && value.longValue() != Long.MIN_VALUE;
+    }
+
+    /**
+     * @return The greatest common divisor of two non-negative numbers, or one if both are zero
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+
+    /**
+     * @return The base raised to the non-negative exponent
+     * @throws ArithmeticException if the result overflows
+     */
+    private static long pow(long base, long exponent) {
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1)
+                result = Math.multiplyExact(result, base);
+            exponent >>= 1;
+            if (exponent > 0)
+                base = Math.multiplyExact(base, base);
+        }
+        return result;
+    }
 }
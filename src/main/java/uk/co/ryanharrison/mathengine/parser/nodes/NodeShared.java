@@ -0,0 +1,56 @@
+package uk.co.ryanharrison.mathengine.parser.nodes;
+
+import java.util.Objects;
+
+/**
+ * A subtree used in more than one place of an expression. Every use refers to the same
+ * instance, so an evaluation computes the subtree once and reuses the result for the other uses.
+ */
+public final class NodeShared extends Node {
+
+    private final Node node;
+
+    public NodeShared(Node node) {
+        this.node = node;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    @Override
+    public Node copy() {
+        return new NodeShared(node.copy());
+    }
+
+    @Override
+    public NodeTransformer createTransformer() {
+        return new NodeSharedTransformer();
+    }
+
+    private class NodeSharedTransformer extends DefaultNodeTransformer {
+
+        @Override
+        public NodeNumber toNodeNumber() {
+            return node.getTransformer().toNodeNumber();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NodeShared that = (NodeShared) o;
+        return Objects.equals(node, that.node);
+    }
+
+    @Override
+    public int hashCode() {
+        return node.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package uk.co.ryanharrison.mathengine.parser.nodes;
+
+import java.util.Objects;
+
+/**
+ * A parameter of a compiled expression, resolved to a fixed position in the array of values the
+ * expression is evaluated with. Evaluating a slot reads that position rather than looking the
+ * variable up by name.
+ */
+public final class NodeSlot extends Node {
+
+    private final int index;
+    private final String name;
+
+    /**
+     * @param index The position of the value of the parameter
+     * @param name  The name of the variable the slot replaces
+     */
+    public NodeSlot(int index, String name) {
+        this.index = index;
+        this.name = name;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public NodeSlot copy() {
+        return new NodeSlot(index, name);
+    }
+
+    @Override
+    public NodeTransformer createTransformer() {
+        return new NodeSlotTransformer();
+    }
+
+    private class NodeSlotTransformer extends DefaultNodeTransformer {
+
+        @Override
+        public NodeNumber toNodeNumber() {
+            throw new UnsupportedOperationException("Cannot convert parameter to a number");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NodeSlot that = (NodeSlot) o;
+        return index == that.index && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * index + name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
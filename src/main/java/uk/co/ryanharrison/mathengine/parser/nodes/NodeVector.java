@@ -5,22 +5,47 @@ import uk.co.ryanharrison.mathengine.utils.Utils;
 
 import java.util.Arrays;
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
+/**
+ * A vector of nodes.
+ * <p>
+ * A vector whose elements are all {@link NodeDouble}s is held densely as a primitive array, the
+ * element nodes only being created if they are asked for through {@link #getValues()}. Element
+ * wise operations with a primitive form run directly over the array, so a dense vector stays
+ * dense without creating a node per element.
+ * </p>
+ */
 public final class NodeVector extends NodeConstant implements NodeSet {
 
-    private Node[] values;
+    /**
+     * The elements as nodes, created on first use if this vector is dense
+     */
+    private volatile Node[] values;
+
+    /**
+     * The elements of a dense vector, or null if the elements are not all doubles
+     */
+    private final double[] doubles;
 
     public NodeVector(Node[] values) {
         this.values = values;
+        this.doubles = null;
     }
 
-    public NodeVector(Vector v) {
-        values = new NodeDouble[v.getSize()];
+    /**
+     * Create a dense vector holding the given array, which must not be modified afterwards
+     *
+     * @param values The elements of the vector
+     */
+    public NodeVector(double[] values) {
+        this.doubles = values;
+    }
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] = new NodeDouble(v.get(i));
-        }
+    public NodeVector(Vector v) {
+        this(v.getElements());
     }
 
     @Override
@@ -39,20 +64,54 @@ public final class NodeVector extends NodeConstant implements NodeSet {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NodeVector that = (NodeVector) o;
-        return Arrays.equals(values, that.values);
+        if (doubles != null && that.doubles != null)
+            return Arrays.equals(doubles, that.doubles);
+        return Arrays.equals(getValues(), that.getValues());
     }
 
+    /**
+     * Dense vectors hash the same as the equal vector of nodes would
+     */
     @Override
     public int hashCode() {
-        return Arrays.hashCode(values);
+        return doubles != null ? Arrays.hashCode(doubles) : Arrays.hashCode(values);
     }
 
     public int getSize() {
-        return values.length;
+        return doubles != null ? doubles.length : values.length;
     }
 
     public Node[] getValues() {
-        return values;
+        Node[] nodes = values;
+        if (nodes == null) {
+            nodes = new Node[doubles.length];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = new NodeDouble(doubles[i]);
+            }
+            values = nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * @return Whether this vector is held as a primitive array
+     */
+    public boolean isDense() {
+        return doubles != null;
+    }
+
+    /**
+     * @return A copy of the elements of this vector as doubles
+     */
+    public double[] toDoubleArray() {
+        if (doubles != null)
+            return doubles.clone();
+
+        double[] results = new double[values.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = values[i].getTransformer().toNodeNumber().doubleValue();
+        }
+        return results;
     }
 
     @Override
@@ -62,6 +121,9 @@ public final class NodeVector extends NodeConstant implements NodeSet {
 
     @Override
     public NodeVector resolve(Function<Node, NodeConstant> func) {
+        if (doubles != null)
+            return this;
+
         return new NodeVector(Arrays.stream(values).map(func).toArray(Node[]::new));
     }
 
@@ -74,92 +136,223 @@ public final class NodeVector extends NodeConstant implements NodeSet {
 
         @Override
         public NodeMatrix toNodeMatrix() {
+            if (doubles != null)
+                return new NodeMatrix(new double[][]{doubles});
+
             return new NodeMatrix(new Node[][]{values});
         }
 
         @Override
         public NodeNumber toNodeNumber() {
-            NodeNumber sum = NodeFactory.createZeroNumber();
-            for (NodeConstant constant : toNodeConstants()) {
-                sum = sum.add(constant.getTransformer().toNodeNumber());
-            }
-            return sum;
+            return sum(ParallelPolicy.SEQUENTIAL);
         }
     }
 
+    /**
+     * Add up the elements of this vector, as its conversion to a number does, splitting the work
+     * across cores when the policy allows
+     *
+     * @param policy decides whether to run in parallel
+     * @return the sum of the elements
+     */
+    public NodeNumber sum(ParallelPolicy policy) {
+        return doubles != null ? policy.sum(doubles) : policy.sum(values);
+    }
+
     public NodeVector copy() {
-        return new NodeVector(values.clone());
+        return doubles != null ? new NodeVector(doubles.clone()) : new NodeVector(values.clone());
     }
 
     public NodeConstant[] toNodeConstants() {
-        NodeConstant[] results = new NodeConstant[values.length];
+        Node[] nodes = getValues();
+        NodeConstant[] results = new NodeConstant[nodes.length];
         for (int i = 0; i < results.length; i++) {
-            results[i] = (NodeConstant) values[i];
+            results[i] = (NodeConstant) nodes[i];
         }
         return results;
     }
 
-    private void normalizeVectorSizes(NodeVector b) {
-        if (this.values.length == b.values.length)
-            return;
+    /**
+     * Create a vector from the results of an element wise operation, held densely if every
+     * result is a double
+     */
+    private static NodeVector fromResults(NodeConstant[] results) {
+        for (NodeConstant result : results) {
+            if (result.getClass() != NodeDouble.class)
+                return new NodeVector(results);
+        }
 
-        int thisLength = this.values.length;
-        int otherLength = b.values.length;
+        double[] values = new double[results.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((NodeDouble) results[i]).doubleValue();
+        }
+        return new NodeVector(values);
+    }
 
-        int longest = Math.max(thisLength, otherLength);
+    /**
+     * Stretch the values of a vector to the given length without modifying the vector. A single
+     * value is repeated, otherwise the values are padded with zeros
+     */
+    private static Node[] normalizeVectorSize(Node[] values, int length) {
+        if (values.length == length)
+            return values;
 
-        Node[] results = new Node[longest];
+        Node[] results = new Node[length];
 
-        if (thisLength != longest) {
-            if (thisLength == 1) {
-                Arrays.fill(results, 0, longest, values[0]);
-            } else {
-                System.arraycopy(values, 0, results, 0, thisLength);
-                Arrays.fill(results, thisLength, longest, NodeFactory.createZeroNumber());
-            }
-            this.values = results;
+        if (values.length == 1) {
+            Arrays.fill(results, 0, length, values[0]);
         } else {
-            if (b.values.length == 1) {
-                Arrays.fill(results, 0, longest, b.values[0]);
-            } else {
-                System.arraycopy(b.values, 0, results, 0, otherLength);
-                Arrays.fill(results, otherLength, longest, NodeFactory.createZeroNumber());
-            }
-            b.values = results;
+            System.arraycopy(values, 0, results, 0, values.length);
+            Arrays.fill(results, values.length, length, NodeFactory.createZeroNumber());
         }
+        return results;
+    }
+
+    /**
+     * Stretch primitive values in the same way as {@link #normalizeVectorSize(Node[], int)}
+     */
+    private static double[] normalizeVectorSize(double[] values, int length) {
+        if (values.length == length)
+            return values;
+
+        if (values.length == 1) {
+            double[] results = new double[length];
+            Arrays.fill(results, values[0]);
+            return results;
+        }
+        return Arrays.copyOf(values, length);
+    }
+
+    /**
+     * @return The elements of this vector as doubles if they are all plain doubles or rationals,
+     * otherwise null
+     */
+    private double[] toPlainDoubles() {
+        if (doubles != null)
+            return doubles;
+
+        double[] results = new double[values.length];
+        for (int i = 0; i < results.length; i++) {
+            if (!isPlainNumber(values[i]))
+                return null;
+            results[i] = ((NodeNumber) values[i]).doubleValue();
+        }
+        return results;
+    }
+
+    /**
+     * @return Whether every element of this vector is a {@link NodeDouble}
+     */
+    private boolean isAllDoubles() {
+        if (doubles != null)
+            return true;
+
+        for (Node value : values) {
+            if (value.getClass() != NodeDouble.class)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether every pair of elements an operation between this vector and another takes
+     * includes an element of this vector that is a double
+     */
+    private boolean coversAsDoubles(NodeVector other) {
+        return (getSize() == 1 || getSize() >= other.getSize()) && isAllDoubles();
+    }
+
+    static boolean isPlainNumber(Node node) {
+        return node.getClass() == NodeDouble.class || node.getClass() == NodeRational.class;
     }
 
     @Override
     public NodeVector applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func) {
+        return applyBiFunc(b, func, ParallelPolicy.SEQUENTIAL);
+    }
+
+    @Override
+    public NodeVector applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func,
+                                  ParallelPolicy policy) {
         NodeVector arg2 = b.getTransformer().toNodeVector();
-        normalizeVectorSizes(arg2);
+        int longest = Math.max(getSize(), arg2.getSize());
+        Node[] left = normalizeVectorSize(this.getValues(), longest);
+        Node[] right = normalizeVectorSize(arg2.getValues(), longest);
 
-        NodeConstant[] results = new NodeConstant[values.length];
+        NodeConstant[] results = new NodeConstant[longest];
 
-        for (int i = 0; i < values.length; i++) {
-            results[i] = func.apply(this.values[i].getTransformer().toNodeNumber(), arg2.values[i].getTransformer().toNodeNumber());
-        }
+        policy.forEachIndex(longest, i ->
+                results[i] = func.apply(left[i].getTransformer().toNodeNumber(), right[i].getTransformer().toNodeNumber()));
 
-        return new NodeVector(results);
+        return fromResults(results);
+    }
+
+    @Override
+    public NodeVector applyBiFunc(NodeConstant b, BiFunction<NodeNumber, NodeNumber, NodeConstant> func,
+                                  DoubleBinaryOperator doubleFunc, ParallelPolicy policy) {
+        NodeVector arg2 = b.getTransformer().toNodeVector();
+
+        if (coversAsDoubles(arg2) || arg2.coversAsDoubles(this)) {
+            double[] a = toPlainDoubles();
+            double[] c = a == null ? null : arg2.toPlainDoubles();
+
+            if (c != null) {
+                int longest = Math.max(a.length, c.length);
+                double[] left = normalizeVectorSize(a, longest);
+                double[] right = normalizeVectorSize(c, longest);
+                double[] results = new double[longest];
+
+                policy.forEachIndex(longest, i -> results[i] = doubleFunc.applyAsDouble(left[i], right[i]));
+                return new NodeVector(results);
+            }
+        }
+        return applyBiFunc(arg2, func, policy);
     }
 
     @Override
     public NodeVector applyUniFunc(Function<NodeNumber, NodeConstant> func) {
-        NodeConstant[] results = new NodeConstant[values.length];
+        return applyUniFunc(func, ParallelPolicy.SEQUENTIAL);
+    }
 
-        for (int i = 0; i < values.length; i++) {
-            if (values[i] instanceof NodeNumber) {
-                results[i] = func.apply(this.values[i].getTransformer().toNodeNumber());
+    @Override
+    public NodeVector applyUniFunc(Function<NodeNumber, NodeConstant> func, ParallelPolicy policy) {
+        Node[] nodes = getValues();
+        NodeConstant[] results = new NodeConstant[nodes.length];
+
+        policy.forEachIndex(nodes.length, i -> {
+            if (nodes[i] instanceof NodeNumber) {
+                results[i] = func.apply(nodes[i].getTransformer().toNodeNumber());
             } else {
-                results[i] = ((NodeConstant) values[i]).applyUniFunc(func);
+                results[i] = ((NodeConstant) nodes[i]).applyUniFunc(func, policy);
             }
-        }
+        });
 
+        return fromResults(results);
+    }
+
+    @Override
+    public NodeVector applyUniFunc(Function<NodeNumber, NodeConstant> func, DoubleUnaryOperator doubleFunc,
+                                   ParallelPolicy policy) {
+        if (!isAllDoubles())
+            return applyUniFunc(func, policy);
+
+        double[] a = toPlainDoubles();
+        double[] results = new double[a.length];
+        policy.forEachIndex(a.length, i -> results[i] = doubleFunc.applyAsDouble(a[i]));
         return new NodeVector(results);
     }
 
     @Override
     public String toString() {
-        return "{ " + Utils.join(values, ", ") + " }";
+        if (doubles == null)
+            return "{ " + Utils.join(values, ", ") + " }";
+
+        StringBuilder builder = new StringBuilder("{ ");
+        for (int i = 0; i < doubles.length; i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(doubles[i]);
+        }
+        return builder.append(" }").toString();
     }
 }
@@ -0,0 +1,161 @@
+package uk.co.ryanharrison.mathengine.parser.nodes;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Decides whether element-wise work over vectors and matrices is split across cores.
+ * <p>
+ * Work is only run in parallel when there are at least {@link #getThreshold()} elements, below
+ * which the cost of coordinating threads outweighs the gain. Parallel work writes each result to
+ * the same position it would have had sequentially, so the order of results never depends on
+ * how the work was scheduled. Reductions such as sums combine fixed size chunks in order, so
+ * they give the same result on every run and on every machine.
+ * </p>
+ * <p>
+ * Work is run in the common fork/join pool. Functions applied to elements in parallel must not
+ * modify shared state.
+ * </p>
+ */
+public final class ParallelPolicy {
+
+    /**
+     * The number of elements above which work is run in parallel by {@link #DEFAULT}
+     */
+    public static final int DEFAULT_THRESHOLD = 10_000;
+
+    /**
+     * Runs work in parallel for vectors of at least {@link #DEFAULT_THRESHOLD} elements
+     */
+    public static final ParallelPolicy DEFAULT = new ParallelPolicy(DEFAULT_THRESHOLD);
+
+    /**
+     * Never runs work in parallel
+     */
+    public static final ParallelPolicy SEQUENTIAL = new ParallelPolicy(Integer.MAX_VALUE);
+
+    /**
+     * The number of elements combined sequentially by each task of a parallel reduction
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    private final int threshold;
+
+    private ParallelPolicy(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Create a policy running work in parallel when there are at least the given number of
+     * elements
+     *
+     * @param threshold The smallest number of elements to process in parallel
+     * @return The policy
+     * @throws IllegalArgumentException if the threshold is less than 2
+     */
+    public static ParallelPolicy withThreshold(int threshold) {
+        if (threshold < 2)
+            throw new IllegalArgumentException("Threshold must be at least 2, got: " + threshold);
+
+        return threshold == Integer.MAX_VALUE ? SEQUENTIAL : new ParallelPolicy(threshold);
+    }
+
+    /**
+     * @return The smallest number of elements processed in parallel, which is
+     * {@link Integer#MAX_VALUE} if work is never run in parallel
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param size The number of elements to process
+     * @return Whether work over the given number of elements should run in parallel
+     */
+    public boolean isParallel(int size) {
+        return size >= threshold;
+    }
+
+    /**
+     * Run an action for each index from zero up to the given size, in parallel if the size is at
+     * least the threshold. The order the action is run for each index is undefined when run in
+     * parallel
+     *
+     * @param size   The number of indices
+     * @param action The action to run for each index
+     */
+    public void forEachIndex(int size, IntConsumer action) {
+        if (isParallel(size)) {
+            IntStream.range(0, size).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < size; i++) {
+                action.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Add up the numeric values of some elements. In parallel the elements are summed in chunks of
+     * a fixed size which are then added together in order
+     *
+     * @param values The elements to add up
+     * @return The sum of the elements
+     */
+    NodeNumber sum(Node[] values) {
+        if (!isParallel(values.length))
+            return sum(values, 0, values.length);
+
+        NodeNumber[] chunks = new NodeNumber[(values.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        IntStream.range(0, chunks.length).parallel().forEach(chunk ->
+                chunks[chunk] = sum(values, chunk * CHUNK_SIZE,
+                        Math.min(values.length, (chunk + 1) * CHUNK_SIZE)));
+
+        NodeNumber sum = NodeFactory.createZeroNumber();
+        for (NodeNumber chunk : chunks) {
+            sum = sum.add(chunk);
+        }
+        return sum;
+    }
+
+    /**
+     * Add up some doubles, giving the same result as {@link #sum(Node[])} would for the same
+     * values held as {@link NodeDouble}s
+     *
+     * @param values The values to add up
+     * @return The sum of the values
+     */
+    NodeNumber sum(double[] values) {
+        if (values.length == 0)
+            return NodeFactory.createZeroNumber();
+        if (!isParallel(values.length))
+            return new NodeDouble(sum(values, 0, values.length));
+
+        double[] chunks = new double[(values.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        IntStream.range(0, chunks.length).parallel().forEach(chunk ->
+                chunks[chunk] = sum(values, chunk * CHUNK_SIZE,
+                        Math.min(values.length, (chunk + 1) * CHUNK_SIZE)));
+
+        return new NodeDouble(sum(chunks, 0, chunks.length));
+    }
+
+    private static double sum(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    private static NodeNumber sum(Node[] values, int from, int to) {
+        NodeNumber sum = NodeFactory.createZeroNumber();
+        for (int i = from; i < to; i++) {
+            sum = sum.add(((NodeConstant) values[i]).getTransformer().toNodeNumber());
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return this == SEQUENTIAL ? "ParallelPolicy[sequential]" : "ParallelPolicy[threshold=" + threshold + "]";
+    }
+}
@@ -7,8 +7,16 @@ public abstract class BinaryOperator extends Operator {
 
     protected abstract NodeConstant toResult(NodeConstant arg1, NodeConstant arg2);
 
+    /**
+     * Apply this operator within an evaluation. Operators that depend on the evaluation context
+     * override this method; all others ignore the context.
+     *
+     * @param context the context of the current evaluation
+     * @param arg1    the evaluated first argument
+     * @param arg2    the evaluated second argument
+     * @return the result of the operator
+     */
     public NodeConstant toResult(EvaluationContext context, NodeConstant arg1, NodeConstant arg2) {
-        this.evaluationContext = context;
         return toResult(arg1, arg2);
     }
 }
@@ -4,11 +4,12 @@ import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class CustomOperator extends UnaryOperator {
 
-    private NodeFunction function;
+    private final NodeFunction function;
 
     public CustomOperator(NodeFunction function) {
         this.function = function;
@@ -34,9 +35,34 @@ public class CustomOperator extends UnaryOperator {
     }
 
     @Override
-    public NodeConstant toResult(NodeConstant arg1) {
+    protected NodeConstant toResult(NodeConstant arg1) {
+        throw new UnsupportedOperationException("Function: " + toString() + " requires an evaluation context");
+    }
+
+    /**
+     * Call the function, answering from its result cache if caching is enabled and the function
+     * is pure. Results are keyed on the arguments and the angle unit, the only part of the
+     * context a pure function depends on
+     */
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1) {
+        int capacity = context.getFunctionCacheCapacity();
+        if (capacity == 0 || !function.isPure())
+            return call(context, arg1);
+
+        FunctionResultCache cache = function.getResultCache();
+        List<Object> key = List.of(context.getAngleUnit(), arg1);
+        NodeConstant result = cache.get(key);
+        if (result == null) {
+            // evaluated outside the cache lock, so concurrent calls may both evaluate the body
+            result = call(context, arg1);
+            cache.put(key, result, capacity);
+        }
+        return result;
+    }
+
+    private NodeConstant call(EvaluationContext context, NodeConstant arg1) {
         int argNum = function.getArgNum();
-        EvaluationContext context = getEvaluationContext();
         if (arg1 instanceof NodeNumber) {
             if (argNum == 1) {
                 Map<String, NodeConstant> args = Map.of(function.getVariables()[0], arg1);
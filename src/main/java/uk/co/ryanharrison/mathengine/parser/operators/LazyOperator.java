@@ -0,0 +1,31 @@
+package uk.co.ryanharrison.mathengine.parser.operators;
+
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeExpression;
+
+import java.util.function.Function;
+
+/**
+ * An operator that evaluates its own arguments, so that it only evaluates the ones its result
+ * depends on. Operators such as {@code if}, {@code and} and {@code or} implement this to skip
+ * the branch or operand that would be thrown away.
+ * <p>
+ * Whatever arguments are evaluated, the result must be the same as that of applying the
+ * operator to all of its evaluated arguments. The exception is that errors in the arguments that
+ * are skipped, including arguments of the wrong type, are not raised.
+ * </p>
+ */
+public interface LazyOperator {
+
+    /**
+     * Apply this operator to the unevaluated arguments of an expression
+     *
+     * @param context    the context of the current evaluation
+     * @param expression the expression applying this operator
+     * @param evaluator  evaluates an argument, or any node within it, in the current evaluation
+     * @return the result of the operator
+     */
+    NodeConstant toResult(EvaluationContext context, NodeExpression expression, Function<Node, NodeConstant> evaluator);
+}
@@ -1,15 +1,14 @@
 package uk.co.ryanharrison.mathengine.parser.operators;
 
-import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
-
+/**
+ * Base class of all operators.
+ * <p>
+ * Operators are stateless and shared between every expression tree and {@code Evaluator}
+ * that uses them, so they must not hold any evaluation state. Anything an operator needs from
+ * the evaluation, such as the angle unit, is passed to it in the {@code EvaluationContext}.
+ */
 public abstract class Operator {
 
-    protected EvaluationContext evaluationContext;
-
-    protected EvaluationContext getEvaluationContext() {
-        return evaluationContext;
-    }
-
     public abstract String[] getAliases();
 
     // TODO : Implement correct precedence structure for all operators
@@ -7,8 +7,15 @@ public abstract class UnaryOperator extends Operator {
 
     protected abstract NodeConstant toResult(NodeConstant arg1);
 
+    /**
+     * Apply this operator within an evaluation. Operators that depend on the evaluation context
+     * override this method; all others ignore the context.
+     *
+     * @param context the context of the current evaluation
+     * @param arg1    the evaluated argument
+     * @return the result of the operator
+     */
     public NodeConstant toResult(EvaluationContext context, NodeConstant arg1) {
-        this.evaluationContext = context;
         return toResult(arg1);
     }
 }
@@ -4,6 +4,7 @@ import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
 
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
 
 public class Add extends SimpleBinaryOperator {
     @Override
@@ -26,6 +27,11 @@ public class Add extends SimpleBinaryOperator {
         return NodeNumber::add;
     }
 
+    @Override
+    protected DoubleBinaryOperator getDoubleFunc() {
+        return Double::sum;
+    }
+
     @Override
     public String toString() {
         return "+";
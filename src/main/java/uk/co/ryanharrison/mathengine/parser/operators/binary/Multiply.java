@@ -1,8 +1,11 @@
 package uk.co.ryanharrison.mathengine.parser.operators.binary;
 
+import uk.co.ryanharrison.mathengine.linearalgebra.Matrix;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
 
 public class Multiply extends SimpleBinaryOperator {
     @Override
@@ -25,6 +28,11 @@ public class Multiply extends SimpleBinaryOperator {
         return NodeNumber::multiply;
     }
 
+    @Override
+    protected DoubleBinaryOperator getDoubleFunc() {
+        return (a, b) -> a * b;
+    }
+
     @Override
     public NodeConstant toResult(NodeConstant arg1, NodeConstant arg2) {
         if (arg1 instanceof NodeMatrix && arg2 instanceof NodeMatrix) {
@@ -33,6 +41,14 @@ public class Multiply extends SimpleBinaryOperator {
         return super.toResult(arg1, arg2);
     }
 
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1, NodeConstant arg2) {
+        if (arg1 instanceof NodeMatrix && arg2 instanceof NodeMatrix) {
+            return matrixMultiply((NodeMatrix) arg1, (NodeMatrix) arg2);
+        }
+        return super.toResult(context, arg1, arg2);
+    }
+
     @Override
     public String toString() {
         return "*";
@@ -44,6 +60,9 @@ public class Multiply extends SimpleBinaryOperator {
         }
 
         int size = a.rowCount();
+        if (a.isDense() && b.isDense())
+            return denseMatrixMultiply(a.toDoubleMatrix(), b.toDoubleMatrix(), size);
+
         Node[][] aValues = a.getValues();
         Node[][] bValues = b.getValues();
 
@@ -66,4 +85,22 @@ public class Multiply extends SimpleBinaryOperator {
         }
         return new NodeMatrix(values);
     }
+
+    /**
+     * Multiply matrices of doubles, summing each product in the same order as
+     * {@link #matrixMultiply(NodeMatrix, NodeMatrix)} so the results are identical
+     */
+    private static NodeMatrix denseMatrixMultiply(Matrix a, Matrix b, int size) {
+        double[][] values = new double[size][size];
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                double s = 0;
+                for (int k = 0; k < size; k++) {
+                    s += a.get(i, k) * b.get(k, j);
+                }
+                values[i][j] = s;
+            }
+        }
+        return new NodeMatrix(values);
+    }
 }
@@ -4,6 +4,7 @@ import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
 
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
 
 public class Pow extends SimpleBinaryOperator {
     @Override
@@ -26,6 +27,11 @@ public class Pow extends SimpleBinaryOperator {
         return NodeNumber::pow;
     }
 
+    @Override
+    protected DoubleBinaryOperator getDoubleFunc() {
+        return Math::pow;
+    }
+
     @Override
     public String toString() {
         return "^";
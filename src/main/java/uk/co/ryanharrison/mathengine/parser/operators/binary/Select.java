@@ -9,7 +9,12 @@ import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
 public class Select extends BinaryOperator {
 
     @Override
-    public NodeConstant toResult(NodeConstant arg1, NodeConstant arg2) {
+    protected NodeConstant toResult(NodeConstant arg1, NodeConstant arg2) {
+        throw new UnsupportedOperationException("Operator: " + toString() + " requires an evaluation context");
+    }
+
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1, NodeConstant arg2) {
         if (!(arg1 instanceof NodeVector))
             throw new IllegalArgumentException("First argument must be a vector");
 
@@ -22,13 +27,11 @@ public class Select extends BinaryOperator {
         if (selector.getVariables().length != 1)
             throw new IllegalArgumentException("Selector function must have one argument");
 
-        EvaluationContext context = getEvaluationContext();
         NodeConstant[] results = new NodeConstant[vector.getSize()];
         NodeConstant[] vecVals = vector.toNodeConstants();
 
-        for (int i = 0; i < results.length; i++) {
-            results[i] = context.evaluateFunc(selector.getNode(), selector.createArgsFrom(vecVals[i]));
-        }
+        context.getParallelPolicy().forEachIndex(results.length, i ->
+                results[i] = context.evaluateFunc(selector.getNode(), selector.createArgsFrom(vecVals[i])));
 
         return new NodeVector(results);
     }
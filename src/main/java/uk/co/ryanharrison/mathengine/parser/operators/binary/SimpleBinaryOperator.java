@@ -1,29 +1,65 @@
 package uk.co.ryanharrison.mathengine.parser.operators.binary;
 
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeMatrix;
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
 
 import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
 
 public abstract class SimpleBinaryOperator extends BinaryOperator {
 
     @Override
     public NodeConstant toResult(NodeConstant arg1, NodeConstant arg2) {
+        return toResult(arg1, arg2, ParallelPolicy.SEQUENTIAL);
+    }
+
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1, NodeConstant arg2) {
+        return toResult(arg1, arg2, context.getParallelPolicy());
+    }
+
+    private NodeConstant toResult(NodeConstant arg1, NodeConstant arg2, ParallelPolicy policy) {
         BiFunction<NodeNumber, NodeNumber, NodeConstant> biFunc = getBiFunc();
+        DoubleBinaryOperator doubleFunc = getDoubleFunc();
 
         if (arg2 instanceof NodeNumber) {
-            return arg1.applyUniFunc(elem -> biFunc.apply(elem.getTransformer().toNodeNumber(),
-                    arg2.getTransformer().toNodeNumber()));
+            Function<NodeNumber, NodeConstant> func = elem -> biFunc.apply(elem.getTransformer().toNodeNumber(),
+                    arg2.getTransformer().toNodeNumber());
+
+            // a double and a plain number always combine as doubles, whereas a percentage does not
+            if (doubleFunc != null && (arg2.getClass() == NodeDouble.class || arg2.getClass() == NodeRational.class)) {
+                double b = ((NodeNumber) arg2).doubleValue();
+                return arg1.applyUniFunc(func, a -> doubleFunc.applyAsDouble(a, b), policy);
+            }
+            return arg1.applyUniFunc(func, policy);
         } else if (arg2 instanceof NodeMatrix) {
-            return arg1.getTransformer().toNodeMatrix()
-                    .applyBiFunc(arg2, biFunc);
+            return applyBiFunc(arg1.getTransformer().toNodeMatrix(), arg2, biFunc, doubleFunc, policy);
         } else {
-            return arg1.getTransformer().toNodeVector()
-                    .applyBiFunc(arg2, biFunc);
+            return applyBiFunc(arg1.getTransformer().toNodeVector(), arg2, biFunc, doubleFunc, policy);
         }
     }
 
+    private static NodeConstant applyBiFunc(NodeConstant arg1, NodeConstant arg2,
+                                            BiFunction<NodeNumber, NodeNumber, NodeConstant> biFunc,
+                                            DoubleBinaryOperator doubleFunc, ParallelPolicy policy) {
+        if (doubleFunc == null)
+            return arg1.applyBiFunc(arg2, biFunc, policy);
+
+        return arg1.applyBiFunc(arg2, biFunc, doubleFunc, policy);
+    }
+
     protected abstract BiFunction<NodeNumber, NodeNumber, NodeConstant> getBiFunc();
+
+    /**
+     * The operation on doubles, used for sets of doubles in place of {@link #getBiFunc()}. It
+     * must give the same result as the function does when either argument is a
+     * {@link NodeDouble} and the other is a {@link NodeDouble} or {@link NodeRational}.
+     *
+     * @return The operation on doubles, or null if there is none
+     */
+    protected DoubleBinaryOperator getDoubleFunc() {
+        return null;
+    }
 }
@@ -13,7 +13,12 @@ import java.util.List;
 public class Where extends BinaryOperator {
 
     @Override
-    public NodeConstant toResult(NodeConstant arg1, NodeConstant arg2) {
+    protected NodeConstant toResult(NodeConstant arg1, NodeConstant arg2) {
+        throw new UnsupportedOperationException("Operator: " + toString() + " requires an evaluation context");
+    }
+
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1, NodeConstant arg2) {
         if (!(arg1 instanceof NodeVector))
             throw new IllegalArgumentException("First argument must be a vector");
 
@@ -26,15 +31,19 @@ public class Where extends BinaryOperator {
         if (predicate.getVariables().length != 1)
             throw new IllegalArgumentException("Predicate function must have one argument");
 
-        List<NodeConstant> results = new ArrayList<>();
         NodeConstant[] vecVals = vector.toNodeConstants();
-        EvaluationContext context = getEvaluationContext();
+        boolean[] matches = new boolean[vecVals.length];
 
-        for (NodeConstant vecVal : vecVals) {
-            NodeConstant res = context.evaluateFunc(predicate.getNode(), predicate.createArgsFrom(vecVal));
+        context.getParallelPolicy().forEachIndex(vecVals.length, i -> {
+            NodeConstant res = context.evaluateFunc(predicate.getNode(), predicate.createArgsFrom(vecVals[i]));
+            matches[i] = res.getTransformer().toNodeNumber().doubleValue() == 1.0;
+        });
 
-            if (res.getTransformer().toNodeNumber().doubleValue() == 1.0) {
-                results.add(vecVal);
+        // collect in order so the result is the same however the predicate was evaluated
+        List<NodeConstant> results = new ArrayList<>();
+        for (int i = 0; i < vecVals.length; i++) {
+            if (matches[i]) {
+                results.add(vecVals[i]);
             }
         }
 
@@ -1,11 +1,13 @@
 package uk.co.ryanharrison.mathengine.parser.operators.binary.logical;
 
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeBoolean;
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.LazyOperator;
 
-public class And extends BinaryOperator {
+import java.util.function.Function;
+
+public class And extends BinaryOperator implements LazyOperator {
     @Override
     public String[] getAliases() {
         return new String[]{"and", "&&"};
@@ -34,6 +36,24 @@ public class And extends BinaryOperator {
         throw new IllegalArgumentException("Must have two logical arguments to operator 'and'");
     }
 
+    /**
+     * Evaluate the second operand only if the first is true, as the result is otherwise false.
+     * A second operand that is written as a value that is not logical, such as a vector, is
+     * still rejected, but one that only turns out not to be logical when evaluated is not
+     */
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeExpression expression,
+                                 Function<Node, NodeConstant> evaluator) {
+        NodeConstant arg1 = evaluator.apply(expression.getArgOne());
+        if (arg1 instanceof NodeNumber && arg1.getTransformer().toNodeNumber().doubleValue() != 1) {
+            if (expression.getArgTwo() instanceof NodeConstant arg2 && !(arg2 instanceof NodeNumber))
+                throw new IllegalArgumentException("Must have two logical arguments to operator 'and'");
+            return new NodeBoolean(false);
+        }
+
+        return toResult(context, arg1, evaluator.apply(expression.getArgTwo()));
+    }
+
     @Override
     public String toString() {
         return "and";
@@ -1,11 +1,13 @@
 package uk.co.ryanharrison.mathengine.parser.operators.binary.logical;
 
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeBoolean;
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
-import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.parser.operators.BinaryOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.LazyOperator;
 
-public class Or extends BinaryOperator {
+import java.util.function.Function;
+
+public class Or extends BinaryOperator implements LazyOperator {
     @Override
     public String[] getAliases() {
         return new String[]{"or", "||"};
@@ -34,6 +36,24 @@ public class Or extends BinaryOperator {
         throw new IllegalArgumentException("Must have two logical arguments to operator 'or'");
     }
 
+    /**
+     * Evaluate the second operand only if the first is not true, as the result is otherwise true.
+     * A second operand that is written as a value that is not logical, such as a vector, is
+     * still rejected, but one that only turns out not to be logical when evaluated is not
+     */
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeExpression expression,
+                                 Function<Node, NodeConstant> evaluator) {
+        NodeConstant arg1 = evaluator.apply(expression.getArgOne());
+        if (arg1 instanceof NodeNumber && arg1.getTransformer().toNodeNumber().doubleValue() == 1) {
+            if (expression.getArgTwo() instanceof NodeConstant arg2 && !(arg2 instanceof NodeNumber))
+                throw new IllegalArgumentException("Must have two logical arguments to operator 'or'");
+            return new NodeBoolean(true);
+        }
+
+        return toResult(context, arg1, evaluator.apply(expression.getArgTwo()));
+    }
+
     @Override
     public String toString() {
         return "or";
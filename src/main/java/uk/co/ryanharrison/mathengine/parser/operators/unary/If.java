@@ -1,17 +1,41 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeExpression;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
+import uk.co.ryanharrison.mathengine.parser.operators.LazyOperator;
 
-public class If extends VectorOperator {
+import java.util.function.Function;
+
+public class If extends VectorOperator implements LazyOperator {
     @Override
     protected NodeConstant calculateResultFromVector(NodeVector arg1) {
-        if (arg1.getValues()[0].getTransformer().toNodeNumber().doubleValue() == 1.0)
+        if (isTrue(arg1.getValues()[0]))
             return (NodeConstant) arg1.getValues()[1];
         else
             return (NodeConstant) arg1.getValues()[2];
     }
 
+    /**
+     * When the arguments are written out as a vector, evaluate the condition and then only the
+     * branch it selects
+     */
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeExpression expression,
+                                 Function<Node, NodeConstant> evaluator) {
+        if (expression.getArgOne() instanceof NodeVector arguments && arguments.getSize() == 3) {
+            Node[] values = arguments.getValues();
+            return evaluator.apply(isTrue(evaluator.apply(values[0])) ? values[1] : values[2]);
+        }
+        return toResult(context, evaluator.apply(expression.getArgOne()));
+    }
+
+    private static boolean isTrue(Node condition) {
+        return condition.getTransformer().toNodeNumber().doubleValue() == 1.0;
+    }
+
     @Override
     protected void fillAcceptedArguments() {
         acceptedArgumentLengths.add(3);
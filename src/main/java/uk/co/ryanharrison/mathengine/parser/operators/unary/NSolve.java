@@ -1,5 +1,7 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.core.Function;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.solvers.ConvergenceCriteria;
 import uk.co.ryanharrison.mathengine.solvers.NewtonRaphsonSolver;
@@ -7,13 +9,29 @@ import uk.co.ryanharrison.mathengine.solvers.NewtonRaphsonSolver;
 public class NSolve extends VectorOperator {
     @Override
     protected NodeConstant calculateResultFromVector(NodeVector arg1) {
+        return solve(arg1, null);
+    }
+
+    /**
+     * Solve within an evaluation, checking the budget of the evaluation before each iteration
+     */
+    @Override
+    protected NodeConstant calculateResultFromVector(EvaluationContext context, NodeVector arg1) {
+        return solve(arg1, context::checkBudget);
+    }
+
+    private NodeConstant solve(NodeVector arg1, Runnable check) {
         Node[] elements = arg1.getValues();
 
         if (!(elements[0] instanceof NodeFunction))
             throw new IllegalArgumentException("First argument must be a function");
 
+        Function function = ((NodeFunction) elements[0]).toFunction();
+        if (check != null)
+            function = function.withEvaluationCheck(check);
+
         var solver = NewtonRaphsonSolver.builder()
-                .targetFunction(((NodeFunction) elements[0]).toFunction())
+                .targetFunction(function)
                 .iterations(25)
                 .convergenceCriteria(ConvergenceCriteria.NumberOfIterations);
         if (arg1.getSize() == 2) {
@@ -1,5 +1,6 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
 import uk.co.ryanharrison.mathengine.parser.operators.UnaryOperator;
@@ -18,5 +19,10 @@ public abstract class NumberOperator extends UnaryOperator {
         return arg1.applyUniFunc(getFunc());
     }
 
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1) {
+        return arg1.applyUniFunc(getFunc(), context.getParallelPolicy());
+    }
+
     protected abstract Function<NodeNumber, NodeConstant> getFunc();
 }
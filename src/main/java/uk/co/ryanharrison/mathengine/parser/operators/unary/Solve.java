@@ -1,5 +1,7 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.core.Function;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.*;
 import uk.co.ryanharrison.mathengine.solvers.BrentSolver;
 import uk.co.ryanharrison.mathengine.utils.MathUtils;
@@ -9,14 +11,30 @@ import java.util.List;
 public class Solve extends VectorOperator {
     @Override
     protected NodeConstant calculateResultFromVector(NodeVector arg1) {
+        return solve(arg1, null);
+    }
+
+    /**
+     * Solve within an evaluation, checking the budget of the evaluation before each iteration
+     */
+    @Override
+    protected NodeConstant calculateResultFromVector(EvaluationContext context, NodeVector arg1) {
+        return solve(arg1, context::checkBudget);
+    }
+
+    private NodeConstant solve(NodeVector arg1, Runnable check) {
         Node[] elements = arg1.getValues();
 
         if (!(elements[0] instanceof NodeFunction))
             throw new IllegalArgumentException(
                     "First argument must be a function");
 
+        Function function = ((NodeFunction) elements[0]).toFunction();
+        if (check != null)
+            function = function.withEvaluationCheck(check);
+
         var solver = BrentSolver.builder()
-                .targetFunction(((NodeFunction) elements[0]).toFunction())
+                .targetFunction(function)
                 .iterations(150)
                 .lowerBound(-25)
                 .upperBound(25);
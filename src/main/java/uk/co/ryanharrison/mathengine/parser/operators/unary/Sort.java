@@ -1,18 +1,42 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.Node;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
+import uk.co.ryanharrison.mathengine.parser.nodes.ParallelPolicy;
 
 import java.util.Arrays;
 
 public class Sort extends VectorOperator {
     @Override
     protected NodeConstant calculateResultFromVector(NodeVector arg1) {
-        Node[] elements = ((NodeVector) arg1).getValues();
+        return sort(arg1, ParallelPolicy.SEQUENTIAL);
+    }
+
+    @Override
+    protected NodeConstant calculateResultFromVector(EvaluationContext context, NodeVector arg1) {
+        return sort(arg1, context.getParallelPolicy());
+    }
+
+    private static NodeVector sort(NodeVector vector, ParallelPolicy policy) {
+        if (vector.isDense()) {
+            // sorting doubles orders them as NodeDouble does
+            double[] results = vector.toDoubleArray();
+            if (policy.isParallel(results.length))
+                Arrays.parallelSort(results);
+            else
+                Arrays.sort(results);
+            return new NodeVector(results);
+        }
+
+        Node[] results = vector.getValues().clone();
 
-        Node[] results = elements.clone();
-        Arrays.sort(results);
+        // both sorts are stable so give the same order
+        if (policy.isParallel(results.length))
+            Arrays.parallelSort(results, (a, b) -> ((NodeConstant) a).compareTo((NodeConstant) b));
+        else
+            Arrays.sort(results);
         return new NodeVector(results);
     }
 
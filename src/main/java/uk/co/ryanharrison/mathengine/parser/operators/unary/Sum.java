@@ -1,5 +1,6 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
 
@@ -10,6 +11,11 @@ public final class Sum extends VectorOperator {
         return arg1.getTransformer().toNodeNumber();
     }
 
+    @Override
+    protected NodeConstant calculateResultFromVector(EvaluationContext context, NodeVector arg1) {
+        return arg1.sum(context.getParallelPolicy());
+    }
+
     @Override
     protected void fillAcceptedArguments() {
         acceptedArgumentLengths.add(INFINITE_ARGUMENT_LENGTH);
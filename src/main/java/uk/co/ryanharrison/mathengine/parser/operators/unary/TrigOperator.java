@@ -1,6 +1,7 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
 import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
 
@@ -10,9 +11,19 @@ public abstract class TrigOperator extends NumberOperator {
 
     protected abstract NodeConstant getResult(double num);
 
+    /**
+     * Without an evaluation context arguments are taken to be in radians
+     */
     @Override
     protected Function<NodeNumber, NodeConstant> getFunc() {
-        return num -> getResult(radiansTo(num.doubleValue(), getEvaluationContext().getAngleUnit()));
+        return num -> getResult(num.doubleValue());
+    }
+
+    @Override
+    public NodeConstant toResult(EvaluationContext context, NodeConstant arg1) {
+        AngleUnit angleUnit = context.getAngleUnit();
+        return arg1.applyUniFunc(num -> getResult(radiansTo(num.doubleValue(), angleUnit)),
+                context.getParallelPolicy());
     }
 
     private double degToRad(double radians) {
@@ -1,5 +1,6 @@
 package uk.co.ryanharrison.mathengine.parser.operators.unary;
 
+import uk.co.ryanharrison.mathengine.parser.EvaluationContext;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeNumber;
 import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
@@ -7,6 +8,7 @@ import uk.co.ryanharrison.mathengine.parser.operators.UnaryOperator;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Function;
 
 public abstract class VectorOperator extends UnaryOperator {
     protected static final String INFINITE_ARG_LENGTH_EXPECTED_USAGE = "elements";
@@ -26,8 +28,29 @@ public abstract class VectorOperator extends UnaryOperator {
 
     protected abstract void fillAcceptedArguments();
 
+    /**
+     * Calculate the result within an evaluation. Operators that can split their work across
+     * cores override this to use the parallel policy of the context
+     *
+     * @param context the context of the current evaluation
+     * @param arg1    the vector argument
+     * @return the result of the operator
+     */
+    protected NodeConstant calculateResultFromVector(EvaluationContext context, NodeVector arg1) {
+        return calculateResultFromVector(arg1);
+    }
+
     @Override
     public final NodeConstant toResult(NodeConstant arg1) {
+        return toResult(arg1, this::calculateResultFromVector);
+    }
+
+    @Override
+    public final NodeConstant toResult(EvaluationContext context, NodeConstant arg1) {
+        return toResult(arg1, vector -> calculateResultFromVector(context, vector));
+    }
+
+    private NodeConstant toResult(NodeConstant arg1, Function<NodeVector, NodeConstant> calculation) {
         NodeVector vector = arg1.getTransformer().toNodeVector();
         int length = vector.getSize();
 
@@ -41,7 +64,7 @@ public abstract class VectorOperator extends UnaryOperator {
         }
 
         // first should check valid number of arguments
-        NodeConstant result = calculateResultFromVector(vector);
+        NodeConstant result = calculation.apply(vector);
 
         // If the result contains one element we may have to convert the result
         // to a number if the argument passed in was a number
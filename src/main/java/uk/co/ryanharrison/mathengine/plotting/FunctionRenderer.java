@@ -97,9 +97,17 @@ public final class FunctionRenderer {
 
         double clippingThreshold = calculateClippingThreshold(coords);
 
+        double[] xs = new double[baseSamples + 1];
         for (int i = 0; i <= baseSamples; i++) {
-            double x = minX + i * dx;
-            double y = function.evaluateAt(x);
+            xs[i] = minX + i * dx;
+        }
+
+        double[] ys = new double[xs.length];
+        function.evaluateAll(xs, ys);
+
+        for (int i = 0; i <= baseSamples; i++) {
+            double x = xs[i];
+            double y = ys[i];
 
             // Skip NaN values (domain errors)
             if (Double.isNaN(y)) {
@@ -83,6 +83,35 @@ public record PlottedFunction(Function function, Color color, String name, boole
         }
     }
 
+    /**
+     * Evaluates the function at every point of an array, as {@link #evaluateAt(double)} would
+     * for each point.
+     * <p>
+     * The points are evaluated in one batch. If that fails, each point is evaluated
+     * separately so that only the points where evaluation fails are NaN.
+     * </p>
+     *
+     * @param xs  the x-values
+     * @param out receives the function value at each x, or NaN where it is undefined
+     */
+    public void evaluateAll(double[] xs, double[] out) {
+        try {
+            function.evaluateAll(xs, out);
+        } catch (Exception e) {
+            // find the points that failed
+            for (int i = 0; i < xs.length; i++) {
+                out[i] = evaluateAt(xs[i]);
+            }
+            return;
+        }
+
+        for (int i = 0; i < xs.length; i++) {
+            if (Double.isInfinite(out[i])) {
+                out[i] = Double.NaN;
+            }
+        }
+    }
+
     public String getEquation() {
         return function.getEquation();
     }
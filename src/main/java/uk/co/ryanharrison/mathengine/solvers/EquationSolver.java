@@ -185,14 +185,22 @@ public interface EquationSolver {
 
         // Calculate step size
         double dx = (upper - lower) / subdivisions;
-        double x = lower;
 
-        // Evaluate at the lower bound
-        double fp = function.evaluateAt(x);
+        // Evaluate at the lower bound and the end of every subdivision in one batch
+        double[] xs = new double[subdivisions + 1];
+        xs[0] = lower;
+        for (int j = 1; j <= subdivisions; j++) {
+            xs[j] = xs[j - 1] + dx;
+        }
+
+        double[] fxs = new double[xs.length];
+        function.evaluateAll(xs, fxs);
+
+        double fp = fxs[0];
 
         for (int j = 0; j < subdivisions; j++) {
-            x += dx;
-            double fc = function.evaluateAt(x);
+            double x = xs[j + 1];
+            double fc = fxs[j + 1];
 
             // If the subdivision crosses the x-axis, it may contain a root
             if (fc * fp < 0.0) {
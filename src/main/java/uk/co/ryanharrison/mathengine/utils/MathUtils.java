@@ -78,6 +78,10 @@ public final class MathUtils {
      * <br>
      * By convention, 0! = 1
      * </p>
+     * <p>
+     * The result overflows for num greater than 20. Once the product has wrapped round to zero it
+     * stays zero, so the loop stops there rather than running up to num.
+     * </p>
      *
      * @param num the non-negative integer
      * @return the factorial of num
@@ -89,7 +93,7 @@ public final class MathUtils {
         }
 
         long answer = 1;
-        for (long i = 2; i <= num; i++) {
+        for (long i = 2; i <= num && answer != 0; i++) {
             answer *= i;
         }
 
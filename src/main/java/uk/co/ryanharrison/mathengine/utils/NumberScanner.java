@@ -0,0 +1,322 @@
+package uk.co.ryanharrison.mathengine.utils;
+
+/**
+ * Recognises and converts numeric literals in a single pass without creating strings or
+ * throwing exceptions.
+ * <p>
+ * A range of text is numeric by the same rules as {@link Utils#isNumeric(String)}: whitespace
+ * anywhere in the range is ignored, and what is left must either be an integer in hexadecimal
+ * such as {@code "0x1F"} or anything {@link Double#parseDouble(String)} accepts. The value of a
+ * decimal number is the value {@link Double#parseDouble(String)} gives.
+ * </p>
+ * <p>
+ * Decimal numbers of up to 15 significant digits with a small exponent, which covers nearly
+ * every literal typed into an expression, are converted directly as they are scanned. Anything
+ * else is converted by {@link Double#parseDouble(String)} once it is known to be numeric.
+ * </p>
+ *
+ * <h2>Usage Examples:</h2>
+ * <pre>{@code
+ * NumberScanner scanner = new NumberScanner();
+ * if (scanner.scan("1 + 2.5e3", 4, 9))
+ *     double value = scanner.getValue();  // 2500.0
+ * }</pre>
+ * <p>
+ * A scanner is not thread safe but may be reused for any number of scans.
+ * </p>
+ *
+ * @author Ryan Harrison
+ */
+public final class NumberScanner {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The most significant digits whose value is always exactly representable as a double
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private CharSequence text;
+    private int start;
+    private int position;
+    private int end;
+
+    private double value;
+    private boolean converted;
+
+    /**
+     * Scan a range of text, deciding whether it is numeric and converting it if it is
+     *
+     * @param text  The text to scan
+     * @param start The index of the first character of the range
+     * @param end   The index after the last character of the range
+     * @return Whether the range is numeric
+     */
+    public boolean scan(CharSequence text, int start, int end) {
+        this.text = text;
+        this.start = start;
+        this.position = start;
+        this.end = end;
+        this.converted = false;
+
+        skipWhitespace();
+        if (position == end)
+            return false;
+
+        boolean negative = false;
+        char sign = text.charAt(position);
+        if (sign == '+' || sign == '-') {
+            negative = sign == '-';
+            position++;
+            skipWhitespace();
+        }
+
+        if (isHexPrefix()) {
+            // a signed hexadecimal integer, or for an explicit plus sign a hexadecimal double
+            return sign == '+' ? scanHexDouble() : scanHexInteger();
+        }
+        if (matchWord("NaN")) {
+            return finish(Double.NaN);
+        }
+        if (matchWord("Infinity")) {
+            return finish(negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+        }
+        return scanDecimal(negative);
+    }
+
+    /**
+     * @return Whether the range of text is numeric
+     * @see #scan(CharSequence, int, int)
+     */
+    public static boolean isNumeric(CharSequence text, int start, int end) {
+        return new NumberScanner().scan(text, start, end);
+    }
+
+    /**
+     * Get the value of the last numeric range scanned, as {@link Double#parseDouble(String)}
+     * gives it for the range without whitespace
+     *
+     * @return The value of the last range scanned
+     * @throws NumberFormatException if the range is not a number {@link Double#parseDouble(String)}
+     *                               accepts, which includes hexadecimal integers
+     */
+    public double getValue() {
+        if (!converted)
+            return Double.parseDouble(withoutWhitespace());
+        return value;
+    }
+
+    private boolean scanDecimal(boolean negative) {
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+
+        while (position < end && isDigit(peek())) {
+            int digit = next() - '0';
+            digits++;
+            if (mantissa != 0 || digit != 0) {
+                if (significantDigits < MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    significantDigits++;
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (position < end && peek() == '.') {
+            next();
+            while (position < end && isDigit(peek())) {
+                int digit = next() - '0';
+                digits++;
+                if (mantissa == 0 && digit == 0) {
+                    exponent--;
+                } else if (significantDigits < MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    significantDigits++;
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (digits == 0)
+            return false;
+
+        if (position < end && (peek() == 'e' || peek() == 'E')) {
+            next();
+            int exponentSign = 1;
+            if (position < end && (peek() == '+' || peek() == '-')) {
+                exponentSign = next() == '-' ? -1 : 1;
+            }
+            if (position == end || !isDigit(peek()))
+                return false;
+
+            int written = 0;
+            while (position < end && isDigit(peek())) {
+                written = Math.min(written * 10 + (next() - '0'), 100_000);
+            }
+            exponent += exponentSign * written;
+        }
+        skipTypeSuffix();
+        if (position != end)
+            return false;
+
+        // inexact digits have been dropped from the mantissa so must be converted in full
+        if (!exact)
+            return true;
+
+        double result;
+        if (mantissa == 0)
+            result = 0;
+        else if (exponent >= 0 && exponent < POWERS_OF_TEN.length)
+            result = mantissa * POWERS_OF_TEN[exponent];
+        else if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+            result = mantissa / POWERS_OF_TEN[-exponent];
+        else
+            return true;
+
+        // both the mantissa and the power of ten are exact, so one operation rounds correctly
+        return finish(negative ? -result : result);
+    }
+
+    private boolean scanHexInteger() {
+        // the digits after the prefix are read as Long.parseLong(digits, 16) would
+        boolean negative = false;
+        if (position < end && (peek() == '+' || peek() == '-')) {
+            negative = next() == '-';
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        int digits = 0;
+        while (position < end) {
+            int digit = Character.digit(next(), 16);
+            if (digit < 0 || result < limit / 16)
+                return false;
+            result *= 16;
+            if (result < limit + digit)
+                return false;
+            result -= digit;
+            digits++;
+        }
+        return digits > 0;
+    }
+
+    private boolean scanHexDouble() {
+        int digits = 0;
+        while (position < end && isHexDigit(peek())) {
+            next();
+            digits++;
+        }
+        if (position < end && peek() == '.') {
+            next();
+            while (position < end && isHexDigit(peek())) {
+                next();
+                digits++;
+            }
+        }
+        if (digits == 0 || position == end || (peek() != 'p' && peek() != 'P'))
+            return false;
+
+        next();
+        if (position < end && (peek() == '+' || peek() == '-'))
+            next();
+        if (position == end || !isDigit(peek()))
+            return false;
+        while (position < end && isDigit(peek()))
+            next();
+
+        skipTypeSuffix();
+        return position == end;
+    }
+
+    private boolean isHexPrefix() {
+        if (position == end || text.charAt(position) != '0')
+            return false;
+
+        int saved = position;
+        next();
+        if (position < end && (peek() == 'x' || peek() == 'X')) {
+            next();
+            return true;
+        }
+        position = saved;
+        return false;
+    }
+
+    private boolean matchWord(String word) {
+        int saved = position;
+        for (int i = 0; i < word.length(); i++) {
+            if (position == end || peek() != word.charAt(i)) {
+                position = saved;
+                return false;
+            }
+            next();
+        }
+        return true;
+    }
+
+    private void skipTypeSuffix() {
+        if (position < end) {
+            char c = peek();
+            if (c == 'f' || c == 'F' || c == 'd' || c == 'D')
+                next();
+        }
+    }
+
+    private boolean finish(double result) {
+        if (position != end)
+            return false;
+
+        value = result;
+        converted = true;
+        return true;
+    }
+
+    /**
+     * @return The character at the current position, which must not be whitespace
+     */
+    private char peek() {
+        return text.charAt(position);
+    }
+
+    /**
+     * Move past the character at the current position and any whitespace after it
+     *
+     * @return The character moved past
+     */
+    private char next() {
+        char c = text.charAt(position++);
+        skipWhitespace();
+        return c;
+    }
+
+    private void skipWhitespace() {
+        while (position < end && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private String withoutWhitespace() {
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c))
+                builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
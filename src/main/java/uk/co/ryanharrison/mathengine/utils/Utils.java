@@ -59,38 +59,13 @@ public final class Utils {
      * @return {@code true} if the string is numeric, {@code false} otherwise (including null input)
      *
      * @see #standardiseString(String)
+     * @see NumberScanner
      */
     public static boolean isNumeric(String string) {
-        if (string == null || string.isEmpty()) {
-            return false;
-        }
-
-        // Remove all whitespace
-        String str = deleteWhitespace(string);
-
-        if (str.isEmpty()) {
-            return false;
-        }
-
-        // Handle hexadecimal
-        if (str.startsWith("0x") || str.startsWith("0X") ||
-                str.startsWith("-0x") || str.startsWith("-0X")) {
-            try {
-                String hexPart = str.startsWith("-") ? str.substring(3) : str.substring(2);
-                Long.parseLong(hexPart, 16);
-                return true;
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-
-        // Try to parse as double (handles integers, decimals, scientific notation)
-        try {
-            Double.parseDouble(str);
-            return true;
-        } catch (NumberFormatException e) {
+        if (string == null) {
             return false;
         }
+        return NumberScanner.isNumeric(string, 0, string.length());
     }
 
     /**
@@ -611,6 +586,10 @@ public final class Utils {
      * This method removes spaces, tabs, newlines, and all other characters that
      * {@link Character#isWhitespace(char)} considers to be whitespace.
      * </p>
+     * <p>
+     * The input instance is returned unchanged when it contains no whitespace, so
+     * already-clean strings do not allocate.
+     * </p>
      *
      * @param string the string to process, may be null
      * @return the string with all whitespace removed, or null if input is null
@@ -620,8 +599,17 @@ public final class Utils {
             return null;
         }
 
+        int first = 0;
+        while (first < string.length() && !Character.isWhitespace(string.charAt(first))) {
+            first++;
+        }
+        if (first == string.length()) {
+            return string;
+        }
+
         StringBuilder builder = new StringBuilder(string.length());
-        for (int i = 0; i < string.length(); i++) {
+        builder.append(string, 0, first);
+        for (int i = first + 1; i < string.length(); i++) {
             char c = string.charAt(i);
             if (!Character.isWhitespace(c)) {
                 builder.append(c);
@@ -0,0 +1,143 @@
+package uk.co.ryanharrison.mathengine.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.EvaluationMode;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test suite for {@link Function}.
+ */
+class FunctionTest {
+
+    private static final double TOLERANCE = 1e-12;
+
+    @ParameterizedTest
+    @CsvSource({
+            "x^2 + 8*x + 12, 12.5, 268.25",
+            "x^2 + 8*x + 12, -2, 0",
+            "x^2 + 8*x + 12, 0.5, 16.25",
+            "3*x - 7, 0.1, -6.7",
+            "x/4, 1, 0.25",
+            "exp(x), 0, 1",
+            "sin(x) + cos(x), 0, 1"
+    })
+    void evaluatesAtPoint(String equation, double at, double expected) {
+        Function function = new Function(equation);
+
+        assertThat(function.evaluateAt(at)).isCloseTo(expected, within(TOLERANCE));
+    }
+
+    @Test
+    void repeatedEvaluationRebindsVariable() {
+        Function function = new Function("x^3 - 2*x");
+
+        for (int i = -50; i <= 50; i++) {
+            double x = i / 10.0;
+            assertThat(function.evaluateAt(x)).isCloseTo(x * x * x - 2 * x, within(TOLERANCE));
+        }
+    }
+
+    @Test
+    void evaluatesAtExpression() {
+        Function function = new Function("x^2");
+
+        assertThat(function.evaluateAt("1 + 2")).isCloseTo(9, within(TOLERANCE));
+        assertThat(function.evaluateAt(4)).isCloseTo(16, within(TOLERANCE));
+    }
+
+    @Test
+    void usesCustomVariable() {
+        Function function = new Function("2*t + 1", "t");
+
+        assertThat(function.evaluateAt(3)).isCloseTo(7, within(TOLERANCE));
+    }
+
+    @Test
+    void usesAngleUnit() {
+        Function function = new Function("sin(x)", AngleUnit.Degrees);
+
+        assertThat(function.evaluateAt(90)).isCloseTo(1, within(TOLERANCE));
+    }
+
+    @Test
+    void defaultsToTreeEvaluation() {
+        assertThat(new Function("x").getEvaluationMode()).isEqualTo(EvaluationMode.Tree);
+    }
+
+    @Test
+    void bytecodeModeMatchesTreeMode() {
+        Function tree = new Function("x^3 - 2*sin(x) + exp(x/4)", "x", AngleUnit.Degrees);
+        Function compiled = new Function("x^3 - 2*sin(x) + exp(x/4)", "x", AngleUnit.Degrees,
+                EvaluationMode.Bytecode);
+
+        for (int i = -40; i <= 40; i++) {
+            double x = i / 4.0;
+            assertThat(compiled.evaluateAt(x)).isCloseTo(tree.evaluateAt(x), within(1e-9));
+        }
+        assertThat(compiled.evaluateAt("2 + 1")).isCloseTo(tree.evaluateAt(3), within(1e-9));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "x^2 + 8*x + 12, 12.5, 268.25",
+            "x^2 + 8*x + 12, -2, 0",
+            "3*x - 7, 0.1, -6.7",
+            "exp(x), 0, 1",
+            "sin(x) + cos(x), 0, 1"
+    })
+    void postfixModeEvaluatesAtPoint(String equation, double at, double expected) {
+        Function function = new Function(equation, "x", AngleUnit.Radians, EvaluationMode.Postfix);
+
+        assertThat(function.evaluateAt(at)).isCloseTo(expected, within(TOLERANCE));
+    }
+
+    @ParameterizedTest
+    @EnumSource(EvaluationMode.class)
+    void evaluateAllMatchesEvaluateAt(EvaluationMode mode) {
+        Function function = new Function("x^3 - 2*sin(x) + exp(x/4)", "x", AngleUnit.Radians, mode);
+        double[] xs = new double[1000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = -10 + i * 0.02;
+        }
+        double[] out = new double[xs.length];
+
+        function.evaluateAll(xs, out);
+
+        for (int i = 0; i < xs.length; i++) {
+            assertThat(out[i]).isCloseTo(function.evaluateAt(xs[i]), within(1e-9));
+        }
+    }
+
+    @Test
+    void evaluateAllRejectsShortOutput() {
+        Function function = new Function("x + 1");
+
+        assertThatThrownBy(() -> function.evaluateAll(new double[3], new double[2]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compiledExpressionIsBuiltOnce() {
+        Function function = new Function("x^2 + 1");
+
+        assertThat(function.getCompiledExpression()).isSameAs(function.getCompiledExpression());
+        assertThat(function.getCompiledExpression().toString()).isEqualTo("((x ^ 2) + 1)");
+    }
+
+    @Test
+    void invalidEquationThrowsOnEvaluation() {
+        Function function = new Function("x +");
+
+        assertThatThrownBy(() -> function.evaluateAt(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void toStringIncludesVariableAndEquation() {
+        assertThat(new Function("x^2", "x")).hasToString("f(x) = x^2");
+    }
+}
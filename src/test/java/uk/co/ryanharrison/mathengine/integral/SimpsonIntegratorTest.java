@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import uk.co.ryanharrison.mathengine.core.Function;
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.EvaluationMode;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -455,6 +457,18 @@ class SimpsonIntegratorTest {
         assertThat(result).isCloseTo(0.0, within(TOLERANCE));
     }
 
+    @Test
+    void compiledFunctionMatchesTreeFunction() {
+        Function tree = new Function("x^3 - 2*sin(x) + exp(x/4)");
+        Function compiled = new Function("x^3 - 2*sin(x) + exp(x/4)", "x", AngleUnit.Radians,
+                EvaluationMode.Postfix);
+
+        double expected = SimpsonIntegrator.of(tree, -2.0, 3.0, 2000).integrate();
+        double actual = SimpsonIntegrator.of(compiled, -2.0, 3.0, 2000).integrate();
+
+        assertThat(actual).isCloseTo(expected, within(1e-9));
+    }
+
     // ==================== Edge Case Tests ====================
 
     @Test
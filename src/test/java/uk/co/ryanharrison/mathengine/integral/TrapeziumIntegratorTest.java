@@ -5,6 +5,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import uk.co.ryanharrison.mathengine.core.Function;
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.EvaluationMode;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -349,6 +351,18 @@ class TrapeziumIntegratorTest {
         assertThat(result).isCloseTo(expected, within(TOLERANCE));
     }
 
+    @Test
+    void compiledFunctionMatchesTreeFunction() {
+        Function tree = new Function("x^3 - 2*sin(x) + exp(x/4)");
+        Function compiled = new Function("x^3 - 2*sin(x) + exp(x/4)", "x", AngleUnit.Radians,
+                EvaluationMode.Postfix);
+
+        double expected = TrapeziumIntegrator.of(tree, -2.0, 3.0, 2000).integrate();
+        double actual = TrapeziumIntegrator.of(compiled, -2.0, 3.0, 2000).integrate();
+
+        assertThat(actual).isCloseTo(expected, within(1e-9));
+    }
+
     // ==================== Integration Accuracy - Convergence ====================
 
     @Test
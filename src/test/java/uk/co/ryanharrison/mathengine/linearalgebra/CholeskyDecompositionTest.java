@@ -0,0 +1,220 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Comprehensive test suite for {@link CholeskyDecomposition}.
+ */
+class CholeskyDecompositionTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    private static final Matrix SPD = Matrix.of(new double[][]{
+            {4, 12, -16},
+            {12, 37, -43},
+            {-16, -43, 98}
+    });
+
+    // ==================== Construction Tests ====================
+
+    @Test
+    void constructorRejectsNullMatrix() {
+        assertThatThrownBy(() -> new CholeskyDecomposition(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("null");
+    }
+
+    @Test
+    void constructorRejectsNonSquareMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+
+        assertThatThrownBy(() -> new CholeskyDecomposition(matrix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("square");
+    }
+
+    @Test
+    void constructorDoesNotModifyOriginalMatrix() {
+        double[][] originalCopy = SPD.getArrayCopy();
+
+        new CholeskyDecomposition(SPD);
+
+        assertThat(SPD.getArrayCopy()).isDeepEqualTo(originalCopy);
+    }
+
+    // ==================== Decomposition Properties Tests ====================
+
+    @Test
+    void decompositionOfKnownMatrix() {
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(SPD);
+
+        assertThat(cholesky.isSPD()).isTrue();
+        assertMatrixEquals(cholesky.getL(), Matrix.of(new double[][]{
+                {2, 0, 0},
+                {6, 1, 0},
+                {-8, 5, 3}
+        }));
+    }
+
+    // sizes either side of the block size, so that every step of the blocked algorithm runs
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 63, 64, 65, 130, 200})
+    void decompositionSatisfiesLLTransposeEqualsA(int n) {
+        Matrix a = randomSpd(n, n);
+
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(a);
+
+        assertThat(cholesky.isSPD()).isTrue();
+        Matrix l = cholesky.getL();
+        assertMatrixEquals(l.multiply(l.transpose()), a);
+        for (int i = 0; i < n; i++) {
+            assertThat(l.get(i, i)).isPositive();
+            for (int j = i + 1; j < n; j++) {
+                assertThat(l.get(i, j)).isZero();
+            }
+        }
+    }
+
+    @Test
+    void determinantMatchesLUDecomposition() {
+        Matrix a = randomSpd(6, 1);
+
+        double determinant = new CholeskyDecomposition(a).getDeterminant();
+
+        assertThat(determinant).isCloseTo(new LUDecomposition(a).getDeterminant(), within(1e-9 * determinant));
+        assertThat(new CholeskyDecomposition(SPD).getDeterminant()).isCloseTo(36.0, within(TOLERANCE));
+    }
+
+    // ==================== Positive-Definiteness Tests ====================
+
+    @Test
+    void isSPDReturnsFalseForNonSymmetricMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {4, 1},
+                {2, 3}
+        });
+
+        assertThat(new CholeskyDecomposition(matrix).isSPD()).isFalse();
+    }
+
+    @Test
+    void isSPDReturnsFalseForIndefiniteMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 2},
+                {2, 1}
+        });
+
+        assertThat(new CholeskyDecomposition(matrix).isSPD()).isFalse();
+    }
+
+    @Test
+    void isSPDReturnsFalseForSingularMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 1},
+                {1, 1}
+        });
+
+        assertThat(new CholeskyDecomposition(matrix).isSPD()).isFalse();
+    }
+
+    @Test
+    void isSPDReturnsFalseWhenLaterBlockIsNotPositive() {
+        Matrix matrix = randomSpd(100, 2).subtract(Matrix.identity(100).multiply(1e6));
+
+        assertThat(new CholeskyDecomposition(matrix).isSPD()).isFalse();
+    }
+
+    @Test
+    void gettersRejectMatrixThatIsNotSPD() {
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(Matrix.of(new double[][]{
+                {1, 2},
+                {2, 1}
+        }));
+
+        assertThatThrownBy(cholesky::getL)
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("positive-definite");
+        assertThatThrownBy(() -> cholesky.solve(Matrix.identity(2)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("positive-definite");
+    }
+
+    // ==================== System Solving Tests ====================
+
+    @Test
+    void solveComputesCorrectSolution() {
+        Matrix b = Matrix.of(new double[]{1, 2, 3});
+
+        Matrix x = new CholeskyDecomposition(SPD).solve(b);
+
+        assertMatrixEquals(SPD.multiply(x), b);
+    }
+
+    @Test
+    void solveSupportsMultipleColumnRightHandSide() {
+        Matrix a = randomSpd(70, 3);
+        Matrix b = Matrix.random(70, 4);
+
+        Matrix x = new CholeskyDecomposition(a).solve(b);
+
+        assertMatrixEquals(a.multiply(x), b);
+        assertMatrixEquals(x, new LUDecomposition(a).solve(b));
+    }
+
+    @Test
+    void solveRejectsMatrixWithMismatchedRowDimensions() {
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(SPD);
+
+        assertThatThrownBy(() -> cholesky.solve(Matrix.of(new double[]{1, 2})))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("row dimensions must agree");
+    }
+
+    @Test
+    void solvingSystemDoesNotChangeDecomposition() {
+        CholeskyDecomposition cholesky = new CholeskyDecomposition(SPD);
+        Matrix before = cholesky.getL();
+
+        cholesky.solve(Matrix.of(new double[]{1, 2, 3}));
+
+        assertThat(cholesky.getL()).isEqualTo(before);
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * A random symmetric positive-definite matrix, as X^T X plus a multiple of the identity
+     */
+    static Matrix randomSpd(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] x = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                x[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        Matrix m = Matrix.of(x);
+        return m.transpose().multiply(m).add(Matrix.identity(n).multiply(n));
+    }
+
+    private static void assertMatrixEquals(Matrix actual, Matrix expected) {
+        assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(actual.getColumnCount()).isEqualTo(expected.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumnCount(); j++) {
+                assertThat(actual.get(i, j))
+                        .as("element (%d, %d)", i, j)
+                        .isCloseTo(expected.get(i, j), within(TOLERANCE * Math.max(1, Math.abs(expected.get(i, j)))));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times {@link CholeskyDecomposition} against {@link LUDecomposition} solving symmetric
+ * positive-definite systems of increasing size. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class DecompositionBenchmark {
+
+    private static final int[] SIZES = {16, 64, 128, 256, 512, 1024};
+
+    @Test
+    void symmetricPositiveDefiniteSystems() {
+        for (int size : SIZES) {
+            Matrix a = CholeskyDecompositionTest.randomSpd(size, size);
+            Matrix b = Matrix.random(size, 1);
+            int runs = size >= 512 ? 3 : 10;
+
+            double lu = time(() -> new LUDecomposition(a).solve(b), runs);
+            double cholesky = time(() -> new CholeskyDecomposition(a).solve(b), runs);
+            System.out.printf("%5d × %-5d  LU %10.3f ms  Cholesky %10.3f ms  (%.1fx)%n",
+                    size, size, lu, cholesky, lu / cholesky);
+
+            if (size >= 256) {
+                assertThat(cholesky).as("Cholesky time at %d", size).isLessThan(lu);
+            }
+        }
+    }
+
+    private static double time(Supplier<Matrix> solve, int runs) {
+        for (int i = 0; i < runs; i++) {
+            solve.get();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            solve.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
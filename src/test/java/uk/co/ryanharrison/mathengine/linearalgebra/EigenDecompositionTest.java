@@ -0,0 +1,196 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Comprehensive test suite for {@link EigenDecomposition}.
+ */
+class EigenDecompositionTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    // ==================== Construction Tests ====================
+
+    @Test
+    void constructorRejectsNullMatrix() {
+        assertThatThrownBy(() -> new EigenDecomposition(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("null");
+    }
+
+    @Test
+    void constructorRejectsNonSymmetricMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 2},
+                {3, 4}
+        });
+
+        assertThatThrownBy(() -> new EigenDecomposition(matrix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("symmetric");
+    }
+
+    @Test
+    void constructorRejectsNonSquareMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+
+        assertThatThrownBy(() -> new EigenDecomposition(matrix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("symmetric");
+    }
+
+    @Test
+    void constructorRejectsNonFiniteElements() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, Double.NaN},
+                {Double.NaN, 1}
+        });
+
+        assertThatThrownBy(() -> new EigenDecomposition(matrix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("finite");
+    }
+
+    // ==================== Decomposition Properties Tests ====================
+
+    @Test
+    void eigenvaluesOfKnownMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {2, 1},
+                {1, 2}
+        });
+
+        EigenDecomposition eigen = new EigenDecomposition(matrix);
+
+        assertThat(eigen.getEigenvalues()).containsExactly(new double[]{1, 3}, within(TOLERANCE));
+        Vector v = eigen.getEigenvector(1);
+        assertThat(Math.abs(v.get(0))).isCloseTo(Math.sqrt(0.5), within(TOLERANCE));
+        assertThat(v.get(1)).isCloseTo(v.get(0), within(TOLERANCE));
+    }
+
+    @Test
+    void eigenvaluesOfDiagonalMatrixAreSortedDiagonal() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {5, 0, 0},
+                {0, -2, 0},
+                {0, 0, 1}
+        });
+
+        EigenDecomposition eigen = new EigenDecomposition(matrix);
+
+        assertThat(eigen.getEigenvalues()).containsExactly(new double[]{-2, 1, 5}, within(TOLERANCE));
+        assertMatrixEquals(eigen.getV().multiply(eigen.getD()).multiply(eigen.getV().transpose()), matrix);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 10, 50, 120})
+    void decompositionSatisfiesVDVTransposeEqualsA(int n) {
+        Matrix a = randomSymmetric(n, n);
+
+        EigenDecomposition eigen = new EigenDecomposition(a);
+        Matrix v = eigen.getV();
+
+        assertMatrixEquals(v.multiply(eigen.getD()).multiply(v.transpose()), a);
+        assertMatrixEquals(v.transpose().multiply(v), Matrix.identity(n));
+    }
+
+    @Test
+    void eigenvectorsSatisfyAvEqualsLambdaV() {
+        Matrix a = randomSymmetric(8, 1);
+        EigenDecomposition eigen = new EigenDecomposition(a);
+        double[] eigenvalues = eigen.getEigenvalues();
+
+        for (int i = 0; i < 8; i++) {
+            Matrix v = Matrix.of(eigen.getEigenvector(i).toArray());
+            assertMatrixEquals(a.multiply(v), v.multiply(eigenvalues[i]));
+        }
+    }
+
+    @Test
+    void eigenvaluesAreAscendingAndSumToTrace() {
+        Matrix a = randomSymmetric(12, 2);
+
+        double[] eigenvalues = new EigenDecomposition(a).getEigenvalues();
+
+        assertThat(eigenvalues).isSorted();
+        assertThat(Arrays.stream(eigenvalues).sum()).isCloseTo(a.trace(), within(TOLERANCE));
+    }
+
+    @Test
+    void repeatedEigenvaluesHaveOrthogonalEigenvectors() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {2, 0, 0},
+                {0, 3, 1},
+                {0, 1, 3}
+        });
+
+        EigenDecomposition eigen = new EigenDecomposition(matrix);
+
+        assertThat(eigen.getEigenvalues()).containsExactly(new double[]{2, 2, 4}, within(TOLERANCE));
+        assertMatrixEquals(eigen.getV().transpose().multiply(eigen.getV()), Matrix.identity(3));
+    }
+
+    @Test
+    void eigenvaluesOfCovarianceMatrixArePositive() {
+        Matrix covariance = CholeskyDecompositionTest.randomSpd(20, 3);
+
+        double[] eigenvalues = new EigenDecomposition(covariance).getEigenvalues();
+
+        assertThat(eigenvalues[0]).isPositive();
+    }
+
+    // ==================== Accessor Tests ====================
+
+    @Test
+    void getEigenvectorRejectsIndexOutOfRange() {
+        EigenDecomposition eigen = new EigenDecomposition(Matrix.identity(2));
+
+        assertThatThrownBy(() -> eigen.getEigenvector(2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("out of range");
+    }
+
+    @Test
+    void modifyingReturnedEigenvaluesDoesNotAffectDecomposition() {
+        EigenDecomposition eigen = new EigenDecomposition(Matrix.identity(3));
+
+        eigen.getEigenvalues()[0] = 42;
+
+        assertThat(eigen.getEigenvalues()[0]).isEqualTo(1.0);
+    }
+
+    // ==================== Helpers ====================
+
+    private static Matrix randomSymmetric(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                a[i][j] = a[j][i] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return Matrix.of(a);
+    }
+
+    private static void assertMatrixEquals(Matrix actual, Matrix expected) {
+        assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(actual.getColumnCount()).isEqualTo(expected.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumnCount(); j++) {
+                assertThat(actual.get(i, j))
+                        .as("element (%d, %d)", i, j)
+                        .isCloseTo(expected.get(i, j), within(TOLERANCE));
+            }
+        }
+    }
+}
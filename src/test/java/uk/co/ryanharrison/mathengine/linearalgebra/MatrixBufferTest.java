@@ -0,0 +1,143 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MatrixBufferTest {
+    private static final double TOLERANCE = 1e-9;
+
+    private final Matrix A = Matrix.of(new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}});
+    private final Matrix B = Matrix.of(new double[][]{{6.0, 5.0, 4.0}, {3.0, 2.0, 1.0}});
+
+    // ==================== Into Operations ====================
+
+    @Test
+    void elementwiseIntoMatchesImmutableOperations() {
+        MatrixBuffer result = MatrixBuffer.ofSize(2, 3);
+
+        assertThat(A.addInto(B, result).toMatrix()).isEqualTo(A.add(B));
+        assertThat(A.subtractInto(B, result).toMatrix()).isEqualTo(A.subtract(B));
+        assertThat(A.multiplyInto(2.5, result).toMatrix()).isEqualTo(A.multiply(2.5));
+        assertThat(A.arrayMultiplyInto(B, result).toMatrix()).isEqualTo(A.arrayMultiply(B));
+        assertThat(A.powInto(2.0, result).toMatrix()).isEqualTo(A.pow(2.0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 40, 130})
+    void multiplyIntoMatchesMultiply(int size) {
+        Matrix X = Matrix.random(size, size + 1);
+        Matrix Y = Matrix.random(size + 1, size - 1);
+        MatrixBuffer result = MatrixBuffer.ofSize(size, size - 1).fill(7.0);
+
+        // twice, so the second product is written over the first
+        X.multiplyInto(Y, result);
+        X.multiplyInto(Y, result);
+
+        assertThat(result.toMatrix()).isEqualTo(X.multiply(Y));
+    }
+
+    @Test
+    void operationsOnViewsOfBuffers() {
+        MatrixBuffer x = MatrixBuffer.copyOf(A);
+        MatrixBuffer y = MatrixBuffer.ofSize(3, 3);
+
+        A.transpose().multiplyInto(x.asMatrix(), y);
+
+        assertThat(y.toMatrix()).isEqualTo(A.transpose().multiply(A));
+    }
+
+    @Test
+    void elementwiseOperationsCanWriteToTheirOwnBuffer() {
+        MatrixBuffer x = MatrixBuffer.copyOf(A);
+
+        x.asMatrix().multiplyInto(2.0, x);
+        x.asMatrix().addInto(x.asMatrix(), x);
+        B.subtractInto(x.asMatrix(), x);
+
+        assertThat(x.toMatrix()).isEqualTo(B.subtract(A.multiply(4.0)));
+    }
+
+    @Test
+    void powerIterationFindsDominantEigenvector() {
+        Matrix M = Matrix.of(new double[][]{{2.0, 1.0}, {1.0, 2.0}});
+        MatrixBuffer x = MatrixBuffer.copyOf(Matrix.of(new double[]{1.0, 0.0}));
+        MatrixBuffer y = MatrixBuffer.ofSize(2, 1);
+
+        for (int k = 0; k < 100; k++) {
+            M.multiplyInto(x.asMatrix(), y);
+            y.asMatrix().multiplyInto(1.0 / y.norm(), x);
+        }
+
+        assertThat(x.get(0, 0)).isCloseTo(Math.sqrt(0.5), within(TOLERANCE));
+        assertThat(x.get(1, 0)).isCloseTo(Math.sqrt(0.5), within(TOLERANCE));
+    }
+
+    @Test
+    void rejectsMismatchedDimensions() {
+        MatrixBuffer wrong = MatrixBuffer.ofSize(3, 2);
+
+        assertThatThrownBy(() -> A.addInto(B, wrong))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Result dimensions");
+        assertThatThrownBy(() -> A.addInto(B.transpose(), MatrixBuffer.ofSize(2, 3)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> A.multiplyInto(B, MatrixBuffer.ofSize(2, 2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("inner dimensions");
+        assertThatThrownBy(() -> A.multiplyInto(B.transpose(), MatrixBuffer.ofSize(2, 3)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Result dimensions");
+    }
+
+    @Test
+    void rejectsBufferOverwrittenBeforeItIsRead() {
+        MatrixBuffer square = MatrixBuffer.copyOf(Matrix.of(new double[][]{{1.0, 2.0}, {3.0, 4.0}}));
+
+        assertThatThrownBy(() -> square.asMatrix().multiplyInto(square.asMatrix(), square))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Matrix.identity(2).multiplyInto(square.asMatrix(), square))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> square.asMatrix().addInto(square.asMatrix().transpose(), square))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ==================== Buffer ====================
+
+    @Test
+    void asMatrixSeesLaterWritesButToMatrixDoesNot() {
+        MatrixBuffer buffer = MatrixBuffer.ofSize(2, 2);
+        Matrix view = buffer.asMatrix();
+        Matrix snapshot = buffer.toMatrix();
+
+        buffer.set(1, 0, 5.0);
+
+        assertThat(view.get(1, 0)).isEqualTo(5.0);
+        assertThat(snapshot.get(1, 0)).isEqualTo(0.0);
+        assertThat(buffer.get(1, 0)).isEqualTo(5.0);
+    }
+
+    @Test
+    void setCopiesMatrixIncludingTransposedViewOfItself() {
+        MatrixBuffer buffer = MatrixBuffer.copyOf(Matrix.of(new double[][]{{1.0, 2.0}, {3.0, 4.0}}));
+
+        buffer.set(buffer.asMatrix().transpose());
+
+        assertThat(buffer.toMatrix()).isEqualTo(Matrix.of(new double[][]{{1.0, 3.0}, {2.0, 4.0}}));
+        assertThatThrownBy(() -> buffer.set(A)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void accessorsCheckBounds() {
+        MatrixBuffer buffer = MatrixBuffer.ofSize(2, 3);
+
+        assertThat(buffer.getRowCount()).isEqualTo(2);
+        assertThat(buffer.getColumnCount()).isEqualTo(3);
+        assertThatThrownBy(() -> buffer.get(0, 3)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> buffer.set(2, 0, 1.0)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> MatrixBuffer.ofSize(-1, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MatrixBuffer.copyOf(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
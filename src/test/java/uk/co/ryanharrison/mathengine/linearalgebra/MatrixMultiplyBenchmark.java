@@ -0,0 +1,98 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times {@link Matrix#multiply(Matrix)} against the simple column cached loop it used for all
+ * sizes before the blocked kernel, on square matrices of increasing size. Run with
+ * {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class MatrixMultiplyBenchmark {
+
+    private static final int[] SIZES = {8, 32, 64, 128, 256, 512, 1024, 2048, 4096};
+
+    /**
+     * The largest size the simple loop is timed at, past which it takes minutes
+     */
+    private static final int LARGEST_SIMPLE = 2048;
+
+    @Test
+    void squareMatrices() {
+        for (int size : SIZES) {
+            // the operands, result and packed copy of B, with room for the collector
+            long needed = 6L * size * size * Double.BYTES;
+            if (needed > Runtime.getRuntime().maxMemory()) {
+                System.out.printf("%5d × %-5d  skipped, needs a heap of %d MB%n", size, size, needed >> 20);
+                continue;
+            }
+
+            Matrix A = Matrix.random(size, size);
+            Matrix B = Matrix.random(size, size);
+            int runs = size >= 1024 ? 1 : 5;
+
+            double current = time(() -> A.multiply(B), runs);
+            double gflops = 2.0 * size * size * size / (current * 1e6);
+
+            if (size > LARGEST_SIMPLE) {
+                System.out.printf("%5d × %-5d  simple %10s     new %10.3f ms  %6.2f GFLOP/s%n",
+                        size, size, "-", current, gflops);
+                continue;
+            }
+
+            double[][] a = A.getArrayCopy();
+            double[][] b = B.getArrayCopy();
+            double simple = time(() -> simpleMultiply(a, b), runs);
+            System.out.printf("%5d × %-5d  simple %10.3f ms  new %10.3f ms  %6.2f GFLOP/s  (%.1fx)%n",
+                    size, size, simple, current, gflops, simple / current);
+
+            if (size >= 512) {
+                assertThat(current).as("blocked time at %d", size).isLessThan(simple);
+            }
+        }
+    }
+
+    private static double time(Supplier<Matrix> multiply, int runs) {
+        for (int i = 0; i < Math.max(1, 3 - runs / 2); i++) {
+            multiply.get();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            multiply.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * The loop {@link Matrix#multiply(Matrix)} used before the blocked kernel
+     */
+    private static Matrix simpleMultiply(double[][] a, double[][] b) {
+        int rows = a.length;
+        int inner = b.length;
+        int columns = b[0].length;
+
+        double[][] result = new double[rows][columns];
+        double[] columnCache = new double[inner];
+        for (int j = 0; j < columns; j++) {
+            for (int k = 0; k < inner; k++) {
+                columnCache[k] = b[k][j];
+            }
+            for (int i = 0; i < rows; i++) {
+                double sum = 0.0;
+                for (int k = 0; k < inner; k++) {
+                    sum += a[i][k] * columnCache[k];
+                }
+                result[i][j] = sum;
+            }
+        }
+        return Matrix.of(result);
+    }
+}
@@ -687,6 +687,38 @@ class MatrixTest {
         assertThat(result.get(1, 1)).isEqualTo(50.0);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "64, 64, 64",     // smallest blocked product
+            "67, 130, 71",    // partial tiles and panels
+            "5, 300, 257",    // fewer rows than a task, inner dimension over one block
+            "200, 150, 203",  // split across tasks
+            "1, 4096, 64",
+            "300, 1, 1000"
+    })
+    void multiplyLargeMatricesMatchesSimpleProduct(int rows, int inner, int columns) {
+        Matrix A = integerMatrix(rows, inner, 1);
+        Matrix B = integerMatrix(inner, columns, 2);
+
+        Matrix result = A.multiply(B);
+
+        // small integers are summed exactly in any order
+        assertThat(result.getRowCount()).isEqualTo(rows);
+        assertThat(result.getColumnCount()).isEqualTo(columns);
+        assertThat(result).isEqualTo(simpleProduct(A, B));
+    }
+
+    @Test
+    void multiplyLargeMatricesGivesSameResultEachTime() {
+        Matrix A = Matrix.random(250, 180);
+        Matrix B = Matrix.random(180, 190);
+
+        Matrix first = A.multiply(B);
+
+        assertThat(A.multiply(B)).isEqualTo(first);
+        assertThat(first.subtract(simpleProduct(A, B)).norm1()).isLessThan(RELAXED_TOLERANCE);
+    }
+
     @Test
     void multiplyRejectsIncompatibleDimensions() {
         Matrix A = Matrix.of(new double[][]{{1.0, 2.0}});  // 1x2
@@ -1008,6 +1040,86 @@ class MatrixTest {
                 .hasMessageContaining("empty");
     }
 
+    // ==================== Views ====================
+
+    @Test
+    void getRowAndColumnReturnViews() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1.0, 2.0, 3.0},
+                {4.0, 5.0, 6.0}
+        });
+
+        assertThat(matrix.getRow(1)).isEqualTo(Matrix.of(new double[][]{{4.0, 5.0, 6.0}}));
+        assertThat(matrix.getColumn(2)).isEqualTo(Matrix.of(new double[]{3.0, 6.0}));
+        assertThat(matrix.transpose().getRow(2)).isEqualTo(Matrix.of(new double[][]{{3.0, 6.0}}));
+        assertThat(matrix.transpose().getColumn(0)).isEqualTo(Matrix.of(new double[]{1.0, 2.0, 3.0}));
+        assertThatThrownBy(() -> matrix.getRow(2)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> matrix.getColumn(-1)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void viewsOfViewsResolveToOriginalElements() {
+        Matrix matrix = integerMatrix(6, 5, 3);
+
+        Matrix view = matrix.getMatrix(1, 4, 1, 3).transpose().getMatrix(1, 2, 0, 3);
+
+        assertThat(view.getRowCount()).isEqualTo(2);
+        assertThat(view.getColumnCount()).isEqualTo(4);
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertThat(view.get(i, j)).isEqualTo(matrix.get(j + 1, i + 2));
+            }
+        }
+        assertThat(view.transpose().transpose()).isEqualTo(view);
+    }
+
+    @Test
+    void viewsCheckBoundsAgainstTheirOwnSize() {
+        Matrix view = integerMatrix(4, 4, 1).getMatrix(1, 2, 1, 2);
+
+        assertThatThrownBy(() -> view.get(0, 2)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> view.get(2, 0)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> view.getMatrix(0, 2, 0, 1)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void viewsEqualTheirCopies() {
+        Matrix view = integerMatrix(5, 7, 2).transpose().getMatrix(1, 5, 2, 4);
+        Matrix copy = view.copy();
+
+        assertThat(copy).isEqualTo(view);
+        assertThat(copy.hashCode()).isEqualTo(view.hashCode());
+        assertThat(copy.toString()).isEqualTo(view.toString());
+        assertThat(view.getRowPackedCopy()).containsExactly(copy.getRowPackedCopy());
+        assertThat(view.getColumnPackedCopy()).containsExactly(copy.getColumnPackedCopy());
+        assertThat(view.getArrayCopy()).isDeepEqualTo(copy.getArrayCopy());
+    }
+
+    @Test
+    void arithmeticOnViewsMatchesArithmeticOnCopies() {
+        Matrix A = integerMatrix(6, 6, 1).getMatrix(1, 4, 2, 5);
+        Matrix B = integerMatrix(6, 6, 2).transpose().getMatrix(0, 3, 0, 3);
+
+        assertThat(A.add(B)).isEqualTo(A.copy().add(B.copy()));
+        assertThat(A.arrayMultiply(B)).isEqualTo(A.copy().arrayMultiply(B.copy()));
+        assertThat(A.multiply(B)).isEqualTo(A.copy().multiply(B.copy()));
+        assertThat(A.add(Vector.of(1.0, 2.0))).isEqualTo(A.copy().add(Vector.of(1.0, 2.0)));
+        Matrix dominant = A.add(Matrix.identity(4).multiply(50.0));
+        assertThat(dominant.solve(B)).isEqualTo(dominant.copy().solve(B.copy()));
+    }
+
+    @Test
+    void multiplyLargeTransposedViews() {
+        Matrix A = integerMatrix(130, 90, 1);
+        Matrix B = integerMatrix(100, 130, 2);
+
+        Matrix Bt = B.getMatrix(0, 99, 10, 129).transpose();
+
+        Matrix result = A.getMatrix(10, 129, 0, 89).transpose().multiply(Bt);
+
+        assertThat(result).isEqualTo(simpleProduct(A.getMatrix(10, 129, 0, 89).transpose().copy(), Bt.copy()));
+    }
+
     // ==================== Linear Algebra Operations ====================
 
     @Test
@@ -1079,6 +1191,83 @@ class MatrixTest {
         assertThat(qr.isFullRank()).isTrue();
     }
 
+    @Test
+    void solveSymmetricPositiveDefiniteSystemMatchesLU() {
+        Matrix A = Matrix.of(new double[][]{
+                {4.0, 12.0, -16.0},
+                {12.0, 37.0, -43.0},
+                {-16.0, -43.0, 98.0}
+        });
+        Matrix B = Matrix.of(new double[][]{{1.0, 0.0}, {2.0, 1.0}, {3.0, -1.0}});
+
+        Matrix X = A.solve(B);
+
+        assertMatricesEqual(A.multiply(X), B, RELAXED_TOLERANCE);
+        assertMatricesEqual(X, A.getLUDecomposition().solve(B), RELAXED_TOLERANCE);
+    }
+
+    @Test
+    void solveSymmetricIndefiniteSystemFallsBackToLU() {
+        // symmetric with a positive diagonal, but not positive-definite
+        Matrix A = Matrix.of(new double[][]{
+                {1.0, 2.0},
+                {2.0, 1.0}
+        });
+        Matrix B = Matrix.of(new double[][]{{3.0}, {3.0}});
+
+        Matrix X = A.solve(B);
+
+        assertMatricesEqual(X, Matrix.of(new double[][]{{1.0}, {1.0}}), RELAXED_TOLERANCE);
+    }
+
+    @Test
+    void solveSingularSymmetricSystemThrows() {
+        Matrix A = Matrix.of(new double[][]{
+                {1.0, 1.0},
+                {1.0, 1.0}
+        });
+
+        assertThatThrownBy(() -> A.solve(Matrix.identity(2)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("singular");
+    }
+
+    @Test
+    void getCholeskyDecompositionReturnsValidDecomposition() {
+        Matrix A = Matrix.of(new double[][]{
+                {4.0, 2.0},
+                {2.0, 3.0}
+        });
+        CholeskyDecomposition cholesky = A.getCholeskyDecomposition();
+
+        assertThat(cholesky.isSPD()).isTrue();
+        assertMatricesEqual(cholesky.getL().multiply(cholesky.getL().transpose()), A, TOLERANCE);
+    }
+
+    @Test
+    void getEigenDecompositionReturnsValidDecomposition() {
+        Matrix A = Matrix.of(new double[][]{
+                {2.0, 1.0},
+                {1.0, 2.0}
+        });
+        EigenDecomposition eigen = A.getEigenDecomposition();
+
+        assertThat(eigen.getEigenvalues()).containsExactly(new double[]{1.0, 3.0}, within(TOLERANCE));
+    }
+
+    @Test
+    void getSingularValueDecompositionReturnsValidDecomposition() {
+        Matrix A = Matrix.of(new double[][]{
+                {1.0, 2.0},
+                {3.0, 4.0},
+                {5.0, 6.0}
+        });
+        SingularValueDecomposition svd = A.getSingularValueDecomposition();
+
+        assertThat(svd.rank()).isEqualTo(2);
+        assertMatricesEqual(svd.getU().multiply(svd.getS()).multiply(svd.getV().transpose()), A, TOLERANCE);
+    }
+
     // ==================== Equality and HashCode ====================
 
     @Test
@@ -1334,4 +1523,28 @@ class MatrixTest {
             }
         }
     }
+
+    private static Matrix integerMatrix(int rows, int cols, int seed) {
+        double[][] elements = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                elements[i][j] = (i * 31 + j * 17 + seed * 7) % 19 - 9;
+            }
+        }
+        return Matrix.of(elements);
+    }
+
+    private static Matrix simpleProduct(Matrix A, Matrix B) {
+        double[][] result = new double[A.getRowCount()][B.getColumnCount()];
+        for (int i = 0; i < A.getRowCount(); i++) {
+            for (int j = 0; j < B.getColumnCount(); j++) {
+                double sum = 0;
+                for (int k = 0; k < A.getColumnCount(); k++) {
+                    sum += A.get(i, k) * B.get(k, j);
+                }
+                result[i][j] = sum;
+            }
+        }
+        return Matrix.of(result);
+    }
 }
@@ -0,0 +1,195 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Comprehensive test suite for {@link SingularValueDecomposition}.
+ */
+class SingularValueDecompositionTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    // ==================== Construction Tests ====================
+
+    @Test
+    void constructorRejectsNullMatrix() {
+        assertThatThrownBy(() -> new SingularValueDecomposition(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("null");
+    }
+
+    @Test
+    void constructorRejectsNonFiniteElements() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, Double.POSITIVE_INFINITY},
+                {0, 1}
+        });
+
+        assertThatThrownBy(() -> new SingularValueDecomposition(matrix))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("finite");
+    }
+
+    @Test
+    void constructorDoesNotModifyOriginalMatrix() {
+        Matrix matrix = random(4, 3, 1);
+        double[][] originalCopy = matrix.getArrayCopy();
+
+        new SingularValueDecomposition(matrix);
+
+        assertThat(matrix.getArrayCopy()).isDeepEqualTo(originalCopy);
+    }
+
+    // ==================== Decomposition Properties Tests ====================
+
+    @Test
+    void singularValuesOfKnownMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {3, 2, 2},
+                {2, 3, -2}
+        });
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
+
+        assertThat(svd.getSingularValues()).containsExactly(new double[]{5, 3}, within(TOLERANCE));
+        assertThat(svd.getU().getRowCount()).isEqualTo(2);
+        assertThat(svd.getU().getColumnCount()).isEqualTo(2);
+        assertThat(svd.getV().getRowCount()).isEqualTo(3);
+        assertThat(svd.getV().getColumnCount()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "1, 4", "4, 1", "3, 3", "6, 4", "4, 6", "40, 25", "25, 40", "80, 80"})
+    void decompositionSatisfiesUSVTransposeEqualsA(int rows, int columns) {
+        Matrix a = random(rows, columns, rows * 100L + columns);
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(a);
+        Matrix u = svd.getU();
+        Matrix v = svd.getV();
+        int k = Math.min(rows, columns);
+
+        assertMatrixEquals(u.multiply(svd.getS()).multiply(v.transpose()), a);
+        assertMatrixEquals(u.transpose().multiply(u), Matrix.identity(k));
+        assertMatrixEquals(v.transpose().multiply(v), Matrix.identity(k));
+        assertThat(svd.getSingularValues()).isSortedAccordingTo((x, y) -> Double.compare(y, x));
+    }
+
+    @Test
+    void singularValuesAreSquareRootsOfEigenvaluesOfGramMatrix() {
+        Matrix a = random(7, 5, 2);
+
+        double[] singularValues = new SingularValueDecomposition(a).getSingularValues();
+        double[] eigenvalues = new EigenDecomposition(a.transpose().multiply(a)).getEigenvalues();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(singularValues[i]).isCloseTo(Math.sqrt(eigenvalues[4 - i]), within(TOLERANCE));
+        }
+    }
+
+    @Test
+    void rankDeficientMatrixHasOrthonormalU() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 2, 3},
+                {2, 4, 6},
+                {0, 0, 0}
+        });
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
+        Matrix u = svd.getU();
+
+        assertThat(svd.rank()).isEqualTo(1);
+        assertMatrixEquals(u.transpose().multiply(u), Matrix.identity(3));
+        assertMatrixEquals(u.multiply(svd.getS()).multiply(svd.getV().transpose()), matrix);
+    }
+
+    @Test
+    void zeroMatrixHasZeroSingularValues() {
+        SingularValueDecomposition svd = new SingularValueDecomposition(Matrix.ofSize(3, 2));
+
+        assertThat(svd.getSingularValues()).containsExactly(0.0, 0.0);
+        assertThat(svd.rank()).isZero();
+        assertMatrixEquals(svd.getU().transpose().multiply(svd.getU()), Matrix.identity(2));
+    }
+
+    // ==================== Norm, Rank and Condition Tests ====================
+
+    @Test
+    void norm2IsLargestSingularValue() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {3, 0},
+                {0, -4}
+        });
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
+
+        assertThat(svd.norm2()).isCloseTo(4.0, within(TOLERANCE));
+        assertThat(svd.cond()).isCloseTo(4.0 / 3.0, within(TOLERANCE));
+        assertThat(svd.rank()).isEqualTo(2);
+    }
+
+    @Test
+    void condIsInfiniteForSingularMatrix() {
+        Matrix matrix = Matrix.of(new double[][]{
+                {1, 1},
+                {1, 1}
+        });
+
+        SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
+
+        assertThat(svd.rank()).isEqualTo(1);
+        assertThat(svd.cond()).isGreaterThan(1e15);
+    }
+
+    @Test
+    void smallSingularValuesAreAccurate() {
+        // diag(1, 1e-12) rotated, so the small value is only found accurately by a stable method
+        double c = Math.cos(0.3), s = Math.sin(0.3);
+        Matrix rotation = Matrix.of(new double[][]{{c, -s}, {s, c}});
+        Matrix matrix = rotation.multiply(Matrix.of(new double[][]{{1, 0}, {0, 1e-12}})).multiply(rotation.transpose());
+
+        double[] singularValues = new SingularValueDecomposition(matrix).getSingularValues();
+
+        assertThat(singularValues[0]).isCloseTo(1.0, within(1e-15));
+        assertThat(singularValues[1]).isCloseTo(1e-12, within(1e-15));
+    }
+
+    @Test
+    void modifyingReturnedSingularValuesDoesNotAffectDecomposition() {
+        SingularValueDecomposition svd = new SingularValueDecomposition(Matrix.identity(2));
+
+        svd.getSingularValues()[0] = 42;
+
+        assertThat(svd.getSingularValues()).containsExactly(1.0, 1.0);
+    }
+
+    // ==================== Helpers ====================
+
+    private static Matrix random(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        double[][] a = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                a[i][j] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return Matrix.of(a);
+    }
+
+    private static void assertMatrixEquals(Matrix actual, Matrix expected) {
+        assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(actual.getColumnCount()).isEqualTo(expected.getColumnCount());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumnCount(); j++) {
+                assertThat(actual.get(i, j))
+                        .as("element (%d, %d)", i, j)
+                        .isCloseTo(expected.get(i, j), within(TOLERANCE));
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class VectorBufferTest {
+
+    private final Vector v1 = Vector.of(1.0, 2.0, 3.0);
+    private final Vector v2 = Vector.of(4.0, 5.0, 6.0);
+
+    @Test
+    void intoMatchesImmutableOperations() {
+        VectorBuffer result = VectorBuffer.ofSize(3);
+
+        assertThat(v1.addInto(v2, result).toVector()).isEqualTo(v1.add(v2));
+        assertThat(v1.subtractInto(v2, result).toVector()).isEqualTo(v1.subtract(v2));
+        assertThat(v1.multiplyInto(v2, result).toVector()).isEqualTo(v1.multiply(v2));
+        assertThat(v1.multiplyInto(2.5, result).toVector()).isEqualTo(v1.multiply(2.5));
+        assertThat(v1.divideInto(4.0, result).toVector()).isEqualTo(v1.divide(4.0));
+        assertThat(v1.powInto(3.0, result).toVector()).isEqualTo(v1.pow(3.0));
+    }
+
+    @Test
+    void operationsCanWriteToTheirOwnBuffer() {
+        VectorBuffer x = VectorBuffer.copyOf(v1);
+
+        x.asVector().multiplyInto(2.0, x);
+        x.asVector().addInto(x.asVector(), x);
+        v2.subtractInto(x.asVector(), x);
+
+        assertThat(x.toVector()).isEqualTo(v2.subtract(v1.multiply(4.0)));
+    }
+
+    @Test
+    void gradientDescentMinimisesQuadratic() {
+        // minimise |w - target|², whose gradient is 2 (w - target), with a learning rate of 0.25
+        Vector target = Vector.of(3.0, -1.0);
+        VectorBuffer weights = VectorBuffer.ofSize(2);
+        VectorBuffer step = VectorBuffer.ofSize(2);
+
+        for (int k = 0; k < 200; k++) {
+            weights.asVector().subtractInto(target, step);
+            step.asVector().multiplyInto(0.5, step);
+            weights.asVector().subtractInto(step.asVector(), weights);
+        }
+
+        assertThat(weights.toVector().subtract(target).getNorm()).isLessThan(1e-9);
+    }
+
+    @Test
+    void asVectorSeesLaterWritesButToVectorDoesNot() {
+        VectorBuffer buffer = VectorBuffer.copyOf(v1);
+        Vector view = buffer.asVector();
+        Vector snapshot = buffer.toVector();
+
+        buffer.set(0, 10.0);
+
+        assertThat(view.get(0)).isEqualTo(10.0);
+        assertThat(snapshot.get(0)).isEqualTo(1.0);
+        assertThat(buffer.fill(2.0).asVector()).isEqualTo(Vector.filled(3, 2.0));
+    }
+
+    @Test
+    void rejectsMismatchedSizes() {
+        VectorBuffer result = VectorBuffer.ofSize(3);
+
+        assertThatThrownBy(() -> v1.addInto(Vector.of(1.0, 2.0), result))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("sizes must agree");
+        assertThatThrownBy(() -> v1.multiplyInto(2.0, VectorBuffer.ofSize(2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Result sizes");
+        assertThatThrownBy(() -> v1.addInto(null, result))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> v1.divideInto(0.0, result))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> result.set(Vector.of(1.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void accessorsCheckBounds() {
+        VectorBuffer buffer = VectorBuffer.ofSize(2);
+
+        assertThat(buffer.getSize()).isEqualTo(2);
+        assertThatThrownBy(() -> buffer.get(2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> buffer.set(-1, 0.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> VectorBuffer.ofSize(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,83 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times the SIMD {@link VectorKernels} against the scalar kernels on arrays of increasing size.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class VectorKernelsBenchmark {
+
+    private static final int[] SIZES = {16, 256, 4096, 65536, 1 << 20};
+
+    /**
+     * The number of values processed per size, so that every size takes a similar time
+     */
+    private static final long VALUES_PER_RUN = 1L << 24;
+
+    private final VectorKernels scalar = VectorKernels.SCALAR;
+    private final VectorKernels simd = new SimdVectorKernels();
+
+    /**
+     * Keeps the results of reductions live so the JIT cannot remove them
+     */
+    private double sink;
+
+    @Test
+    void kernels() {
+        for (int size : SIZES) {
+            double[] a = random(size, 1);
+            double[] b = random(size, 2);
+            double[] result = new double[size];
+            int repeats = (int) Math.max(1, VALUES_PER_RUN / size);
+
+            double scalarDot = time(() -> sink += scalar.dot(a, b, size), repeats);
+            double simdDot = time(() -> sink += simd.dot(a, b, size), repeats);
+            double scalarNorm = time(() -> sink += scalar.sumOfSquares(a, size), repeats);
+            double simdNorm = time(() -> sink += simd.sumOfSquares(a, size), repeats);
+            double scalarAdd = time(() -> scalar.add(a, b, result, size), repeats);
+            double simdAdd = time(() -> simd.add(a, b, result, size), repeats);
+            double scalarExp = time(() -> scalar.exp(a, result, size), repeats / 8 + 1);
+            double simdExp = time(() -> simd.exp(a, result, size), repeats / 8 + 1);
+
+            System.out.printf("%8d  dot %5.1fx  norm %5.1fx  add %5.1fx  exp %5.1fx%n", size,
+                    scalarDot / simdDot, scalarNorm / simdNorm, scalarAdd / simdAdd, scalarExp / simdExp);
+
+            if (size >= 4096) {
+                assertThat(simdDot).as("SIMD dot product time at %d", size).isLessThan(scalarDot);
+            }
+        }
+        assertThat(sink).isNotNaN();
+    }
+
+    private static double time(Runnable kernel, int repeats) {
+        for (int i = 0; i < repeats; i++) {
+            kernel.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < repeats; i++) {
+                kernel.run();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static double[] random(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble() * 20 - 10;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,137 @@
+package uk.co.ryanharrison.mathengine.linearalgebra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class VectorKernelsTest {
+
+    private final VectorKernels scalar = VectorKernels.SCALAR;
+    private final VectorKernels simd = new SimdVectorKernels();
+
+    @Test
+    void selectsSimdKernelsWhenModuleIsPresent() {
+        // the build adds the module to every test JVM
+        assertThat(VectorKernels.BEST).isInstanceOf(SimdVectorKernels.class);
+    }
+
+    // sizes either side of multiples of every lane width, so each tail length is covered
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 32, 33, 63, 64, 65, 1000, 4099})
+    void reductionsMatchScalarKernels(int n) {
+        double[] a = random(n, 1);
+        double[] b = random(n, 2);
+
+        assertThat(simd.dot(a, b, n)).isCloseTo(scalar.dot(a, b, n), within(1e-12 * Math.max(1, n)));
+        assertThat(simd.sumOfSquares(a, n)).isCloseTo(scalar.sumOfSquares(a, n), within(1e-12 * Math.max(1, n)));
+        assertThat(simd.sum(a, n)).isCloseTo(scalar.sum(a, n), within(1e-12 * Math.max(1, n)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 4, 5, 7, 8, 9, 15, 16, 17, 33, 1000, 4099})
+    void elementwiseKernelsMatchScalarKernels(int n) {
+        double[] a = random(n, 3);
+        double[] b = random(n, 4);
+
+        assertThat(apply(simd, "add", a, b)).containsExactly(apply(scalar, "add", a, b));
+        assertThat(apply(simd, "subtract", a, b)).containsExactly(apply(scalar, "subtract", a, b));
+        assertThat(apply(simd, "multiply", a, b)).containsExactly(apply(scalar, "multiply", a, b));
+        assertThat(apply(simd, "scale", a, b)).containsExactly(apply(scalar, "scale", a, b));
+        assertThat(apply(simd, "sqrt", a, b)).containsExactly(apply(scalar, "sqrt", a, b));
+        assertWithinUlp(apply(simd, "exp", a, b), apply(scalar, "exp", a, b));
+        assertWithinUlp(apply(simd, "log", a, b), apply(scalar, "log", a, b));
+    }
+
+    @Test
+    void specialValuesMatchScalarKernels() {
+        double[] a = {0.0, -0.0, 1.0, -1.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, Double.MAX_VALUE, 710.0, -746.0};
+        int n = a.length;
+
+        for (String kernel : new String[]{"sqrt", "exp", "log"}) {
+            double[] expected = apply(scalar, kernel, a, a);
+            double[] actual = apply(simd, kernel, a, a);
+            for (int i = 0; i < n; i++) {
+                if (Double.isNaN(expected[i]) || Double.isInfinite(expected[i]) || expected[i] == 0.0) {
+                    // compared as bits so that NaN equals NaN and the sign of zero is checked
+                    assertThat(Double.doubleToLongBits(actual[i])).as("%s(%s)", kernel, a[i])
+                            .isEqualTo(Double.doubleToLongBits(expected[i]));
+                } else {
+                    assertThat(actual[i]).as("%s(%s)", kernel, a[i])
+                            .isCloseTo(expected[i], within(Math.ulp(expected[i])));
+                }
+            }
+        }
+        assertThat(simd.sum(a, n)).isNaN();
+    }
+
+    @Test
+    void outputMayBeAnInput() {
+        double[] a = random(37, 5);
+        double[] expected = new double[37];
+        scalar.add(a, a, expected, 37);
+
+        simd.add(a, a, a, 37);
+
+        assertThat(a).containsExactly(expected);
+    }
+
+    @Test
+    void kernelsOnlyTouchFirstValues() {
+        double[] a = random(20, 6);
+        double[] result = new double[20];
+
+        simd.multiply(a, 2.0, result, 13);
+
+        for (int i = 0; i < 13; i++) {
+            assertThat(result[i]).isEqualTo(a[i] * 2.0);
+        }
+        for (int i = 13; i < 20; i++) {
+            assertThat(result[i]).isZero();
+        }
+        assertThat(simd.sum(a, 13)).isCloseTo(scalar.sum(a, 13), within(1e-12));
+    }
+
+    private static double[] apply(VectorKernels kernels, String kernel, double[] a, double[] b) {
+        int n = a.length;
+        double[] result = new double[n];
+        switch (kernel) {
+            case "add" -> kernels.add(a, b, result, n);
+            case "subtract" -> kernels.subtract(a, b, result, n);
+            case "multiply" -> kernels.multiply(a, b, result, n);
+            case "scale" -> kernels.multiply(a, -1.5, result, n);
+            case "sqrt" -> kernels.sqrt(a, result, n);
+            case "exp" -> kernels.exp(a, result, n);
+            case "log" -> kernels.log(a, result, n);
+            default -> throw new IllegalArgumentException(kernel);
+        }
+        return result;
+    }
+
+    private static void assertWithinUlp(double[] actual, double[] expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertThat(actual[i]).isNaN();
+            } else {
+                assertThat(actual[i]).isCloseTo(expected[i], within(Math.ulp(expected[i])));
+            }
+        }
+    }
+
+    /**
+     * Values in [-10, 10), so that log sees both negative and positive arguments
+     */
+    private static double[] random(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble() * 20 - 10;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,165 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class BatchEvaluatorTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+
+    @Test
+    void evaluatesCsvRowsInOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("id,price,qty\n");
+        StringBuilder expected = new StringBuilder("total\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(',').append(i * 0.5).append(',').append(i % 7).append('\n');
+            expected.append(i * 0.5 * (i % 7)).append('\n');
+        }
+        BatchEvaluator batch = builder("price * qty", "price", "qty")
+                .chunkSize(17)
+                .parallelism(4)
+                .resultName("total")
+                .build();
+        StringWriter out = new StringWriter();
+
+        long rows = batch.evaluateCsv(new StringReader(csv.toString()), out);
+
+        assertThat(rows).isEqualTo(1000);
+        assertThat(batch.isVectorised()).isTrue();
+        assertThat(out.toString()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void evaluatesRowByRowWhenNotNumeric() throws IOException {
+        evaluator.addVariable("rate", 0.1);
+        evaluator.generateTree("f(a) := a * rate");
+        BatchEvaluator batch = builder("sum({a, b, f(c)})", "a", "b", "c").chunkSize(2).delimiter(';').build();
+        StringWriter out = new StringWriter();
+
+        batch.evaluateCsv(new StringReader("c;b;a\n10;2;1\n\n20;\"3\";4\n"), out);
+
+        assertThat(batch.isVectorised()).isFalse();
+        assertThat(out.toString()).isEqualTo("result\n4.0\n9.0\n");
+    }
+
+    @Test
+    void sequentialAndParallelGiveSameResults() throws IOException {
+        StringBuilder csv = new StringBuilder("x\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append(i / 10.0).append('\n');
+        }
+        StringWriter sequential = new StringWriter();
+        StringWriter parallel = new StringWriter();
+
+        builder("sin(x) ^ 2 + x", "x").parallelism(1).build()
+                .evaluateCsv(new StringReader(csv.toString()), sequential);
+        builder("sin(x) ^ 2 + x", "x").parallelism(8).chunkSize(3).build()
+                .evaluateCsv(new StringReader(csv.toString()), parallel);
+
+        assertThat(parallel.toString()).isEqualTo(sequential.toString());
+    }
+
+    @Test
+    void reportsLineOfBadValue() {
+        BatchEvaluator batch = builder("x + 1", "x").build();
+
+        assertThatThrownBy(() -> batch.evaluateCsv(new StringReader("x\n1\n\nabc\n"), new StringWriter()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Line 4");
+        assertThatThrownBy(() -> batch.evaluateCsv(new StringReader("y\n1\n"), new StringWriter()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("\"x\"");
+    }
+
+    @Test
+    void evaluatesColumnsOfBuffers() {
+        int rows = 10_000;
+        DoubleBuffer x = DoubleBuffer.allocate(rows);
+        DoubleBuffer y = DoubleBuffer.allocate(rows);
+        DoubleBuffer z = DoubleBuffer.allocate(rows);
+        for (int i = 0; i < rows; i++) {
+            x.put(i, i);
+            y.put(i, 2 * i);
+            z.put(i, 3);
+        }
+        DoubleBuffer out = DoubleBuffer.allocate(rows);
+
+        long evaluated = builder("x + y * z", "x", "y", "z").chunkSize(999).build()
+                .evaluateColumns(Map.of("x", x, "y", y, "z", z), out);
+
+        assertThat(evaluated).isEqualTo(rows);
+        for (int i = 0; i < rows; i++) {
+            assertThat(out.get(i)).isEqualTo(7.0 * i);
+        }
+    }
+
+    @Test
+    void evaluatesColumnsOfMemoryMappedFile(@TempDir Path directory) throws IOException {
+        int rows = 4096;
+        Path file = directory.resolve("columns.bin");
+        ByteBuffer bytes = ByteBuffer.allocate(rows * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows; i++) {
+            bytes.putDouble(i * Double.BYTES, i);
+            bytes.putDouble((rows + i) * Double.BYTES, i * 0.25);
+        }
+        Files.write(file, bytes.array());
+        DoubleBuffer out = DoubleBuffer.allocate(rows);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DoubleBuffer all = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            DoubleBuffer a = all.slice(0, rows);
+            DoubleBuffer b = all.slice(rows, rows);
+
+            builder("a * b", "a", "b").chunkSize(100).build().evaluateColumns(Map.of("a", a, "b", b), out);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            assertThat(out.get(i)).isCloseTo(i * i * 0.25, within(1e-9));
+        }
+    }
+
+    @Test
+    void rejectsMismatchedColumns() {
+        BatchEvaluator batch = builder("x + y", "x", "y").build();
+
+        assertThatThrownBy(() -> batch.evaluateColumns(
+                Map.of("x", DoubleBuffer.allocate(3), "y", DoubleBuffer.allocate(4)), DoubleBuffer.allocate(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batch.evaluateColumns(Map.of("x", DoubleBuffer.allocate(3)), DoubleBuffer.allocate(3)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batch.evaluateColumns(
+                Map.of("x", DoubleBuffer.allocate(3), "y", DoubleBuffer.allocate(3)), DoubleBuffer.allocate(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void builderRequiresExpressionAndColumns() {
+        assertThatThrownBy(() -> BatchEvaluator.builder().evaluator(evaluator).columns("x").build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BatchEvaluator.builder().columns())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BatchEvaluator.builder().chunkSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BatchEvaluator.Builder builder(String expression, String... columns) {
+        return BatchEvaluator.builder().evaluator(evaluator).expression(expression).columns(columns);
+    }
+}
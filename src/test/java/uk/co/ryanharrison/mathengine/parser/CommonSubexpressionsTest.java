@@ -0,0 +1,208 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+import uk.co.ryanharrison.mathengine.parser.operators.UnaryOperator;
+import uk.co.ryanharrison.mathengine.parser.operators.binary.Add;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CommonSubexpressionsTest {
+
+    private static final String[] FUZZ_TOKENS = {
+            "x", "y", "1", "2", "sin(x)", "cos(x)", "sin(x)^2", "(x + y)", "(x + y)", "exp(x / 4)",
+            "f(x)", "f(y)", "g(x)", "{x, sin(x)}", "sum({1, x, x + y})"
+    };
+
+    private static final String[] FUZZ_OPERATORS = {" + ", " - ", " * ", " / ", " ^ "};
+
+    private final Evaluator evaluator = newEvaluator();
+
+    @Test
+    void sharesRepeatedSubexpressions() {
+        NodeExpression tree = (NodeExpression) share("sin(x)^2 + sin(x)*cos(x)");
+
+        Node first = ((NodeExpression) tree.getArgOne()).getArgOne();
+        Node second = ((NodeExpression) tree.getArgTwo()).getArgOne();
+        assertThat(first).isInstanceOf(NodeShared.class);
+        assertThat(second).isSameAs(first);
+        assertThat(((NodeExpression) tree.getArgTwo()).getArgTwo()).isNotInstanceOf(NodeShared.class);
+        assertThat(tree.toString()).isEqualTo(evaluator.generateTree("sin(x)^2 + sin(x)*cos(x)").toString());
+    }
+
+    @Test
+    void sharesOnlyOutermostRepeatedSubexpression() {
+        NodeExpression tree = (NodeExpression) share("(x + sin(x)) * (x + sin(x))");
+
+        assertThat(tree.getArgOne()).isInstanceOf(NodeShared.class).isSameAs(tree.getArgTwo());
+        NodeExpression shared = (NodeExpression) ((NodeShared) tree.getArgOne()).getNode();
+        assertThat(shared.getArgTwo()).isNotInstanceOf(NodeShared.class);
+    }
+
+    @Test
+    void sharesInsideVectors() {
+        NodeVector tree = (NodeVector) share("{x ^ 2, 1 + x ^ 2}");
+
+        Node[] values = tree.getValues();
+        assertThat(values[0]).isInstanceOf(NodeShared.class);
+        assertThat(((NodeExpression) values[1]).getArgTwo()).isSameAs(values[0]);
+    }
+
+    @Test
+    void returnsSameTreeWithoutRepeats() {
+        Node tree = evaluator.generateTree("sin(x) + cos(x) * f(x)");
+
+        assertThat(CommonSubexpressions.share(tree)).isSameAs(tree);
+    }
+
+    @Test
+    void returnsSameTreeWithSideEffects() {
+        Node tree = evaluator.generateTree("z := sin(x) + sin(x)");
+
+        assertThat(CommonSubexpressions.share(tree)).isSameAs(tree);
+    }
+
+    @Test
+    void doesNotShareCallsOfDifferentFunctions() {
+        assertThat(share("f(x) + g(x)")).isEqualTo(evaluator.generateTree("f(x) + g(x)"));
+    }
+
+    @Test
+    void evaluatesSharedSubexpressionOncePerEvaluation() {
+        CountingOperator counting = new CountingOperator();
+        Node repeated = new NodeExpression(counting, new NodeVariable("x"));
+        Node tree = CommonSubexpressions.share(new NodeExpression(new Add(), repeated,
+                new NodeExpression(new Add(), new NodeExpression(counting, new NodeVariable("x")), repeated)));
+
+        EvaluationContext context = new EvaluationContext();
+        context.addConstant("x", new NodeDouble(2));
+
+        assertThat(new RecursiveDescentParser(context).parse(tree)).isEqualTo(new NodeDouble(12));
+        assertThat(counting.calls).isEqualTo(1);
+        assertThat(new RecursiveDescentParser(context).parse(tree)).isEqualTo(new NodeDouble(12));
+        assertThat(counting.calls).isEqualTo(2);
+    }
+
+    @Test
+    void sharedTreesEvaluateToSameResult() {
+        Random random = new Random(98765L);
+        StringBuilder builder = new StringBuilder();
+
+        for (int n = 0; n < 2000; n++) {
+            builder.setLength(0);
+            int terms = 2 + random.nextInt(6);
+            for (int i = 0; i < terms; i++) {
+                if (i > 0)
+                    builder.append(FUZZ_OPERATORS[random.nextInt(FUZZ_OPERATORS.length)]);
+                builder.append(FUZZ_TOKENS[random.nextInt(FUZZ_TOKENS.length)]);
+            }
+            String expression = builder.toString();
+            Node tree;
+            try {
+                tree = evaluator.generateTree(expression);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            Node shared = CommonSubexpressions.share(tree);
+
+            for (double x : new double[]{-1.5, 0.5, 2}) {
+                evaluator.addVariable("x", x);
+                evaluator.addVariable("y", 1 - x);
+
+                assertThat(String.valueOf(evaluate(shared))).as("%s at x = %s", expression, x)
+                        .isEqualTo(String.valueOf(evaluate(tree)));
+            }
+        }
+    }
+
+    @Test
+    void compiledSharedSubexpressionsMatchTree() {
+        Node tree = evaluator.generateTree("sin(x)^2 + sin(x)*cos(x) - sin(x) / (1 + cos(x))");
+
+        for (EvaluationMode mode : EvaluationMode.values()) {
+            DoubleUnaryOperator compiled = evaluator.compileUnary(tree, "x", mode);
+            for (double x = -3; x <= 3; x += 0.25) {
+                double expected = Math.sin(x) * Math.sin(x) + Math.sin(x) * Math.cos(x)
+                        - Math.sin(x) / (1 + Math.cos(x));
+                assertThat(compiled.applyAsDouble(x)).as("%s at %s", mode, x).isCloseTo(expected, within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void compilesMoreSharedSubexpressionsThanLocalVariables() {
+        StringBuilder builder = new StringBuilder("0");
+        for (int i = 1; i <= 200; i++) {
+            builder.append(" + (x + ").append(i).append(") * (x + ").append(i).append(")");
+        }
+        Node tree = evaluator.generateTree(builder.toString());
+
+        DoubleUnaryOperator compiled = evaluator.compileUnary(tree, "x");
+
+        for (double x : new double[]{-2, 0.5, 3}) {
+            double expected = 0;
+            for (int i = 1; i <= 200; i++) {
+                expected += (x + i) * (x + i);
+            }
+            assertThat(compiled.applyAsDouble(x)).isCloseTo(expected, within(1e-6));
+        }
+    }
+
+    private Node share(String expression) {
+        return CommonSubexpressions.share(evaluator.generateTree(expression));
+    }
+
+    private Object evaluate(Node tree) {
+        try {
+            return evaluator.parseTree(tree);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static Evaluator newEvaluator() {
+        Evaluator evaluator = Evaluator.newEvaluator();
+        evaluator.addVariable("x", 0);
+        evaluator.addVariable("y", 0);
+        evaluator.generateTree("f(a) := a^2 + 1");
+        evaluator.generateTree("g(a) := a^2 - 1");
+        return evaluator;
+    }
+
+    /**
+     * Doubles its argument, counting how many times it is applied
+     */
+    private static final class CountingOperator extends UnaryOperator {
+        private int calls;
+
+        @Override
+        protected NodeConstant toResult(NodeConstant arg1) {
+            calls++;
+            return arg1.getTransformer().toNodeNumber().add(arg1.getTransformer().toNodeNumber());
+        }
+
+        @Override
+        public String[] getAliases() {
+            return new String[]{"counting"};
+        }
+
+        @Override
+        public int getPrecedence() {
+            return 3;
+        }
+
+        @Override
+        public String toLongString() {
+            return "counting";
+        }
+
+        @Override
+        public String toString() {
+            return "counting";
+        }
+    }
+}
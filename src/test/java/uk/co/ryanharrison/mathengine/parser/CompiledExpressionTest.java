@@ -0,0 +1,164 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeDouble;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CompiledExpressionTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+
+    @Test
+    void evaluatesWithArguments() {
+        CompiledExpression expression = evaluator.compile("x^2 + y");
+
+        assertThat(expression.evaluateDouble("x", 3, "y", 1)).isEqualTo(10);
+        assertThat(expression.evaluate(Map.of("x", new NodeDouble(2), "y", new NodeDouble(0.5))))
+                .isEqualTo(new NodeDouble(4.5));
+    }
+
+    @Test
+    void capturesEvaluatorStateWhenCompiled() {
+        evaluator.addVariable("a", 2);
+        evaluator.setAngleUnit(AngleUnit.Degrees);
+        CompiledExpression expression = evaluator.compile("a * sin(x)");
+
+        evaluator.addVariable("a", 100);
+        evaluator.setAngleUnit(AngleUnit.Radians);
+
+        assertThat(expression.getAngleUnit()).isEqualTo(AngleUnit.Degrees);
+        assertThat(expression.evaluateDouble("x", 90)).isCloseTo(2, within(1e-12));
+    }
+
+    @Test
+    void assignmentsDoNotLeakBetweenEvaluations() {
+        CompiledExpression expression = evaluator.compile("b := x + 1");
+
+        expression.evaluateDouble("x", 5);
+
+        assertThatThrownBy(() -> evaluator.compile("b").evaluate())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(evaluator.evaluateDouble("x := 3")).isEqualTo(3);
+    }
+
+    @Test
+    void evaluatesCustomFunctionsAgainstCapturedState() {
+        evaluator.evaluateConstant("f(x) := x * k");
+        evaluator.addVariable("k", 3);
+        CompiledExpression expression = evaluator.compile("sum({1, 2, y} select f)");
+
+        evaluator.addVariable("k", 10);
+
+        assertThat(expression.evaluateDouble("y", 3)).isEqualTo(18);
+    }
+
+    @Test
+    void doesNotModifySharedConstants() {
+        evaluator.addVariable("w", new NodeVector(new NodeConstant[]{new NodeDouble(1), new NodeDouble(2)}));
+        CompiledExpression expression = evaluator.compile("w + {1, 2, 3}");
+
+        expression.evaluate();
+
+        assertThat(((NodeVector) evaluator.evaluateConstant("w")).getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void isSafeToEvaluateConcurrently() throws Exception {
+        evaluator.setAngleUnit(AngleUnit.Degrees);
+        evaluator.evaluateConstant("f(n) := n^2");
+        evaluator.evaluateConstant("g(n) := n / 2");
+        CompiledExpression expression = evaluator.compile("sin(x) + sum({x, 2 * x} select f) + g(x)");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        double x = offset * 1000 + i;
+                        double expected = Math.sin(Math.PI * x / 180.0) + 5 * x * x + x / 2;
+                        if (Math.abs(expression.evaluateDouble("x", x) - expected) > 1e-6 * Math.max(1, expected))
+                            return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void compiledOperatorsFallBackToCompiledExpression() {
+        evaluator.evaluateConstant("f(n) := n + 1");
+        var operator = evaluator.compileUnary(evaluator.generateTree("f(x) * 2"), "x");
+
+        evaluator.evaluateConstant("f(n) := n + 100");
+
+        assertThat(operator.applyAsDouble(1)).isEqualTo(4);
+        assertThat(evaluator.evaluateDouble("x := 7")).isEqualTo(7);
+    }
+
+    @Test
+    void evaluatesParametersByPosition() {
+        evaluator.addVariable("k", 3);
+        evaluator.generateTree("f(a) := a * k");
+        CompiledExpression expression = evaluator.compile("f(x) + y^2 + pi", "x", "y");
+
+        assertThat(expression.getParameters()).containsExactly("x", "y");
+        assertThat(expression.evaluateDouble(2, 1)).isEqualTo(7 + Math.PI);
+        assertThat(expression.evaluate(new NodeDouble(1), new NodeDouble(2)))
+                .isEqualTo(new NodeDouble(7 + Math.PI));
+        assertThat(expression.evaluateDouble("x", 2, "y", 1)).isEqualTo(7 + Math.PI);
+    }
+
+    @Test
+    void parametersShadowEvaluatorVariables() {
+        evaluator.addVariable("x", 100);
+        CompiledExpression expression = evaluator.compile("x + 1", "x");
+
+        assertThat(expression.evaluateDouble(1)).isEqualTo(2);
+    }
+
+    @Test
+    void parametersMustAllBeGiven() {
+        CompiledExpression expression = evaluator.compile("x * y", "x", "y");
+
+        assertThatThrownBy(() -> expression.evaluateDouble(1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> expression.evaluateDouble("x", 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("\"y\"");
+        assertThatThrownBy(() -> evaluator.compile("x", "x", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parametersOfTreesWithSideEffectsAreBoundByName() {
+        CompiledExpression expression = evaluator.compile("z := x * 2", "x");
+
+        assertThat(expression.evaluateDouble(3)).isEqualTo(6);
+        assertThat(expression.evaluateDouble(4)).isEqualTo(8);
+    }
+
+    @Test
+    void parametersInsideVectorsAndSharedSubexpressions() {
+        CompiledExpression expression = evaluator.compile("sum({x, x^2, sin(x) * sin(x)})", "x");
+
+        assertThat(expression.evaluateDouble(2)).isCloseTo(6 + Math.sin(2) * Math.sin(2), within(1e-12));
+    }
+}
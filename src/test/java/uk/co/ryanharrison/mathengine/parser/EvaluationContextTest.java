@@ -0,0 +1,72 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeDouble;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EvaluationContextTest {
+
+    private final EvaluationContext root = new EvaluationContext();
+
+    @Test
+    void argumentFrameSeesParentConstants() {
+        root.addConstant("a", new NodeDouble(1));
+
+        EvaluationContext frame = root.withArgs(Map.of("x", new NodeDouble(2)));
+
+        assertThat(frame.getConstant("a")).isEqualTo(new NodeDouble(1));
+        assertThat(frame.getConstant("x")).isEqualTo(new NodeDouble(2));
+        assertThat(frame.isConstant("a")).isTrue();
+        assertThat(frame.isConstant("b")).isFalse();
+        assertThat(root.isConstant("x")).isFalse();
+    }
+
+    @Test
+    void argumentsShadowParentConstants() {
+        root.addConstant("x", new NodeDouble(1));
+
+        EvaluationContext frame = root.withArgs(Map.of("x", new NodeDouble(2)));
+
+        assertThat(frame.getConstant("x")).isEqualTo(new NodeDouble(2));
+        assertThat(root.getConstant("x")).isEqualTo(new NodeDouble(1));
+    }
+
+    @Test
+    void constantsAddedToFrameDoNotReachParent() {
+        EvaluationContext frame = root.withArgs(Map.of());
+
+        frame.addConstant("y", new NodeDouble(3));
+
+        assertThat(frame.getConstant("y")).isEqualTo(new NodeDouble(3));
+        assertThat(root.isConstant("y")).isFalse();
+    }
+
+    @Test
+    void clearingFrameHidesParentWithoutClearingIt() {
+        root.addConstant("a", new NodeDouble(1));
+        EvaluationContext frame = root.withArgs(Map.of("x", new NodeDouble(2)));
+
+        frame.clearConstants();
+
+        assertThat(frame.isConstant("a")).isFalse();
+        assertThat(frame.isConstant("x")).isFalse();
+        assertThat(root.isConstant("a")).isTrue();
+    }
+
+    @Test
+    void snapshotFlattensFrames() {
+        root.addConstant("a", new NodeDouble(1));
+        root.setAngleUnit(AngleUnit.Gradians);
+        EvaluationContext frame = root.withArgs(Map.of("x", new NodeDouble(2)));
+
+        EvaluationContext snapshot = frame.snapshot();
+        root.addConstant("a", new NodeDouble(5));
+
+        assertThat(snapshot.getConstant("a")).isEqualTo(new NodeDouble(1));
+        assertThat(snapshot.getConstant("x")).isEqualTo(new NodeDouble(2));
+        assertThat(snapshot.getAngleUnit()).isEqualTo(AngleUnit.Gradians);
+    }
+}
@@ -0,0 +1,220 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
+import uk.co.ryanharrison.mathengine.parser.nodes.ParallelPolicy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class EvaluatorBudgetTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+
+    @Test
+    void evaluationIsUnlimitedByDefault() {
+        assertThat(evaluator.getEvaluationBudget()).isSameAs(EvaluationBudget.UNLIMITED);
+        assertThat(EvaluationBudget.UNLIMITED.isUnlimited()).isTrue();
+        assertThat(EvaluationBudget.UNLIMITED.start()).isNull();
+    }
+
+    @Test
+    void evaluationWithinBudgetCompletes() {
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(1000));
+        evaluator.generateTree("f(a) := a^2 + 1");
+
+        assertThat(evaluator.evaluateDouble("sum({1, 2, 3} select f)")).isEqualTo(17);
+    }
+
+    @Test
+    void tooManyNodeVisitsAbortsEvaluation() {
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(10));
+
+        assertThatThrownBy(() -> evaluator.evaluateDouble("1 + 2 + 3 + 4 + 5 + 6 + 7 + 8"))
+                .isInstanceOf(EvaluationAbortedException.class)
+                .extracting(e -> ((EvaluationAbortedException) e).getReason())
+                .isEqualTo(EvaluationAbortedException.Reason.NODE_VISITS);
+    }
+
+    @Test
+    void nodeVisitsCountAcrossFunctionCalls() {
+        evaluator.generateTree("f(a) := a^2 + a + 1");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(50));
+
+        assertThat(evaluator.evaluateDouble("f(1) + f(2)")).isEqualTo(10);
+        assertThatThrownBy(() -> evaluator.evaluateDouble("sum({1, 2, 3, 4, 5, 6, 7, 8, 9, 10} select f)"))
+                .isInstanceOf(EvaluationAbortedException.class);
+    }
+
+    @Test
+    void nodeVisitsCountAcrossThreads() {
+        evaluator.setParallelPolicy(ParallelPolicy.withThreshold(2));
+        evaluator.addVariable("big", new NodeVector(new double[100_000]));
+        evaluator.generateTree("f(a) := a^2 + 1");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(10_000));
+
+        assertThatThrownBy(() -> evaluator.evaluateDouble("sum(big select f)"))
+                .isInstanceOf(EvaluationAbortedException.class)
+                .extracting(e -> ((EvaluationAbortedException) e).getReason())
+                .isEqualTo(EvaluationAbortedException.Reason.NODE_VISITS);
+    }
+
+    @Test
+    void eachEvaluationHasItsOwnBudget() {
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(10));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(evaluator.evaluateDouble("1 + 2 * 3")).isEqualTo(7);
+        }
+    }
+
+    @Test
+    void deepCallsAbortEvaluation() {
+        evaluator.generateTree("f(a) := a + 1");
+        evaluator.generateTree("g(a) := f(a) * 2");
+        evaluator.generateTree("h(a) := g(a) - 1");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxCallDepth(2));
+
+        assertThat(evaluator.evaluateDouble("g(1) + f(1)")).isEqualTo(6);
+        assertThatThrownBy(() -> evaluator.evaluateDouble("h(1)"))
+                .isInstanceOf(EvaluationAbortedException.class)
+                .extracting(e -> ((EvaluationAbortedException) e).getReason())
+                .isEqualTo(EvaluationAbortedException.Reason.CALL_DEPTH);
+    }
+
+    @Test
+    void slowEvaluationAbortsAfterMaxTime() {
+        evaluator.setParallelPolicy(ParallelPolicy.SEQUENTIAL);
+        evaluator.addVariable("big", new NodeVector(new double[1_000_000]));
+        evaluator.generateTree("f(a) := a^2 + sin(a) * cos(a)");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxTime(Duration.ofMillis(1)));
+
+        assertThatThrownBy(() -> evaluator.evaluateDouble("sum(big select f)"))
+                .isInstanceOf(EvaluationAbortedException.class)
+                .extracting(e -> ((EvaluationAbortedException) e).getReason())
+                .isEqualTo(EvaluationAbortedException.Reason.TIME);
+    }
+
+    @Test
+    void cancellationAbortsEvaluation() {
+        AtomicInteger checks = new AtomicInteger();
+        evaluator.setParallelPolicy(ParallelPolicy.SEQUENTIAL);
+        evaluator.addVariable("big", new NodeVector(new double[10_000]));
+        evaluator.generateTree("f(a) := a^2 + 1");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED
+                .withCancellation(() -> checks.incrementAndGet() > 1));
+
+        assertThatThrownBy(() -> evaluator.evaluateDouble("sum(big select f)"))
+                .isInstanceOf(EvaluationAbortedException.class)
+                .extracting(e -> ((EvaluationAbortedException) e).getReason())
+                .isEqualTo(EvaluationAbortedException.Reason.CANCELLED);
+        assertThat(checks.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cancellationIsPolledWithTheClock() {
+        AtomicInteger checks = new AtomicInteger();
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED
+                .withCancellation(() -> checks.incrementAndGet() > 0));
+
+        assertThat(evaluator.evaluateDouble("1 + 2 + 3 + 4 + 5 + 6")).isEqualTo(21);
+        assertThat(checks.get()).isZero();
+    }
+
+    @Test
+    void solvingChecksBudgetBetweenIterations() {
+        evaluator.generateTree("g(a) := a^2 - 4");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withCancellation(() -> true));
+
+        assertThatThrownBy(() -> evaluator.evaluateConstant("solve({g, -5, 5})"))
+                .isInstanceOf(EvaluationAbortedException.class);
+        assertThatThrownBy(() -> evaluator.evaluateConstant("nsolve({g, 1})"))
+                .isInstanceOf(EvaluationAbortedException.class);
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED);
+        assertThat(evaluator.evaluateConstant("nsolve({g, 1})").getTransformer().toNodeNumber().doubleValue())
+                .isCloseTo(2, within(1e-9));
+    }
+
+    @Test
+    void foldingWhileCompilingKeepsBudget() {
+        evaluator.addVariable("big", new NodeVector(new double[10_000]));
+        evaluator.generateTree("f(a) := a^2 + 1");
+        Node tree = evaluator.generateTree("sum(big select f) * x");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(1_000));
+
+        assertThatThrownBy(() -> evaluator.compileUnary(tree, "x"))
+                .isInstanceOf(EvaluationAbortedException.class)
+                .extracting(e -> ((EvaluationAbortedException) e).getReason())
+                .isEqualTo(EvaluationAbortedException.Reason.NODE_VISITS);
+        assertThatThrownBy(() -> evaluator.optimize(tree, "x"))
+                .isInstanceOf(EvaluationAbortedException.class);
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED);
+        assertThat(evaluator.compileUnary(tree, "x").applyAsDouble(2)).isEqualTo(20_000);
+    }
+
+    @Test
+    void evaluationCanBeCancelledFromAnotherThread() throws Exception {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        evaluator.addVariable("big", new NodeVector(new double[1_000_000]));
+        evaluator.generateTree("f(a) := a^2 + sin(a) * cos(a)");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withCancellation(() -> {
+            started.countDown();
+            return cancelled.get();
+        }));
+
+        CompletableFuture<Double> result = CompletableFuture.supplyAsync(
+                () -> evaluator.evaluateDouble("sum(big select f)"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        cancelled.set(true);
+
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(EvaluationAbortedException.class);
+    }
+
+    @Test
+    void compiledExpressionsKeepBudget() {
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(5));
+        CompiledExpression expression = evaluator.compile("x^2 + x + 1");
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED);
+
+        assertThat(expression.getEvaluationBudget().getMaxNodeVisits()).isEqualTo(5);
+        assertThatThrownBy(() -> expression.evaluateDouble("x", 2))
+                .isInstanceOf(EvaluationAbortedException.class);
+        assertThat(evaluator.evaluateDouble("2^2 + 2 + 1")).isEqualTo(7);
+    }
+
+    @Test
+    void abortedEvaluationLeavesEvaluatorUsable() {
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED.withMaxNodeVisits(3));
+
+        assertThatThrownBy(() -> evaluator.evaluateDouble("1 + 2 + 3 + 4"))
+                .isInstanceOf(EvaluationAbortedException.class);
+        assertThat(evaluator.getEvaluationBudget().start()).isNotNull();
+        evaluator.setEvaluationBudget(EvaluationBudget.UNLIMITED);
+        assertThat(evaluator.evaluateDouble("1 + 2 + 3 + 4")).isEqualTo(10);
+    }
+
+    @Test
+    void invalidLimitsAreRejected() {
+        assertThatThrownBy(() -> EvaluationBudget.UNLIMITED.withMaxNodeVisits(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> EvaluationBudget.UNLIMITED.withMaxTime(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> EvaluationBudget.UNLIMITED.withMaxCallDepth(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> evaluator.setEvaluationBudget(null))
+                .isInstanceOf(NullPointerException.class);
+    }
+}
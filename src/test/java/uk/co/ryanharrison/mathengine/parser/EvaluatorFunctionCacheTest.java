@@ -0,0 +1,136 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.FunctionResultCache;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EvaluatorFunctionCacheTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+
+    @Test
+    void cachingIsDisabledByDefault() {
+        NodeFunction f = define("f(a) := a^2 + 1");
+
+        evaluator.evaluateDouble("f(3) + f(3)");
+
+        assertThat(evaluator.getFunctionCacheCapacity()).isZero();
+        assertThat(f.getResultCache().size()).isZero();
+        assertThat(f.getResultCache().getMisses()).isZero();
+    }
+
+    @Test
+    void repeatedCallsAreAnsweredFromCache() {
+        evaluator.setFunctionCacheCapacity(16);
+        NodeFunction f = define("f(a, b) := a^2 + b");
+
+        assertThat(evaluator.evaluateDouble("f({3, 1}) + f({3, 1}) + f({2, 1})")).isEqualTo(25);
+
+        FunctionResultCache cache = f.getResultCache();
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void nestedCallsAreCachedPerFunction() {
+        evaluator.setFunctionCacheCapacity(16);
+        NodeFunction f = define("f(a) := a * 2");
+        NodeFunction g = define("g(a) := f(a) + f(a + 1)");
+
+        assertThat(evaluator.evaluateDouble("g(1) + g(2)")).isEqualTo(16);
+
+        assertThat(g.getResultCache().getMisses()).isEqualTo(2);
+        assertThat(f.getResultCache().getMisses()).isEqualTo(3);
+        assertThat(f.getResultCache().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void resultsDependOnAngleUnit() {
+        evaluator.setFunctionCacheCapacity(16);
+        define("s(a) := sin(a)");
+
+        assertThat(evaluator.evaluateDouble("s(90)")).isEqualTo(Math.sin(90));
+        evaluator.setAngleUnit(AngleUnit.Degrees);
+        assertThat(evaluator.evaluateDouble("s(90)")).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResults() {
+        evaluator.setFunctionCacheCapacity(2);
+        NodeFunction f = define("f(a) := a + 1");
+
+        evaluator.evaluateDouble("f(1) + f(2) + f(1) + f(3)");
+
+        FunctionResultCache cache = f.getResultCache();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+
+        evaluator.evaluateDouble("f(1)");
+        assertThat(cache.getHits()).isEqualTo(2);
+        evaluator.evaluateDouble("f(2)");
+        assertThat(cache.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    void functionsUsingOtherVariablesAreNotCached() {
+        evaluator.setFunctionCacheCapacity(16);
+        evaluator.addVariable("y", 1);
+        NodeFunction f = define("f(a) := a + y");
+
+        assertThat(evaluator.evaluateDouble("f(1)")).isEqualTo(2);
+        evaluator.addVariable("y", 5);
+        assertThat(evaluator.evaluateDouble("f(1)")).isEqualTo(6);
+
+        assertThat(f.isPure()).isFalse();
+        assertThat(f.getResultCache().size()).isZero();
+    }
+
+    @Test
+    void functionsCallingImpureFunctionsAreNotCached() {
+        evaluator.addVariable("y", 1);
+        define("f(a) := a + y");
+
+        assertThat(define("g(a) := f(a) * 2").isPure()).isFalse();
+        assertThat(define("h(a) := {a, 2 * a}").isPure()).isTrue();
+    }
+
+    @Test
+    void functionsClearingVariablesAreNotPure() {
+        assertThat(define("f(a) := a + clearvars").isPure()).isFalse();
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        evaluator.setFunctionCacheCapacity(16);
+        NodeFunction f = define("f(a) := 1 / a");
+
+        assertThatThrownBy(() -> evaluator.evaluateDouble("f(0)")).isInstanceOf(ArithmeticException.class);
+        assertThat(f.getResultCache().size()).isZero();
+    }
+
+    @Test
+    void rejectsNegativeCapacity() {
+        assertThatThrownBy(() -> evaluator.setFunctionCacheCapacity(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compiledExpressionsUseCapacityWhenCompiled() {
+        NodeFunction f = define("f(a) := a^3");
+        evaluator.setFunctionCacheCapacity(8);
+        CompiledExpression expression = evaluator.compile("f(x) + 1");
+        evaluator.setFunctionCacheCapacity(0);
+
+        assertThat(expression.evaluateDouble("x", 2)).isEqualTo(9);
+        assertThat(expression.evaluateDouble("x", 2)).isEqualTo(9);
+        assertThat(f.getResultCache().getHits()).isEqualTo(1);
+    }
+
+    private NodeFunction define(String definition) {
+        return (NodeFunction) evaluator.evaluateConstant(definition);
+    }
+}
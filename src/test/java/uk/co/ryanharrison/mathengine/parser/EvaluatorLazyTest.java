@@ -0,0 +1,103 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import uk.co.ryanharrison.mathengine.linearalgebra.Vector;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeBoolean;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeVector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EvaluatorLazyTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+
+    @ParameterizedTest
+    @CsvSource({"3, 2", "1, 3", "0, 3"})
+    void ifSelectsBranch(double x, double expected) {
+        evaluator.addVariable("x", x);
+
+        assertThat(evaluator.evaluateDouble("if({x > 1, 2, 3})")).isEqualTo(expected);
+    }
+
+    @Test
+    void ifDoesNotEvaluateBranchNotTaken() {
+        assertThat(evaluator.evaluateDouble("if({1 > 0, 5, unknown})")).isEqualTo(5);
+        assertThat(evaluator.evaluateDouble("if({1 < 0, unknown, 7})")).isEqualTo(7);
+    }
+
+    @Test
+    void ifEvaluatesBranchTaken() {
+        assertThatThrownBy(() -> evaluator.evaluateDouble("if({1 > 0, unknown, 7})"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown");
+    }
+
+    @Test
+    void ifAcceptsArgumentsHeldInVariable() {
+        evaluator.addVariable("args", new NodeVector(Vector.of(0, 4, 5)));
+
+        assertThat(evaluator.evaluateDouble("if(args)")).isEqualTo(5);
+    }
+
+    @Test
+    void ifRejectsWrongNumberOfArguments() {
+        assertThatThrownBy(() -> evaluator.evaluateConstant("if({1 > 0, 2})"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Wrong number of arguments");
+    }
+
+    @Test
+    void andDoesNotEvaluateSecondOperandWhenFirstIsFalse() {
+        assertThat(evaluator.evaluateConstant("1 > 2 and unknown")).isEqualTo(new NodeBoolean(false));
+        assertThat(evaluator.evaluateConstant("1 < 2 and 2 < 3")).isEqualTo(new NodeBoolean(true));
+        assertThatThrownBy(() -> evaluator.evaluateConstant("1 < 2 and unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void orDoesNotEvaluateSecondOperandWhenFirstIsTrue() {
+        assertThat(evaluator.evaluateConstant("1 < 2 or unknown")).isEqualTo(new NodeBoolean(true));
+        assertThat(evaluator.evaluateConstant("1 > 2 or 2 > 3")).isEqualTo(new NodeBoolean(false));
+        assertThatThrownBy(() -> evaluator.evaluateConstant("1 > 2 or unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void logicalOperatorsStillRequireLogicalArguments() {
+        assertThatThrownBy(() -> evaluator.evaluateConstant("{1, 2} and 1 > 2"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Must have two logical arguments to operator 'and'");
+        assertThatThrownBy(() -> evaluator.evaluateConstant("1 > 2 or {1, 2}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Must have two logical arguments to operator 'or'");
+    }
+
+    @Test
+    void skippedOperandsWrittenAsValuesMustStillBeLogical() {
+        assertThatThrownBy(() -> evaluator.evaluateConstant("0 and {1, 2}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Must have two logical arguments to operator 'and'");
+        assertThatThrownBy(() -> evaluator.evaluateConstant("1 or {1, 2}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Must have two logical arguments to operator 'or'");
+    }
+
+    @Test
+    void skippedOperandsAreNotCheckedOnceEvaluated() {
+        evaluator.addVariable("v", new NodeVector(new double[]{1, 2}));
+
+        assertThat(evaluator.evaluateConstant("0 and v")).isEqualTo(new NodeBoolean(false));
+        assertThat(evaluator.evaluateConstant("1 or v")).isEqualTo(new NodeBoolean(true));
+    }
+
+    @Test
+    void compiledExpressionsAreLazy() {
+        CompiledExpression expression = evaluator.compile("if({x > 0, x, unknown})");
+
+        assertThat(expression.evaluateDouble("x", 2)).isEqualTo(2);
+        assertThatThrownBy(() -> expression.evaluateDouble("x", -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EvaluatorParallelTest {
+
+    private static final int SIZE = 20_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "v select f", "v where g", "sum(v)", "sort(v)", "v * 3 + v", "sin(v)", "v - w", "abs(v)"
+    })
+    void parallelMatchesSequential(String expression) {
+        Evaluator sequential = newEvaluator(ParallelPolicy.SEQUENTIAL);
+        Evaluator parallel = newEvaluator(ParallelPolicy.withThreshold(64));
+
+        assertThat(parallel.evaluateConstant(expression)).isEqualTo(sequential.evaluateConstant(expression));
+    }
+
+    @Test
+    void defaultsToDefaultPolicy() {
+        assertThat(Evaluator.newEvaluator().getParallelPolicy()).isSameAs(ParallelPolicy.DEFAULT);
+    }
+
+    @Test
+    void selectKeepsElementOrder() {
+        Evaluator evaluator = newEvaluator(ParallelPolicy.withThreshold(2));
+
+        NodeVector result = (NodeVector) evaluator.evaluateConstant("v select f");
+
+        for (int i = 0; i < SIZE; i++) {
+            assertThat(result.getValues()[i]).isEqualTo(NodeFactory.createNodeNumberFrom(value(i) * 2 + 1));
+        }
+    }
+
+    @Test
+    void rejectsNullPolicy() {
+        assertThatThrownBy(() -> Evaluator.newEvaluator().setParallelPolicy(null))
+                .isInstanceOf(NullPointerException.class);
+    }
+
+    private static Evaluator newEvaluator(ParallelPolicy policy) {
+        Evaluator evaluator = Evaluator.newEvaluator();
+        evaluator.setParallelPolicy(policy);
+
+        Node[] v = new Node[SIZE];
+        Node[] w = new Node[SIZE / 2];
+        for (int i = 0; i < SIZE; i++) {
+            v[i] = NodeFactory.createNodeNumberFrom(value(i));
+        }
+        for (int i = 0; i < w.length; i++) {
+            w[i] = NodeFactory.createNodeNumberFrom(i % 13);
+        }
+        evaluator.addVariable("v", new NodeVector(v));
+        evaluator.addVariable("w", new NodeVector(w));
+        evaluator.evaluateConstant("f(x) := x * 2 + 1");
+        evaluator.evaluateConstant("g(x) := x > 10");
+        return evaluator;
+    }
+
+    private static double value(int i) {
+        return (i * 7919 % 101) - 50;
+    }
+}
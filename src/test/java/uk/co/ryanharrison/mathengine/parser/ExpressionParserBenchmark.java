@@ -0,0 +1,106 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeDouble;
+import uk.co.ryanharrison.mathengine.parser.operators.OperatorProvider;
+
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times {@link ExpressionParser} against the substring based parser it replaced on expressions
+ * of increasing length. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class ExpressionParserBenchmark {
+
+    private static final int[] SIZES = {250, 500, 1000, 2000, 4000};
+
+    private final EvaluationContext context = newContext();
+
+    @Test
+    void flatSums() {
+        run("flat sums", n -> {
+            StringBuilder builder = new StringBuilder("1");
+            for (int i = 2; i <= n; i++) {
+                builder.append(" + ").append(i);
+            }
+            return builder.toString();
+        });
+    }
+
+    @Test
+    void mixedOperators() {
+        run("mixed operators", n -> {
+            StringBuilder builder = new StringBuilder("x");
+            for (int i = 1; i < n; i++) {
+                builder.append(i % 3 == 0 ? " - " : " + ").append(i).append(" * sin(x) ^ 2 / ").append(i + 1);
+            }
+            return builder.toString();
+        });
+    }
+
+    @Test
+    void vectors() {
+        run("vectors", n -> {
+            StringBuilder builder = new StringBuilder("{");
+            for (int i = 0; i < n; i++) {
+                builder.append(i == 0 ? "" : ", ").append(i).append(" * x");
+            }
+            return builder.append("}").toString();
+        });
+    }
+
+    @Test
+    void nestedParentheses() {
+        run("nested parentheses", n -> "(x + ".repeat(n / 10) + "1" + ")".repeat(n / 10));
+    }
+
+    private void run(String name, IntFunction<String> generator) {
+        double previous = 0;
+        for (int size : SIZES) {
+            String expression = generator.apply(size);
+            double legacy = time(() -> new LegacyExpressionParser(context).parse(expression));
+            double current = time(() -> new ExpressionParser(context).parse(expression));
+
+            System.out.printf("%-20s %6d terms %8d chars  legacy %10.3f ms  new %8.3f ms  (%.1fx)%n",
+                    name, size, expression.length(), legacy, current, legacy / current);
+
+            if (previous > 0.05) {
+                // doubling the input should roughly double the time, never square it
+                assertThat(current / previous).as("%s growth at %d terms", name, size).isLessThan(3.5);
+            }
+            previous = current;
+        }
+    }
+
+    private static double time(Runnable parse) {
+        for (int i = 0; i < 3; i++) {
+            parse.run();
+        }
+
+        int runs = 5;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            parse.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static EvaluationContext newContext() {
+        EvaluationContext context = new EvaluationContext();
+        context.fillOperators(OperatorProvider.simpleBinaryOperators());
+        context.fillOperators(OperatorProvider.simpleUnaryOperators());
+        context.fillOperators(OperatorProvider.trigOperators());
+        context.fillOperators(OperatorProvider.logicalOperators());
+        context.fillOperators(OperatorProvider.vectorOperators());
+        context.fillOperators(OperatorProvider.matrixOperators());
+        context.fillOperators(OperatorProvider.customOperators());
+        context.addConstant("pi", new NodeDouble(Math.PI));
+        return context;
+    }
+}
@@ -0,0 +1,181 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+import uk.co.ryanharrison.mathengine.parser.operators.OperatorProvider;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link ExpressionParser} builds the same trees, and raises the same errors, as the
+ * substring based parser it replaced.
+ */
+class ExpressionParserTest {
+
+    private static final String[] FUZZ_TOKENS = {
+            "1", "2.5", "10", "0.001", "1e3", "3", "x", "y", "pi", "f", "g", "ans",
+            "+", "-", "*", "/", "^", "!", "%", " ", " ", "mod", "sin", "cos", "ln", "exp",
+            "and", "or", "==", "<=", ">", "!=", "d", "to", "in", "sum", "select", "if",
+            "(", ")", "(", ")", "{", "}", "[", "]", ",", "meter", "ft", "."
+    };
+
+    private final EvaluationContext context = newContext();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1", "-1", "+1", "1 + 2", "1+2*3", "(1+2)*3", "2^3^2", "1 - 2 - 3", "8 / 4 / 2",
+            "-2^2", "2 * -3", "2 ^ -3", "3!", "3!!", "(2 + 3)!", "5%", "5% + 10", "sin(pi)",
+            "s in(pi / 2)", "SIN ( 1 )", "sin cos 1", "ln exp 2", "x mod 3", "x MOD 3",
+            "1 + sin(x) * cos(y)^2", "f(2) + g(1, 2)", "f g 3", "sum({1, 2, 3})",
+            "{1, 2, {3, 4}}", "{{1, 2}}", "{}", "{ }", "{1,,2}", "[1, 2; 3, 4]", "[{1, 2}, {3, 4}]",
+            "[]", "[1, 2, 3]", "{1, 2} select f", "{1, 2, 3} where x > 1", "1 < 2 && 2 > 1",
+            "true and false or true", "x == 2 ? 1 : 0", "if(x > 1, 2, 3)", "10 meter to ft",
+            "12 inches in cm", "2 d", "1/3 d", "0x1F", "1e-5 + 2E+3", "1 2", "NaN", "Infinity",
+            "1d", "2f + 1", "((((1))))", "((1 + 2) * (3 - (4 / (5 ^ 6))))", "(1 + 2",
+            "1 + 2)", "", "+", "1 +", "* 2", "1 2 3 + ", "x y", "a.b", "(1)(2)", "{1, 2",
+            "[1, 2; 3]", "(", "1 + {", "1 ++ 2", "1 +- 2", "1 - - 2", "sin", "!", "()", "(())", "{,}",
+            "ans + 1", "pi pi", "1 + (2 + {3, 4})", "det([1, 2; 3, 4])", "transpose [1, 2]",
+            "   1   +   2   ", "1 <= 2", "1 < = 2", "2 >= 1 or 1 != 2"
+    })
+    void buildsSameTreeAsLegacyParser(String expression) {
+        assertSameResult(expression);
+    }
+
+    @Test
+    void buildsSameTreeAsLegacyParserForRandomExpressions() {
+        Random random = new Random(20240521L);
+        StringBuilder builder = new StringBuilder();
+
+        for (int n = 0; n < 3000; n++) {
+            builder.setLength(0);
+            int tokens = 1 + random.nextInt(14);
+            for (int i = 0; i < tokens; i++) {
+                builder.append(FUZZ_TOKENS[random.nextInt(FUZZ_TOKENS.length)]);
+            }
+            assertSameResult(builder.toString());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "h(x) := x^2 + 1", "k(a, b) := a * b - 1", "v := 5 + 3", "sin := 2", "{1, m(x) := x + 1, m 2}"
+    })
+    void definesSameFunctionsAsLegacyParser(String expression) {
+        EvaluationContext legacyContext = newContext();
+        EvaluationContext newContext = newContext();
+
+        Object expected = parseOutcome(new LegacyExpressionParser(legacyContext), expression);
+        Object actual = parseOutcome(new ExpressionParser(newContext), expression);
+
+        assertThat(actual.toString()).isEqualTo(expected.toString());
+        assertThat(actual.getClass()).isEqualTo(expected.getClass());
+        assertThat(newContext.findLongestOperator()).isEqualTo(legacyContext.findLongestOperator());
+    }
+
+    @Test
+    void parsesLongSums() {
+        int terms = 20000;
+        StringBuilder builder = new StringBuilder("1");
+        for (int i = 2; i <= terms; i++) {
+            builder.append(" + ").append(i);
+        }
+
+        Node tree = new ExpressionParser(context).parse(builder.toString());
+
+        int count = 1;
+        while (tree instanceof NodeExpression expression) {
+            assertThat(expression.getArgTwo()).isEqualTo(NodeFactory.createNodeNumberFrom(terms - count + 1));
+            tree = expression.getArgOne();
+            count++;
+        }
+        assertThat(count).isEqualTo(terms);
+        assertThat(tree).isEqualTo(NodeFactory.createNodeNumberFrom(1));
+    }
+
+    @Test
+    void operatorMatchesIgnoreWhitespaceAndCase() {
+        Node tree = new ExpressionParser(context).parse("C o S(0)");
+
+        assertThat(tree).isInstanceOf(NodeExpression.class);
+        assertThat(((NodeExpression) tree).getOperator()).isSameAs(context.getOperator("cos"));
+    }
+
+    private void assertSameResult(String expression) {
+        Object expected = parseOutcome(new LegacyExpressionParser(context), expression);
+        Object actual = parseOutcome(new ExpressionParser(context), expression);
+
+        if (expected instanceof Node expectedTree) {
+            assertThat(actual).as("parsing \"%s\"", expression).isInstanceOf(Node.class);
+            assertSameTree(expression, expectedTree, (Node) actual);
+        } else if (expected instanceof StringIndexOutOfBoundsException) {
+            // the legacy parser failed on a lone opening bracket, which is now reported properly
+            assertThat(actual).as("parsing \"%s\"", expression).isInstanceOf(IllegalArgumentException.class);
+        } else {
+            Throwable expectedError = (Throwable) expected;
+            assertThat(actual).as("parsing \"%s\"", expression).isInstanceOf(Throwable.class);
+            assertThat(actual).as("parsing \"%s\"", expression)
+                    .hasSameClassAs(expectedError)
+                    .hasFieldOrPropertyWithValue("message", expectedError.getMessage());
+        }
+    }
+
+    private static void assertSameTree(String expression, Node expected, Node actual) {
+        if (expected == null) {
+            assertThat(actual).as("parsing \"%s\"", expression).isNull();
+            return;
+        }
+
+        assertThat(actual).as("parsing \"%s\"", expression).hasSameClassAs(expected);
+        assertThat(actual.toString()).as("parsing \"%s\"", expression).isEqualTo(expected.toString());
+
+        if (expected instanceof NodeExpression e) {
+            NodeExpression a = (NodeExpression) actual;
+            assertThat(a.getOperator()).as("parsing \"%s\"", expression).isSameAs(e.getOperator());
+            assertSameTree(expression, e.getArgOne(), a.getArgOne());
+            assertSameTree(expression, e.getArgTwo(), a.getArgTwo());
+        } else if (expected instanceof NodeVector e) {
+            Node[] a = ((NodeVector) actual).getValues();
+            assertThat(a).as("parsing \"%s\"", expression).hasSameSizeAs(e.getValues());
+            for (int i = 0; i < a.length; i++) {
+                assertSameTree(expression, e.getValues()[i], a[i]);
+            }
+        } else if (expected instanceof NodeMatrix e) {
+            Node[][] a = ((NodeMatrix) actual).getValues();
+            assertThat(a).as("parsing \"%s\"", expression).hasSameDimensionsAs(e.getValues());
+            for (int i = 0; i < a.length; i++) {
+                for (int j = 0; j < a[i].length; j++) {
+                    assertSameTree(expression, e.getValues()[i][j], a[i][j]);
+                }
+            }
+        }
+    }
+
+    private static Object parseOutcome(Parser<String, Node> parser, String expression) {
+        try {
+            return parser.parse(expression);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static EvaluationContext newContext() {
+        EvaluationContext context = new EvaluationContext();
+        context.fillOperators(OperatorProvider.simpleBinaryOperators());
+        context.fillOperators(OperatorProvider.simpleUnaryOperators());
+        context.fillOperators(OperatorProvider.trigOperators());
+        context.fillOperators(OperatorProvider.logicalOperators());
+        context.fillOperators(OperatorProvider.vectorOperators());
+        context.fillOperators(OperatorProvider.matrixOperators());
+        context.fillOperators(OperatorProvider.customOperators());
+        context.addConstant("pi", new NodeDouble(Math.PI));
+        context.addConstant("ans", new NodeDouble(0));
+
+        new ExpressionParser(context).parse("f(x) := x^2 + 1");
+        new ExpressionParser(context).parse("g(x, y) := x - y");
+        return context;
+    }
+}
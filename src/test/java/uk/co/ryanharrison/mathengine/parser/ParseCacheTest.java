@@ -0,0 +1,157 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeVariable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ParseCacheTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+    private final ParseCache cache = evaluator.getParseCache();
+
+    @Test
+    void reusesTreeOfRepeatedExpression() {
+        Node first = evaluator.generateTree("x^2 + 3");
+        Node second = evaluator.generateTree("  x^2 + 3 ");
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evaluatesCachedTreeWithNewValues() {
+        evaluator.addVariable("x", 2);
+        assertThat(evaluator.evaluateDouble("x * 5")).isEqualTo(10);
+
+        evaluator.addVariable("x", 3);
+        assertThat(evaluator.evaluateDouble("x * 5")).isEqualTo(15);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.setCapacity(2);
+
+        Node a = evaluator.generateTree("1 + 1");
+        evaluator.generateTree("2 + 2");
+        evaluator.generateTree("1 + 1");
+        evaluator.generateTree("3 + 3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(evaluator.generateTree("1 + 1")).isSameAs(a);
+        assertThat(cache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    void shrinkingCapacityEvicts() {
+        evaluator.generateTree("1 + 1");
+        evaluator.generateTree("2 + 2");
+        evaluator.generateTree("3 + 3");
+
+        cache.setCapacity(1);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    void zeroCapacityDisablesCaching() {
+        cache.setCapacity(0);
+
+        Node first = evaluator.generateTree("1 + 1");
+
+        assertThat(evaluator.generateTree("1 + 1")).isNotSameAs(first).isEqualTo(first);
+        assertThat(cache.size()).isZero();
+        assertThatThrownBy(() -> cache.setCapacity(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void invalidatedByCustomFunctionDefinition() {
+        evaluator.evaluateConstant("g(x) := x + 1");
+        assertThat(evaluator.evaluateDouble("g(2)")).isEqualTo(3);
+
+        evaluator.evaluateConstant("g(x) := x + 10");
+
+        assertThat(evaluator.evaluateDouble("g(2)")).isEqualTo(12);
+    }
+
+    @Test
+    void invalidatedByVariableNamesContainingOperators() {
+        Node before = evaluator.generateTree("q + 1");
+
+        evaluator.addVariable("q", 2);
+        evaluator.addVariable("q", 3);
+        assertThat(evaluator.generateTree("q + 1")).isSameAs(before);
+
+        // contains the operator "sin", so is only a variable once defined
+        evaluator.addVariable("sin2", 5);
+        assertThat(evaluator.generateTree("q + 1")).isNotSameAs(before);
+    }
+
+    @Test
+    void definitionsAreNotCached() {
+        evaluator.evaluateConstant("y := 4");
+        evaluator.evaluateConstant("y := 4");
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHits() + cache.getMisses()).isZero();
+    }
+
+    @Test
+    void failedParsesAreNotCached() {
+        assertThatThrownBy(() -> evaluator.generateTree("1 +")).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void olderVersionsDoNotDiscardNewerTrees() {
+        Node newer = cache.get("1 + 1", 2, NodeVariable::new);
+
+        Node older = cache.get("1 + 1", 1, NodeVariable::new);
+        cache.get("2 + 2", 1, NodeVariable::new);
+
+        assertThat(older).isNotSameAs(newer);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("1 + 1", 2, NodeVariable::new)).isSameAs(newer);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    void isSafeForConcurrentLookups() throws Exception {
+        cache.setCapacity(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        String expression = (i % 32) + " * 2";
+                        Node tree = cache.get(expression, 0, NodeVariable::new);
+                        assertThat(tree).isNotNull();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(cache.getHits() + cache.getMisses()).isEqualTo(800);
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+    }
+}
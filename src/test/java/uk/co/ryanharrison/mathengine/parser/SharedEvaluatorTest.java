@@ -0,0 +1,161 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeDouble;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SharedEvaluatorTest {
+
+    @Test
+    void startsWithCopyOfEvaluator() {
+        Evaluator evaluator = Evaluator.newEvaluator();
+        evaluator.addVariable("rate", 0.5);
+        evaluator.generateTree("f(a) := a * rate");
+        SharedEvaluator shared = SharedEvaluator.of(evaluator);
+
+        evaluator.addVariable("rate", 2);
+
+        assertThat(shared.evaluateDouble("f(10) + pi")).isEqualTo(5 + Math.PI);
+        assertThat(shared.getVersion()).isZero();
+    }
+
+    @Test
+    void updatesAreSeenByLaterEvaluations() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+
+        shared.update(e -> {
+            e.addVariable("rate", 0.05);
+            e.evaluateConstant("interest(p) := p * rate");
+        });
+
+        assertThat(shared.evaluateDouble("interest(1000)")).isEqualTo(50);
+        assertThat(shared.getVersion()).isEqualTo(1);
+        assertThat(shared.isDefined("rate")).isTrue();
+    }
+
+    @Test
+    void redefinedFunctionsAreNotParsedFromCache() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+        shared.update(e -> e.evaluateConstant("f(a) := a + 1"));
+        assertThat(shared.evaluateDouble("f(2)")).isEqualTo(3);
+
+        shared.update(e -> e.evaluateConstant("f(a) := a * 10"));
+
+        assertThat(shared.evaluateDouble("f(2)")).isEqualTo(20);
+    }
+
+    @Test
+    void updatingValuesKeepsCachedTrees() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+        shared.update(e -> e.addVariable("q", 0.5));
+        assertThat(shared.evaluateDouble("q * 10")).isEqualTo(5);
+
+        shared.update(e -> e.addVariable("q", 2));
+
+        assertThat(shared.evaluateDouble("q * 10")).isEqualTo(20);
+        assertThat(shared.getParseCache().getHits()).isEqualTo(1);
+        assertThat(shared.getParseCache().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void failedUpdatePublishesNothing() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+
+        assertThatThrownBy(() -> shared.update(e -> {
+            e.addVariable("a", 1);
+            e.evaluateConstant("1 +");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(shared.isDefined("a")).isFalse();
+        assertThat(shared.getVersion()).isZero();
+    }
+
+    @Test
+    void evaluationsDoNotChangeDefinitions() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+
+        shared.evaluateConstant("clearvars");
+        shared.evaluateConstant("1 + 2");
+
+        assertThat(shared.isDefined("pi")).isTrue();
+        assertThat(shared.isDefined("ans")).isFalse();
+        assertThatThrownBy(() -> shared.evaluateConstant("x := 2"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> shared.evaluateConstant("g(a) := a"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(shared.isDefined("g")).isFalse();
+    }
+
+    @Test
+    void evaluatesWithExtraVariables() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+
+        assertThat(shared.evaluateConstant("x^2 + 1", Map.of("x", new NodeDouble(3))))
+                .isEqualTo(new NodeDouble(10));
+        assertThat(shared.isDefined("x")).isFalse();
+    }
+
+    @Test
+    void compiledExpressionsKeepTheirDefinitions() {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+        shared.update(e -> e.addVariable("k", 2));
+        CompiledExpression expression = shared.compile("k * x");
+
+        shared.update(e -> e.addVariable("k", 3));
+
+        assertThat(expression.evaluateDouble("x", 5)).isEqualTo(10);
+        assertThat(shared.compile("k * x").evaluateDouble("x", 5)).isEqualTo(15);
+    }
+
+    @Test
+    void readersAlwaysSeeCompleteUpdates() throws Exception {
+        SharedEvaluator shared = SharedEvaluator.of(Evaluator.newEvaluator());
+        shared.update(e -> {
+            e.addVariable("a", 0);
+            e.addVariable("b", 0);
+        });
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(executor.submit(() -> {
+                    int evaluations = 0;
+                    while (running.get()) {
+                        assertThat(shared.evaluateDouble("a + b")).isEqualTo(0);
+                        evaluations++;
+                    }
+                    return evaluations;
+                }));
+            }
+
+            for (int i = 1; i <= 500; i++) {
+                int value = i;
+                shared.update(e -> {
+                    e.addVariable("a", value);
+                    e.addVariable("b", -value);
+                });
+            }
+            running.set(false);
+
+            for (Future<Integer> reader : readers) {
+                assertThat(reader.get(10, TimeUnit.SECONDS)).isNotNegative();
+            }
+            assertThat(shared.getVersion()).isEqualTo(501);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreeOptimizerTest {
+
+    private static final String[] FUZZ_TOKENS = {
+            "x", "x", "y", "1", "0", "2", "0.5", "pi", "3", "(x + 1)", "sin(x)", "cos(pi / 4)",
+            "sum({1, 2, x})", "abs(x - 2)", "f(x)", "f(2)", "g(3)", "{1, 2} select h", "sqrt 2"
+    };
+
+    private static final String[] FUZZ_OPERATORS = {" + ", " - ", " * ", " / ", " ^ "};
+
+    private final Evaluator evaluator = newEvaluator();
+
+    @Test
+    void foldsConstantSubtrees() {
+        Node tree = optimize("x * (2 * pi / 360)");
+
+        assertThat(tree).isInstanceOf(NodeExpression.class);
+        NodeExpression expression = (NodeExpression) tree;
+        assertThat(expression.getArgOne()).isEqualTo(new NodeVariable("x"));
+        assertThat(expression.getArgTwo()).isEqualTo(new NodeDouble(2 * Math.PI / 360));
+    }
+
+    @Test
+    void foldsWholeTreeWithoutVariables() {
+        assertThat(optimize("-3 + 2 * 4")).isEqualTo(new NodeRational(5, 1));
+        assertThat(optimize("sum({1, 2, 3}) / 4")).isEqualTo(new NodeRational(3, 2));
+    }
+
+    @Test
+    void foldsUnaryMinusOfLiteral() {
+        NodeExpression expression = (NodeExpression) optimize("x * -2");
+
+        assertThat(expression.getArgTwo()).isEqualTo(new NodeRational(-2, 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"x * 1", "1 * x", "x + 0", "0 + x", "x - 0", "x / 1", "x ^ 1",
+            "(x * 1 + 0) ^ 1", "x * (3 - 2)", "x + (2 - 2)", "x * one"})
+    void removesIdentities(String expression) {
+        assertThat(optimize(expression)).isEqualTo(new NodeVariable("x"));
+    }
+
+    @Test
+    void removesIdentitiesAroundArithmetic() {
+        assertThat(optimize("(x + y) * 1").toString()).isEqualTo("(x + y)");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"x * 0", "x - 0 * x", "0 - x", "1 / x", "sin(x) * 1", "{x, 1} * 1",
+            "x ^ 0", "q * 1"})
+    void keepsOperationsThatAreNotIdentities(String expression) {
+        Node tree = evaluator.generateTree(expression);
+
+        assertThat(optimize(expression).toString()).isEqualTo(tree.toString());
+    }
+
+    @Test
+    void keepsFunctionsUsingBoundVariables() {
+        evaluator.generateTree("k(t) := t + x");
+
+        Node tree = optimize("k(2) + 1 * 2");
+
+        assertThat(tree.toString()).isEqualTo("(k(2) + 2)");
+    }
+
+    @Test
+    void foldsFunctionsNotUsingBoundVariables() {
+        assertThat(optimize("x + f(2)").toString()).isEqualTo("(x + 5)");
+    }
+
+    @Test
+    void keepsSubtreesThatFail() {
+        Node tree = optimize("x + 1 / 0");
+
+        assertThat(tree.toString()).isEqualTo("(x + (1 / 0))");
+    }
+
+    @Test
+    void keepsTreesWithSideEffects() {
+        Node tree = evaluator.generateTree("z := x + 1 * 2");
+
+        assertThat(evaluator.optimize(tree, "x")).isSameAs(tree);
+    }
+
+    @Test
+    void returnsSameTreeWhenNothingChanges() {
+        Node tree = evaluator.generateTree("x ^ 2 + y");
+
+        assertThat(evaluator.optimize(tree, "x", "y")).isSameAs(tree);
+    }
+
+    @Test
+    void onlySimplifiesFirstArgumentOfLazyOperators() {
+        assertThat(optimize("if({x > 1 + 1, 2 * 3, 4 - 1})").toString()).isEqualTo("if({ (x > 2), (2 * 3), (4 - 1) })");
+        assertThat(optimize("1 + 1 > x and 2 * 3 > x").toString()).isEqualTo("((2 > x) and ((2 * 3) > x))");
+        assertThat(optimize("x > 1 or 2 * 3 > x").toString()).isEqualTo("((x > 1) or ((2 * 3) > x))");
+    }
+
+    @Test
+    void foldsLazyOperatorsWithoutVariablesLazily() {
+        assertThat(optimize("if({1 > 2, unknown, 2 * 3})")).isEqualTo(new NodeRational(6, 1));
+        assertThat(optimize("1 > 2 and unknown")).isEqualTo(new NodeBoolean(false));
+    }
+
+    @Test
+    void simplifiesInsideVectors() {
+        Node tree = optimize("{x * 1, 2 * 3}");
+
+        assertThat(tree.toString()).isEqualTo(evaluator.generateTree("{x, 6}").toString());
+    }
+
+    @Test
+    void optimizedTreesEvaluateToSameResult() {
+        Random random = new Random(1234L);
+        StringBuilder builder = new StringBuilder();
+
+        for (int n = 0; n < 2000; n++) {
+            builder.setLength(0);
+            int terms = 1 + random.nextInt(6);
+            for (int i = 0; i < terms; i++) {
+                if (i > 0)
+                    builder.append(FUZZ_OPERATORS[random.nextInt(FUZZ_OPERATORS.length)]);
+                builder.append(FUZZ_TOKENS[random.nextInt(FUZZ_TOKENS.length)]);
+            }
+            String expression = builder.toString();
+            Node tree;
+            try {
+                tree = evaluator.generateTree(expression);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            Node optimized = evaluator.optimize(tree, "x", "y");
+
+            for (double x : new double[]{-1.5, 0, 2, 3.25}) {
+                evaluator.addVariable("x", x);
+                evaluator.addVariable("y", x / 2 + 1);
+                Object expected = evaluate(tree);
+                Object actual = evaluate(optimized);
+
+                assertThat(withoutSignOfZero(actual)).as("%s at x = %s", expression, x)
+                        .isEqualTo(withoutSignOfZero(expected));
+            }
+        }
+    }
+
+    private Object evaluate(Node tree) {
+        try {
+            return evaluator.parseTree(tree);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    /**
+     * Removing {@code + 0} turns a result of {@code 0.0} into {@code -0.0} when the other operand
+     * is negative zero, which is allowed
+     */
+    private static String withoutSignOfZero(Object result) {
+        return String.valueOf(result).replaceAll("-0\\.0(?!\\d)", "0.0");
+    }
+
+    private Node optimize(String expression) {
+        return evaluator.optimize(evaluator.generateTree(expression), "x", "y");
+    }
+
+    private static Evaluator newEvaluator() {
+        Evaluator evaluator = Evaluator.newEvaluator();
+        evaluator.addVariable("x", 0);
+        evaluator.addVariable("y", 0);
+        evaluator.generateTree("f(a) := a^2 + 1");
+        evaluator.generateTree("g(a) := f(a) - x");
+        evaluator.generateTree("h(a) := a * y");
+        return evaluator;
+    }
+}
@@ -0,0 +1,66 @@
+package uk.co.ryanharrison.mathengine.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.nodes.*;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VariableBinderTest {
+
+    private final Evaluator evaluator = Evaluator.newEvaluator();
+
+    @Test
+    void replacesParametersWithSlots() {
+        NodeExpression bound = (NodeExpression) bind("x + y", "x", "y");
+
+        assertThat(bound.getArgOne()).isEqualTo(new NodeSlot(0, "x"));
+        assertThat(bound.getArgTwo()).isEqualTo(new NodeSlot(1, "y"));
+    }
+
+    @Test
+    void replacesDefinedVariablesWithValues() {
+        evaluator.addVariable("k", 4);
+        NodeExpression bound = (NodeExpression) bind("k * x", "x");
+
+        assertThat(bound.getArgOne()).isEqualTo(new NodeRational(4, 1));
+        assertThat(bound.getArgTwo()).isEqualTo(new NodeSlot(0, "x"));
+    }
+
+    @Test
+    void leavesUndefinedVariables() {
+        NodeExpression bound = (NodeExpression) bind("q * x", "x");
+
+        assertThat(bound.getArgOne()).isEqualTo(new NodeVariable("q"));
+    }
+
+    @Test
+    void keepsSharedSubtreesShared() {
+        Node tree = CommonSubexpressions.share(evaluator.generateTree("sin(x) * sin(x)"));
+        NodeExpression bound = (NodeExpression) VariableBinder.bind(tree, List.of("x"), evaluator.getContext());
+
+        assertThat(bound.getArgOne()).isInstanceOf(NodeShared.class).isSameAs(bound.getArgTwo());
+        assertThat(((NodeExpression) ((NodeShared) bound.getArgOne()).getNode()).getArgOne())
+                .isEqualTo(new NodeSlot(0, "x"));
+    }
+
+    @Test
+    void leavesTreesWithSideEffects() {
+        Node tree = evaluator.generateTree("z := x + k");
+
+        assertThat(VariableBinder.canBind(tree)).isFalse();
+        assertThat(VariableBinder.bind(tree, List.of("x"), evaluator.getContext())).isSameAs(tree);
+    }
+
+    @Test
+    void returnsSameTreeWhenNothingIsBound() {
+        Node tree = evaluator.generateTree("1 + 2 * q");
+
+        assertThat(VariableBinder.bind(tree, List.of("x"), evaluator.getContext())).isSameAs(tree);
+    }
+
+    private Node bind(String expression, String... parameters) {
+        return VariableBinder.bind(evaluator.generateTree(expression), List.of(parameters), evaluator.getContext());
+    }
+}
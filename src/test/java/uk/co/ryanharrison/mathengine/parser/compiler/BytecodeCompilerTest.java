@@ -0,0 +1,165 @@
+package uk.co.ryanharrison.mathengine.parser.compiler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.Evaluator;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeDouble;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeExpression;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BytecodeCompilerTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private static final Function<String, NodeConstant> NO_CONSTANTS = name -> null;
+
+    private final Evaluator evaluator = Evaluator.newSimpleEvaluator();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "x^2 + 8*x + 12",
+            "-x",
+            "3 - x - 2",
+            "x / 4 / 2",
+            "2^x^2",
+            "sin(x) + cos(x) * tan(x)",
+            "exp(x) - ln(abs(x) + 1)",
+            "log(abs(x) + 2)",
+            "(x + 4)! + 3",
+            "(x + 4)!! + 1",
+            "double(x) * 0.5",
+            "((x + 1) * (x - 1)) / (x^2 + 1)"
+    })
+    void matchesTreeEvaluation(String expression) {
+        Node tree = evaluator.generateTree(expression);
+        DoubleUnaryOperator compiled = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Radians)
+                .orElseThrow();
+
+        for (double x = -3; x <= 3; x += 0.25) {
+            evaluator.addVariable("x", x);
+            assertThat(compiled.applyAsDouble(x))
+                    .as("%s at x = %s", expression, x)
+                    .isCloseTo(evaluator.evaluateDouble(tree), within(TOLERANCE));
+        }
+    }
+
+    @Test
+    void compilesBinaryOperator() {
+        Node tree = evaluator.generateTree("x^2 + 3*x*y - y");
+        DoubleBinaryOperator compiled = BytecodeCompiler
+                .compileBinary(tree, "x", "y", NO_CONSTANTS, AngleUnit.Radians)
+                .orElseThrow();
+
+        assertThat(compiled.applyAsDouble(2, 5)).isCloseTo(29, within(TOLERANCE));
+        assertThat(compiled.applyAsDouble(-1.5, 0.5)).isCloseTo(-0.5, within(TOLERANCE));
+    }
+
+    @Test
+    void capturesConstantsAtCompileTime() {
+        Map<String, NodeConstant> constants = Map.of("a", new NodeDouble(2.5));
+        Node tree = evaluator.generateTree("a*x + a");
+
+        DoubleUnaryOperator compiled = BytecodeCompiler
+                .compileUnary(tree, "x", constants::get, AngleUnit.Radians)
+                .orElseThrow();
+
+        assertThat(compiled.applyAsDouble(2)).isCloseTo(7.5, within(TOLERANCE));
+    }
+
+    @Test
+    void convertsAngleUnits() {
+        Node tree = evaluator.generateTree("sin(x)");
+
+        DoubleUnaryOperator degrees = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Degrees).orElseThrow();
+        DoubleUnaryOperator gradians = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Gradians).orElseThrow();
+
+        assertThat(degrees.applyAsDouble(90)).isCloseTo(1, within(TOLERANCE));
+        assertThat(gradians.applyAsDouble(100)).isCloseTo(1, within(TOLERANCE));
+    }
+
+    @Test
+    void handlesSignedZeroAndNonFiniteConstants() {
+        Map<String, NodeConstant> constants = Map.of(
+                "negzero", new NodeDouble(-0.0),
+                "inf", new NodeDouble(Double.POSITIVE_INFINITY));
+        Node tree = evaluator.generateTree("x / negzero + inf * 0");
+
+        DoubleUnaryOperator compiled = BytecodeCompiler
+                .compileUnary(tree, "x", constants::get, AngleUnit.Radians)
+                .orElseThrow();
+
+        assertThat(compiled.applyAsDouble(1)).isNaN();
+        assertThat(1 / BytecodeCompiler.compileUnary(evaluator.generateTree("negzero"), "x",
+                constants::get, AngleUnit.Radians).orElseThrow().applyAsDouble(1)).isEqualTo(Double.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    void compilesLargeExpressions() {
+        StringBuilder builder = new StringBuilder("x");
+        for (int i = 1; i <= 500; i++) {
+            builder.append(" + ").append(i).append("*x");
+        }
+        Node tree = evaluator.generateTree(builder.toString());
+
+        DoubleUnaryOperator compiled = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Radians)
+                .orElseThrow();
+
+        assertThat(compiled.applyAsDouble(2)).isCloseTo(2 + 2 * 125250, within(TOLERANCE));
+    }
+
+    @Test
+    void cannotCompileExpressionsTooLargeForAMethod() {
+        NodeExpression sum = (NodeExpression) evaluator.generateTree("x + x");
+        Node tree = evaluator.generateTree("2.5 * x");
+        // a balanced tree of 2^14 terms, each compiling to several bytes of code
+        for (int i = 0; i < 14; i++) {
+            tree = new NodeExpression(sum.getOperator(), tree, tree);
+        }
+
+        Optional<DoubleUnaryOperator> compiled = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Radians);
+
+        assertThat(compiled).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{x, 2}", "x + y", "5%", "x + 5%"})
+    void cannotCompileNonNumericTrees(String expression) {
+        Node tree = evaluator.generateTree(expression);
+
+        Optional<DoubleUnaryOperator> compiled = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Radians);
+
+        assertThat(compiled).isEmpty();
+    }
+
+    @Test
+    void evaluatorFallsBackToInterpreter() {
+        Evaluator full = Evaluator.newEvaluator();
+        DoubleUnaryOperator operator = full.compileUnary(full.generateTree("sum({x, 2, 3})"), "x");
+
+        assertThat(operator.applyAsDouble(4)).isCloseTo(9, within(TOLERANCE));
+        assertThat(operator.applyAsDouble(-5)).isCloseTo(0, within(TOLERANCE));
+    }
+
+    @Test
+    void evaluatorCompilesWithContextConstants() {
+        DoubleBinaryOperator operator = evaluator.compileBinary(evaluator.generateTree("pi * x * y"), "x", "y");
+
+        assertThat(operator.applyAsDouble(2, 3)).isCloseTo(6 * Math.PI, within(TOLERANCE));
+    }
+}
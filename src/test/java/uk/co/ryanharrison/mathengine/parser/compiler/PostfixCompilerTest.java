@@ -0,0 +1,188 @@
+package uk.co.ryanharrison.mathengine.parser.compiler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.co.ryanharrison.mathengine.parser.AngleUnit;
+import uk.co.ryanharrison.mathengine.parser.EvaluationMode;
+import uk.co.ryanharrison.mathengine.parser.Evaluator;
+import uk.co.ryanharrison.mathengine.parser.nodes.Node;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeConstant;
+import uk.co.ryanharrison.mathengine.parser.nodes.NodeDouble;
+
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PostfixCompilerTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private static final Function<String, NodeConstant> NO_CONSTANTS = name -> null;
+
+    private final Evaluator evaluator = Evaluator.newSimpleEvaluator();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "x^2 + 8*x + 12",
+            "-x",
+            "3 - x - 2",
+            "x / 4 / 2",
+            "2^x^2",
+            "sin(x) + cos(x) * tan(x)",
+            "exp(x) - ln(abs(x) + 1)",
+            "log(abs(x) + 2)",
+            "(x + 4)! + 3",
+            "(x + 4)!! + 1",
+            "double(x) * 0.5",
+            "((x + 1) * (x - 1)) / (x^2 + 1)"
+    })
+    void matchesTreeEvaluation(String expression) {
+        Node tree = evaluator.generateTree(expression);
+        PostfixProgram program = compile(tree, AngleUnit.Radians);
+        double[] stack = program.newStack();
+
+        for (double x = -3; x <= 3; x += 0.25) {
+            evaluator.addVariable("x", x);
+            assertThat(program.evaluate(x, 0, stack))
+                    .as("%s at x = %s", expression, x)
+                    .isCloseTo(evaluator.evaluateDouble(tree), within(TOLERANCE));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"x^3 - 2*sin(x) + exp(x/4)", "tan(x) / (1 + x^2)", "(x + 20)!!"})
+    void matchesBytecodeExactly(String expression) {
+        Node tree = evaluator.generateTree(expression);
+        PostfixProgram program = compile(tree, AngleUnit.Degrees);
+        DoubleUnaryOperator bytecode = BytecodeCompiler
+                .compileUnary(tree, "x", NO_CONSTANTS, AngleUnit.Degrees).orElseThrow();
+        double[] stack = program.newStack();
+
+        for (double x = -10; x <= 10; x += 0.5) {
+            assertThat(program.evaluate(x, 0, stack)).isEqualTo(bytecode.applyAsDouble(x));
+        }
+    }
+
+    @Test
+    void evaluatesTwoVariables() {
+        Node tree = evaluator.generateTree("x^2 + 3*x*y - y");
+        PostfixProgram program = PostfixCompiler
+                .compile(tree, "x", "y", NO_CONSTANTS, AngleUnit.Radians).orElseThrow();
+        DoubleBinaryOperator operator = program.toBinaryOperator();
+
+        assertThat(operator.applyAsDouble(2, 5)).isCloseTo(29, within(TOLERANCE));
+        assertThat(operator.applyAsDouble(-1.5, 0.5)).isCloseTo(-0.5, within(TOLERANCE));
+    }
+
+    @Test
+    void capturesConstantsAtCompileTime() {
+        Map<String, NodeConstant> constants = Map.of("a", new NodeDouble(2.5));
+        PostfixProgram program = PostfixCompiler
+                .compile(evaluator.generateTree("a*x + a"), "x", null, constants::get, AngleUnit.Radians)
+                .orElseThrow();
+
+        assertThat(program.toUnaryOperator().applyAsDouble(2)).isCloseTo(7.5, within(TOLERANCE));
+    }
+
+    @Test
+    void sizesStackToExpressionDepth() {
+        assertThat(compile(evaluator.generateTree("x"), AngleUnit.Radians).getMaxStack()).isEqualTo(1);
+        assertThat(compile(evaluator.generateTree("1 + 2 * (3 - x)"), AngleUnit.Radians).getMaxStack())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void evaluatesLargeExpressions() {
+        StringBuilder builder = new StringBuilder("x");
+        for (int i = 1; i <= 500; i++) {
+            builder.append(" + ").append(i).append("*x");
+        }
+        PostfixProgram program = compile(evaluator.generateTree(builder.toString()), AngleUnit.Radians);
+
+        assertThat(program.toUnaryOperator().applyAsDouble(2))
+                .isCloseTo(2 + 2 * 125250, within(TOLERANCE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{x, 2}", "x + y", "5%", "x + 5%"})
+    void cannotCompileNonNumericTrees(String expression) {
+        assertThat(PostfixCompiler.compile(evaluator.generateTree(expression), "x", null,
+                NO_CONSTANTS, AngleUnit.Radians)).isEmpty();
+    }
+
+    @Test
+    void evaluatorSelectsPostfixMode() {
+        Evaluator full = Evaluator.newEvaluator();
+
+        DoubleUnaryOperator numeric = full.compileUnary(full.generateTree("pi * x"), "x", EvaluationMode.Postfix);
+        DoubleUnaryOperator fallback = full.compileUnary(full.generateTree("sum({x, 2, 3})"), "x",
+                EvaluationMode.Postfix);
+        DoubleBinaryOperator binary = full.compileBinary(full.generateTree("x - y"), "x", "y",
+                EvaluationMode.Postfix);
+
+        assertThat(numeric.applyAsDouble(2)).isCloseTo(2 * Math.PI, within(TOLERANCE));
+        assertThat(fallback.applyAsDouble(4)).isCloseTo(9, within(TOLERANCE));
+        assertThat(binary.applyAsDouble(5, 7)).isCloseTo(-2, within(TOLERANCE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"x^3 - 2*sin(x) + exp(x/4)", "tan(x) / (1 + x^2)", "(abs(x) + 2)!! - log(abs(x) + 1)"})
+    void evaluateAllMatchesScalarEvaluation(String expression) {
+        PostfixProgram program = compile(evaluator.generateTree(expression), AngleUnit.Degrees);
+        double[] stack = program.newStack();
+
+        // spans several blocks, the last of them partial
+        double[] xs = new double[PostfixProgram.BLOCK_SIZE * 3 + 17];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = -20 + i * 0.05;
+        }
+        double[] out = new double[xs.length];
+        program.evaluateAll(xs, null, out);
+
+        for (int i = 0; i < xs.length; i++) {
+            assertThat(out[i]).as("%s at x = %s", expression, xs[i]).isEqualTo(program.evaluate(xs[i], 0, stack));
+        }
+    }
+
+    @Test
+    void evaluateAllBindsSecondArguments() {
+        PostfixProgram program = PostfixCompiler.compile(evaluator.generateTree("x^2 - 3*y"), "x", "y",
+                NO_CONSTANTS, AngleUnit.Radians).orElseThrow();
+        double[] out = new double[3];
+
+        program.evaluateAll(new double[]{1, 2, 3}, new double[]{4, 5, 6}, out);
+
+        assertThat(out).containsExactly(-11, -11, -9);
+    }
+
+    @Test
+    void evaluateAllRejectsShortArrays() {
+        PostfixProgram program = compile(evaluator.generateTree("x + 1"), AngleUnit.Radians);
+
+        assertThatThrownBy(() -> program.evaluateAll(new double[3], null, new double[2]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> program.evaluateAll(new double[3], new double[2], new double[3]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void evaluatorEvaluatesAll() {
+        Evaluator full = Evaluator.newEvaluator();
+        double[] xs = {1, 2, 3};
+        double[] numeric = new double[3];
+        double[] fallback = new double[3];
+
+        full.evaluateAll("pi * x", "x", xs, numeric);
+        full.evaluateAll("sum({x, 2, 3})", "x", xs, fallback);
+
+        assertThat(numeric).containsExactly(new double[]{Math.PI, 2 * Math.PI, 3 * Math.PI}, within(TOLERANCE));
+        assertThat(fallback).containsExactly(new double[]{6, 7, 8}, within(TOLERANCE));
+    }
+
+    private PostfixProgram compile(Node tree, AngleUnit angleUnit) {
+        return PostfixCompiler.compile(tree, "x", null, NO_CONSTANTS, angleUnit).orElseThrow();
+    }
+}
@@ -1,7 +1,9 @@
 package uk.co.ryanharrison.mathengine.parser.nodes;
 
 import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.parser.operators.CustomOperator;
 import uk.co.ryanharrison.mathengine.parser.operators.binary.Add;
+import uk.co.ryanharrison.mathengine.parser.operators.binary.Multiply;
 import uk.co.ryanharrison.mathengine.parser.operators.unary.simple.Sine;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,6 +36,30 @@ class NodeExpressionTest {
         assertThat(a.hashCode()).isEqualTo(new NodeExpression(new Add(), new NodeDouble(12.5), new NodeDouble(1.3)).hashCode());
     }
 
+    @Test
+    void equalsComparesWholeStructure() {
+        NodeExpression left = new NodeExpression(new Multiply(), a, new NodeExpression(new Sine(), new NodeVariable("x")));
+        NodeExpression right = new NodeExpression(new Multiply(),
+                new NodeExpression(new Add(), new NodeDouble(12.5), new NodeDouble(1.3)),
+                new NodeExpression(new Sine(), new NodeVariable("x")));
+
+        assertThat(left).isEqualTo(right);
+        assertThat(left.hashCode()).isEqualTo(right.hashCode());
+        assertThat(left).isNotEqualTo(new NodeExpression(new Multiply(), a, new NodeExpression(new Sine(), new NodeVariable("y"))));
+        assertThat(left).isNotEqualTo(new NodeExpression(new Multiply(), new NodeExpression(new Sine(), new NodeVariable("x")), a));
+    }
+
+    @Test
+    void equalsComparesFunctionsOfCustomOperators() {
+        CustomOperator f = new CustomOperator(new NodeFunction("f", new String[]{"x"}, "x + 1",
+                new NodeExpression(new Add(), new NodeVariable("x"), new NodeDouble(1))));
+        CustomOperator g = new CustomOperator(new NodeFunction("g", new String[]{"x"}, "x * 2",
+                new NodeExpression(new Multiply(), new NodeVariable("x"), new NodeDouble(2))));
+
+        assertThat(new NodeExpression(f, new NodeDouble(2))).isEqualTo(new NodeExpression(f, new NodeDouble(2)));
+        assertThat(new NodeExpression(f, new NodeDouble(2))).isNotEqualTo(new NodeExpression(g, new NodeDouble(2)));
+    }
+
     @Test
     void copy() {
         assertThat(a.copy()).isEqualTo(new NodeExpression(new Add(), new NodeDouble(12.5), new NodeDouble(1.3)));
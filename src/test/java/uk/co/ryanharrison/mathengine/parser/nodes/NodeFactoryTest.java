@@ -0,0 +1,64 @@
+package uk.co.ryanharrison.mathengine.parser.nodes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeFactoryTest {
+
+    @ParameterizedTest
+    @ValueSource(doubles = {
+            0, -0.0, 1, -1, 0.5, 0.1, 0.25, 1.2345, 1.23456, 123.4567, 9999999, 9999999.5, 1e7, 1.23e7,
+            1.234e7, 12345678, 2.1e9, 2.14e9, 2147483647, 2147483648.0, 1e-3, 1.5e-3, 1.2345e-3,
+            9.99e-4, 1e-4, 1.5e-4, 1.25e-4, 5e-9, 5.5e-9, 5.55e-9, 1e-9, 9e-10, 4e-10, 1e-11,
+            Math.PI, Math.E, 1.0 / 3
+    })
+    void createsSameNumberAsStringCheck(double value) {
+        assertSameNumber(value);
+        assertSameNumber(-value);
+    }
+
+    @Test
+    void createsSameNumberAsStringCheckForRandomValues() {
+        Random random = new Random(42L);
+
+        for (int n = 0; n < 20000; n++) {
+            double value = switch (n % 4) {
+                case 0 -> random.nextInt(100_000_000) / 10000.0;
+                case 1 -> random.nextInt(1000) * Math.pow(10, random.nextInt(20) - 10);
+                case 2 -> random.nextInt(100) / 1e6 / Math.pow(10, random.nextInt(6));
+                default -> random.nextDouble() * Math.pow(10, random.nextInt(24) - 12);
+            };
+            assertSameNumber(value);
+        }
+    }
+
+    @Test
+    void createsDoubleForNaN() {
+        assertThat(NodeFactory.createNodeNumberFrom(Double.NaN)).isEqualTo(new NodeDouble(Double.NaN));
+    }
+
+    private static void assertSameNumber(double value) {
+        assertThat(NodeFactory.createNodeNumberFrom(value)).as("%s", value).isEqualTo(byStringCheck(value));
+    }
+
+    /**
+     * The conversion as it was made before the fraction length was worked out arithmetically
+     */
+    private static NodeNumber byStringCheck(double value) {
+        double absValue = Math.abs(value);
+
+        if (absValue > Integer.MAX_VALUE || (absValue < 1.0 / Integer.MAX_VALUE && absValue != 0)
+                || Double.toString(absValue).split("\\.")[1].length() > 4)
+            return new NodeDouble(value);
+        try {
+            return new NodeRational(value);
+        } catch (RuntimeException e) {
+            return new NodeDouble(value);
+        }
+    }
+}
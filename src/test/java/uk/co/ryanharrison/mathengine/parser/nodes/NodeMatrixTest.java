@@ -132,6 +132,16 @@ class NodeMatrixTest {
         assertThat(res.getValues()).contains(new Node[]{new NodeDouble(7), new NodeDouble(8), new NodeDouble(9)}, atIndex(2));
     }
 
+    @Test
+    void applyBiFuncDoesNotModifyArguments() {
+        a.applyBiFunc(c, NodeNumber::add);
+        c.applyBiFunc(a, NodeNumber::add);
+
+        assertThat(a.rowCount()).isEqualTo(2);
+        assertThat(a.colCount()).isEqualTo(2);
+        assertThat(c.rowCount()).isEqualTo(3);
+    }
+
     @Test
     void resolve() {
         NodeDouble nd = new NodeDouble(65);
@@ -157,4 +167,40 @@ class NodeMatrixTest {
         assertThat(b.toString()).isEqualTo("77.0\t56.0\n" +
                 "11.0\t65.0");
     }
-}
\ No newline at end of file
+
+    @Test
+    void denseMatrixMatchesMatrixOfDoubles() {
+        NodeMatrix dense = new NodeMatrix(new double[][]{{12, 43}, {24, 7}});
+
+        assertThat(dense.isDense()).isTrue();
+        assertThat(a.isDense()).isFalse();
+        assertThat(dense).isEqualTo(a);
+        assertThat(dense.hashCode()).isEqualTo(a.hashCode());
+        assertThat(dense.toString()).isEqualTo(a.toString());
+        assertThat(dense.toShortString()).isEqualTo(a.toShortString());
+        assertThat(dense.getTransformer().toNodeNumber()).isEqualTo(a.getTransformer().toNodeNumber());
+        assertThat(dense.getTransformer().toNodeVector()).isEqualTo(a.getTransformer().toNodeVector());
+        assertThat(dense.toDoubleMatrix()).isEqualTo(a.toDoubleMatrix());
+        assertThat(c.isDense()).isTrue();
+    }
+
+    @Test
+    void primitiveFunctionMatchesNodeFunction() {
+        NodeMatrix dense = new NodeMatrix(new double[][]{{1.5, 2}, {3, 4.25}});
+        NodeMatrix rationals = new NodeMatrix(new Node[][]{
+                {new NodeRational(1), new NodeRational(2), new NodeRational(3)}});
+
+        for (NodeMatrix[] pair : new NodeMatrix[][]{{dense, rationals}, {rationals, dense}, {dense, a}, {c, dense}}) {
+            NodeMatrix expected = pair[0].applyBiFunc(pair[1], NodeNumber::multiply);
+            NodeMatrix actual = pair[0].applyBiFunc(pair[1], NodeNumber::multiply, (x, y) -> x * y,
+                    ParallelPolicy.SEQUENTIAL);
+
+            assertThat(actual).isEqualTo(expected);
+            assertThat(actual.toString()).isEqualTo(expected.toString());
+        }
+
+        NodeMatrix res = dense.applyUniFunc(n -> n.add(new NodeDouble(1)), x -> x + 1, ParallelPolicy.SEQUENTIAL);
+        assertThat(res.isDense()).isTrue();
+        assertThat(res).isEqualTo(new NodeMatrix(new double[][]{{2.5, 3}, {4, 5.25}}));
+    }
+}
@@ -1,8 +1,14 @@
 package uk.co.ryanharrison.mathengine.parser.nodes;
 
 import org.junit.jupiter.api.Test;
+import uk.co.ryanharrison.mathengine.core.BigRational;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class NodeRationalTest {
 
@@ -89,4 +95,67 @@ class NodeRationalTest {
         assertThat(a.pow(new NodeRational(2))).isEqualTo(new NodeRational(23.5 * 23.5));
         assertThat(b.pow(new NodeRational(3))).isEqualTo(new NodeRational(-1.5 * -1.5 * -1.5));
     }
-}
\ No newline at end of file
+
+    @Test
+    void smallArithmeticMatchesBigRational() {
+        List<NodeRational> values = new ArrayList<>();
+        for (int[] pair : new int[][]{{0, 1}, {1, 1}, {-1, 1}, {3, 4}, {-7, 12}, {Integer.MAX_VALUE, 1},
+                {Integer.MIN_VALUE, 1}, {1, Integer.MAX_VALUE}, {-5, Integer.MAX_VALUE - 1}, {2147483, 46341}}) {
+            NodeRational value = new NodeRational(pair[0], pair[1]);
+            values.add(value);
+            values.add((NodeRational) value.pow(new NodeRational(2)));
+            values.add((NodeRational) value.pow(new NodeRational(3)));
+        }
+
+        for (NodeRational x : values) {
+            for (NodeRational y : values) {
+                assertMatches(x.add(y), x.getValue().add(y.getValue()));
+                assertMatches(x.subtract(y), x.getValue().subtract(y.getValue()));
+                assertMatches(x.multiply(y), x.getValue().multiply(y.getValue()));
+                if (y.doubleValue() != 0)
+                    assertMatches(x.divide(y), x.getValue().divide(y.getValue()));
+                assertThat(Integer.signum(x.compareTo(y)))
+                        .isEqualTo(Integer.signum(x.getValue().compareTo(y.getValue())));
+            }
+            if (x.doubleValue() != 0)
+                assertMatches(x.pow(new NodeRational(-3)), x.getValue().pow(-3));
+        }
+    }
+
+    @Test
+    void promotesOnOverflowAndDemotesWhenSmallAgain() {
+        NodeRational large = new NodeRational(Integer.MAX_VALUE, 1);
+        NodeRational huge = (NodeRational) large.pow(new NodeRational(3));
+
+        assertThat(large.isSmall()).isTrue();
+        assertThat(huge.isSmall()).isFalse();
+        assertThat(huge.getValue()).isEqualTo(BigRational.of(Integer.MAX_VALUE).pow(3));
+
+        NodeRational back = (NodeRational) huge.divide(large).divide(large);
+        assertThat(back.isSmall()).isTrue();
+        assertThat(back).isEqualTo(large);
+        assertThat(back.hashCode()).isEqualTo(large.hashCode());
+    }
+
+    @Test
+    void divisionByZeroFails() {
+        assertThatThrownBy(() -> a.divide(new NodeRational(0)))
+                .isInstanceOf(ArithmeticException.class)
+                .hasMessage("Division by zero");
+        assertThatThrownBy(() -> new NodeRational(0).pow(new NodeRational(-1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new NodeRational(1, 0)).isInstanceOf(ArithmeticException.class);
+    }
+
+    private static void assertMatches(NodeNumber actual, BigRational expected) {
+        BigInteger num = expected.getNumerator();
+        boolean fitsInLongs = num.bitLength() < 64 && num.longValue() != Long.MIN_VALUE
+                && expected.getDenominator().bitLength() < 64;
+
+        NodeRational rational = (NodeRational) actual;
+        assertThat(rational.getValue()).isEqualTo(expected);
+        assertThat(rational.toString()).isEqualTo(expected.toString());
+        assertThat(rational.doubleValue()).isEqualTo(expected.doubleValue());
+        assertThat(rational.isSmall()).isEqualTo(fitsInLongs);
+    }
+}
@@ -79,6 +79,18 @@ class NodeVectorTest {
         assertThat(res.getValues()).containsOnly(new NodeDouble(12 + 35), new NodeDouble(43 + 22), new NodeDouble(19));
     }
 
+    @Test
+    void applyBiFuncDoesNotModifyArguments() {
+        NodeVector v1 = new NodeVector(new Node[]{new NodeDouble(12), new NodeDouble(43), new NodeDouble(19)});
+        NodeVector v2 = new NodeVector(new Node[]{new NodeDouble(35)});
+
+        v1.applyBiFunc(v2, NodeNumber::add);
+        v2.applyBiFunc(v1, NodeNumber::add);
+
+        assertThat(v1.getSize()).isEqualTo(3);
+        assertThat(v2.getSize()).isEqualTo(1);
+    }
+
     @Test
     void applyUniFunc() {
         NodeVector res = a.applyUniFunc((n) -> n.add(new NodeDouble(12)));
@@ -103,4 +115,69 @@ class NodeVectorTest {
         assertThat(a.toString()).isEqualTo("{ 12.0, 43.0 }");
         assertThat(b.toString()).isEqualTo("{ 75.0 }");
     }
-}
\ No newline at end of file
+
+    @Test
+    void denseVectorMatchesVectorOfDoubles() {
+        NodeVector dense = new NodeVector(new double[]{12, 43});
+
+        assertThat(dense.isDense()).isTrue();
+        assertThat(a.isDense()).isFalse();
+        assertThat(dense).isEqualTo(a);
+        assertThat(a).isEqualTo(dense);
+        assertThat(dense.hashCode()).isEqualTo(a.hashCode());
+        assertThat(dense.toString()).isEqualTo(a.toString());
+        assertThat(dense.getValues()).containsExactly(a.getValues());
+        assertThat(dense.getTransformer().toNodeNumber()).isEqualTo(a.getTransformer().toNodeNumber());
+        assertThat(dense.getTransformer().toNodeMatrix()).isEqualTo(a.getTransformer().toNodeMatrix());
+        assertThat(new NodeVector(Vector.of(12, 43)).isDense()).isTrue();
+    }
+
+    @Test
+    void primitiveFunctionKeepsVectorDense() {
+        NodeVector dense = new NodeVector(new double[]{12, 43, 1.5});
+
+        NodeVector res = dense.applyBiFunc(new NodeVector(new double[]{1, 2, 3}), NodeNumber::add, Double::sum,
+                ParallelPolicy.SEQUENTIAL);
+        assertThat(res.isDense()).isTrue();
+        assertThat(res).isEqualTo(new NodeVector(new double[]{13, 45, 4.5}));
+
+        NodeVector res2 = dense.applyUniFunc(n -> n.multiply(new NodeRational(2)), x -> x * 2,
+                ParallelPolicy.SEQUENTIAL);
+        assertThat(res2.isDense()).isTrue();
+        assertThat(res2).isEqualTo(new NodeVector(new double[]{24, 86, 3}));
+    }
+
+    @Test
+    void primitiveFunctionMatchesNodeFunctionWithRationals() {
+        NodeVector dense = new NodeVector(new double[]{1.5, -2.25});
+        NodeVector rationals = new NodeVector(new Node[]{new NodeRational(1), new NodeRational(2),
+                new NodeRational(3)});
+        NodeVector single = new NodeVector(new Node[]{new NodeRational(4)});
+
+        for (NodeVector[] pair : new NodeVector[][]{{dense, rationals}, {rationals, dense}, {single, dense},
+                {dense, single}, {dense, dense}}) {
+            NodeVector expected = pair[0].applyBiFunc(pair[1], NodeNumber::subtract);
+            NodeVector actual = pair[0].applyBiFunc(pair[1], NodeNumber::subtract, (x, y) -> x - y,
+                    ParallelPolicy.SEQUENTIAL);
+
+            assertThat(actual).isEqualTo(expected);
+            assertThat(actual.toString()).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    void nodeFunctionResultsOfDoublesAreDense() {
+        assertThat(a.applyUniFunc(n -> new NodeDouble(n.doubleValue() / 3)).isDense()).isTrue();
+        assertThat(a.applyUniFunc(n -> new NodeRational(1)).isDense()).isFalse();
+    }
+
+    @Test
+    void denseVectorDoublesAndSum() {
+        NodeVector dense = new NodeVector(new double[]{3, -1, 2.5});
+
+        assertThat(dense.toDoubleArray()).containsExactly(3, -1, 2.5);
+        assertThat(dense.sum(ParallelPolicy.SEQUENTIAL)).isEqualTo(new NodeDouble(4.5));
+        assertThat(new NodeVector(new double[0]).sum(ParallelPolicy.SEQUENTIAL))
+                .isEqualTo(NodeFactory.createZeroNumber());
+    }
+}
@@ -0,0 +1,69 @@
+package uk.co.ryanharrison.mathengine.parser.nodes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ParallelPolicyTest {
+
+    @Test
+    void runsInParallelFromThreshold() {
+        ParallelPolicy policy = ParallelPolicy.withThreshold(100);
+
+        assertThat(policy.isParallel(99)).isFalse();
+        assertThat(policy.isParallel(100)).isTrue();
+        assertThat(ParallelPolicy.SEQUENTIAL.isParallel(Integer.MAX_VALUE - 1)).isFalse();
+        assertThat(ParallelPolicy.DEFAULT.getThreshold()).isEqualTo(ParallelPolicy.DEFAULT_THRESHOLD);
+    }
+
+    @Test
+    void rejectsThresholdBelowTwo() {
+        assertThatThrownBy(() -> ParallelPolicy.withThreshold(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void visitsEveryIndexOnce() {
+        int size = 50_000;
+        AtomicInteger[] visits = new AtomicInteger[size];
+        for (int i = 0; i < size; i++) {
+            visits[i] = new AtomicInteger();
+        }
+
+        ParallelPolicy.withThreshold(2).forEachIndex(size, i -> visits[i].incrementAndGet());
+
+        assertThat(visits).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    @Test
+    void sumIsExactForRationals() {
+        Node[] values = new Node[ParallelPolicy.CHUNK_SIZE * 5 + 3];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new NodeRational(i % 7 + 1, i % 5 + 1);
+        }
+
+        NodeNumber parallel = ParallelPolicy.withThreshold(2).sum(values);
+        NodeNumber sequential = ParallelPolicy.SEQUENTIAL.sum(values);
+
+        assertThat(parallel).isEqualTo(sequential);
+    }
+
+    @Test
+    void parallelSumIsRepeatable() {
+        Node[] values = new Node[ParallelPolicy.CHUNK_SIZE * 7 + 11];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new NodeDouble(Math.sin(i) * 1e-3 + 0.1);
+        }
+        ParallelPolicy policy = ParallelPolicy.withThreshold(2);
+        double first = policy.sum(values).doubleValue();
+
+        for (int run = 0; run < 20; run++) {
+            assertThat(policy.sum(values).doubleValue()).isEqualTo(first);
+        }
+        assertThat(first).isCloseTo(ParallelPolicy.SEQUENTIAL.sum(values).doubleValue(),
+                within(1e-9));
+    }
+}
@@ -53,6 +53,12 @@ class MathUtilsTest {
         assertThat(MathUtils.factorial(input)).isEqualTo(expected);
     }
 
+    @Test
+    void factorial_Long_HugeInput_StopsOnceProductOverflowsToZero() {
+        assertThat(MathUtils.factorial(66)).isZero();
+        assertThat(MathUtils.factorial(Long.MAX_VALUE)).isZero();
+    }
+
     @ParameterizedTest
     @ValueSource(longs = {-1, -5, -10})
     void factorial_Long_NegativeInput_ThrowsException(long input) {
@@ -0,0 +1,135 @@
+package uk.co.ryanharrison.mathengine.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that {@link NumberScanner} accepts and converts exactly what the exception based checks
+ * it replaced did.
+ */
+class NumberScannerTest {
+
+    private static final String FUZZ_CHARACTERS = "0123456789012345678901234567890123456789..eE+-- xXpPfFdDaAbN";
+
+    private final NumberScanner scanner = new NumberScanner();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0", "-0", "+0", "1", "-1", "12345", "1.", ".5", "-.5", "+.5", "1.25", "0.1", "0.3", "3.14159",
+            "1e3", "1E3", "1e+3", "1e-3", "2.5e-300", "1e400", "1e-400", "4.9e-324", "1.7976931348623157e308",
+            "123456789012345", "1234567890123456", "12345678901234567890", "0.000000000000000000001",
+            "9007199254740993", "0.1000000000000000055511151231257827", "1d", "2f", "1.5D", "1e5F",
+            "NaN", "-NaN", "Infinity", "-Infinity", "+Infinity", " 1 2 3 ", "\t4.5\n", "- 2", "1 e 3",
+            "0x1F", "0X1f", "-0x1F", "0x-1F", "0x+1F", "-0x-8000000000000000", "0x7FFFFFFFFFFFFFFF",
+            "0x8000000000000000", "0x", "0x1.8p1", "+0x1.8p1", "+0x1p-3d", "+0x1", "+0xp1",
+            "", " ", ".", "-", "+", "e5", "1e", "1e+", "1.2.3", "1e2e3", "--5", "+-5", "1f5", "1ff", "abc",
+            "12a34", "0xGHIJ", "NaNd", "Infinityf", "nan", "infinity", "1_000", "١٢", "0.5.", "x", "1 + 2"
+    })
+    void matchesParseDouble(String input) {
+        assertMatches(input);
+    }
+
+    @Test
+    void matchesParseDoubleForRandomInput() {
+        Random random = new Random(7331L);
+        StringBuilder builder = new StringBuilder();
+
+        for (int n = 0; n < 20000; n++) {
+            builder.setLength(0);
+            int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                builder.append(FUZZ_CHARACTERS.charAt(random.nextInt(FUZZ_CHARACTERS.length())));
+            }
+            assertMatches(builder.toString());
+        }
+    }
+
+    @Test
+    void convertsRandomDoublesExactly() {
+        Random random = new Random(1234L);
+
+        for (int n = 0; n < 20000; n++) {
+            double value = switch (n % 3) {
+                case 0 -> random.nextInt(2_000_000) / 1000.0;
+                case 1 -> random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+                default -> Double.longBitsToDouble(random.nextLong());
+            };
+            String text = Double.toString(value);
+
+            assertThat(scanner.scan(text, 0, text.length())).as(text).isTrue();
+            assertThat(Double.valueOf(scanner.getValue())).as(text).isEqualTo(Double.valueOf(text));
+        }
+    }
+
+    @Test
+    void scansRange() {
+        assertThat(scanner.scan("1 + 2.5e3", 4, 9)).isTrue();
+        assertThat(scanner.getValue()).isEqualTo(2500.0);
+        assertThat(scanner.scan("1 + 2.5e3", 0, 3)).isFalse();
+        assertThat(NumberScanner.isNumeric("(42)", 1, 3)).isTrue();
+    }
+
+    @Test
+    void hexadecimalIntegersAreNumericButHaveNoDoubleValue() {
+        assertThat(scanner.scan("0x1F", 0, 4)).isTrue();
+        assertThatThrownBy(scanner::getValue).isInstanceOf(NumberFormatException.class);
+    }
+
+    private void assertMatches(String input) {
+        boolean expected = isNumericByExceptions(input);
+
+        assertThat(scanner.scan(input, 0, input.length())).as("\"%s\"", input).isEqualTo(expected);
+        assertThat(Utils.isNumeric(input)).as("\"%s\"", input).isEqualTo(expected);
+
+        if (expected) {
+            Object expectedValue = parseOutcome(input.replaceAll("\\s", ""));
+            Object actualValue;
+            try {
+                actualValue = scanner.getValue();
+            } catch (NumberFormatException e) {
+                actualValue = e.getClass();
+            }
+            assertThat(actualValue).as("\"%s\"", input).isEqualTo(expectedValue);
+        }
+    }
+
+    private static Object parseOutcome(String input) {
+        try {
+            return Double.parseDouble(input);
+        } catch (NumberFormatException e) {
+            return e.getClass();
+        }
+    }
+
+    /**
+     * The check {@link Utils#isNumeric(String)} made before it used {@link NumberScanner}
+     */
+    private static boolean isNumericByExceptions(String string) {
+        String str = string.replaceAll("\\s", "");
+        if (str.isEmpty()) {
+            return false;
+        }
+
+        if (str.startsWith("0x") || str.startsWith("0X") || str.startsWith("-0x") || str.startsWith("-0X")) {
+            try {
+                Long.parseLong(str.startsWith("-") ? str.substring(3) : str.substring(2), 16);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        try {
+            Double.parseDouble(str);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}